@@ -7,6 +7,8 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 @EnableAsync(proxyTargetClass = true)
@@ -30,6 +32,12 @@ public class AsyncConfig {
     @Value("${file.batch.thread-pool.queue-capacity:75}")
     private int fileBatchQueueCapacity;
 
+    @Value("${app.recommendation.slates.parallelism:4}")
+    private int recommendationBatchParallelism;
+
+    @Value("${app.notification.dispatcher.threads:2}")
+    private int notificationDispatchThreads;
+
     @Bean("fileUploadExecutor")
     public Executor fileUploadExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -55,4 +63,36 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    // Worker tính slate gợi ý: mỗi worker xử lý lần lượt các phân vùng user
+    @Bean("recommendationBatchExecutor")
+    public Executor recommendationBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(recommendationBatchParallelism);
+        executor.setMaxPoolSize(recommendationBatchParallelism);
+        executor.setQueueCapacity(recommendationBatchParallelism);
+        executor.setThreadNamePrefix("recommendation-batch-");
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Dispatcher outbox thông báo, đánh thức sau commit; không chạy trên thread của request khi pool đầy
+    // (sự kiện nằm trong bảng, poll định kỳ sẽ xử lý)
+    @Bean("notificationDispatchExecutor")
+    public Executor notificationDispatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(notificationDispatchThreads);
+        executor.setMaxPoolSize(notificationDispatchThreads);
+        executor.setQueueCapacity(notificationDispatchThreads);
+        executor.setThreadNamePrefix("notification-dispatch-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Chấm điểm ứng viên gợi ý theo request: mỗi phân vùng 1 virtual thread, không giới hạn số thread
+    @Bean(name = "recommendationScoringExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService recommendationScoringExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("recommendation-scoring-", 0).factory());
+    }
 }
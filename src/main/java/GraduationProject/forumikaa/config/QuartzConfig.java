@@ -0,0 +1,38 @@
+package GraduationProject.forumikaa.config;
+
+import GraduationProject.forumikaa.job.RecommendationSlateJob;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QuartzConfig {
+
+    @Value("${app.recommendation.slates.cron:0 0 3 * * ?}")
+    private String recommendationSlateCron;
+
+    @Bean
+    public JobDetail recommendationSlateJobDetail() {
+        return JobBuilder.newJob(RecommendationSlateJob.class)
+                .withIdentity("recommendationSlateJob", "recommendation")
+                .withDescription("Tính sẵn slate gợi ý bài viết / người dùng / nhóm")
+                .storeDurably()
+                .requestRecovery()
+                .build();
+    }
+
+    @Bean
+    public Trigger recommendationSlateTrigger(JobDetail recommendationSlateJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(recommendationSlateJobDetail)
+                .withIdentity("recommendationSlateTrigger", "recommendation")
+                .withSchedule(CronScheduleBuilder.cronSchedule(recommendationSlateCron)
+                        .withMisfireHandlingInstructionFireAndProceed())
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package GraduationProject.forumikaa.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật các job @Scheduled (dispatcher thông báo, flush counter, compactor, dọn storage...).
+ * Profile benchmark tắt bằng app.scheduling.enabled=false để số câu lệnh SQL đo được không lẫn query của job nền.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
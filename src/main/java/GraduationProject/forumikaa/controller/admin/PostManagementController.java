@@ -15,6 +15,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +35,9 @@ public class PostManagementController {
         this.groupService = groupService;
     }
 
+    // Số bài viết xóa trong 1 transaction khi xóa hàng loạt
+    private static final int BULK_DELETE_CHUNK_SIZE = 50;
+
     // Static maps for status and privacy mapping
     private static final Map<PostStatus, String> STATUS_TEXT_MAP = Map.of(
             PostStatus.PENDING, "Chờ duyệt",
@@ -200,20 +204,15 @@ public class PostManagementController {
 
             System.out.println("DEBUG: PostIds to delete: " + postIds);
 
-            int deletedCount = 0;
-            for (Long postId : postIds) {
-                try {
-                    postService.deleteById(postId);
-                    deletedCount++;
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
+            // File vật lý được xóa bởi storage cleanup worker, không chặn request
+            BulkDeleteResult result = bulkDelete(postIds);
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "message", "Đã xóa " + deletedCount + " bài viết thành công",
-                    "deletedCount", deletedCount
+                    "message", "Đã xóa " + result.deletedCount + " bài viết thành công"
+                            + (result.failedIds.isEmpty() ? "" : ", không thể xóa " + result.failedIds.size() + " bài viết"),
+                    "deletedCount", result.deletedCount,
+                    "failedIds", result.failedIds
             ));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("success", false, "message", "Lỗi khi xóa bài viết: " + e.getMessage()));
@@ -338,19 +337,14 @@ public class PostManagementController {
                                        @RequestParam("postIds") List<Long> postIds,
                                        RedirectAttributes redirectAttributes) {
         try {
-            int deletedCount = 0;
-            for (Long postId : postIds) {
-                try {
-                    postService.deleteById(postId);
-                    deletedCount++;
-                } catch (Exception e) {
-                    System.err.println("Error deleting post " + postId + ": " + e.getMessage());
-                }
-            }
+            BulkDeleteResult result = bulkDelete(postIds);
 
-            if (deletedCount > 0) {
-                redirectAttributes.addFlashAttribute("successMessage", "Đã xóa thành công " + deletedCount + " bài viết!");
-            } else {
+            if (result.deletedCount > 0) {
+                redirectAttributes.addFlashAttribute("successMessage", "Đã xóa thành công " + result.deletedCount + " bài viết!");
+            }
+            if (!result.failedIds.isEmpty()) {
+                redirectAttributes.addFlashAttribute("errorMessage", "Không thể xóa các bài viết: " + result.failedIds);
+            } else if (result.deletedCount == 0) {
                 redirectAttributes.addFlashAttribute("errorMessage", "Không thể xóa bài viết nào!");
             }
         } catch (Exception e) {
@@ -382,4 +376,34 @@ public class PostManagementController {
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
         }
     }
+
+    /**
+     * Xóa theo từng chunk, mỗi chunk 1 transaction; chunk lỗi được xóa lại từng bài một
+     * để 1 bài lỗi không làm rollback các bài khác và vẫn báo lỗi theo từng id
+     */
+    private BulkDeleteResult bulkDelete(List<Long> postIds) {
+        BulkDeleteResult result = new BulkDeleteResult();
+        for (int from = 0; from < postIds.size(); from += BULK_DELETE_CHUNK_SIZE) {
+            List<Long> chunk = postIds.subList(from, Math.min(from + BULK_DELETE_CHUNK_SIZE, postIds.size()));
+            try {
+                result.deletedCount += postService.deleteAllByIds(chunk);
+            } catch (Exception chunkError) {
+                for (Long postId : chunk) {
+                    try {
+                        postService.deleteById(postId);
+                        result.deletedCount++;
+                    } catch (Exception e) {
+                        System.err.println("Error deleting post " + postId + ": " + e.getMessage());
+                        result.failedIds.add(postId);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static final class BulkDeleteResult {
+        private int deletedCount;
+        private final List<Long> failedIds = new ArrayList<>();
+    }
 }
@@ -1,6 +1,23 @@
 package GraduationProject.forumikaa.controller.admin;
 
+import GraduationProject.forumikaa.service.FriendGraphService;
+import GraduationProject.forumikaa.service.GroupIndexService;
+import GraduationProject.forumikaa.service.InteractionService;
+import GraduationProject.forumikaa.service.LikeCacheService;
+import GraduationProject.forumikaa.service.NotificationCounterService;
+import GraduationProject.forumikaa.service.NotificationDispatchService;
+import GraduationProject.forumikaa.service.PopularPostIndexService;
+import GraduationProject.forumikaa.service.PostCardCacheService;
+import GraduationProject.forumikaa.service.RecommendationCacheService;
+import GraduationProject.forumikaa.service.RecommendationScoringService;
+import GraduationProject.forumikaa.service.RecommendationSlateService;
+import GraduationProject.forumikaa.service.SenderSnippetCacheService;
 import GraduationProject.forumikaa.service.StatisticsService;
+import GraduationProject.forumikaa.service.StorageCleanupService;
+import GraduationProject.forumikaa.service.TopicPostIndexService;
+import GraduationProject.forumikaa.service.TopicService;
+import GraduationProject.forumikaa.service.TrendingTopicService;
+import GraduationProject.forumikaa.service.UserInterestService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +32,107 @@ public class StatisticsController {
     @Autowired
     private StatisticsService statisticsService;
 
+    @Autowired
+    private LikeCacheService likeCacheService;
+
+    @Autowired
+    private PostCardCacheService postCardCacheService;
+
+    @Autowired
+    private StorageCleanupService storageCleanupService;
+
+    @Autowired
+    private TopicService topicService;
+
+    @Autowired
+    private TrendingTopicService trendingTopicService;
+
+    @Autowired
+    private TopicPostIndexService topicPostIndexService;
+
+    @Autowired
+    private PopularPostIndexService popularPostIndexService;
+
+    @Autowired
+    private FriendGraphService friendGraphService;
+
+    @Autowired
+    private UserInterestService userInterestService;
+
+    @Autowired
+    private InteractionService interactionService;
+
+    @Autowired
+    private GroupIndexService groupIndexService;
+
+    @Autowired
+    private RecommendationSlateService recommendationSlateService;
+
+    @Autowired
+    private RecommendationScoringService recommendationScoringService;
+
+    @Autowired
+    private RecommendationCacheService recommendationCacheService;
+
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Autowired
+    private SenderSnippetCacheService senderSnippetCacheService;
+
+    @Autowired
+    private NotificationDispatchService notificationDispatchService;
+
+    // Hit/miss và bộ nhớ của các cache trong ứng dụng
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        return ResponseEntity.ok(Map.of(
+                "likeCache", likeCacheService.getStats(),
+                "postCardCache", postCardCacheService.getStats(),
+                "topicRegistry", topicService.getRegistryStats(),
+                "trendingTopics", trendingTopicService.getStats(),
+                "topicPostIndex", topicPostIndexService.getStats(),
+                "popularPosts", popularPostIndexService.getStats(),
+                "friendGraph", friendGraphService.getStats(),
+                "userInterests", userInterestService.getStats(),
+                "groupIndex", groupIndexService.getStats(),
+                "recommendations", recommendationCacheService.getStats()));
+    }
+
+    // Số sự kiện tương tác chờ compact và số cặp user đang có tổng trong cửa sổ
+    @GetMapping("/interactions")
+    public ResponseEntity<Map<String, Object>> getInteractionStatistics() {
+        return ResponseEntity.ok(interactionService.getStats());
+    }
+
+    // Số file đang chờ xóa khỏi storage và số file đã bỏ cuộc
+    @GetMapping("/storage-cleanup")
+    public ResponseEntity<Map<String, Object>> getStorageCleanupStatistics() {
+        return ResponseEntity.ok(storageCleanupService.getStats());
+    }
+
+    // Tiến độ lần chạy gần nhất của job tính slate gợi ý và số slate đang lưu
+    @GetMapping("/recommendation-slates")
+    public ResponseEntity<Map<String, Object>> getRecommendationSlateStatistics() {
+        return ResponseEntity.ok(recommendationSlateService.getStats());
+    }
+
+    // Số request chấm điểm gợi ý, số lần hết deadline / trả kết quả một phần và độ trễ theo từng loại gợi ý
+    @GetMapping("/recommendation-scoring")
+    public ResponseEntity<Map<String, Object>> getRecommendationScoringStatistics() {
+        return ResponseEntity.ok(recommendationScoringService.getStats());
+    }
+
+    // Counter thông báo chưa đọc (số lần đếm lại từ database), cache người gửi thông báo,
+    // độ sâu và độ trễ của outbox thông báo
+    @GetMapping("/notifications")
+    public ResponseEntity<Map<String, Object>> getNotificationStatistics() {
+        return ResponseEntity.ok(Map.of(
+                "unreadCounters", notificationCounterService.getStats(),
+                "senderCache", senderSnippetCacheService.getStats(),
+                "outbox", notificationDispatchService.getStats()));
+    }
+
     @GetMapping("/posts")
     public ResponseEntity<Map<String, Object>> getPostStatistics(@RequestParam String startDate, @RequestParam String endDate) {
         try {
@@ -1,16 +1,19 @@
 package GraduationProject.forumikaa.controller.user;
+import GraduationProject.forumikaa.dto.FeedPageResponse;
 import GraduationProject.forumikaa.dto.PostResponse;
 import GraduationProject.forumikaa.dto.GroupMemberDto;
-import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.dto.TrendingTopicResponse;
 import GraduationProject.forumikaa.entity.GroupMember;
+import GraduationProject.forumikaa.entity.User;
 import GraduationProject.forumikaa.service.PostService;
-import GraduationProject.forumikaa.service.TopicService;
+import GraduationProject.forumikaa.service.TrendingTopicService;
 import GraduationProject.forumikaa.dao.GroupMemberDao;
 import GraduationProject.forumikaa.util.SecurityUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -25,11 +28,11 @@ public class HomeController {
         this.postService = postService;
     }
 
-    private TopicService topicService;
+    private TrendingTopicService trendingTopicService;
 
     @Autowired
-    public void setTopicService(TopicService topicService) {
-        this.topicService = topicService;
+    public void setTrendingTopicService(TrendingTopicService trendingTopicService) {
+        this.trendingTopicService = trendingTopicService;
     }
 
     private SecurityUtil securityUtil;
@@ -53,7 +56,7 @@ public class HomeController {
     public String home(Model model) {
         String userName = "Khách";
         Long userId = null;
-        GraduationProject.forumikaa.entity.User user = null;
+        User user = null;
         try {
             userName = securityUtil.getCurrentUsername();
             userId = securityUtil.getCurrentUserId();
@@ -62,12 +65,16 @@ public class HomeController {
             }
         } catch (RuntimeException ignored) {}
 
-        List<PostResponse> posts = (userId != null)
-                ? postService.getUserFeed(userId)
-                : List.of();
+        List<PostResponse> posts = List.of();
+        String nextCursor = null;
+        if (userId != null) {
+            FeedPageResponse feed = postService.getUserFeed(userId, null, null);
+            posts = feed.getPosts();
+            nextCursor = feed.getNextCursor();
+        }
 
-        // Đơn giản hóa logic - chỉ lấy trending topics
-        List<Topic> trendingTopics = topicService.getTopTopics(10);
+        // Trending topics đọc từ index trong bộ nhớ (O(K), không query database)
+        List<TrendingTopicResponse> trendingTopics = trendingTopicService.getTrendingTopics(10);
 
         // Lấy danh sách nhóm của user (nếu đã đăng nhập)
         List<GroupMemberDto> userGroups = List.of();
@@ -101,6 +108,7 @@ public class HomeController {
         model.addAttribute("userName", userName);
         model.addAttribute("user", user);
         model.addAttribute("posts", posts);
+        model.addAttribute("nextCursor", nextCursor);
         model.addAttribute("trendingTopics", trendingTopics);
         model.addAttribute("userGroups", userGroups);
         return "user/index";
@@ -108,11 +116,25 @@ public class HomeController {
 
 
 
+    // Infinite scroll: trả về HTML fragment của trang feed tiếp theo
+    @GetMapping("/feed/page")
+    public String feedPage(@RequestParam(required = false) String cursor,
+                           @RequestParam(required = false) Integer size,
+                           Model model) {
+        User user = securityUtil.getCurrentUser();
+        FeedPageResponse feed = postService.getUserFeed(user.getId(), cursor, size);
+
+        model.addAttribute("user", user);
+        model.addAttribute("posts", feed.getPosts());
+        model.addAttribute("nextCursor", feed.getNextCursor());
+        return "fragments/user/feed-posts :: feed-posts";
+    }
+
     @GetMapping("/recommendations")
     public String recommendations(Model model) {
         String userName = "Khách";
         Long userId = null;
-        GraduationProject.forumikaa.entity.User user = null;
+        User user = null;
         try {
             userName = securityUtil.getCurrentUsername();
             userId = securityUtil.getCurrentUserId();
@@ -130,7 +152,7 @@ public class HomeController {
     public String chat(Model model) {
         String userName = "Khách";
         Long userId = null;
-        GraduationProject.forumikaa.entity.User user = null;
+        User user = null;
         try {
             userName = securityUtil.getCurrentUsername();
             userId = securityUtil.getCurrentUserId();
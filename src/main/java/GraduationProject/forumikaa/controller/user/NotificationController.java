@@ -25,9 +25,10 @@ public class NotificationController {
     @Autowired private CommentDao commentDao;
 
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getUserNotifications() {
+    public ResponseEntity<List<Map<String, Object>>> getUserNotifications(@RequestParam(required = false) Long beforeId,
+                                                                          @RequestParam(required = false) Integer limit) {
         Long userId = securityUtil.getCurrentUserId();
-        return ResponseEntity.ok(notificationService.getNotificationDtos(userId));
+        return ResponseEntity.ok(notificationService.getNotificationDtos(userId, beforeId, limit));
     }
 
     @GetMapping("/unread-count")
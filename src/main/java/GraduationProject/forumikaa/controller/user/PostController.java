@@ -1,5 +1,6 @@
 package GraduationProject.forumikaa.controller.user;
 
+import GraduationProject.forumikaa.dto.FeedPageResponse;
 import GraduationProject.forumikaa.dto.PostRequest;
 import GraduationProject.forumikaa.dto.PostResponse;
 import GraduationProject.forumikaa.service.PostService;
@@ -13,8 +14,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import GraduationProject.forumikaa.entity.Topic;
-import GraduationProject.forumikaa.service.TopicService;
+import GraduationProject.forumikaa.dto.TrendingTopicResponse;
+import GraduationProject.forumikaa.service.TrendingTopicService;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -22,7 +23,7 @@ public class PostController {
 
     @Autowired private PostService postService;
     @Autowired private SecurityUtil securityUtil;
-    @Autowired private TopicService topicService;
+    @Autowired private TrendingTopicService trendingTopicService;
 
     // 1. Tạo post mới
     @PostMapping
@@ -43,12 +44,13 @@ public class PostController {
         }
     }
 
-    // 2. Lấy toàn bộ
+    // 2. Lấy news feed theo trang (cursor-based)
     @GetMapping("/feed")
-    public ResponseEntity<List<PostResponse>> getUserFeed() {
+    public ResponseEntity<FeedPageResponse> getUserFeed(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size) {
         Long userId = getCurrentUserId();
-        List<PostResponse> posts = postService.getUserFeed(userId);
-        return ResponseEntity.ok(posts);
+        FeedPageResponse feed = postService.getUserFeed(userId, cursor, size);
+        return ResponseEntity.ok(feed);
     }
 
     // 3. Lấy bài viết cá nhân
@@ -146,13 +148,14 @@ public class PostController {
     @GetMapping("/trending-topics")
     public ResponseEntity<List<Map<String, Object>>> getTrendingTopics() {
         try {
-            List<Topic> trendingTopics = topicService.getTopTopics(10);
+            List<TrendingTopicResponse> trendingTopics = trendingTopicService.getTrendingTopics(10);
             List<Map<String, Object>> topicData = trendingTopics.stream()
                     .map(topic -> {
                         Map<String, Object> map = new HashMap<>();
                         map.put("id", topic.getId());
                         map.put("name", topic.getName());
-                        map.put("usageCount", topic.getUsageCount());
+                        map.put("usageCount", topic.getRecentPosts());
+                        map.put("score", topic.getScore());
                         return map;
                     })
                     .collect(Collectors.toList());
@@ -164,21 +167,15 @@ public class PostController {
         }
     }
 
-    // 12. Like/Unlike bài viết
+    // 12. Like/Unlike bài viết (liked = trạng thái mong muốn, bỏ trống để toggle)
     @PostMapping("/{postId}/like")
-    public ResponseEntity<Map<String, Object>> toggleLike(@PathVariable Long postId) {
+    public ResponseEntity<Map<String, Object>> toggleLike(@PathVariable Long postId,
+                                                         @RequestParam(required = false) Boolean liked) {
         try {
-            System.out.println("=== LIKE DEBUG ===");
-            System.out.println("PostId: " + postId);
-            
             Long userId = getCurrentUserId();
-            System.out.println("UserId: " + userId);
-            
-            boolean isLiked = postService.toggleLike(postId, userId);
-            Long likeCount = postService.getPostLikeCount(postId);
 
-            System.out.println("IsLiked: " + isLiked + ", LikeCount: " + likeCount);
-            System.out.println("=== END LIKE DEBUG ===");
+            boolean isLiked = postService.toggleLike(postId, userId, liked).isLiked();
+            Long likeCount = postService.getPostLikeCount(postId);
 
             return ResponseEntity.ok(Map.of(
                 "isLiked", isLiked,
@@ -2,8 +2,11 @@ package GraduationProject.forumikaa.controller.user;
 
 import GraduationProject.forumikaa.dto.*;
 import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.service.RecommendationCacheService;
+import GraduationProject.forumikaa.service.RecommendationCacheService.Tab;
 import GraduationProject.forumikaa.service.RecommendationService;
 import GraduationProject.forumikaa.service.PostRecommendationServiceImpl;
+import GraduationProject.forumikaa.service.RecommendationSlateService;
 import GraduationProject.forumikaa.util.SecurityUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +25,12 @@ public class RecommendationController {
     @Autowired
     private PostRecommendationServiceImpl crawledContentService;
 
+    @Autowired
+    private RecommendationSlateService recommendationSlateService;
+
+    @Autowired
+    private RecommendationCacheService recommendationCacheService;
+
     @Autowired
     private SecurityUtil securityUtil;
 
@@ -34,24 +43,27 @@ public class RecommendationController {
             @RequestParam(required = false) String type) {
         try {
             Long currentUserId = securityUtil.getCurrentUserId();
-            List<UserRecommendationResponse> recommendations;
-            
-            if ("INTERESTS".equals(type)) {
-                recommendations = recommendationService.recommendUsersByInterests(currentUserId, limit);
-            } else if ("MUTUAL_FRIENDS".equals(type)) {
-                recommendations = recommendationService.recommendUsersByMutualFriends(currentUserId, limit);
-            } else if ("RECENT_INTERACTIONS".equals(type)) {
-                recommendations = recommendationService.recommendUsersByRecentInteractions(currentUserId, limit);
-            } else {
-                // Default: tổng hợp cả ba
-                recommendations = recommendationService.recommendUsers(currentUserId, limit);
-            }
+            List<UserRecommendationResponse> recommendations = recommendationCacheService.get(currentUserId, Tab.USERS,
+                    type + ":" + limit, () -> computeUserRecommendations(currentUserId, limit, type));
             
             return ResponseEntity.ok(recommendations);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private List<UserRecommendationResponse> computeUserRecommendations(Long currentUserId, Integer limit, String type) {
+        if ("INTERESTS".equals(type)) {
+            return recommendationService.recommendUsersByInterests(currentUserId, limit);
+        } else if ("MUTUAL_FRIENDS".equals(type)) {
+            return recommendationService.recommendUsersByMutualFriends(currentUserId, limit);
+        } else if ("RECENT_INTERACTIONS".equals(type)) {
+            return recommendationService.recommendUsersByRecentInteractions(currentUserId, limit);
+        }
+        // Default: tổng hợp cả ba - ưu tiên slate tính sẵn, chưa có slate thì tính trực tiếp
+        return recommendationSlateService.getUserSlate(currentUserId, limit)
+                .orElseGet(() -> recommendationService.recommendUsers(currentUserId, limit));
+    }
     
     /**
      * Tab 1: Cho riêng bạn - Phân tích điểm dựa trên topic quan tâm và tương tác
@@ -61,8 +73,9 @@ public class RecommendationController {
             @RequestParam(defaultValue = "20") Integer limit) {
         try {
             Long currentUserId = securityUtil.getCurrentUserId();
-            List<PostResponse> recommendations = crawledContentService
-                    .getPersonalizedContent(currentUserId, limit);
+            List<PostResponse> recommendations = recommendationCacheService.get(currentUserId, Tab.PERSONALIZED,
+                    String.valueOf(limit), () -> recommendationSlateService.getPostSlate(currentUserId, limit)
+                            .orElseGet(() -> crawledContentService.getPersonalizedContent(currentUserId, limit)));
             
             return ResponseEntity.ok(recommendations);
         } catch (Exception e) {
@@ -105,6 +118,21 @@ public class RecommendationController {
         }
     }
     
+    /**
+     * Bài viết được nhiều người quan tâm theo cursor - các trang sau giữ nguyên thứ tự của trang đầu
+     */
+    @GetMapping("/popular/page")
+    public ResponseEntity<FeedPageResponse> getPopularPostsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        try {
+            Long currentUserId = securityUtil.getCurrentUserId();
+            return ResponseEntity.ok(crawledContentService.getPopularPostsPage(currentUserId, cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * Tab 3: Gợi ý nhóm - Nhóm liên quan topic quan tâm và có nhiều bạn chung
      */
@@ -113,8 +141,9 @@ public class RecommendationController {
             @RequestParam(defaultValue = "20") Integer limit) {
         try {
             Long currentUserId = securityUtil.getCurrentUserId();
-            List<GroupRecommendationResponse> recommendations = recommendationService
-                    .recommendGroups(currentUserId, limit);
+            List<GroupRecommendationResponse> recommendations = recommendationCacheService.get(currentUserId, Tab.GROUPS,
+                    String.valueOf(limit), () -> recommendationSlateService.getGroupSlate(currentUserId, limit)
+                            .orElseGet(() -> recommendationService.recommendGroups(currentUserId, limit)));
             
             return ResponseEntity.ok(recommendations);
         } catch (Exception e) {
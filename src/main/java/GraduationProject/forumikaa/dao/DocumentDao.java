@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,6 +21,10 @@ public interface DocumentDao extends JpaRepository<Document, Long> {
     
     @Query("SELECT COUNT(d) FROM Document d WHERE d.post.id = :postId")
     Long countDocumentsByPostId(@Param("postId") Long postId);
+
+    // Batch hydration: documents của nhiều bài viết trong 1 query
+    @Query("SELECT d FROM Document d WHERE d.post.id IN :postIds ORDER BY d.uploadedAt ASC")
+    List<Document> findByPostIdIn(@Param("postIds") Collection<Long> postIds);
     
 }
 
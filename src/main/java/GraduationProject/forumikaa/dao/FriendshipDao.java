@@ -24,6 +24,14 @@ public interface FriendshipDao extends JpaRepository<Friendship, Long> {
     Optional<Friendship> findBetweenUsers(@Param("userId") Long userId,
                                           @Param("otherUserId") Long otherUserId);
 
+    @Query("""
+        SELECT COUNT(f) > 0 FROM Friendship f
+        WHERE f.status = 'ACCEPTED'
+          AND ((f.user.id = :userId AND f.friend.id = :otherUserId)
+            OR (f.user.id = :otherUserId AND f.friend.id = :userId))
+    """)
+    boolean areFriends(@Param("userId") Long userId, @Param("otherUserId") Long otherUserId);
+
     List<Friendship> findByUserIdAndStatus(Long userId, FriendshipStatus status);
     List<Friendship> findByFriendIdAndStatus(Long friendId, FriendshipStatus status);
 
@@ -35,6 +43,22 @@ public interface FriendshipDao extends JpaRepository<Friendship, Long> {
     """)
     List<User> findFriendsOf(@Param("userId") Long userId);
 
+    @Query("""
+        SELECT CASE WHEN f.user.id = :userId THEN f.friend.id ELSE f.user.id END
+        FROM Friendship f
+        WHERE (f.user.id = :userId OR f.friend.id = :userId)
+          AND f.status = 'ACCEPTED'
+    """)
+    List<Long> findFriendIdsOf(@Param("userId") Long userId);
+
+    // Mọi user đã có quan hệ với userId (bạn bè, lời mời đang chờ ở cả 2 chiều, chặn) - không gợi ý kết bạn lại
+    @Query("""
+        SELECT CASE WHEN f.user.id = :userId THEN f.friend.id ELSE f.user.id END
+        FROM Friendship f
+        WHERE f.user.id = :userId OR f.friend.id = :userId
+    """)
+    List<Long> findRelatedUserIdsOf(@Param("userId") Long userId);
+
     @Query("""
         SELECT u FROM User u
         LEFT JOIN FETCH u.userProfile
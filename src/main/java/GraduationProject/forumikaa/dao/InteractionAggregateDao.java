@@ -0,0 +1,34 @@
+package GraduationProject.forumikaa.dao;
+
+import GraduationProject.forumikaa.entity.InteractionAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InteractionAggregateDao extends JpaRepository<InteractionAggregate, Long> {
+
+    // Người tương tác nhiều nhất với bài viết của userId và chưa là bạn bè - 1 lần đọc theo index (target_user_id, interaction_count)
+    @Query(value = """
+        SELECT a.* FROM interaction_aggregates a
+        WHERE a.target_user_id = :userId AND a.interaction_count > 0 AND a.actor_id <> :userId
+          AND NOT EXISTS (
+            SELECT 1 FROM friendships f
+            WHERE f.status = 'ACCEPTED'
+              AND ((f.user_id = a.target_user_id AND f.friend_id = a.actor_id)
+                OR (f.user_id = a.actor_id AND f.friend_id = a.target_user_id))
+          )
+        ORDER BY a.interaction_count DESC, a.actor_id
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<InteractionAggregate> findTopInteractors(@Param("userId") Long userId, @Param("limit") int limit);
+
+    // Dọn cặp không còn tương tác nào trong cửa sổ
+    @Modifying
+    @Query("DELETE FROM InteractionAggregate a WHERE a.interactionCount <= 0")
+    int deleteEmpty();
+}
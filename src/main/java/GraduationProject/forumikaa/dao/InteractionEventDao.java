@@ -0,0 +1,12 @@
+package GraduationProject.forumikaa.dao;
+
+import GraduationProject.forumikaa.entity.InteractionEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InteractionEventDao extends JpaRepository<InteractionEvent, Long> {
+
+    // Số sự kiện chưa được compact vào aggregate
+    long countByCompactedFalse();
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +18,38 @@ public interface LikeDao extends JpaRepository<Like, Long> {
     Optional<Like> findByUserIdAndLikeableIdAndLikeableType(Long userId, Long likeableId, LikeableType likeableType);
     
     boolean existsByUserIdAndLikeableIdAndLikeableType(Long userId, Long likeableId, LikeableType likeableType);
+
+    // Batch: trong các likeableIds, những id nào user đã like
+    @Query("SELECT l.likeableId FROM Like l WHERE l.user.id = :userId AND l.likeableType = :likeableType AND l.likeableId IN :likeableIds")
+    List<Long> findLikedIdsByUser(@Param("userId") Long userId,
+                                  @Param("likeableType") LikeableType likeableType,
+                                  @Param("likeableIds") Collection<Long> likeableIds);
     
+    // Toàn bộ id user đã like (nạp bitmap cho LikeCacheService)
+    @Query("SELECT l.likeableId FROM Like l WHERE l.user.id = :userId AND l.likeableType = :likeableType")
+    List<Long> findAllLikedIdsByUser(@Param("userId") Long userId, @Param("likeableType") LikeableType likeableType);
+
+    // Atomic like: 1 statement, không đụng unique constraint khi request bị lặp (trả về rỗng nếu đã like)
+    @Query(value = """
+        INSERT INTO likes (user_id, likeable_id, likeable_type, created_at)
+        VALUES (:userId, :likeableId, :likeableType, CURRENT_TIMESTAMP)
+        ON CONFLICT (user_id, likeable_id, likeable_type) DO NOTHING
+        RETURNING id
+    """, nativeQuery = true)
+    List<Long> insertIfAbsent(@Param("userId") Long userId,
+                              @Param("likeableId") Long likeableId,
+                              @Param("likeableType") String likeableType);
+
+    // Atomic unlike: trả về rỗng nếu chưa like
+    @Query(value = """
+        DELETE FROM likes
+        WHERE user_id = :userId AND likeable_id = :likeableId AND likeable_type = :likeableType
+        RETURNING id
+    """, nativeQuery = true)
+    List<Long> deleteReturningIds(@Param("userId") Long userId,
+                                  @Param("likeableId") Long likeableId,
+                                  @Param("likeableType") String likeableType);
+
     @Query("SELECT COUNT(l) FROM Like l WHERE l.likeableId = :likeableId AND l.likeableType = :likeableType")
     Long countByLikeableIdAndLikeableType(@Param("likeableId") Long likeableId, @Param("likeableType") LikeableType likeableType);
     
@@ -1,13 +1,19 @@
 package GraduationProject.forumikaa.dao;
 
+import GraduationProject.forumikaa.dto.NotificationDto;
 import GraduationProject.forumikaa.entity.Notification;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +24,33 @@ public interface NotificationDao extends JpaRepository<Notification, Long> {
 
     List<Notification> findByRecipientId(Long recipientId);
 
+    // Replay khi kết nối WebSocket: thông báo mới hơn afterId, mới nhất trước (index recipient_id, id)
+    @Query("SELECT n FROM Notification n WHERE n.recipientId = :recipientId AND n.id > :afterId ORDER BY n.id DESC")
+    List<Notification> findNewerThan(@Param("recipientId") Long recipientId, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Replay khi kết nối WebSocket: thông báo client đã nhận (id <= lastSeenId) nhưng thay đổi sau lần nhận cuối
+    @Query("""
+        SELECT n FROM Notification n
+        WHERE n.recipientId = :recipientId AND n.id <= :lastSeenId AND n.updatedAt > :since
+        ORDER BY n.updatedAt DESC
+    """)
+    List<Notification> findUpdatedSince(@Param("recipientId") Long recipientId, @Param("lastSeenId") Long lastSeenId,
+                                        @Param("since") LocalDateTime since, Pageable pageable);
+
+    // Trang danh sách thông báo (id < beforeId, mới nhất trước) kèm username / avatar người gửi trong cùng query
+    @Query("""
+        SELECT new GraduationProject.forumikaa.dto.NotificationDto(
+            n.id, n.message, n.link, n.isRead, n.createdAt, n.type, n.relatedEntityId, n.relatedEntityType,
+            n.senderId, u.username, p.avatar)
+        FROM Notification n
+        LEFT JOIN User u ON u.id = n.senderId
+        LEFT JOIN u.userProfile p
+        WHERE n.recipientId = :recipientId AND n.id < :beforeId
+        ORDER BY n.id DESC
+    """)
+    List<NotificationDto> findPageByRecipientId(@Param("recipientId") Long recipientId, @Param("beforeId") Long beforeId,
+                                                Pageable pageable);
+
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipientId = :recipientId AND n.isRead = false")
     Long countUnreadByRecipientId(@Param("recipientId") Long recipientId);
 
@@ -28,8 +61,33 @@ public interface NotificationDao extends JpaRepository<Notification, Long> {
 
     @Modifying
     @Transactional
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :notificationId")
-    void markAsReadById(@Param("notificationId") Long notificationId);
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :notificationId AND n.isRead = false")
+    int markAsReadById(@Param("notificationId") Long notificationId);
+
+    @Query("SELECT n.recipientId FROM Notification n WHERE n.id = :notificationId")
+    Optional<Long> findRecipientIdById(@Param("notificationId") Long notificationId);
+
+    // Advisory lock (giữ đến hết transaction) cho các khóa gộp recipient / loại / target, lấy theo thứ tự tăng dần
+    // để 2 dispatcher không cùng mở dòng gộp mới cho 1 target và không khóa chéo nhau
+    @Query(value = """
+        SELECT count(*) FROM (
+            SELECT pg_advisory_xact_lock(t.k) FROM unnest(ARRAY[:keys]) AS t(k) ORDER BY t.k
+        ) locked
+    """, nativeQuery = true)
+    long lockCoalesceKeys(@Param("keys") Collection<Long> keys);
+
+    // Thông báo gộp còn trong cửa sổ của các target, khóa dòng để các dispatcher cập nhật số người tuần tự
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT n FROM Notification n
+        WHERE n.recipientId IN :recipientIds AND n.type IN :types AND n.relatedEntityId IN :targetIds
+          AND n.createdAt >= :since
+        ORDER BY n.id
+    """)
+    List<Notification> findCoalesceCandidates(@Param("recipientIds") Collection<Long> recipientIds,
+                                              @Param("types") Collection<Notification.NotificationType> types,
+                                              @Param("targetIds") Collection<Long> targetIds,
+                                              @Param("since") LocalDateTime since);
 
     List<Notification> findByTypeIn(List<Notification.NotificationType> types);
 
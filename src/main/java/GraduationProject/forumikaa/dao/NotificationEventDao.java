@@ -0,0 +1,39 @@
+package GraduationProject.forumikaa.dao;
+
+import GraduationProject.forumikaa.entity.NotificationEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationEventDao extends JpaRepository<NotificationEvent, Long> {
+
+    // Nhận 1 lô sự kiện đến hạn (cũ nhất trước): dời next_attempt_at sang leaseUntil để dispatcher khác bỏ qua.
+    // Dispatcher chết giữa chừng thì sự kiện tự đến hạn lại khi hết lease
+    @Query(value = """
+        UPDATE notification_events SET next_attempt_at = :leaseUntil
+        WHERE id IN (
+            SELECT id FROM notification_events
+            WHERE next_attempt_at <= :now
+            ORDER BY next_attempt_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING *
+    """, nativeQuery = true)
+    List<NotificationEvent> claimDue(@Param("now") LocalDateTime now,
+                                     @Param("leaseUntil") LocalDateTime leaseUntil,
+                                     @Param("limit") int limit);
+
+    long countByNextAttemptAtIsNotNull();
+
+    long countByNextAttemptAtIsNull();
+
+    // Sự kiện đang chờ lâu nhất - độ trễ của hàng đợi
+    @Query("SELECT MIN(e.createdAt) FROM NotificationEvent e WHERE e.nextAttemptAt IS NOT NULL")
+    LocalDateTime findOldestPendingCreatedAt();
+}
@@ -13,7 +13,9 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostDao extends JpaRepository<Post, Long>, JpaSpecificationExecutor<Post> {
@@ -21,22 +23,48 @@ public interface PostDao extends JpaRepository<Post, Long>, JpaSpecificationExec
     @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user u LEFT JOIN FETCH u.userProfile LEFT JOIN FETCH p.group g WHERE p.user.id = :userId ORDER BY p.createdAt DESC")
     List<Post> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
 
+    // News feed - keyset pagination theo (createdAt, id), trang đầu tiên
     @Query("""
-        SELECT DISTINCT p FROM Post p
-        LEFT JOIN FETCH p.user u
+        SELECT p FROM Post p
+        JOIN FETCH p.user u
         LEFT JOIN FETCH u.userProfile
-        LEFT JOIN FETCH p.topics
         LEFT JOIN FETCH p.group g
-        LEFT JOIN Friendship f1 ON (f1.user.id = :userId AND f1.friend.id = p.user.id AND f1.status = 'ACCEPTED')
-        LEFT JOIN Friendship f2 ON (f2.user.id = p.user.id AND f2.friend.id = :userId AND f2.status = 'ACCEPTED')
         WHERE p.status = 'APPROVED' AND (
             (p.privacy = 'PUBLIC') OR
-            (p.privacy = 'FRIENDS' AND (p.user.id = :userId OR f1.id IS NOT NULL OR f2.id IS NOT NULL)) OR
-            (p.privacy = 'PRIVATE' AND p.user.id = :userId)
+            (p.privacy = 'FRIENDS' AND (u.id = :userId OR EXISTS (
+                SELECT f.id FROM Friendship f
+                WHERE f.status = 'ACCEPTED'
+                  AND ((f.user.id = :userId AND f.friend.id = u.id) OR (f.user.id = u.id AND f.friend.id = :userId))
+            ))) OR
+            (p.privacy = 'PRIVATE' AND u.id = :userId)
         )
-        ORDER BY p.createdAt DESC
+        ORDER BY p.createdAt DESC, p.id DESC
+    """)
+    List<Post> findUserFeedFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    // News feed - keyset pagination theo (createdAt, id), các trang sau cursor
+    @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.user u
+        LEFT JOIN FETCH u.userProfile
+        LEFT JOIN FETCH p.group g
+        WHERE p.status = 'APPROVED'
+          AND (p.createdAt < :cursorCreatedAt OR (p.createdAt = :cursorCreatedAt AND p.id < :cursorId))
+          AND (
+            (p.privacy = 'PUBLIC') OR
+            (p.privacy = 'FRIENDS' AND (u.id = :userId OR EXISTS (
+                SELECT f.id FROM Friendship f
+                WHERE f.status = 'ACCEPTED'
+                  AND ((f.user.id = :userId AND f.friend.id = u.id) OR (f.user.id = u.id AND f.friend.id = :userId))
+            ))) OR
+            (p.privacy = 'PRIVATE' AND u.id = :userId)
+        )
+        ORDER BY p.createdAt DESC, p.id DESC
     """)
-    List<Post> findUserFeed(@Param("userId") Long userId);
+    List<Post> findUserFeedAfter(@Param("userId") Long userId,
+                                 @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                 @Param("cursorId") Long cursorId,
+                                 Pageable pageable);
 
     @Query("""
         SELECT p FROM Post p
@@ -92,6 +120,9 @@ public interface PostDao extends JpaRepository<Post, Long>, JpaSpecificationExec
     
     // Tìm posts theo topics và username
     List<Post> findByTopicsAndUserUsername(Topic topic, String username);
+
+    // Tìm posts thuộc 1 trong các topic và username - 1 query cho nhiều topic
+    List<Post> findDistinctByTopicsIdInAndUserUsername(Collection<Long> topicIds, String username);
     
     // Tìm posts theo user ID
     List<Post> findByUserId(Long userId);
@@ -250,4 +281,89 @@ public interface PostDao extends JpaRepository<Post, Long>, JpaSpecificationExec
     
     @Query("SELECT COUNT(p) FROM Post p WHERE p.user.id = :userId AND p.originalPostId IS NOT NULL AND p.createdAt >= :startDate AND p.createdAt <= :endDate")
     Long countSharesByUserIdAndDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    // Timeline rebuild: (id, createdAt) của các bài viết PUBLIC mới nhất
+    @Query("""
+        SELECT p.id, p.createdAt FROM Post p
+        WHERE p.status = 'APPROVED' AND p.privacy = 'PUBLIC'
+        ORDER BY p.createdAt DESC, p.id DESC
+    """)
+    List<Object[]> findPublicTimelineEntries(Pageable pageable);
+
+    // Timeline rebuild: (id, createdAt) của các bài viết FRIENDS/PRIVATE mà user được xem
+    @Query("""
+        SELECT p.id, p.createdAt FROM Post p
+        WHERE p.status = 'APPROVED' AND (
+            (p.privacy = 'FRIENDS' AND (p.user.id = :userId OR EXISTS (
+                SELECT f.id FROM Friendship f
+                WHERE f.status = 'ACCEPTED'
+                  AND ((f.user.id = :userId AND f.friend.id = p.user.id) OR (f.user.id = p.user.id AND f.friend.id = :userId))
+            ))) OR
+            (p.privacy = 'PRIVATE' AND p.user.id = :userId)
+        )
+        ORDER BY p.createdAt DESC, p.id DESC
+    """)
+    List<Object[]> findPersonalTimelineEntries(@Param("userId") Long userId, Pageable pageable);
+
+    // Like toggle chỉ cần tác giả (gửi notification), không load cả entity
+    @Query("SELECT p.user.id FROM Post p WHERE p.id = :postId")
+    Optional<Long> findAuthorIdById(@Param("postId") Long postId);
+
+    // Slate gợi ý cũ hơn bài viết mới nhất của user thì không còn phản ánh mối quan tâm hiện tại
+    boolean existsByUserIdAndCreatedAtAfter(Long userId, LocalDateTime createdAt);
+
+    // Batch hydration: tải nhiều bài viết (kèm tác giả, profile, group) trong 1 query
+    @Query("SELECT p FROM Post p JOIN FETCH p.user u LEFT JOIN FETCH u.userProfile LEFT JOIN FETCH p.group g WHERE p.id IN :postIds")
+    List<Post> findAllWithAuthorByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    // Batch hydration: cặp (postId, topic) của nhiều bài viết trong 1 query
+    @Query("SELECT p.id, t FROM Post p JOIN p.topics t WHERE p.id IN :postIds")
+    List<Object[]> findTopicsByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // Trending: (topic id, topic name) của 1 bài viết
+    @Query("SELECT t.id, t.name FROM Post p JOIN p.topics t WHERE p.id = :postId")
+    List<Object[]> findTopicRefsByPostId(@Param("postId") Long postId);
+
+    // Trending: (topic id, topic name, createdAt) của các bài viết đã duyệt từ thời điểm since - nạp index khi khởi động
+    @Query("SELECT t.id, t.name, p.createdAt FROM Post p JOIN p.topics t WHERE p.status = 'APPROVED' AND p.createdAt >= :since")
+    List<Object[]> findTopicActivitySince(@Param("since") LocalDateTime since);
+
+    // Gợi ý: (post id, author id, privacy, createdAt, topic id) của bài viết gốc đã duyệt - nạp topic-post index
+    @Query("""
+        SELECT p.id, p.user.id, p.privacy, p.createdAt, t.id FROM Post p JOIN p.topics t
+        WHERE p.status = 'APPROVED' AND p.originalPostId IS NULL AND p.createdAt >= :since
+        ORDER BY p.id
+    """)
+    List<Object[]> findTopicIndexRowsSince(@Param("since") LocalDateTime since);
+
+    // Bài viết phổ biến: (post id, author id, privacy, createdAt, like, comment, share) của bài gốc đã duyệt
+    @Query("""
+        SELECT p.id, p.user.id, p.privacy, p.createdAt, p.likeCount, p.commentCount, p.shareCount FROM Post p
+        WHERE p.status = 'APPROVED' AND p.originalPostId IS NULL AND p.createdAt >= :since
+    """)
+    List<Object[]> findPopularityRowsSince(@Param("since") LocalDateTime since);
+
+    // Bài viết phổ biến: như trên cho các bài vừa được flush counter, bài không còn hợp lệ sẽ không có trong kết quả
+    @Query("""
+        SELECT p.id, p.user.id, p.privacy, p.createdAt, p.likeCount, p.commentCount, p.shareCount FROM Post p
+        WHERE p.status = 'APPROVED' AND p.originalPostId IS NULL AND p.id IN :postIds
+    """)
+    List<Object[]> findPopularityRowsByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    // Hồ sơ quan tâm: hashtag của các bài viết user đã đăng
+    @Query("SELECT DISTINCT t.id FROM Post p JOIN p.topics t WHERE p.user.id = :userId")
+    List<Long> findAuthoredTopicIds(@Param("userId") Long userId);
+
+    // Hồ sơ quan tâm: hashtag của các bài viết user đã like / comment / chia sẻ
+    @Query("""
+        SELECT DISTINCT t.id FROM Post p JOIN p.topics t
+        WHERE p.id IN (SELECT l.likeableId FROM Like l WHERE l.user.id = :userId AND l.likeableType = 'POST')
+           OR p.id IN (SELECT c.post.id FROM Comment c WHERE c.user.id = :userId)
+           OR p.id IN (SELECT s.originalPostId FROM Post s WHERE s.user.id = :userId AND s.originalPostId IS NOT NULL)
+    """)
+    List<Long> findInteractedTopicIds(@Param("userId") Long userId);
+
+    // Hồ sơ quan tâm: hashtag của các bài viết do danh sách user (bạn bè) đăng
+    @Query("SELECT DISTINCT t.id FROM Post p JOIN p.topics t WHERE p.user.id IN :userIds")
+    List<Long> findTopicIdsByAuthorIds(@Param("userIds") Collection<Long> userIds);
 }
@@ -0,0 +1,52 @@
+package GraduationProject.forumikaa.dao;
+
+import GraduationProject.forumikaa.entity.RecommendationJobPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RecommendationJobPartitionDao extends JpaRepository<RecommendationJobPartition, Long> {
+
+    // Tạo các phân vùng của lần chạy - node nào tới trước tạo, các node sau bỏ qua
+    @Modifying
+    @Query(value = """
+        INSERT INTO recommendation_job_partitions (run_key, partition_no, last_user_id, processed_users, completed, updated_at)
+        VALUES (:runKey, :partitionNo, 0, 0, false, now())
+        ON CONFLICT (run_key, partition_no) DO NOTHING
+    """, nativeQuery = true)
+    int insertIfAbsent(@Param("runKey") String runKey, @Param("partitionNo") int partitionNo);
+
+    // Nhận 1 phân vùng chưa xong và không có worker nào giữ lease.
+    // Worker chết giữa chừng thì phân vùng được nhận lại khi hết lease và chạy tiếp từ last_user_id
+    @Query(value = """
+        UPDATE recommendation_job_partitions SET lease_until = :leaseUntil, updated_at = :now
+        WHERE id IN (
+            SELECT id FROM recommendation_job_partitions
+            WHERE run_key = :runKey AND completed = false AND (lease_until IS NULL OR lease_until < :now)
+            ORDER BY partition_no
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING *
+    """, nativeQuery = true)
+    List<RecommendationJobPartition> claimNext(@Param("runKey") String runKey,
+                                               @Param("now") LocalDateTime now,
+                                               @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    long countByRunKeyAndCompletedFalse(String runKey);
+
+    List<RecommendationJobPartition> findByRunKeyOrderByPartitionNo(String runKey);
+
+    @Query("SELECT MAX(p.runKey) FROM RecommendationJobPartition p")
+    String findLatestRunKey();
+
+    @Modifying
+    @Query("DELETE FROM RecommendationJobPartition p WHERE p.runKey < :runKey")
+    int deleteRunsBefore(@Param("runKey") String runKey);
+}
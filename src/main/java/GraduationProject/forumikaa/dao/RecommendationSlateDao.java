@@ -0,0 +1,22 @@
+package GraduationProject.forumikaa.dao;
+
+import GraduationProject.forumikaa.entity.RecommendationSlate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RecommendationSlateDao extends JpaRepository<RecommendationSlate, Long> {
+
+    Optional<RecommendationSlate> findByUserIdAndKind(Long userId, RecommendationSlate.Kind kind);
+
+    // Dọn slate của user không còn hoạt động (không được job tính lại)
+    @Modifying
+    @Query("DELETE FROM RecommendationSlate s WHERE s.computedAt < :before")
+    int deleteComputedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,35 @@
+package GraduationProject.forumikaa.dao;
+
+import GraduationProject.forumikaa.entity.StorageCleanupTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StorageCleanupTaskDao extends JpaRepository<StorageCleanupTask, Long> {
+
+    // Nhận 1 lô task đến hạn: dời next_attempt_at sang leaseUntil để worker khác bỏ qua trong lúc xử lý.
+    // Worker chết giữa chừng thì task tự đến hạn lại khi hết lease
+    @Query(value = """
+        UPDATE storage_cleanup_tasks SET next_attempt_at = :leaseUntil
+        WHERE id IN (
+            SELECT id FROM storage_cleanup_tasks
+            WHERE next_attempt_at <= :now
+            ORDER BY next_attempt_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING *
+    """, nativeQuery = true)
+    List<StorageCleanupTask> claimDue(@Param("now") LocalDateTime now,
+                                      @Param("leaseUntil") LocalDateTime leaseUntil,
+                                      @Param("limit") int limit);
+
+    long countByNextAttemptAtIsNotNull();
+
+    long countByNextAttemptAtIsNull();
+}
@@ -2,10 +2,12 @@ package GraduationProject.forumikaa.dao;
 
 import GraduationProject.forumikaa.entity.Topic;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +17,20 @@ public interface TopicDao extends JpaRepository<Topic, Long> {
     // Tìm hashtag theo tên
     Optional<Topic> findByName(String name);
 
+    List<Topic> findByNameIn(Collection<String> names);
+
+    // Tạo cả lô hashtag trong 1 câu INSERT; tên đã có (kể cả do request khác vừa tạo) thì bỏ qua.
+    // Sắp xếp theo tên để các transaction chèn cùng lúc khóa unique index theo cùng thứ tự
+    @Modifying
+    @Query(value = """
+        INSERT INTO topics (name, usage_count, created_by, created_at)
+        SELECT t.name, 0, :createdBy, now()
+        FROM unnest(ARRAY[:names]) AS t(name)
+        ORDER BY t.name
+        ON CONFLICT (name) DO NOTHING
+    """, nativeQuery = true)
+    int insertAllIfAbsent(@Param("names") Collection<String> names, @Param("createdBy") Long createdBy);
+
     // Tìm hashtags có tên chứa keyword
     @Query("SELECT t FROM Topic t WHERE t.name LIKE %:keyword% ORDER BY t.usageCount DESC")
     List<Topic> findByNameContaining(@Param("keyword") String keyword);
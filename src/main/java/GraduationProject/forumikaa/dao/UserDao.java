@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,4 +37,28 @@ public interface UserDao extends JpaRepository<User, Long>, JpaSpecificationExec
            ORDER BY RAND()
            """)
     List<User> findSuggestedUsers(@Param("currentUserId") Long currentUserId, Pageable pageable);
+
+    // Batch hydration: tải nhiều user kèm profile trong 1 query
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.userProfile WHERE u.id IN :userIds")
+    List<User> findAllWithProfileByIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Job gợi ý: user có đăng bài / like / comment từ thời điểm since, thuộc phân vùng partitionNo, sau afterId
+    @Query(value = """
+        SELECT u.id FROM users u
+        WHERE u.enabled = true AND u.id > :afterId AND MOD(u.id, :partitions) = :partitionNo
+          AND (EXISTS (SELECT 1 FROM posts p WHERE p.user_id = u.id AND p.created_at >= :since)
+            OR EXISTS (SELECT 1 FROM likes l WHERE l.user_id = u.id AND l.created_at >= :since)
+            OR EXISTS (SELECT 1 FROM comments c WHERE c.user_id = u.id AND c.created_at >= :since))
+        ORDER BY u.id
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<Long> findActiveUserIdsInPartition(@Param("afterId") Long afterId,
+                                            @Param("partitions") int partitions,
+                                            @Param("partitionNo") int partitionNo,
+                                            @Param("since") LocalDateTime since,
+                                            @Param("limit") int limit);
+
+    // id, username, avatar - thông tin người gửi hiển thị trên thông báo
+    @Query("SELECT u.id, u.username, p.avatar FROM User u LEFT JOIN u.userProfile p WHERE u.id IN :ids")
+    List<Object[]> findSenderSnippets(@Param("ids") Collection<Long> ids);
 }
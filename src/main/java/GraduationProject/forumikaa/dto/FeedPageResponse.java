@@ -0,0 +1,22 @@
+package GraduationProject.forumikaa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedPageResponse {
+    private List<PostResponse> posts;
+    private String nextCursor; // null nếu không còn trang tiếp theo
+    private boolean hasMore;
+    // Cursor đã hết hạn: trang này bắt đầu lại từ đầu, client thay danh sách thay vì nối thêm
+    private boolean cursorExpired;
+
+    public FeedPageResponse(List<PostResponse> posts, String nextCursor, boolean hasMore) {
+        this(posts, nextCursor, hasMore, false);
+    }
+}
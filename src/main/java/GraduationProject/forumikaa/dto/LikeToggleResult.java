@@ -0,0 +1,13 @@
+package GraduationProject.forumikaa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeToggleResult {
+    private boolean liked;
+    private int delta; // +1 thêm like, -1 bỏ like, 0 không đổi (request lặp lại)
+}
@@ -0,0 +1,26 @@
+package GraduationProject.forumikaa.dto;
+
+import GraduationProject.forumikaa.entity.Notification;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Dòng danh sách thông báo kèm username / avatar người gửi, lấy bằng 1 projection query
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationDto {
+    private Long id;
+    private String message;
+    private String link;
+    private boolean isRead;
+    private LocalDateTime createdAt;
+    private Notification.NotificationType type;
+    private Long relatedEntityId;
+    private String relatedEntityType;
+    private Long senderId;
+    private String senderUsername; // null nếu không có người gửi hoặc user đã bị xóa
+    private String senderAvatar;
+}
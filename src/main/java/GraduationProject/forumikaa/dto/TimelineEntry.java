@@ -0,0 +1,13 @@
+package GraduationProject.forumikaa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntry {
+    private Long postId;
+    private double score; // createdAt tính bằng micro giây (epoch)
+}
@@ -0,0 +1,15 @@
+package GraduationProject.forumikaa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingTopicResponse {
+    private Long id;
+    private String name;
+    private double score;      // Điểm đã giảm dần theo thời gian (half-life)
+    private long recentPosts;  // Số bài viết gần đây, cũng giảm dần theo half-life
+}
@@ -0,0 +1,47 @@
+package GraduationProject.forumikaa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tổng số tương tác của actor lên bài viết của target_user_id trong cửa sổ gần đây (mặc định 30 ngày).
+ * Chỉ được cập nhật bởi compactor của InteractionService từ interaction_events.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "interaction_aggregates", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_interaction_aggregates_target_actor", columnNames = {"target_user_id", "actor_id"})
+}, indexes = {
+        @Index(name = "idx_interaction_aggregates_target_count", columnList = "target_user_id, interaction_count")
+})
+public class InteractionAggregate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "target_user_id", nullable = false)
+    private Long targetUserId;
+
+    @Column(name = "actor_id", nullable = false)
+    private Long actorId;
+
+    @Column(name = "like_count", nullable = false)
+    private Long likeCount = 0L;
+
+    @Column(name = "comment_count", nullable = false)
+    private Long commentCount = 0L;
+
+    @Column(name = "share_count", nullable = false)
+    private Long shareCount = 0L;
+
+    @Column(name = "interaction_count", nullable = false)
+    private Long interactionCount = 0L;
+
+    @Column(name = "last_interaction_at", nullable = false)
+    private LocalDateTime lastInteractionAt;
+}
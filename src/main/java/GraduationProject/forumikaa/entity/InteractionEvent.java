@@ -0,0 +1,49 @@
+package GraduationProject.forumikaa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Log chỉ ghi thêm: actor đã like / comment / share bài viết của target_user_id.
+ * compacted = đã được cộng vào interaction_aggregates; expired = nằm ngoài cửa sổ ngay khi compact (không được cộng).
+ * Sự kiện bị xóa khi rời khỏi cửa sổ, sau khi đã trừ khỏi aggregate.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "interaction_events", indexes = {
+        @Index(name = "idx_interaction_events_compacted_id", columnList = "compacted, id"),
+        @Index(name = "idx_interaction_events_compacted_created", columnList = "compacted, created_at")
+})
+public class InteractionEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "actor_id", nullable = false)
+    private Long actorId;
+
+    @Column(name = "target_user_id", nullable = false)
+    private Long targetUserId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "compacted", nullable = false)
+    private Boolean compacted = false;
+
+    @Column(name = "expired", nullable = false)
+    private Boolean expired = false;
+
+    public enum Type {
+        LIKE, COMMENT, SHARE
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
@@ -13,7 +14,11 @@ import java.time.LocalDateTime;
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_recipient_id", columnList = "recipient_id, id"),
+        @Index(name = "idx_notifications_recipient_read", columnList = "recipient_id, is_read"),
+        @Index(name = "idx_notifications_recipient_updated", columnList = "recipient_id, updated_at")
+})
 @Builder
 public class Notification {
     @Id
@@ -45,10 +50,23 @@ public class Notification {
     @Column(nullable = false)
     private boolean isRead = false;
 
+    // Thông báo gộp (vd. "A, B và 23 người khác đã thích bài viết của bạn"): tổng số người, null = 1
+    @Column(name = "actor_count")
+    private Integer actorCount;
+
+    // Id những người tương tác gần nhất, mới nhất trước, phân tách bằng dấu phẩy
+    @Column(name = "recent_actor_ids", length = 100)
+    private String recentActorIds;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Lần thay đổi cuối (vd. dòng gộp có thêm người tương tác); replay gửi lại dòng đổi sau lần client nhận cuối
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     // Enum cho các loại thông báo
     public enum NotificationType {
         POST_LIKE,           // Like bài viết
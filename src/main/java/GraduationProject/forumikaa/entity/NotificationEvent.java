@@ -0,0 +1,59 @@
+package GraduationProject.forumikaa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sự kiện tạo thông báo (outbox), ghi trong cùng transaction với hành động của user (like, bình luận, kết bạn).
+ * Dispatcher chạy nền tạo dòng notifications từ sự kiện rồi xóa sự kiện; next_attempt_at = null nghĩa là đã bỏ cuộc.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "notification_events", indexes = {
+        @Index(name = "idx_notification_events_next_attempt", columnList = "next_attempt_at")
+})
+public class NotificationEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_type", nullable = false, length = 50)
+    private Notification.NotificationType type;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Column(name = "sender_id")
+    private Long senderId;
+
+    // Đối tượng của thông báo: bài viết, bình luận hoặc entity được nhắc đến
+    @Column(name = "target_id")
+    private Long targetId;
+
+    @Column(name = "target_type", length = 50)
+    private String targetType;
+
+    // Id phụ, vd. bình luận mới của thông báo POST_COMMENT
+    @Column(name = "detail_id")
+    private Long detailId;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -15,7 +15,9 @@ import java.util.Set;
 @Data
 @Entity
 @NoArgsConstructor
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_created_at_id", columnList = "created_at, id")
+})
 public class Post {
 
     @Id
@@ -44,13 +46,14 @@ public class Post {
     )
     private Set<Topic> topics = new HashSet<>();
 
-    @Column(name = "like_count")
+    // Chỉ được cập nhật bởi PostCounterService (UPDATE ... = count + ?), save entity không ghi đè
+    @Column(name = "like_count", updatable = false)
     private Long likeCount = 0L;
 
-    @Column(name = "comment_count")
+    @Column(name = "comment_count", updatable = false)
     private Long commentCount = 0L;
 
-    @Column(name = "share_count")
+    @Column(name = "share_count", updatable = false)
     private Long shareCount = 0L;
 
     @CreationTimestamp
@@ -0,0 +1,45 @@
+package GraduationProject.forumikaa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tiến độ của 1 phân vùng user (user id % số phân vùng) trong 1 lần chạy job gợi ý.
+ * last_user_id được ghi cùng transaction với slate nên node khác có thể chạy tiếp từ đó khi hết lease.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "recommendation_job_partitions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recommendation_job_partition", columnNames = {"run_key", "partition_no"})
+})
+public class RecommendationJobPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_key", nullable = false, length = 20)
+    private String runKey;
+
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+
+    @Column(name = "last_user_id", nullable = false)
+    private Long lastUserId = 0L;
+
+    @Column(name = "processed_users", nullable = false)
+    private Long processedUsers = 0L;
+
+    @Column(name = "completed", nullable = false)
+    private Boolean completed = false;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
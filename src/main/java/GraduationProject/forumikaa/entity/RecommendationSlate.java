@@ -0,0 +1,41 @@
+package GraduationProject.forumikaa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Danh sách gợi ý đã tính sẵn bởi job hằng đêm, mỗi user 1 dòng cho mỗi loại (bài viết / người dùng / nhóm).
+ * items là JSON: bài viết chỉ lưu id + điểm (hydrate khi đọc), người dùng và nhóm lưu sẵn response.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "recommendation_slates", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recommendation_slates_user_kind", columnNames = {"user_id", "kind"})
+})
+public class RecommendationSlate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 20)
+    private Kind kind;
+
+    @Column(name = "items", nullable = false, columnDefinition = "TEXT")
+    private String items;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    public enum Kind {
+        POST, USER, GROUP
+    }
+}
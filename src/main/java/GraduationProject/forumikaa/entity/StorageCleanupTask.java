@@ -0,0 +1,50 @@
+package GraduationProject.forumikaa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * File vật lý cần xóa khỏi storage sau khi Document đã bị xóa khỏi database.
+ * Được ghi trong cùng transaction với thao tác xóa bài viết; next_attempt_at = null nghĩa là đã bỏ cuộc.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "storage_cleanup_tasks", indexes = {
+        @Index(name = "idx_storage_cleanup_next_attempt", columnList = "next_attempt_at")
+})
+public class StorageCleanupTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "storage_type", nullable = false, length = 20)
+    private String storageType;
+
+    @Column(name = "storage_key", nullable = false, length = 500)
+    private String storageKey;
+
+    @Column(name = "mime_type", length = 100)
+    private String mimeType;
+
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -21,7 +21,8 @@ public class Topic {
     @Column(nullable = false, unique = true, columnDefinition = "VARCHAR(255)")
     private String name;
 
-    @Column(name = "usage_count")
+    // Chỉ TopicService ghi cột này (cộng delta theo lô), save entity không ghi đè
+    @Column(name = "usage_count", updatable = false)
     private Integer usageCount = 0;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,42 @@
+package GraduationProject.forumikaa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Số lần user đăng / like / comment bài viết có hashtag topic_id - nguồn của vector quan tâm dùng cho gợi ý.
+ * Được cộng dồn theo batch bởi UserInterestService (INSERT ... ON CONFLICT DO UPDATE), không ghi qua JPA.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "user_topic_interests", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_topic_interests_user_topic", columnNames = {"user_id", "topic_id"})
+})
+public class UserTopicInterest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "topic_id", nullable = false)
+    private Long topicId;
+
+    @Column(name = "authored_count", nullable = false)
+    private Long authoredCount = 0L;
+
+    @Column(name = "liked_count", nullable = false)
+    private Long likedCount = 0L;
+
+    @Column(name = "commented_count", nullable = false)
+    private Long commentedCount = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,22 @@
+package GraduationProject.forumikaa.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Phát ra sau khi PostCounterService ghi các delta like/comment/share xuống database
+ */
+@Data
+@AllArgsConstructor
+public class PostCountersFlushedEvent {
+
+    // post id -> delta vừa ghi {like, comment, share}
+    private Map<Long, long[]> deltas;
+
+    public Set<Long> getPostIds() {
+        return deltas.keySet();
+    }
+}
@@ -0,0 +1,13 @@
+package GraduationProject.forumikaa.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Phát ra khi tài liệu đính kèm của 1 bài viết được thêm hoặc xóa
+ */
+@Data
+@AllArgsConstructor
+public class PostDocumentsChangedEvent {
+    private Long postId;
+}
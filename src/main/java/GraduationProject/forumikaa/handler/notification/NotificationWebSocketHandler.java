@@ -1,40 +1,56 @@
 package GraduationProject.forumikaa.handler.notification;
 
 import GraduationProject.forumikaa.dao.NotificationDao;
-import GraduationProject.forumikaa.dao.UserDao;
 import GraduationProject.forumikaa.entity.Notification;
-import GraduationProject.forumikaa.entity.User;
+import GraduationProject.forumikaa.service.NotificationCounterService;
+import GraduationProject.forumikaa.service.NotificationService;
+import GraduationProject.forumikaa.service.SenderSnippetCacheService;
+import GraduationProject.forumikaa.service.SenderSnippetCacheService.SenderSnippet;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.Optional;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class NotificationWebSocketHandler extends TextWebSocketHandler {
 
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+
     private final NotificationDao notificationDao;
+    private final NotificationService notificationService;
+    private final NotificationCounterService notificationCounterService;
     private final NotificationBroadcaster broadcaster;
-    private final UserDao userDao;
+    private final SenderSnippetCacheService senderSnippetCacheService;
     private final ObjectMapper mapper = new ObjectMapper()
             .registerModule(new JavaTimeModule())
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
     private final Map<Long, WebSocketSession> userSessions = new ConcurrentHashMap<>();
 
+    @Value("${app.notification.replay-limit:20}")
+    private int replayLimit;
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         Long recipientId = extractRecipientId(session);
@@ -44,39 +60,21 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
             return;
         }
 
-        // Lưu session
-        userSessions.put(recipientId, session);
-
-        // Gửi lại các thông báo cũ (chỉ 10 thông báo gần nhất)
-        List<Notification> oldNotifications = notificationDao.findByRecipientId(recipientId);
-        if (oldNotifications.size() > 10) {
-            oldNotifications = oldNotifications.subList(0, 10);
-        }
-
-        for (Notification notification : oldNotifications) {
-            try {
-                String message = createNotificationMessage("NOTIFICATION", notification);
-                session.sendMessage(new TextMessage(message));
-            } catch (Exception e) {
-                log.error("Lỗi gửi thông báo cũ: {}", e.getMessage());
-            }
-        }
-
-        // Gửi số lượng chưa đọc
-        Long unreadCount = notificationDao.countUnreadByRecipientId(recipientId);
-        String unreadMessage = createUnreadCountMessage(unreadCount);
-        session.sendMessage(new TextMessage(unreadMessage));
+        // Lưu session; decorator tuần tự hóa việc gửi giữa replay và thông báo realtime
+        userSessions.put(recipientId, new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT));
 
         // Đăng ký nhận thông báo mới
         broadcaster.subscribe(recipientId, notification -> {
             try {
                 WebSocketSession userSession = userSessions.get(recipientId);
                 if (userSession != null && userSession.isOpen()) {
-                    String message = createNotificationMessage("NOTIFICATION", notification);
+                    // Dòng gộp đã có người tương tác thêm: client cập nhật dòng cũ thay vì thêm dòng mới
+                    boolean coalescedUpdate = notification.getActorCount() != null && notification.getActorCount() > 1;
+                    String message = createNotificationMessage(coalescedUpdate ? "NOTIFICATION_UPDATE" : "NOTIFICATION", notification);
                     userSession.sendMessage(new TextMessage(message));
                     
                     // Cập nhật số lượng chưa đọc
-                    Long newUnreadCount = notificationDao.countUnreadByRecipientId(recipientId);
+                    long newUnreadCount = notificationCounterService.getUnreadCount(recipientId);
                     String unreadUpdateMessage = createUnreadCountMessage(newUnreadCount);
                     userSession.sendMessage(new TextMessage(unreadUpdateMessage));
                 }
@@ -84,6 +82,67 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
                 log.error("Lỗi gửi thông báo mới tới user {}: {}", recipientId, e.getMessage());
             }
         });
+
+        // Đăng ký trước rồi mới replay: thông báo tạo trong lúc replay không bị mất (client bỏ qua id trùng)
+        replay(recipientId, extractLongParam(session, "lastSeenId"), extractLongParam(session, "lastUpdatedAt"));
+    }
+
+    /**
+     * Gửi các thông báo mới hơn lastSeenId (tối đa replayLimit, mới nhất) cùng số chưa đọc trong 1 frame.
+     * lastSeenId null (client chưa từng nhận thông báo) -> replayLimit thông báo gần nhất.
+     * Thông báo client đã nhận nhưng thay đổi sau lastUpdatedAt (updatedAt lớn nhất client đã nhận, epoch millis)
+     * được gửi lại trong "updates" để client cập nhật dòng cũ.
+     */
+    private void replay(Long recipientId, Long lastSeenId, Long lastUpdatedAt) {
+        WebSocketSession userSession = userSessions.get(recipientId);
+        if (userSession == null || !userSession.isOpen()) {
+            return;
+        }
+        try {
+            List<Notification> newer = notificationDao.findNewerThan(recipientId, lastSeenId != null ? lastSeenId : 0L,
+                    PageRequest.of(0, replayLimit + 1));
+            boolean hasMore = newer.size() > replayLimit;
+            if (hasMore) {
+                newer = newer.subList(0, replayLimit);
+            }
+
+            List<Notification> updated = lastSeenId != null && lastUpdatedAt != null
+                    ? notificationDao.findUpdatedSince(recipientId, lastSeenId, toLocalDateTime(lastUpdatedAt),
+                            PageRequest.of(0, replayLimit))
+                    : List.of();
+
+            // Người gửi của cả batch lấy bằng 1 lần tra cache / 1 query
+            List<Long> senderIds = new ArrayList<>();
+            for (Notification notification : newer) {
+                senderIds.add(notification.getSenderId());
+            }
+            for (Notification notification : updated) {
+                senderIds.add(notification.getSenderId());
+            }
+            Map<Long, SenderSnippet> senders = senderSnippetCacheService.getAll(senderIds);
+
+            // Cũ trước, mới sau - client chèn lần lượt lên đầu danh sách
+            List<Map<String, Object>> notifications = new ArrayList<>(newer.size());
+            for (int i = newer.size() - 1; i >= 0; i--) {
+                Notification notification = newer.get(i);
+                notifications.add(toNotificationData(notification, senders.get(notification.getSenderId())));
+            }
+
+            List<Map<String, Object>> updates = new ArrayList<>(updated.size());
+            for (Notification notification : updated) {
+                updates.add(toNotificationData(notification, senders.get(notification.getSenderId())));
+            }
+
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "NOTIFICATION_BATCH");
+            message.put("notifications", notifications);
+            message.put("updates", updates);
+            message.put("hasMore", hasMore);
+            message.put("unreadCount", notificationCounterService.getUnreadCount(recipientId));
+            userSession.sendMessage(new TextMessage(mapper.writeValueAsString(message)));
+        } catch (Exception e) {
+            log.error("Lỗi replay thông báo cho user {}: {}", recipientId, e.getMessage());
+        }
     }
 
     @Override
@@ -147,11 +206,11 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
 
     private void handleMarkAsRead(Long notificationId, Long userId) {
         try {
-            notificationDao.markAsReadById(notificationId);
+            notificationService.markAsRead(notificationId);
             log.info("User {} đã đánh dấu notification {} là đã đọc", userId, notificationId);
             
             // Gửi cập nhật số lượng chưa đọc
-            Long unreadCount = notificationDao.countUnreadByRecipientId(userId);
+            long unreadCount = notificationCounterService.getUnreadCount(userId);
             WebSocketSession userSession = userSessions.get(userId);
             if (userSession != null && userSession.isOpen()) {
                 String unreadMessage = createUnreadCountMessage(unreadCount);
@@ -164,7 +223,7 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
 
     private void handleMarkAllAsRead(Long userId) {
         try {
-            notificationDao.markAllAsReadByRecipientId(userId);
+            notificationService.markAllAsRead(userId);
             log.info("User {} đã đánh dấu tất cả notification là đã đọc", userId);
             
             // Gửi cập nhật số lượng chưa đọc
@@ -275,43 +334,39 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    // Query parameter kiểu số client gửi khi kết nối (lastSeenId, lastUpdatedAt), null nếu không có / không hợp lệ
+    private Long extractLongParam(WebSocketSession session, String name) {
+        if (session.getUri() == null) {
+            return null;
+        }
+        String value = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.warn("{} không hợp lệ: {}", name, value);
+            return null;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
     private String createNotificationMessage(String type, Notification notification) {
         try {
-            LocalDateTime createdAt = notification.getCreatedAt();
-            long createdAtMillis = createdAt != null 
-                ? createdAt.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli()
-                : 0L;
-            
-            // Lấy thông tin sender
-            String senderUsername = "Hệ thống";
-            String senderAvatar = null;
-            if (notification.getSenderId() != null) {
-                Optional<User> sender = userDao.findById(notification.getSenderId());
-                if (sender.isPresent()) {
-                    senderUsername = sender.get().getUsername();
-                    if (sender.get().getUserProfile() != null && sender.get().getUserProfile().getAvatar() != null) {
-                        senderAvatar = sender.get().getUserProfile().getAvatar();
-                    }
-                }
-            }
-                
-            Map<String, Object> notificationData = new HashMap<>();
-            notificationData.put("id", notification.getId());
-            notificationData.put("message", notification.getMessage());
-            notificationData.put("senderId", notification.getSenderId());
-            notificationData.put("senderUsername", senderUsername);
-            notificationData.put("senderAvatar", senderAvatar);
-            notificationData.put("recipientId", notification.getRecipientId());
-            notificationData.put("createdAt", createdAtMillis);
-            notificationData.put("isRead", notification.isRead());
-            notificationData.put("link", notification.getLink());
-            notificationData.put("notificationType", notification.getType());
-            notificationData.put("relatedEntityId", notification.getRelatedEntityId());
-            notificationData.put("relatedEntityType", notification.getRelatedEntityType());
-            
             Map<String, Object> message = new HashMap<>();
             message.put("type", type);
-            message.put("notification", notificationData);
+            SenderSnippet sender = notification.getSenderId() != null
+                ? senderSnippetCacheService.get(notification.getSenderId())
+                : null;
+            message.put("notification", toNotificationData(notification, sender));
             
             return mapper.writeValueAsString(message);
         } catch (Exception e) {
@@ -320,6 +375,29 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    private Map<String, Object> toNotificationData(Notification notification, SenderSnippet sender) {
+        // sender null: thông báo hệ thống hoặc user đã bị xóa
+        String senderUsername = sender != null ? sender.getUsername() : "Hệ thống";
+        String senderAvatar = sender != null ? sender.getAvatar() : null;
+            
+        Map<String, Object> notificationData = new HashMap<>();
+        notificationData.put("id", notification.getId());
+        notificationData.put("message", notification.getMessage());
+        notificationData.put("senderId", notification.getSenderId());
+        notificationData.put("senderUsername", senderUsername);
+        notificationData.put("senderAvatar", senderAvatar);
+        notificationData.put("recipientId", notification.getRecipientId());
+        notificationData.put("createdAt", toEpochMillis(notification.getCreatedAt()));
+        notificationData.put("updatedAt", toEpochMillis(notification.getUpdatedAt()));
+        notificationData.put("isRead", notification.isRead());
+        notificationData.put("actorCount", notification.getActorCount() != null ? notification.getActorCount() : 1);
+        notificationData.put("link", notification.getLink());
+        notificationData.put("notificationType", notification.getType());
+        notificationData.put("relatedEntityId", notification.getRelatedEntityId());
+        notificationData.put("relatedEntityType", notification.getRelatedEntityType());
+        return notificationData;
+    }
+
     private String createUnreadCountMessage(Long count) {
         try {
             Map<String, Object> message = Map.of(
@@ -0,0 +1,61 @@
+package GraduationProject.forumikaa.job;
+
+import GraduationProject.forumikaa.service.RecommendationSlateService;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Job hằng đêm tính sẵn slate gợi ý (xem RecommendationSlateService).
+ *
+ * JDBC job store ở chế độ cluster: chỉ 1 node chạy job tại 1 thời điểm, node chết giữa chừng thì
+ * Quartz chạy lại job (requestRecovery) trên node khác với cùng ngày chạy để tiếp tục từ checkpoint.
+ */
+@Slf4j
+@DisallowConcurrentExecution
+public class RecommendationSlateJob extends QuartzJobBean {
+
+    @Autowired
+    private RecommendationSlateService recommendationSlateService;
+
+    @Value("${app.recommendation.slates.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
+        if (!enabled) {
+            return;
+        }
+        LocalDate runDate = resolveRunDate(context);
+        log.info("Bắt đầu job gợi ý cho ngày {}{}", runDate, context.isRecovering() ? " (chạy tiếp sau khi node lỗi)" : "");
+        try {
+            recommendationSlateService.runBatch(runDate);
+        } catch (RuntimeException e) {
+            throw new JobExecutionException("Job gợi ý " + runDate + " thất bại", e);
+        }
+    }
+
+    // Khi recovery, lấy thời điểm kích hoạt gốc để tiếp tục đúng lần chạy đã dở
+    private LocalDate resolveRunDate(JobExecutionContext context) {
+        Date fireTime = context.getScheduledFireTime();
+        if (context.isRecovering()) {
+            String original = context.getMergedJobDataMap()
+                    .getString(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_FIRETIME_IN_MILLISECONDS);
+            if (original != null) {
+                fireTime = new Date(Long.parseLong(original));
+            }
+        }
+        Instant instant = fireTime != null ? fireTime.toInstant() : Instant.now();
+        return instant.atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
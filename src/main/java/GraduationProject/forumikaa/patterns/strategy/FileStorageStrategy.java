@@ -1,9 +1,13 @@
 package GraduationProject.forumikaa.patterns.strategy;
 
 import GraduationProject.forumikaa.dto.FileUploadResponse;
+import GraduationProject.forumikaa.entity.Document;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Strategy interface for file storage operations
@@ -17,6 +21,11 @@ public interface FileStorageStrategy {
 
     List<FileUploadResponse> getFilesByPostId(Long postId);
 
+    /**
+     * Load files of many posts in one query, grouped by post id
+     */
+    Map<Long, List<FileUploadResponse>> getFilesByPostIds(Collection<Long> postIds);
+
     FileUploadResponse getFileById(Long fileId);
 
     void deleteFile(Long fileId, Long userId);
@@ -25,5 +34,16 @@ public interface FileStorageStrategy {
 
     String getFilePreviewUrl(Long fileId);
 
+    /**
+     * Key of the stored object behind a document (local relative path, Cloudinary public_id)
+     */
+    String getStorageKey(Document document);
+
+    /**
+     * Delete a stored object by key once its Document row is gone.
+     * An object that no longer exists counts as deleted; IOException means the call should be retried
+     */
+    void deleteByStorageKey(String storageKey, String mimeType) throws IOException;
+
     String getStorageType();
 }
@@ -0,0 +1,48 @@
+package GraduationProject.forumikaa.patterns.strategy;
+
+import GraduationProject.forumikaa.dto.TimelineEntry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Strategy interface for home timeline storage (sorted sets of post ids scored by createdAt)
+ * Allows switching between Redis and an in-memory stand-in for local runs and tests
+ */
+public interface TimelineStoreStrategy {
+
+    boolean exists(String key);
+
+    long size(String key);
+
+    /**
+     * Add a post to every timeline in keys that already exists, then trim each to maxSize
+     */
+    void addIfExists(Collection<String> keys, TimelineEntry entry, int maxSize);
+
+    void remove(Collection<String> keys, Long postId);
+
+    /**
+     * Entries with score <= maxScore, highest score first
+     */
+    List<TimelineEntry> reverseRange(String key, double maxScore, int count);
+
+    /**
+     * Lowest-scored entry of the timeline, empty if the timeline does not exist
+     */
+    Optional<TimelineEntry> oldest(String key);
+
+    /**
+     * Add entries without removing existing ones (cold rebuild), creating the timeline if needed,
+     * then trim it to maxSize and set its time-to-live
+     */
+    void merge(String key, List<TimelineEntry> entries, int maxSize, Duration ttl);
+
+    void touch(String key, Duration ttl);
+
+    void delete(Collection<String> keys);
+
+    String getStoreType();
+}
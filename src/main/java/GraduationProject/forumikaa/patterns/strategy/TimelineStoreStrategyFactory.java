@@ -0,0 +1,44 @@
+package GraduationProject.forumikaa.patterns.strategy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Factory class for home timeline stores
+ * Uses Strategy Pattern to switch between Redis and the in-memory stand-in
+ */
+@Component
+public class TimelineStoreStrategyFactory {
+
+    @Value("${app.timeline.store:redis}")
+    private String timelineStore;
+
+    @Autowired
+    @Qualifier("redisTimelineStore")
+    private TimelineStoreStrategy redisTimelineStore;
+
+    @Autowired
+    @Qualifier("inMemoryTimelineStore")
+    private TimelineStoreStrategy inMemoryTimelineStore;
+
+    public TimelineStoreStrategy getStore() {
+        return getStore(timelineStore);
+    }
+
+    public TimelineStoreStrategy getStore(String storeType) {
+        switch (storeType.toLowerCase()) {
+            case "redis":
+                return redisTimelineStore;
+            case "memory":
+                return inMemoryTimelineStore;
+            default:
+                throw new IllegalArgumentException("Unsupported timeline store: " + storeType);
+        }
+    }
+
+    public String getCurrentStoreType() {
+        return timelineStore;
+    }
+}
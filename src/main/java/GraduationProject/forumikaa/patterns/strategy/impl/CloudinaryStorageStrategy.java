@@ -8,19 +8,29 @@ import GraduationProject.forumikaa.entity.Document;
 import GraduationProject.forumikaa.entity.Post;
 import GraduationProject.forumikaa.entity.User;
 import GraduationProject.forumikaa.patterns.strategy.FileStorageStrategy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -28,6 +38,7 @@ import java.util.stream.Collectors;
  * Cloudinary file storage strategy implementation
  * Stores files on Cloudinary cloud storage with automatic optimization
  */
+@Slf4j
 @Component("cloudinaryStorageStrategy")
 public class CloudinaryStorageStrategy implements FileStorageStrategy {
 
@@ -43,6 +54,9 @@ public class CloudinaryStorageStrategy implements FileStorageStrategy {
     @Value("${cloudinary.upload-folder:forumikaa/files}")
     private String uploadFolder;
 
+    @Value("${cloudinary.api-url:https://api.cloudinary.com}")
+    private String apiUrl;
+
     private final DocumentDao documentDao;
     private final PostDao postDao;
     private final UserDao userDao;
@@ -108,6 +122,23 @@ public class CloudinaryStorageStrategy implements FileStorageStrategy {
         }
     }
 
+    @Override
+    public Map<Long, List<FileUploadResponse>> getFilesByPostIds(Collection<Long> postIds) {
+        Map<Long, List<FileUploadResponse>> result = new HashMap<>();
+        if (postIds == null || postIds.isEmpty()) {
+            return result;
+        }
+        try {
+            for (Document document : documentDao.findByPostIdIn(postIds)) {
+                result.computeIfAbsent(document.getPost().getId(), id -> new ArrayList<>())
+                        .add(createFileUploadResponse(document));
+            }
+        } catch (Exception e) {
+            log.warn("Lỗi tải tài liệu cho các bài viết {}", postIds, e);
+        }
+        return result;
+    }
+
     @Override
     public FileUploadResponse getFileById(Long fileId) {
         Document document = documentDao.findById(fileId)
@@ -126,7 +157,7 @@ public class CloudinaryStorageStrategy implements FileStorageStrategy {
 
         try {
             // Delete from Cloudinary using the correct public_id (fileName field)
-            deleteFromCloudinary(document.getFileName());
+            deleteByStorageKey(document.getFileName(), document.getMimeType());
         } catch (Exception e) {
             System.err.println("Failed to delete file from Cloudinary: " + e.getMessage());
         }
@@ -194,7 +225,7 @@ public class CloudinaryStorageStrategy implements FileStorageStrategy {
     // ========== Helper Methods ==========
 
     private String uploadToCloudinary(MultipartFile file) throws IOException, InterruptedException {
-        String uploadUrl = "https://api.cloudinary.com/v1_1/" + cloudName + "/upload";
+        String uploadUrl = apiUrl + "/v1_1/" + cloudName + "/upload";
         
         // Create proper multipart form data with binary file content
         String boundary = "----WebKitFormBoundary" + UUID.randomUUID().toString();
@@ -289,19 +320,80 @@ public class CloudinaryStorageStrategy implements FileStorageStrategy {
     }
     
     
-    private void deleteFromCloudinary(String publicId) throws IOException, InterruptedException {
-        // Simplified delete - in real implementation, use proper Cloudinary delete API
-        String deleteUrl = "https://api.cloudinary.com/v1_1/" + cloudName + "/image/destroy";
-        
-        String formData = "public_id=" + publicId + "&api_key=" + apiKey + "&api_secret=" + apiSecret;
-        
+    @Override
+    public String getStorageKey(Document document) {
+        return document.getFileName(); // public_id
+    }
+
+    @Override
+    public void deleteByStorageKey(String publicId, String mimeType) throws IOException {
+        // destroy trả 200 + "not found" khi sai resource type: thử lần lượt, bắt đầu từ type đoán theo mime type
+        for (String resourceType : resourceTypesFor(mimeType)) {
+            if (!"not found".equals(destroy(publicId, resourceType))) {
+                return;
+            }
+        }
+        // Không còn tồn tại ở resource type nào: coi như đã xóa
+    }
+
+    private String destroy(String publicId, String resourceType) throws IOException {
+        long timestamp = System.currentTimeMillis() / 1000;
+        String formData = "public_id=" + URLEncoder.encode(publicId, StandardCharsets.UTF_8)
+                + "&api_key=" + apiKey
+                + "&timestamp=" + timestamp
+                + "&signature=" + sign("public_id=" + publicId + "&timestamp=" + timestamp);
+
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(deleteUrl))
+                .uri(URI.create(apiUrl + "/v1_1/" + cloudName + "/" + resourceType + "/destroy"))
+                .timeout(Duration.ofSeconds(10))
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(formData))
                 .build();
-        
-        httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Cloudinary destroy interrupted");
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Cloudinary destroy failed (" + response.statusCode() + "): " + response.body());
+        }
+
+        String body = response.body();
+        int start = body.indexOf("\"result\":\"");
+        if (start < 0) {
+            throw new IOException("Unexpected Cloudinary destroy response: " + body);
+        }
+        start += 10;
+        String result = body.substring(start, body.indexOf("\"", start));
+        if (!"ok".equals(result) && !"not found".equals(result)) {
+            throw new IOException("Cloudinary destroy failed: " + result);
+        }
+        return result;
+    }
+
+    private static List<String> resourceTypesFor(String mimeType) {
+        if (mimeType != null && mimeType.startsWith("image/")) {
+            return List.of("image", "raw", "video");
+        }
+        if (mimeType != null && (mimeType.startsWith("video/") || mimeType.startsWith("audio/"))) {
+            return List.of("video", "image", "raw");
+        }
+        return List.of("raw", "image", "video");
+    }
+
+    /**
+     * Chữ ký Cloudinary: SHA-1 của chuỗi tham số đã sắp xếp nối với api secret
+     */
+    private String sign(String params) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest((params + apiSecret).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
     }
 
     private Document createDocument(MultipartFile file, Post post, User user, 
@@ -0,0 +1,122 @@
+package GraduationProject.forumikaa.patterns.strategy.impl;
+
+import GraduationProject.forumikaa.dto.TimelineEntry;
+import GraduationProject.forumikaa.patterns.strategy.TimelineStoreStrategy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory timeline storage strategy implementation
+ * Single-node stand-in for Redis (local runs, tests) - TTL is ignored
+ */
+@Component("inMemoryTimelineStore")
+public class InMemoryTimelineStoreStrategy implements TimelineStoreStrategy {
+
+    // Sắp xếp giống ZREVRANGE: score giảm dần, cùng score thì id giảm dần
+    private static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparingDouble(TimelineEntry::getScore).reversed()
+            .thenComparing(TimelineEntry::getPostId, Comparator.reverseOrder());
+
+    private final Map<String, Map<Long, Double>> timelines = new HashMap<>();
+
+    @Override
+    public synchronized boolean exists(String key) {
+        return timelines.containsKey(key);
+    }
+
+    @Override
+    public synchronized long size(String key) {
+        Map<Long, Double> timeline = timelines.get(key);
+        return timeline != null ? timeline.size() : 0L;
+    }
+
+    @Override
+    public synchronized void addIfExists(Collection<String> keys, TimelineEntry entry, int maxSize) {
+        for (String key : keys) {
+            Map<Long, Double> timeline = timelines.get(key);
+            if (timeline == null) {
+                continue;
+            }
+            timeline.put(entry.getPostId(), entry.getScore());
+            trim(timeline, maxSize);
+        }
+    }
+
+    @Override
+    public synchronized void remove(Collection<String> keys, Long postId) {
+        for (String key : keys) {
+            Map<Long, Double> timeline = timelines.get(key);
+            if (timeline != null) {
+                timeline.remove(postId);
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<TimelineEntry> reverseRange(String key, double maxScore, int count) {
+        Map<Long, Double> timeline = timelines.get(key);
+        if (timeline == null) {
+            return new ArrayList<>();
+        }
+        return sorted(timeline).stream()
+                .filter(entry -> entry.getScore() <= maxScore)
+                .limit(count)
+                .toList();
+    }
+
+    @Override
+    public synchronized Optional<TimelineEntry> oldest(String key) {
+        Map<Long, Double> timeline = timelines.get(key);
+        if (timeline == null || timeline.isEmpty()) {
+            return Optional.empty();
+        }
+        List<TimelineEntry> sorted = sorted(timeline);
+        return Optional.of(sorted.get(sorted.size() - 1));
+    }
+
+    @Override
+    public synchronized void merge(String key, List<TimelineEntry> entries, int maxSize, Duration ttl) {
+        Map<Long, Double> timeline = timelines.computeIfAbsent(key, k -> new HashMap<>());
+        entries.forEach(entry -> timeline.put(entry.getPostId(), entry.getScore()));
+        trim(timeline, maxSize);
+    }
+
+    @Override
+    public void touch(String key, Duration ttl) {
+        // Không hỗ trợ TTL
+    }
+
+    @Override
+    public synchronized void delete(Collection<String> keys) {
+        keys.forEach(timelines::remove);
+    }
+
+    @Override
+    public String getStoreType() {
+        return "memory";
+    }
+
+    private void trim(Map<Long, Double> timeline, int maxSize) {
+        if (timeline.size() > maxSize) {
+            List<TimelineEntry> sorted = sorted(timeline);
+            for (TimelineEntry stale : sorted.subList(maxSize, sorted.size())) {
+                timeline.remove(stale.getPostId());
+            }
+        }
+    }
+
+    private List<TimelineEntry> sorted(Map<Long, Double> timeline) {
+        List<TimelineEntry> entries = new ArrayList<>(timeline.size());
+        timeline.forEach((postId, score) -> entries.add(new TimelineEntry(postId, score)));
+        entries.sort(NEWEST_FIRST);
+        return entries;
+    }
+}
@@ -8,6 +8,7 @@ import GraduationProject.forumikaa.entity.Document;
 import GraduationProject.forumikaa.entity.Post;
 import GraduationProject.forumikaa.entity.User;
 import GraduationProject.forumikaa.patterns.strategy.FileStorageStrategy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
@@ -21,7 +22,10 @@ import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -29,6 +33,7 @@ import java.util.stream.Collectors;
  * Local file storage strategy implementation
  * Stores files on local filesystem with organized directory structure
  */
+@Slf4j
 @Component("localStorageStrategy")
 public class LocalStorageStrategy implements FileStorageStrategy {
 
@@ -140,6 +145,23 @@ public class LocalStorageStrategy implements FileStorageStrategy {
         }
     }
 
+    @Override
+    public Map<Long, List<FileUploadResponse>> getFilesByPostIds(Collection<Long> postIds) {
+        Map<Long, List<FileUploadResponse>> result = new HashMap<>();
+        if (postIds == null || postIds.isEmpty()) {
+            return result;
+        }
+        try {
+            for (Document document : documentDao.findByPostIdIn(postIds)) {
+                result.computeIfAbsent(document.getPost().getId(), id -> new ArrayList<>())
+                        .add(createFileUploadResponse(document));
+            }
+        } catch (Exception e) {
+            log.warn("Lỗi tải tài liệu cho các bài viết {}", postIds, e);
+        }
+        return result;
+    }
+
     @Override
     public FileUploadResponse getFileById(Long fileId) {
         Document document = documentDao.findById(fileId)
@@ -257,6 +279,16 @@ public class LocalStorageStrategy implements FileStorageStrategy {
         return document;
     }
 
+    @Override
+    public String getStorageKey(Document document) {
+        return document.getFilePath();
+    }
+
+    @Override
+    public void deleteByStorageKey(String storageKey, String mimeType) throws IOException {
+        Files.deleteIfExists(Paths.get(System.getProperty("user.dir"), uploadPath, storageKey));
+    }
+
     private Path getFilePathFromDocument(Document document) {
         return Paths.get(System.getProperty("user.dir"), uploadPath, document.getFilePath());
     }
@@ -0,0 +1,172 @@
+package GraduationProject.forumikaa.patterns.strategy.impl;
+
+import GraduationProject.forumikaa.dto.TimelineEntry;
+import GraduationProject.forumikaa.patterns.strategy.TimelineStoreStrategy;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Redis timeline storage strategy implementation
+ * Each timeline is a sorted set: member = post id, score = createdAt (epoch micros)
+ */
+@Component("redisTimelineStore")
+public class RedisTimelineStoreStrategy implements TimelineStoreStrategy {
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisTimelineStoreStrategy(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
+    @Override
+    public long size(String key) {
+        Long size = redisTemplate.opsForZSet().zCard(key);
+        return size != null ? size : 0L;
+    }
+
+    @Override
+    public void addIfExists(Collection<String> keys, TimelineEntry entry, int maxSize) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> keyList = new ArrayList<>(keys);
+
+        // 1 round trip: key nào đang tồn tại (timeline nguội sẽ được rebuild khi đọc)
+        List<Object> existing = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                keyList.forEach(ops::hasKey);
+                return null;
+            }
+        });
+
+        List<String> targets = new ArrayList<>();
+        for (int i = 0; i < keyList.size(); i++) {
+            if (Boolean.TRUE.equals(existing.get(i))) {
+                targets.add(keyList.get(i));
+            }
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        // 1 round trip: ZADD + trim cho tất cả timeline
+        String member = String.valueOf(entry.getPostId());
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (String key : targets) {
+                    ops.opsForZSet().add(key, member, entry.getScore());
+                    ops.opsForZSet().removeRange(key, 0, -(maxSize + 1L));
+                }
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void remove(Collection<String> keys, Long postId) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        String member = String.valueOf(postId);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                keys.forEach(key -> ops.opsForZSet().remove(key, member));
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public List<TimelineEntry> reverseRange(String key, double maxScore, int count) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(key, Double.NEGATIVE_INFINITY, maxScore, 0, count);
+        List<TimelineEntry> entries = new ArrayList<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    entries.add(new TimelineEntry(Long.parseLong(tuple.getValue()), tuple.getScore()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public Optional<TimelineEntry> oldest(String key) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet().rangeWithScores(key, 0, 0);
+        if (tuples == null) {
+            return Optional.empty();
+        }
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() != null && tuple.getScore() != null) {
+                return Optional.of(new TimelineEntry(Long.parseLong(tuple.getValue()), tuple.getScore()));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void merge(String key, List<TimelineEntry> entries, int maxSize, Duration ttl) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (TimelineEntry entry : entries) {
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(entry.getPostId()), entry.getScore()));
+        }
+        // 1 round trip: ZADD (giữ các bài đã được addIfExists ghi vào) + trim + TTL
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                if (!tuples.isEmpty()) {
+                    ops.opsForZSet().add(key, tuples);
+                    ops.opsForZSet().removeRange(key, 0, -(maxSize + 1L));
+                }
+                ops.expire(key, ttl);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void touch(String key, Duration ttl) {
+        redisTemplate.expire(key, ttl);
+    }
+
+    @Override
+    public void delete(Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+
+    @Override
+    public String getStoreType() {
+        return "redis";
+    }
+}
@@ -1,9 +1,9 @@
 package GraduationProject.forumikaa.service;
 
 import GraduationProject.forumikaa.dao.CommentDao;
+import GraduationProject.forumikaa.dto.LikeToggleResult;
 import GraduationProject.forumikaa.entity.Comment;
 import GraduationProject.forumikaa.entity.LikeableType;
-import GraduationProject.forumikaa.entity.User;
 import java.time.LocalDateTime;
 import GraduationProject.forumikaa.exception.ResourceNotFoundException;
 import GraduationProject.forumikaa.exception.UnauthorizedException;
@@ -42,18 +42,14 @@ public class CommentServiceImpl implements CommentService {
         Comment comment = commentDao.findById(commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment không tồn tại"));
 
-        User user = userService.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User không tồn tại"));
-
-        boolean wasLiked = likeService.isLikedByUser(userId, commentId, LikeableType.COMMENT);
-        boolean isLiked = likeService.toggleLike(userId, commentId, LikeableType.COMMENT);
+        LikeToggleResult result = likeService.toggle(userId, commentId, LikeableType.COMMENT);
         
         // Gửi notification khi like comment (chỉ khi chưa like trước đó)
-        if (isLiked && !comment.getUser().getId().equals(userId)) { // Không gửi notification cho chính mình
+        if (result.getDelta() > 0 && !comment.getUser().getId().equals(userId)) { // Không gửi notification cho chính mình
             notificationService.createCommentLikeNotification(commentId, comment.getUser().getId(), userId);
         }
         
-        return isLiked;
+        return result.isLiked();
     }
 
     @Override
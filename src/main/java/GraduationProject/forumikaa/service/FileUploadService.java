@@ -3,7 +3,9 @@ package GraduationProject.forumikaa.service;
 import GraduationProject.forumikaa.dto.FileUploadResponse;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public interface FileUploadService {
@@ -11,6 +13,8 @@ public interface FileUploadService {
     CompletableFuture<FileUploadResponse> uploadFile(MultipartFile file, Long postId, Long userId);
     
     List<FileUploadResponse> getFilesByPostId(Long postId);
+
+    Map<Long, List<FileUploadResponse>> getFilesByPostIds(Collection<Long> postIds);
     
     FileUploadResponse getFileById(Long fileId);
     
@@ -3,9 +3,11 @@ package GraduationProject.forumikaa.service;
 import GraduationProject.forumikaa.dao.DocumentDao;
 import GraduationProject.forumikaa.dto.FileUploadResponse;
 import GraduationProject.forumikaa.entity.Document;
+import GraduationProject.forumikaa.event.PostDocumentsChangedEvent;
 import GraduationProject.forumikaa.patterns.strategy.FileStorageStrategy;
 import GraduationProject.forumikaa.patterns.strategy.FileStorageStrategyFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,7 +15,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -27,6 +31,9 @@ public class FileUploadServiceImpl implements FileUploadService {
     @Autowired
     private DocumentDao documentDao;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
     public FileUploadServiceImpl(FileStorageStrategyFactory strategyFactory) {
         this.strategyFactory = strategyFactory;
@@ -38,6 +45,7 @@ public class FileUploadServiceImpl implements FileUploadService {
         try {
             FileStorageStrategy strategy = strategyFactory.getStorageStrategy();
             FileUploadResponse response = strategy.uploadFile(file, postId, userId);
+            eventPublisher.publishEvent(new PostDocumentsChangedEvent(postId));
             return CompletableFuture.completedFuture(response);
         } catch (Exception e) {
             return CompletableFuture.failedFuture(new IOException("File upload failed: " + e.getMessage(), e));
@@ -50,6 +58,12 @@ public class FileUploadServiceImpl implements FileUploadService {
         return strategy.getFilesByPostId(postId);
     }
 
+    @Override
+    public Map<Long, List<FileUploadResponse>> getFilesByPostIds(Collection<Long> postIds) {
+        FileStorageStrategy strategy = strategyFactory.getStorageStrategy();
+        return strategy.getFilesByPostIds(postIds);
+    }
+
     @Override
     public FileUploadResponse getFileById(Long fileId) {
         FileStorageStrategy strategy = strategyFactory.getStorageStrategy();
@@ -60,8 +74,15 @@ public class FileUploadServiceImpl implements FileUploadService {
     @Async("fileUploadExecutor")
     public CompletableFuture<Void> deleteFile(Long fileId, Long userId) {
         try {
+            // Lấy post id trước khi xóa để làm mới cache của bài viết
+            Long postId = documentDao.findById(fileId)
+                    .map(document -> document.getPost() != null ? document.getPost().getId() : null)
+                    .orElse(null);
             FileStorageStrategy strategy = strategyFactory.getStorageStrategy();
             strategy.deleteFile(fileId, userId);
+            if (postId != null) {
+                eventPublisher.publishEvent(new PostDocumentsChangedEvent(postId));
+            }
             return CompletableFuture.completedFuture(null);
         } catch (Exception e) {
             return CompletableFuture.failedFuture(e);
@@ -0,0 +1,28 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.util.FriendGraph.MutualCandidate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Đồ thị bạn bè trong bộ nhớ cho gợi ý "bạn chung" - nạp 1 lần khi khởi động,
+ * cập nhật từ FriendshipServiceImpl khi chấp nhận kết bạn / hủy kết bạn.
+ */
+public interface FriendGraphService {
+
+    // Ghi nhận sau khi transaction hiện tại commit
+    void onFriendshipAccepted(Long userId, Long friendId);
+
+    void onFriendshipRemoved(Long userId, Long friendId);
+
+    // Id bạn bè đã sắp xếp tăng dần - không được sửa mảng trả về
+    long[] getFriendIds(Long userId);
+
+    int countMutualFriends(Long userId, Long otherUserId);
+
+    // Bạn của bạn chưa kết bạn, nhiều bạn chung nhất trước
+    List<MutualCandidate> recommendByMutualFriends(Long userId, int limit);
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,139 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.util.FriendGraph;
+import GraduationProject.forumikaa.util.FriendGraph.MutualCandidate;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giữ FriendGraph của toàn bộ quan hệ ACCEPTED. Thay đổi trên node này được áp dụng ngay sau khi commit;
+ * đồ thị được dựng lại định kỳ từ database để nhận thay đổi từ các node khác.
+ */
+@Slf4j
+@Service
+public class FriendGraphServiceImpl implements FriendGraphService {
+
+    static final String LOAD_EDGES_SQL = "SELECT user_id, friend_id FROM friendships WHERE status = 'ACCEPTED'";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private volatile FriendGraph graph = new FriendGraph();
+
+    // Thay đổi xảy ra trong lúc đang dựng lại đồ thị - áp dụng lại lên đồ thị mới trước khi thay thế
+    private final Object rebuildLock = new Object();
+    private List<Change> changesDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.friend-graph.reload-interval-ms:1800000}",
+            initialDelayString = "${app.friend-graph.reload-interval-ms:1800000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        FriendGraph.Builder builder = FriendGraph.builder();
+        try {
+            jdbcTemplate.query(LOAD_EDGES_SQL, (RowCallbackHandler) rs -> builder.addEdge(rs.getLong(1), rs.getLong(2)));
+        } catch (DataAccessException e) {
+            log.warn("Không thể nạp đồ thị bạn bè: {}", e.getMessage());
+            synchronized (rebuildLock) {
+                changesDuringRebuild = null;
+            }
+            return;
+        }
+        FriendGraph rebuilt = builder.build();
+        synchronized (rebuildLock) {
+            for (Change change : changesDuringRebuild) {
+                change.applyTo(rebuilt);
+            }
+            changesDuringRebuild = null;
+            graph = rebuilt;
+        }
+        log.info("Đã nạp đồ thị bạn bè: {} user, {} quan hệ", rebuilt.userCount(), rebuilt.edgeCount());
+    }
+
+    @Override
+    public void onFriendshipAccepted(Long userId, Long friendId) {
+        if (userId == null || friendId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> apply(new Change(userId, friendId, true)));
+    }
+
+    @Override
+    public void onFriendshipRemoved(Long userId, Long friendId) {
+        if (userId == null || friendId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> apply(new Change(userId, friendId, false)));
+    }
+
+    private void apply(Change change) {
+        synchronized (rebuildLock) {
+            change.applyTo(graph);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        }
+    }
+
+    @Override
+    public long[] getFriendIds(Long userId) {
+        return graph.friendsOf(userId);
+    }
+
+    @Override
+    public int countMutualFriends(Long userId, Long otherUserId) {
+        return graph.mutualCount(userId, otherUserId);
+    }
+
+    @Override
+    public List<MutualCandidate> recommendByMutualFriends(Long userId, int limit) {
+        return graph.mutualCandidates(userId, limit);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        FriendGraph current = graph;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", current.userCount());
+        stats.put("friendships", current.edgeCount());
+        return stats;
+    }
+
+    private static final class Change {
+        private final long userId;
+        private final long friendId;
+        private final boolean added;
+
+        private Change(long userId, long friendId, boolean added) {
+            this.userId = userId;
+            this.friendId = friendId;
+            this.added = added;
+        }
+
+        private void applyTo(FriendGraph target) {
+            if (added) {
+                target.addEdge(userId, friendId);
+            } else {
+                target.removeEdge(userId, friendId);
+            }
+        }
+    }
+}
@@ -26,6 +26,9 @@ public class FriendshipServiceImpl implements FriendshipService {
     @Autowired private UserDao userDao;
     @Autowired private NotificationService notificationService;
     @Autowired private NotificationDao notificationDao;
+    @Autowired private TimelineService timelineService;
+    @Autowired private FriendGraphService friendGraphService;
+    @Autowired private RecommendationCacheService recommendationCacheService;
 
     @Override
     public void sendFriendRequest(Long requesterId, Long targetUserId) {
@@ -50,6 +53,8 @@ public class FriendshipServiceImpl implements FriendshipService {
         friendship.setFriend(target);
         friendship.setStatus(FriendshipStatus.PENDING);
         friendshipDao.save(friendship);
+        // Người vừa được gửi lời mời không còn nằm trong gợi ý kết bạn
+        recommendationCacheService.invalidateTab(requesterId, RecommendationCacheService.Tab.USERS);
 
         // Tạo thông báo cho người nhận
         notificationService.createFriendshipRequestNotification(target.getId(), requester.getId());
@@ -65,6 +70,10 @@ public class FriendshipServiceImpl implements FriendshipService {
         }
         friendship.setStatus(FriendshipStatus.ACCEPTED);
         friendshipDao.save(friendship);
+        timelineService.onFriendshipChanged(currentUserId, requesterId);
+        friendGraphService.onFriendshipAccepted(currentUserId, requesterId);
+        recommendationCacheService.invalidateUser(currentUserId);
+        recommendationCacheService.invalidateUser(requesterId);
 
         // Cập nhật notification gốc (FRIENDSHIP_REQUEST) thành FRIENDSHIP_ACCEPTED
         updateOriginalNotification(requesterId, currentUserId, 
@@ -107,6 +116,10 @@ public class FriendshipServiceImpl implements FriendshipService {
         Friendship friendship = friendshipDao.findBetweenUsers(currentUserId, friendUserId)
                 .orElseThrow(() -> new ResourceNotFoundException("Quan hệ bạn bè không tồn tại"));
         friendshipDao.delete(friendship);
+        timelineService.onFriendshipChanged(currentUserId, friendUserId);
+        friendGraphService.onFriendshipRemoved(currentUserId, friendUserId);
+        recommendationCacheService.invalidateUser(currentUserId);
+        recommendationCacheService.invalidateUser(friendUserId);
         
         // Tạo thông báo cho người bị hủy kết bạn
         notificationService.createFriendshipCancelledNotification(friendUserId, currentUserId);
@@ -0,0 +1,30 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.Group;
+import GraduationProject.forumikaa.util.GroupIndex.GroupCandidate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index nhóm trong bộ nhớ cho gợi ý nhóm: trọng số hashtag của nhóm và membership user -> nhóm.
+ * Nạp khi khởi động, cập nhật từ GroupServiceImpl (lưu / xóa nhóm, thêm / bớt thành viên) sau khi commit.
+ */
+public interface GroupIndexService {
+
+    void onGroupSaved(Group group);
+
+    void onGroupDeleted(Long groupId);
+
+    void onMemberAdded(Long groupId, Long userId);
+
+    void onMemberRemoved(Long groupId, Long userId);
+
+    // Id nhóm user đã tham gia, đã sắp xếp tăng dần - không được sửa mảng trả về
+    long[] getJoinedGroupIds(Long userId);
+
+    // Nhóm chưa tham gia, ứng viên từ hashtag user quan tâm và nhóm của bạn bè, điểm giảm dần
+    List<GroupCandidate> recommendGroups(Long userId, int limit);
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,208 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.Group;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.util.GroupIndex;
+import GraduationProject.forumikaa.util.GroupIndex.GroupCandidate;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Giữ GroupIndex của toàn bộ nhóm. Trọng số hashtag của nhóm được tính sẵn khi dựng index:
+ * hashtag khai báo của nhóm + tỉ lệ xuất hiện của hashtag trong bài viết đã duyệt của nhóm.
+ * Thay đổi trên node này được áp dụng ngay sau khi commit; index được dựng lại định kỳ để nhận thay đổi
+ * từ các node khác và cập nhật tỉ lệ hashtag bài viết.
+ */
+@Slf4j
+@Service
+public class GroupIndexServiceImpl implements GroupIndexService {
+
+    static final String LOAD_GROUPS_SQL = "SELECT id FROM groups";
+
+    static final String LOAD_DECLARED_TOPICS_SQL = "SELECT group_id, topic_id FROM group_topics";
+
+    static final String LOAD_POST_TOPICS_SQL = """
+        SELECT p.group_id, pt.topic_id, COUNT(*) FROM posts p
+        JOIN post_topics pt ON pt.post_id = p.id
+        WHERE p.group_id IS NOT NULL AND p.status = 'APPROVED'
+        GROUP BY p.group_id, pt.topic_id
+    """;
+
+    static final String LOAD_MEMBERS_SQL = "SELECT group_id, user_id FROM group_members";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private UserInterestService userInterestService;
+    @Autowired private FriendGraphService friendGraphService;
+
+    @Value("${app.group-recommendation.declared-topic-weight:1.0}")
+    private double declaredTopicWeight;
+
+    @Value("${app.group-recommendation.weight.topic:3.0}")
+    private double topicWeight;
+
+    @Value("${app.group-recommendation.weight.friend:1.0}")
+    private double friendWeight;
+
+    @Value("${app.group-recommendation.weight.popularity:0.1}")
+    private double popularityWeight;
+
+    @Value("${app.group-recommendation.popular-size:100}")
+    private int popularSize;
+
+    @Value("${app.group-recommendation.max-scanned:20000}")
+    private int maxScanned;
+
+    private volatile GroupIndex index = new GroupIndex();
+
+    // Thay đổi xảy ra trong lúc đang dựng lại index - áp dụng lại lên index mới trước khi thay thế
+    private final Object rebuildLock = new Object();
+    private List<Consumer<GroupIndex>> changesDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.group-recommendation.reload-interval-ms:1800000}",
+            initialDelayString = "${app.group-recommendation.reload-interval-ms:1800000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        GroupIndex rebuilt = new GroupIndex();
+        try {
+            Map<Long, Set<Long>> declared = new HashMap<>();
+            jdbcTemplate.query(LOAD_GROUPS_SQL, (RowCallbackHandler) rs -> declared.put(rs.getLong(1), new HashSet<>()));
+            jdbcTemplate.query(LOAD_DECLARED_TOPICS_SQL, (RowCallbackHandler) rs -> {
+                Set<Long> topics = declared.get(rs.getLong(1));
+                if (topics != null) {
+                    topics.add(rs.getLong(2));
+                }
+            });
+
+            Map<Long, Map<Long, Double>> activity = new HashMap<>();
+            jdbcTemplate.query(LOAD_POST_TOPICS_SQL, (RowCallbackHandler) rs ->
+                    activity.computeIfAbsent(rs.getLong(1), id -> new HashMap<>()).put(rs.getLong(2), (double) rs.getLong(3)));
+
+            for (Map.Entry<Long, Set<Long>> group : declared.entrySet()) {
+                rebuilt.putGroup(group.getKey(), group.getValue(), toShares(activity.get(group.getKey())), declaredTopicWeight);
+            }
+            jdbcTemplate.query(LOAD_MEMBERS_SQL, (RowCallbackHandler) rs -> rebuilt.addMember(rs.getLong(1), rs.getLong(2)));
+        } catch (DataAccessException e) {
+            log.warn("Không thể nạp index nhóm: {}", e.getMessage());
+            synchronized (rebuildLock) {
+                changesDuringRebuild = null;
+            }
+            return;
+        }
+        synchronized (rebuildLock) {
+            for (Consumer<GroupIndex> change : changesDuringRebuild) {
+                change.accept(rebuilt);
+            }
+            changesDuringRebuild = null;
+            rebuilt.refreshPopular(popularSize);
+            index = rebuilt;
+        }
+        log.info("Đã nạp index nhóm: {}", rebuilt.stats());
+    }
+
+    // Số bài viết có hashtag -> tỉ lệ trên tổng số hashtag trong bài viết của nhóm
+    private static Map<Long, Double> toShares(Map<Long, Double> counts) {
+        Map<Long, Double> shares = new HashMap<>();
+        if (counts == null) {
+            return shares;
+        }
+        double total = 0;
+        for (double count : counts.values()) {
+            total += count;
+        }
+        for (Map.Entry<Long, Double> count : counts.entrySet()) {
+            shares.put(count.getKey(), count.getValue() / total);
+        }
+        return shares;
+    }
+
+    @Override
+    public void onGroupSaved(Group group) {
+        if (group == null || group.getId() == null) {
+            return;
+        }
+        Long groupId = group.getId();
+        List<Long> topicIds = new ArrayList<>();
+        if (group.getTopics() != null) {
+            for (Topic topic : group.getTopics()) {
+                topicIds.add(topic.getId());
+            }
+        }
+        TransactionUtils.afterCommit(() -> apply(target -> target.updateDeclaredTopics(groupId, topicIds, declaredTopicWeight)));
+    }
+
+    @Override
+    public void onGroupDeleted(Long groupId) {
+        if (groupId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> apply(target -> target.removeGroup(groupId)));
+    }
+
+    @Override
+    public void onMemberAdded(Long groupId, Long userId) {
+        if (groupId == null || userId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> apply(target -> target.addMember(groupId, userId)));
+    }
+
+    @Override
+    public void onMemberRemoved(Long groupId, Long userId) {
+        if (groupId == null || userId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> apply(target -> target.removeMember(groupId, userId)));
+    }
+
+    private void apply(Consumer<GroupIndex> change) {
+        synchronized (rebuildLock) {
+            change.accept(index);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        }
+    }
+
+    @Override
+    public long[] getJoinedGroupIds(Long userId) {
+        return index.groupsOf(userId);
+    }
+
+    @Override
+    public List<GroupCandidate> recommendGroups(Long userId, int limit) {
+        if (userId == null) {
+            return new ArrayList<>();
+        }
+        return index.recommend(userId, userInterestService.getTopicWeights(userId), friendGraphService.getFriendIds(userId),
+                limit, maxScanned, topicWeight, friendWeight, popularityWeight);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        return index.stats();
+    }
+}
@@ -51,10 +51,23 @@ public class GroupServiceImpl implements GroupService {
     @Autowired
     private SecurityUtil securityUtil;
 
+    @Autowired
+    private PostCardCacheService postCardCacheService;
+
+    @Autowired
+    private GroupIndexService groupIndexService;
+
+    @Autowired
+    private RecommendationCacheService recommendationCacheService;
+
     @Override
     @Transactional
     public Group save(Group group) {
-        return groupDao.save(group);
+        Group savedGroup = groupDao.save(group);
+        // Tên/ảnh group nằm trong card bài viết đã cache
+        postCardCacheService.invalidateGroup(savedGroup.getId());
+        groupIndexService.onGroupSaved(savedGroup);
+        return savedGroup;
     }
 
     @Override
@@ -67,6 +80,7 @@ public class GroupServiceImpl implements GroupService {
     @Transactional
     public void deleteById(Long id) {
         groupDao.deleteById(id);
+        groupIndexService.onGroupDeleted(id);
     }
 
     @Override
@@ -101,6 +115,8 @@ public class GroupServiceImpl implements GroupService {
         member.setRole(GroupMemberRole.valueOf(role));
         
         groupMemberDao.save(member);
+        groupIndexService.onMemberAdded(groupId, userId);
+        recommendationCacheService.invalidateTab(userId, RecommendationCacheService.Tab.GROUPS);
         
         // Update member count in group entity
         Long newMemberCount = groupMemberDao.countByGroupId(groupId);
@@ -116,6 +132,8 @@ public class GroupServiceImpl implements GroupService {
         }
         
         groupMemberDao.deleteByGroupIdAndUserId(groupId, userId);
+        groupIndexService.onMemberRemoved(groupId, userId);
+        recommendationCacheService.invalidateTab(userId, RecommendationCacheService.Tab.GROUPS);
         
         // Update member count in group entity
         Group group = groupDao.findById(groupId)
@@ -0,0 +1,28 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.InteractionAggregate;
+import GraduationProject.forumikaa.entity.InteractionEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Log tương tác giữa user (like / comment / share) và tổng theo cặp (target, actor) trong cửa sổ gần đây,
+ * được compactor nền cập nhật từ log.
+ */
+public interface InteractionService {
+
+    // Ghi sự kiện trong transaction hiện tại; bỏ qua khi actor tương tác với bài viết của chính mình
+    void record(Long actorId, Long targetUserId, InteractionEvent.Type type);
+
+    // Hoàn tác 1 sự kiện cùng loại (bỏ like / xóa comment) trong transaction hiện tại
+    void retract(Long actorId, Long targetUserId, InteractionEvent.Type type);
+
+    // Người (chưa là bạn bè) tương tác nhiều nhất với bài viết của userId trong cửa sổ
+    List<InteractionAggregate> findTopInteractors(Long userId, int limit);
+
+    // Cộng sự kiện mới vào aggregate và trừ sự kiện đã rời khỏi cửa sổ, trả về số sự kiện đã xử lý
+    int compact();
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,209 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.InteractionAggregateDao;
+import GraduationProject.forumikaa.dao.InteractionEventDao;
+import GraduationProject.forumikaa.entity.InteractionAggregate;
+import GraduationProject.forumikaa.entity.InteractionEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sự kiện tương tác chỉ được INSERT trong transaction của like / comment / share; compactor định kỳ gom theo lô
+ * (FOR UPDATE SKIP LOCKED nên nhiều node chạy cùng lúc không xử lý trùng):
+ * 1. Sự kiện chưa compact được cộng vào interaction_aggregates (ON CONFLICT DO UPDATE)
+ * 2. Sự kiện đã compact nhưng rời khỏi cửa sổ được trừ khỏi aggregate rồi xóa khỏi log
+ *
+ * Bỏ like / xóa comment gỡ sự kiện cùng loại mới nhất của cặp khỏi log (trừ khỏi aggregate nếu đã được cộng),
+ * nên sự kiện bị gỡ không bị trừ thêm lần nữa khi rời khỏi cửa sổ.
+ */
+@Slf4j
+@Service
+public class InteractionServiceImpl implements InteractionService {
+
+    static final String COMPACT_SQL = """
+        WITH batch AS (
+            UPDATE interaction_events SET compacted = TRUE, expired = created_at < ?
+            WHERE id IN (
+                SELECT id FROM interaction_events
+                WHERE compacted = FALSE
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING actor_id, target_user_id, type, created_at, expired
+        ), upserted AS (
+            INSERT INTO interaction_aggregates
+                (target_user_id, actor_id, like_count, comment_count, share_count, interaction_count, last_interaction_at)
+            SELECT target_user_id, actor_id,
+                COUNT(*) FILTER (WHERE type = 'LIKE'),
+                COUNT(*) FILTER (WHERE type = 'COMMENT'),
+                COUNT(*) FILTER (WHERE type = 'SHARE'),
+                COUNT(*),
+                MAX(created_at)
+            FROM batch
+            WHERE NOT expired
+            GROUP BY target_user_id, actor_id
+            ORDER BY target_user_id, actor_id
+            ON CONFLICT (target_user_id, actor_id) DO UPDATE SET
+                like_count = interaction_aggregates.like_count + EXCLUDED.like_count,
+                comment_count = interaction_aggregates.comment_count + EXCLUDED.comment_count,
+                share_count = interaction_aggregates.share_count + EXCLUDED.share_count,
+                interaction_count = interaction_aggregates.interaction_count + EXCLUDED.interaction_count,
+                last_interaction_at = GREATEST(interaction_aggregates.last_interaction_at, EXCLUDED.last_interaction_at)
+            RETURNING 1
+        )
+        SELECT COUNT(*) FROM batch
+    """;
+
+    static final String EXPIRE_SQL = """
+        WITH gone AS (
+            DELETE FROM interaction_events
+            WHERE id IN (
+                SELECT id FROM interaction_events
+                WHERE compacted = TRUE AND created_at < ?
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING actor_id, target_user_id, type, expired
+        ), totals AS (
+            SELECT target_user_id, actor_id,
+                COUNT(*) FILTER (WHERE type = 'LIKE') AS likes,
+                COUNT(*) FILTER (WHERE type = 'COMMENT') AS comments,
+                COUNT(*) FILTER (WHERE type = 'SHARE') AS shares,
+                COUNT(*) AS total
+            FROM gone
+            WHERE NOT expired
+            GROUP BY target_user_id, actor_id
+        ), updated AS (
+            UPDATE interaction_aggregates a SET
+                like_count = GREATEST(a.like_count - t.likes, 0),
+                comment_count = GREATEST(a.comment_count - t.comments, 0),
+                share_count = GREATEST(a.share_count - t.shares, 0),
+                interaction_count = GREATEST(a.interaction_count - t.total, 0)
+            FROM totals t
+            WHERE a.target_user_id = t.target_user_id AND a.actor_id = t.actor_id
+            RETURNING 1
+        )
+        SELECT COUNT(*) FROM gone
+    """;
+
+    // FOR UPDATE chờ compactor đang giữ row commit xong nên đọc được compacted / expired mới nhất
+    static final String RETRACT_SQL = """
+        WITH target AS (
+            SELECT id FROM interaction_events
+            WHERE actor_id = ? AND target_user_id = ? AND type = ?
+            ORDER BY id DESC
+            LIMIT 1
+            FOR UPDATE
+        ), gone AS (
+            DELETE FROM interaction_events e
+            USING target t
+            WHERE e.id = t.id
+            RETURNING e.actor_id, e.target_user_id, e.type, e.compacted, e.expired
+        ), updated AS (
+            UPDATE interaction_aggregates a SET
+                like_count = GREATEST(a.like_count - CASE WHEN g.type = 'LIKE' THEN 1 ELSE 0 END, 0),
+                comment_count = GREATEST(a.comment_count - CASE WHEN g.type = 'COMMENT' THEN 1 ELSE 0 END, 0),
+                share_count = GREATEST(a.share_count - CASE WHEN g.type = 'SHARE' THEN 1 ELSE 0 END, 0),
+                interaction_count = GREATEST(a.interaction_count - 1, 0)
+            FROM gone g
+            WHERE g.compacted AND NOT g.expired
+              AND a.target_user_id = g.target_user_id AND a.actor_id = g.actor_id
+            RETURNING 1
+        )
+        SELECT COUNT(*) FROM gone
+    """;
+
+    @Autowired private InteractionEventDao interactionEventDao;
+    @Autowired private InteractionAggregateDao interactionAggregateDao;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Value("${app.interaction.window:30d}")
+    private Duration window;
+
+    @Value("${app.interaction.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void record(Long actorId, Long targetUserId, InteractionEvent.Type type) {
+        if (actorId == null || targetUserId == null || actorId.equals(targetUserId)) {
+            return;
+        }
+        InteractionEvent event = new InteractionEvent();
+        event.setActorId(actorId);
+        event.setTargetUserId(targetUserId);
+        event.setType(type);
+        event.setCreatedAt(LocalDateTime.now());
+        interactionEventDao.save(event);
+    }
+
+    @Override
+    public void retract(Long actorId, Long targetUserId, InteractionEvent.Type type) {
+        if (actorId == null || targetUserId == null || actorId.equals(targetUserId)) {
+            return;
+        }
+        jdbcTemplate.queryForObject(RETRACT_SQL, Integer.class, actorId, targetUserId, type.name());
+    }
+
+    @Override
+    public List<InteractionAggregate> findTopInteractors(Long userId, int limit) {
+        if (userId == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return interactionAggregateDao.findTopInteractors(userId, limit);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.interaction.compact-interval-ms:10000}")
+    public int compact() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(window));
+        int processed = 0;
+        try {
+            processed += drain(COMPACT_SQL, cutoff);
+            int expired = drain(EXPIRE_SQL, cutoff);
+            if (expired > 0) {
+                transactionTemplate.executeWithoutResult(status -> interactionAggregateDao.deleteEmpty());
+            }
+            processed += expired;
+        } catch (DataAccessException e) {
+            log.warn("Không thể compact interaction log: {}", e.getMessage());
+        }
+        return processed;
+    }
+
+    // Chạy câu lệnh theo lô (mỗi lô 1 transaction) đến khi lô cuối không đầy
+    private int drain(String sql, Timestamp cutoff) {
+        int total = 0;
+        Integer count;
+        do {
+            count = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(sql, Integer.class, cutoff, batchSize));
+            total += count != null ? count : 0;
+        } while (count != null && count == batchSize);
+        return total;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingEvents", interactionEventDao.countByCompactedFalse());
+        stats.put("aggregates", interactionAggregateDao.count());
+        stats.put("window", window.toString());
+        return stats;
+    }
+}
@@ -0,0 +1,21 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.LikeableType;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+public interface LikeCacheService {
+
+    // Trong likeableIds, những id user đã like - đọc từ bitmap trong bộ nhớ (load lười ở lần đầu)
+    Set<Long> filterLiked(Long userId, LikeableType likeableType, Collection<Long> likeableIds);
+
+    boolean isLiked(Long userId, Long likeableId, LikeableType likeableType);
+
+    // Cập nhật bitmap tại chỗ sau khi transaction like/unlike commit
+    void onLikeChanged(Long userId, Long likeableId, LikeableType likeableType, boolean liked);
+
+    // Hit/miss, số entry, bộ nhớ đang dùng
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,207 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.LikeDao;
+import GraduationProject.forumikaa.entity.LikeableType;
+import GraduationProject.forumikaa.util.CompactIdSet;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache trạng thái like theo từng người xem.
+ *
+ * Mỗi (user, loại nội dung) giữ 1 CompactIdSet chứa mọi id đã like, nạp bằng 1 query ở lần đầu.
+ * Các entry nằm trong LRU giới hạn theo tổng bộ nhớ (app.like-cache.memory-budget) và được nạp lại sau
+ * app.like-cache.ttl: like/unlike trên node khác chỉ được thấy ở node này sau tối đa ttl.
+ */
+@Service
+public class LikeCacheServiceImpl implements LikeCacheService {
+
+    private static final int VERSION_STRIPES = 64;
+
+    @Autowired private LikeDao likeDao;
+
+    @Value("${app.like-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.like-cache.memory-budget:32MB}")
+    private DataSize memoryBudget;
+
+    @Value("${app.like-cache.ttl:5m}")
+    private Duration ttl;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    // access-order = LRU, mọi thao tác trên map nằm trong synchronized (entries)
+    private final LinkedHashMap<String, CachedSet> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    // Tăng mỗi lần like/unlike: bản nạp đồng thời với 1 thay đổi sẽ không được đưa vào cache
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    @Override
+    public Set<Long> filterLiked(Long userId, LikeableType likeableType, Collection<Long> likeableIds) {
+        if (userId == null || likeableType == null || likeableIds == null || likeableIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        if (!enabled) {
+            return new HashSet<>(likeDao.findLikedIdsByUser(userId, likeableType, likeableIds));
+        }
+        CachedSet cached = getOrLoad(userId, likeableType);
+        Set<Long> liked = new HashSet<>();
+        synchronized (cached) {
+            for (Long id : likeableIds) {
+                if (id != null && cached.ids.contains(id)) {
+                    liked.add(id);
+                }
+            }
+        }
+        return liked;
+    }
+
+    @Override
+    public boolean isLiked(Long userId, Long likeableId, LikeableType likeableType) {
+        if (userId == null || likeableId == null || likeableType == null) {
+            return false;
+        }
+        if (!enabled) {
+            return likeDao.existsByUserIdAndLikeableIdAndLikeableType(userId, likeableId, likeableType);
+        }
+        CachedSet cached = getOrLoad(userId, likeableType);
+        synchronized (cached) {
+            return cached.ids.contains(likeableId);
+        }
+    }
+
+    @Override
+    public void onLikeChanged(Long userId, Long likeableId, LikeableType likeableType, boolean liked) {
+        if (!enabled || userId == null || likeableId == null || likeableType == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> apply(userId, likeableId, likeableType, liked));
+    }
+
+    private void apply(Long userId, Long likeableId, LikeableType likeableType, boolean liked) {
+        versions.incrementAndGet(stripe(userId));
+        synchronized (entries) {
+            CachedSet cached = entries.get(key(userId, likeableType));
+            if (cached == null) {
+                return; // Chưa nạp: lần đọc tiếp theo sẽ lấy dữ liệu mới từ database
+            }
+            synchronized (cached) {
+                if (liked) {
+                    cached.ids.add(likeableId);
+                } else {
+                    cached.ids.remove(likeableId);
+                }
+                long bytes = cached.ids.estimatedBytes();
+                usedBytes += bytes - cached.bytes;
+                cached.bytes = bytes;
+            }
+            evictOverBudget();
+        }
+    }
+
+    private CachedSet getOrLoad(Long userId, LikeableType likeableType) {
+        String key = key(userId, likeableType);
+        synchronized (entries) {
+            CachedSet cached = entries.get(key);
+            if (cached != null && clock.getAsLong() - cached.loadedAt <= ttl.toMillis()) {
+                hits.increment();
+                return cached;
+            }
+            if (cached != null) {
+                entries.remove(key);
+                usedBytes -= cached.bytes;
+                expirations.increment();
+            }
+        }
+        misses.increment();
+
+        int stripe = stripe(userId);
+        long version = versions.get(stripe);
+        long loadedAt = clock.getAsLong();
+        CachedSet loaded = new CachedSet(CompactIdSet.of(likeDao.findAllLikedIdsByUser(userId, likeableType)), loadedAt);
+
+        synchronized (entries) {
+            if (versions.get(stripe) != version) {
+                return loaded; // Có like/unlike trong lúc nạp: dùng cho request này nhưng không cache
+            }
+            CachedSet previous = entries.put(key, loaded);
+            usedBytes += loaded.bytes - (previous != null ? previous.bytes : 0L);
+            evictOverBudget();
+        }
+        return loaded;
+    }
+
+    // Gọi trong synchronized (entries)
+    private void evictOverBudget() {
+        long budget = memoryBudget.toBytes();
+        Iterator<Map.Entry<String, CachedSet>> iterator = entries.entrySet().iterator();
+        while (usedBytes > budget && iterator.hasNext()) {
+            CachedSet eldest = iterator.next().getValue();
+            iterator.remove();
+            usedBytes -= eldest.bytes;
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("usedBytes", usedBytes);
+        }
+        stats.put("budgetBytes", memoryBudget.toBytes());
+        stats.put("ttlSeconds", ttl.getSeconds());
+        return stats;
+    }
+
+    private static String key(Long userId, LikeableType likeableType) {
+        return userId + ":" + likeableType.name();
+    }
+
+    private static int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) VERSION_STRIPES);
+    }
+
+    private static final class CachedSet {
+        private final CompactIdSet ids;
+        private final long loadedAt;
+        private long bytes;
+
+        private CachedSet(CompactIdSet ids, long loadedAt) {
+            this.ids = ids;
+            this.loadedAt = loadedAt;
+            this.bytes = ids.estimatedBytes();
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package GraduationProject.forumikaa.service;
 
+import GraduationProject.forumikaa.dto.LikeToggleResult;
 import GraduationProject.forumikaa.entity.Like;
 import GraduationProject.forumikaa.entity.LikeableType;
 
+import java.util.Collection;
+import java.util.Set;
+
 public interface LikeService {
 
     boolean toggleLike(Long userId, Long likeableId, LikeableType likeableType);
 
+    // Toggle atomic (DELETE ... RETURNING, rồi INSERT ... ON CONFLICT DO NOTHING RETURNING), an toàn khi chạy đồng thời
+    LikeToggleResult toggle(Long userId, Long likeableId, LikeableType likeableType);
+
+    // Đặt trạng thái mong muốn - idempotent, dùng cho retry/double-click
+    LikeToggleResult setLiked(Long userId, Long likeableId, LikeableType likeableType, boolean liked);
+
     Long getLikeCount(Long likeableId, LikeableType likeableType);
 
     boolean isLikedByUser(Long userId, Long likeableId, LikeableType likeableType);
 
+    // Batch: trả về tập các id (trong likeableIds) mà user đã like
+    Set<Long> getLikedIds(Long userId, Collection<Long> likeableIds, LikeableType likeableType);
+
     Long getUserLikeCount(Long userId, LikeableType likeableType);
 
     Long getUserLikeCountInDateRange(Long userId, LikeableType likeableType, java.time.LocalDateTime startDate, java.time.LocalDateTime endDate);
@@ -22,20 +35,16 @@ public interface LikeService {
     default boolean isPostLikedByUser(Long postId, Long userId) {
         return isLikedByUser(userId, postId, LikeableType.POST);
     }
+
+    default Set<Long> getLikedPostIds(Long userId, Collection<Long> postIds) {
+        return getLikedIds(userId, postIds, LikeableType.POST);
+    }
     
     default boolean likePost(Long postId, Long userId) {
-        // Chỉ like nếu chưa like
-        if (!isPostLikedByUser(postId, userId)) {
-            return toggleLike(userId, postId, LikeableType.POST);
-        }
-        return true; // Đã like rồi
+        return setLiked(userId, postId, LikeableType.POST, true).isLiked();
     }
     
     default boolean unlikePost(Long postId, Long userId) {
-        // Chỉ unlike nếu đã like
-        if (isPostLikedByUser(postId, userId)) {
-            return toggleLike(userId, postId, LikeableType.POST);
-        }
-        return false; // Chưa like
+        return setLiked(userId, postId, LikeableType.POST, false).isLiked();
     }
 }
@@ -1,6 +1,7 @@
 package GraduationProject.forumikaa.service;
 
 import GraduationProject.forumikaa.dao.LikeDao;
+import GraduationProject.forumikaa.dto.LikeToggleResult;
 import GraduationProject.forumikaa.entity.Like;
 import GraduationProject.forumikaa.entity.LikeableType;
 import GraduationProject.forumikaa.entity.User;
@@ -10,6 +11,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
 @Service
 public class LikeServiceImpl implements LikeService {
 
@@ -18,6 +23,9 @@ public class LikeServiceImpl implements LikeService {
 
     @Autowired
     private UserService userService;
+
+    @Autowired
+    private LikeCacheService likeCacheService;
     
 
 
@@ -35,6 +43,7 @@ public class LikeServiceImpl implements LikeService {
         if (existingLike != null) {
             // Nếu đã like thì unlike
             likeDao.delete(existingLike);
+            likeCacheService.onLikeChanged(userId, likeableId, likeableType, false);
             return false;
         } else {
             // Nếu chưa like thì like
@@ -43,10 +52,38 @@ public class LikeServiceImpl implements LikeService {
             newLike.setLikeableId(likeableId);
             newLike.setLikeableType(likeableType);
             likeDao.save(newLike);
+            likeCacheService.onLikeChanged(userId, likeableId, likeableType, true);
             return true;
         }
     }
 
+    @Override
+    @Transactional
+    public LikeToggleResult toggle(Long userId, Long likeableId, LikeableType likeableType) {
+        // Bỏ thích: 1 statement
+        if (!likeDao.deleteReturningIds(userId, likeableId, likeableType.name()).isEmpty()) {
+            likeCacheService.onLikeChanged(userId, likeableId, likeableType, false);
+            return new LikeToggleResult(false, -1);
+        }
+        // Thích: request song song có thể đã insert trước - khi đó không tăng count
+        boolean inserted = !likeDao.insertIfAbsent(userId, likeableId, likeableType.name()).isEmpty();
+        likeCacheService.onLikeChanged(userId, likeableId, likeableType, true);
+        return new LikeToggleResult(true, inserted ? 1 : 0);
+    }
+
+    @Override
+    @Transactional
+    public LikeToggleResult setLiked(Long userId, Long likeableId, LikeableType likeableType, boolean liked) {
+        if (liked) {
+            boolean inserted = !likeDao.insertIfAbsent(userId, likeableId, likeableType.name()).isEmpty();
+            likeCacheService.onLikeChanged(userId, likeableId, likeableType, true);
+            return new LikeToggleResult(true, inserted ? 1 : 0);
+        }
+        boolean deleted = !likeDao.deleteReturningIds(userId, likeableId, likeableType.name()).isEmpty();
+        likeCacheService.onLikeChanged(userId, likeableId, likeableType, false);
+        return new LikeToggleResult(false, deleted ? -1 : 0);
+    }
+
     @Override
     public Long getLikeCount(Long likeableId, LikeableType likeableType) {
         return likeDao.countByLikeableIdAndLikeableType(likeableId, likeableType);
@@ -54,7 +91,15 @@ public class LikeServiceImpl implements LikeService {
 
     @Override
     public boolean isLikedByUser(Long userId, Long likeableId, LikeableType likeableType) {
-        return likeDao.existsByUserIdAndLikeableIdAndLikeableType(userId, likeableId, likeableType);
+        return likeCacheService.isLiked(userId, likeableId, likeableType);
+    }
+
+    @Override
+    public Set<Long> getLikedIds(Long userId, Collection<Long> likeableIds, LikeableType likeableType) {
+        if (userId == null || likeableIds == null || likeableIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return likeCacheService.filterLiked(userId, likeableType, likeableIds);
     }
 
     @Override
@@ -0,0 +1,23 @@
+package GraduationProject.forumikaa.service;
+
+import java.util.Map;
+
+/**
+ * Số thông báo chưa đọc của từng user giữ trong bộ nhớ của node: tạo thông báo cộng 1, đánh dấu đã đọc trừ
+ * đúng số dòng vừa chuyển sang đã đọc. Counter chưa có / hết hạn (app.notification.unread-counter.ttl)
+ * được đếm lại từ database, nên sai lệch (node khác ghi, dữ liệu sửa tay) tự hết sau tối đa 1 ttl.
+ */
+public interface NotificationCounterService {
+
+    long getUnreadCount(Long userId);
+
+    // Các thay đổi được áp dụng sau khi transaction hiện tại commit
+    void increment(Long userId);
+
+    void decrement(Long userId, long count);
+
+    // Đánh dấu tất cả đã đọc: bỏ counter, lần đọc sau đếm lại từ database
+    void reset(Long userId);
+
+    Map<String, Object> getStats();
+}
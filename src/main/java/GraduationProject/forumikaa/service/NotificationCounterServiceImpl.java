@@ -0,0 +1,136 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.NotificationDao;
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter là AtomicLong trong ExpiringLruCache, cộng / trừ tại chỗ sau khi commit.
+ *
+ * Mỗi user thuộc 1 stripe có generation riêng (tăng mỗi lần counter của user thay đổi) và số thay đổi đang
+ * "bay" (đã ghi trong transaction, chưa áp dụng vào counter). Lần đếm từ database chỉ được cache khi generation
+ * không đổi trong lúc đếm và không còn thay đổi nào đang bay: giữa commit và afterCommit, số đếm đã thấy dòng mới
+ * nhưng counter chưa được cộng, cache lúc đó sẽ bị cộng 2 lần.
+ */
+@Service
+public class NotificationCounterServiceImpl implements NotificationCounterService {
+
+    private static final int STRIPES = 1024;
+
+    @Autowired private NotificationDao notificationDao;
+
+    @Value("${app.notification.unread-counter.max-size:50000}")
+    private int maxSize;
+
+    @Value("${app.notification.unread-counter.ttl:10m}")
+    private Duration ttl;
+
+    // Ghi vào cache và áp dụng thay đổi nằm trong synchronized (counters)
+    private ExpiringLruCache<Long, AtomicLong> counters;
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray inFlight = new AtomicLongArray(STRIPES);
+
+    private final LongAdder loads = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        counters = new ExpiringLruCache<>(maxSize, ttl);
+    }
+
+    @Override
+    public long getUnreadCount(Long userId) {
+        if (userId == null) {
+            return 0L;
+        }
+        AtomicLong counter = counters.get(userId);
+        if (counter != null) {
+            return counter.get();
+        }
+        int stripe = stripe(userId);
+        long generation = generations.get(stripe);
+        Long count = notificationDao.countUnreadByRecipientId(userId);
+        long unread = count != null ? count : 0L;
+        loads.increment();
+        synchronized (counters) {
+            if (inFlight.get(stripe) == 0 && generations.get(stripe) == generation) {
+                counters.put(userId, new AtomicLong(unread));
+            }
+        }
+        return unread;
+    }
+
+    @Override
+    public void increment(Long userId) {
+        if (userId != null) {
+            change(userId, 1);
+        }
+    }
+
+    @Override
+    public void decrement(Long userId, long count) {
+        if (userId != null && count > 0) {
+            change(userId, -count);
+        }
+    }
+
+    @Override
+    public void reset(Long userId) {
+        if (userId != null) {
+            TransactionUtils.afterCommit(() -> {
+                synchronized (counters) {
+                    generations.incrementAndGet(stripe(userId));
+                    counters.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    // Đánh dấu thay đổi đang bay ngay trong transaction, áp dụng sau khi commit và bỏ đánh dấu khi transaction kết thúc
+    private void change(Long userId, long delta) {
+        int stripe = stripe(userId);
+        inFlight.incrementAndGet(stripe);
+        TransactionUtils.afterCompletion(committed -> {
+            try {
+                if (committed) {
+                    adjust(userId, stripe, delta);
+                }
+            } finally {
+                inFlight.decrementAndGet(stripe);
+            }
+        });
+    }
+
+    private void adjust(Long userId, int stripe, long delta) {
+        synchronized (counters) {
+            generations.incrementAndGet(stripe);
+            AtomicLong counter = counters.get(userId);
+            if (counter != null) {
+                counter.accumulateAndGet(delta, (current, change) -> Math.max(0L, current + change));
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(counters.stats());
+        stats.put("loads", loads.sum());
+        stats.put("ttlSeconds", ttl.getSeconds());
+        return stats;
+    }
+
+    private static int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+}
@@ -0,0 +1,24 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.NotificationEvent;
+
+import java.util.Map;
+
+/**
+ * Outbox thông báo: request chỉ ghi sự kiện (cùng transaction với like / bình luận / kết bạn), dispatcher chạy nền
+ * tạo các dòng notifications theo lô rồi đẩy qua WebSocket sau khi commit.
+ */
+public interface NotificationDispatchService {
+
+    // Ghi sự kiện trong transaction hiện tại; dispatcher được đánh thức sau khi commit
+    void enqueue(NotificationEvent event);
+
+    // Xử lý các sự kiện đến hạn cho tới khi hết, trả về số sự kiện đã nhận
+    int dispatchPending();
+
+    // Đẩy các cập nhật của thông báo gộp đã bị hoãn vì đã được đẩy trong push-interval
+    void flushPendingUpdates();
+
+    // Số sự kiện đang chờ / đã bỏ cuộc, tuổi sự kiện cũ nhất và độ trễ từ lúc ghi sự kiện tới lúc tạo thông báo
+    Map<String, Object> getStats();
+}
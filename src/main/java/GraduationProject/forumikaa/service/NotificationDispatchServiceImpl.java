@@ -0,0 +1,610 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.CommentDao;
+import GraduationProject.forumikaa.dao.NotificationDao;
+import GraduationProject.forumikaa.dao.NotificationEventDao;
+import GraduationProject.forumikaa.entity.Notification;
+import GraduationProject.forumikaa.entity.NotificationEvent;
+import GraduationProject.forumikaa.handler.notification.NotificationBroadcaster;
+import GraduationProject.forumikaa.patterns.builder.NotificationBuilder;
+import GraduationProject.forumikaa.patterns.factory.NotificationFactoryManager;
+import GraduationProject.forumikaa.service.SenderSnippetCacheService.SenderSnippet;
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Dispatcher của outbox thông báo.
+ *
+ * Request like / bình luận / kết bạn chỉ ghi 1 dòng notification_events. Sau khi commit, dispatcher được đánh thức
+ * trên pool riêng (poll định kỳ là lưới an toàn), nhận sự kiện theo lô bằng FOR UPDATE SKIP LOCKED, insert các dòng
+ * notifications bằng 1 JDBC batch và xóa sự kiện trong cùng transaction. Counter chưa đọc và đẩy WebSocket chạy sau
+ * commit; lô lỗi được thử lại với backoff tăng dần, dispatcher chết giữa chừng thì sự kiện tự đến hạn lại khi hết lease.
+ *
+ * Like / bình luận trên cùng 1 target trong app.notification.coalesce.window được gộp vào 1 dòng (số người tương tác
+ * và vài người gần nhất) thay vì mỗi sự kiện 1 dòng; cập nhật của dòng gộp được đẩy tối đa 1 lần mỗi push-interval.
+ */
+@Slf4j
+@Service
+public class NotificationDispatchServiceImpl implements NotificationDispatchService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String INSERT_NOTIFICATION_SQL = """
+        INSERT INTO notifications (recipient_id, sender_id, notification_type, message, related_entity_id,
+                                   related_entity_type, link, is_read, created_at, updated_at, actor_count,
+                                   recent_actor_ids)
+        VALUES (?, ?, ?, ?, ?, ?, ?, false, ?, ?, ?, ?)
+    """;
+
+    // Phần hành động của thông báo gộp, sau tên người tương tác
+    private static final Map<Notification.NotificationType, String> COALESCE_ACTIONS = Map.of(
+            Notification.NotificationType.POST_LIKE, "đã thích bài viết của bạn",
+            Notification.NotificationType.COMMENT_LIKE, "đã thích bình luận của bạn",
+            Notification.NotificationType.POST_COMMENT, "đã bình luận bài viết của bạn");
+
+    private static final int MAX_RECENT_ACTORS = 3;
+    private static final int MAX_NAMED_ACTORS = 2;
+    private static final int PUSH_TRACKING_SIZE = 10_000;
+
+    @Autowired private NotificationEventDao notificationEventDao;
+    @Autowired private NotificationDao notificationDao;
+    @Autowired private CommentDao commentDao;
+    @Autowired private SenderSnippetCacheService senderSnippetCacheService;
+    @Autowired private NotificationCounterService notificationCounterService;
+    @Autowired private NotificationBroadcaster notificationBroadcaster;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("notificationDispatchExecutor")
+    private Executor dispatchExecutor;
+
+    @Value("${app.notification.dispatcher.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.notification.dispatcher.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.notification.dispatcher.initial-backoff:5s}")
+    private Duration initialBackoff;
+
+    @Value("${app.notification.dispatcher.max-backoff:10m}")
+    private Duration maxBackoff;
+
+    @Value("${app.notification.dispatcher.lease:2m}")
+    private Duration lease;
+
+    @Value("${app.notification.coalesce.types:POST_LIKE,COMMENT_LIKE,POST_COMMENT}")
+    private Set<Notification.NotificationType> coalesceTypes;
+
+    // 0 = tắt gộp thông báo
+    @Value("${app.notification.coalesce.window:1h}")
+    private Duration coalesceWindow;
+
+    @Value("${app.notification.coalesce.push-interval:30s}")
+    private Duration pushInterval;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    // Id các dòng gộp đã đẩy trong push-interval gần nhất (entry hết hạn = được đẩy lại)
+    private ExpiringLruCache<Long, Boolean> recentPushes;
+
+    // Id các dòng gộp bị hoãn đẩy; flushPendingUpdates đọc lại trạng thái mới nhất từ database khi hết push-interval.
+    // Mất danh sách này (restart) chỉ làm chậm cập nhật: client kết nối lại nhận dòng đã đổi qua replay theo updated_at
+    private final Set<Long> pendingUpdates = ConcurrentHashMap.newKeySet();
+
+    // Tối đa 1 lần đánh thức đang chờ trong pool: nhiều commit liên tiếp chỉ tạo 1 task
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalLagMs = new LongAdder();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder throttledPushes = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        recentPushes = new ExpiringLruCache<>(PUSH_TRACKING_SIZE, pushInterval,
+                () -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()));
+    }
+
+    @Override
+    public void enqueue(NotificationEvent event) {
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now());
+        notificationEventDao.save(event);
+        TransactionUtils.afterCommit(this::wakeUp);
+    }
+
+    private void wakeUp() {
+        if (!wakeUpPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatchExecutor.execute(() -> {
+                wakeUpPending.set(false);
+                dispatchPending();
+            });
+        } catch (TaskRejectedException e) {
+            // Pool đầy: sự kiện vẫn nằm trong bảng, lần poll kế tiếp sẽ xử lý
+            wakeUpPending.set(false);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.notification.dispatcher.poll-interval-ms:5000}")
+    public int dispatchPending() {
+        int processed = 0;
+        try {
+            List<NotificationEvent> batch;
+            do {
+                batch = claimBatch();
+                processBatch(batch);
+                processed += batch.size();
+            } while (batch.size() == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Không thể xử lý notification outbox: {}", e.getMessage());
+        }
+        return processed;
+    }
+
+    private List<NotificationEvent> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationEvent> batch = transactionTemplate.execute(
+                status -> notificationEventDao.claimDue(now, now.plus(lease), batchSize));
+        return batch != null ? batch : List.of();
+    }
+
+    private void processBatch(List<NotificationEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Long, SenderSnippet> senders = senderSnippetCacheService.getAll(
+                batch.stream().map(NotificationEvent::getSenderId).toList());
+
+        List<NotificationEvent> built = new ArrayList<>();
+        List<Notification> notifications = new ArrayList<>();
+        List<NotificationEvent> failed = new ArrayList<>();
+        for (NotificationEvent event : batch) {
+            try {
+                notifications.add(buildNotification(event, senders.get(event.getSenderId())));
+                built.add(event);
+            } catch (Exception e) {
+                scheduleRetry(event, e);
+                failed.add(event);
+            }
+        }
+
+        List<Notification> inserted = new ArrayList<>();
+        List<Notification> updated = new ArrayList<>();
+        List<Long> reopened = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!notifications.isEmpty()) {
+                    coalesce(notifications, inserted, updated, reopened);
+                    if (!inserted.isEmpty()) {
+                        insertNotifications(inserted);
+                    }
+                    if (!updated.isEmpty()) {
+                        notificationDao.saveAll(updated);
+                    }
+                    notificationEventDao.deleteAllByIdInBatch(built.stream().map(NotificationEvent::getId).toList());
+                    // Đăng ký trong transaction: counter đánh dấu thay đổi đang bay trước commit, lần đếm chạy giữa
+                    // commit và lúc cộng counter không được cache (nếu không dòng mới bị cộng 2 lần)
+                    inserted.forEach(notification -> notificationCounterService.increment(notification.getRecipientId()));
+                    // Dòng gộp đã đọc nhận thêm người tương tác thì thành chưa đọc lại
+                    reopened.forEach(notificationCounterService::increment);
+                }
+                if (!failed.isEmpty()) {
+                    notificationEventDao.saveAll(failed);
+                }
+            });
+        } catch (DataAccessException | TransactionException e) {
+            // Thử lại cả lô; nếu lưu lịch thử lại cũng lỗi thì sự kiện đến hạn lại khi hết lease
+            log.warn("Không thể tạo {} thông báo, sẽ thử lại: {}", notifications.size(), e.getMessage());
+            built.forEach(event -> scheduleRetry(event, e));
+            transactionTemplate.executeWithoutResult(status -> notificationEventDao.saveAll(batch));
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        built.forEach(event -> recordLag(Duration.between(event.getCreatedAt(), now).toMillis()));
+        for (Notification notification : inserted) {
+            if (isCoalescible(notification)) {
+                markPushed(notification.getId());
+            }
+            notificationBroadcaster.publish(notification.getRecipientId(), notification);
+        }
+        updated.forEach(this::publishUpdate);
+
+        dispatched.add(built.size());
+        coalesced.add(built.size() - inserted.size());
+        if (!failed.isEmpty()) {
+            log.warn("Notification outbox: {} thông báo đã tạo, {} sự kiện lỗi sẽ thử lại", built.size(), failed.size());
+        }
+    }
+
+    /**
+     * Chia thông báo của lô thành dòng mới (inserted) và dòng gộp đã có trong database bị thay đổi (updated).
+     * Thông báo cùng recipient / loại / target trong coalesce-window kể từ lúc dòng gộp được tạo được gộp vào dòng đó.
+     */
+    private void coalesce(List<Notification> notifications, List<Notification> inserted,
+                          List<Notification> updated, List<Long> reopened) {
+        Map<List<Object>, List<Notification>> groups = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            if (isCoalescible(notification)) {
+                groups.computeIfAbsent(coalesceKey(notification), key -> new ArrayList<>()).add(notification);
+            } else {
+                inserted.add(notification);
+            }
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        Set<Long> recipientIds = new HashSet<>();
+        Set<Notification.NotificationType> types = new HashSet<>();
+        Set<Long> targetIds = new HashSet<>();
+        LocalDateTime oldest = null;
+        for (List<Notification> group : groups.values()) {
+            group.sort(Comparator.comparing(Notification::getCreatedAt));
+            Notification first = group.get(0);
+            recipientIds.add(first.getRecipientId());
+            types.add(first.getType());
+            targetIds.add(first.getRelatedEntityId());
+            oldest = oldest == null || first.getCreatedAt().isBefore(oldest) ? first.getCreatedAt() : oldest;
+        }
+        // Khóa trước khi tìm dòng gộp: dispatcher khác cùng target chờ đến khi dòng gộp mới của lô này đã commit
+        notificationDao.lockCoalesceKeys(groups.keySet().stream()
+                .map(NotificationDispatchServiceImpl::lockKey)
+                .collect(Collectors.toCollection(TreeSet::new)));
+        // Sắp theo id: dòng gộp mới nhất của mỗi target ghi đè dòng cũ hơn
+        Map<List<Object>, Notification> openRows = new HashMap<>();
+        for (Notification row : notificationDao.findCoalesceCandidates(recipientIds, types, targetIds, oldest.minus(coalesceWindow))) {
+            openRows.put(coalesceKey(row), row);
+        }
+
+        List<Notification> merged = new ArrayList<>();
+        for (Map.Entry<List<Object>, List<Notification>> entry : groups.entrySet()) {
+            Notification existing = openRows.get(entry.getKey());
+            boolean existingWasRead = existing != null && existing.isRead();
+            boolean existingChanged = false;
+            Notification row = existing;
+            for (Notification notification : entry.getValue()) {
+                if (row != null && notification.getCreatedAt().isBefore(row.getCreatedAt().plus(coalesceWindow))) {
+                    boolean changed = merge(row, notification);
+                    existingChanged |= changed && row == existing;
+                    Notification target = row;
+                    if (merged.stream().noneMatch(m -> m == target)) {
+                        merged.add(target);
+                    }
+                    continue;
+                }
+                // Chưa có dòng gộp hoặc cửa sổ đã đóng: thông báo này mở dòng gộp mới
+                notification.setActorCount(1);
+                notification.setRecentActorIds(String.valueOf(notification.getSenderId()));
+                inserted.add(notification);
+                row = notification;
+            }
+            if (existingChanged) {
+                updated.add(existing);
+                if (existingWasRead) {
+                    reopened.add(existing.getRecipientId());
+                }
+            }
+        }
+
+        Set<Long> actorIds = new HashSet<>();
+        merged.forEach(row -> actorIds.addAll(recentActors(row)));
+        Map<Long, SenderSnippet> actors = senderSnippetCacheService.getAll(actorIds);
+        merged.forEach(row -> row.setMessage(coalescedMessage(row, actors)));
+    }
+
+    // Thêm người tương tác vào dòng gộp; false nếu dòng không đổi (người gần nhất tương tác lại, dòng chưa đọc)
+    private boolean merge(Notification row, Notification next) {
+        List<Long> actors = recentActors(row);
+        Long actorId = next.getSenderId();
+        boolean changed = actors.isEmpty() || !actorId.equals(actors.get(0)) || row.isRead();
+        // Chỉ nhận ra người đã tương tác nếu còn trong danh sách gần nhất
+        if (!actors.remove(actorId)) {
+            row.setActorCount(actorCount(row) + 1);
+        }
+        actors.add(0, actorId);
+        row.setRecentActorIds(actors.stream().limit(MAX_RECENT_ACTORS).map(String::valueOf).collect(Collectors.joining(",")));
+        row.setSenderId(actorId);
+        row.setLink(next.getLink());
+        row.setRead(false);
+        return changed;
+    }
+
+    // "A đã thích...", "A và B đã thích...", "A, B và 23 người khác đã thích..."
+    private String coalescedMessage(Notification row, Map<Long, SenderSnippet> actors) {
+        List<String> names = recentActors(row).stream()
+                .limit(MAX_NAMED_ACTORS)
+                .map(id -> actors.containsKey(id) ? actors.get(id).getUsername() : "Người dùng")
+                .toList();
+        int others = actorCount(row) - names.size();
+        String who = others > 0
+                ? String.join(", ", names) + " và " + others + " người khác"
+                : String.join(" và ", names);
+        return who + " " + COALESCE_ACTIONS.get(row.getType());
+    }
+
+    private boolean isCoalescible(Notification notification) {
+        return !coalesceWindow.isZero()
+                && coalesceTypes.contains(notification.getType())
+                && COALESCE_ACTIONS.containsKey(notification.getType())
+                && notification.getSenderId() != null
+                && notification.getRelatedEntityId() != null
+                && notification.getRelatedEntityType() != null;
+    }
+
+    private static List<Object> coalesceKey(Notification notification) {
+        return List.of(notification.getRecipientId(), notification.getType(),
+                notification.getRelatedEntityType(), notification.getRelatedEntityId());
+    }
+
+    // Khóa advisory 64 bit của 1 khóa gộp, giống nhau trên mọi instance (enum băm theo tên);
+    // trùng hash chỉ làm 2 target khác nhau chờ nhau
+    private static long lockKey(List<Object> coalesceKey) {
+        long key = 0;
+        for (Object part : coalesceKey) {
+            key = 31 * key + (part instanceof Enum<?> e ? e.name().hashCode() : part.hashCode());
+        }
+        return key;
+    }
+
+    private static List<Long> recentActors(Notification row) {
+        List<Long> actors = new ArrayList<>();
+        if (row.getRecentActorIds() != null && !row.getRecentActorIds().isEmpty()) {
+            for (String id : row.getRecentActorIds().split(",")) {
+                actors.add(Long.valueOf(id));
+            }
+        } else if (row.getSenderId() != null) {
+            actors.add(row.getSenderId());
+        }
+        return actors;
+    }
+
+    private static int actorCount(Notification row) {
+        return row.getActorCount() != null ? row.getActorCount() : 1;
+    }
+
+    // Đẩy ngay nếu dòng chưa được đẩy trong push-interval, ngược lại ghi nhớ id chờ flush
+    private void publishUpdate(Notification row) {
+        if (!markPushed(row.getId())) {
+            pendingUpdates.add(row.getId());
+            throttledPushes.increment();
+            return;
+        }
+        pendingUpdates.remove(row.getId());
+        notificationBroadcaster.publish(row.getRecipientId(), row);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.notification.coalesce.flush-interval-ms:5000}")
+    public void flushPendingUpdates() {
+        List<Long> due = new ArrayList<>();
+        for (Long notificationId : List.copyOf(pendingUpdates)) {
+            if (markPushed(notificationId) && pendingUpdates.remove(notificationId)) {
+                due.add(notificationId);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            for (Notification row : notificationDao.findAllById(due)) {
+                notificationBroadcaster.publish(row.getRecipientId(), row);
+            }
+        } catch (DataAccessException e) {
+            // Cập nhật không được đẩy vẫn đến client qua replay lần kết nối sau
+            log.warn("Không thể đọc {} thông báo gộp để đẩy cập nhật: {}", due.size(), e.getMessage());
+        }
+    }
+
+    private boolean markPushed(Long notificationId) {
+        synchronized (recentPushes) {
+            if (recentPushes.get(notificationId) != null) {
+                return false;
+            }
+            recentPushes.put(notificationId, Boolean.TRUE);
+            return true;
+        }
+    }
+
+    // Insert bằng 1 JDBC batch, gán id sinh ra cho từng thông báo để đẩy qua WebSocket
+    private void insertNotifications(List<Notification> notifications) {
+        notifications.forEach(n -> n.setUpdatedAt(n.getCreatedAt()));
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_NOTIFICATION_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Notification n = notifications.get(i);
+                        ps.setLong(1, n.getRecipientId());
+                        setNullableLong(ps, 2, n.getSenderId());
+                        ps.setString(3, n.getType().name());
+                        ps.setString(4, n.getMessage());
+                        setNullableLong(ps, 5, n.getRelatedEntityId());
+                        ps.setString(6, n.getRelatedEntityType());
+                        ps.setString(7, n.getLink());
+                        ps.setTimestamp(8, Timestamp.valueOf(n.getCreatedAt()));
+                        ps.setTimestamp(9, Timestamp.valueOf(n.getUpdatedAt()));
+                        ps.setObject(10, n.getActorCount(), Types.INTEGER);
+                        ps.setString(11, n.getRecentActorIds());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return notifications.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < notifications.size() && i < keys.size(); i++) {
+            notifications.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private Notification buildNotification(NotificationEvent event, SenderSnippet sender) {
+        Long recipientId = event.getRecipientId();
+        Long senderId = event.getSenderId();
+        Long targetId = event.getTargetId();
+        String senderName = sender != null ? sender.getUsername() : "Người dùng";
+
+        Notification notification = switch (event.getType()) {
+            case POST_LIKE -> NotificationFactoryManager
+                    .createPostLikeFactory(targetId, recipientId, senderId, senderName)
+                    .createNotification();
+            case POST_COMMENT -> NotificationBuilder.postCommentNotification(targetId, recipientId, senderId, event.getDetailId())
+                    .message(senderName + " đã bình luận bài viết của bạn")
+                    .build();
+            case COMMENT_LIKE -> commentNotification(event, senderName + " đã thích bình luận của bạn");
+            case COMMENT_REPLY -> commentNotification(event, senderName + " đã trả lời bình luận của bạn");
+            case FRIENDSHIP_REQUEST -> NotificationFactoryManager
+                    .createFriendshipRequestFactory(recipientId, senderId, senderName)
+                    .createNotification();
+            case FRIENDSHIP_ACCEPTED -> friendshipNotification(event, senderName, senderName + " đã chấp nhận lời mời kết bạn");
+            case FRIENDSHIP_REJECTED -> friendshipNotification(event, senderName, senderName + " đã từ chối lời mời kết bạn");
+            case FRIENDSHIP_CANCELLED -> friendshipNotification(event, senderName, senderName + " đã hủy kết bạn");
+            case MENTION -> Notification.builder()
+                    .recipientId(recipientId)
+                    .senderId(senderId)
+                    .type(Notification.NotificationType.MENTION)
+                    .message(senderName + " đã nhắc đến bạn trong " + event.getTargetType().toLowerCase())
+                    .relatedEntityId(targetId)
+                    .relatedEntityType(event.getTargetType())
+                    .link("/" + event.getTargetType().toLowerCase() + "s/" + targetId)
+                    .build();
+            default -> throw new IllegalArgumentException("Loại thông báo không hỗ trợ qua outbox: " + event.getType());
+        };
+        // Thời điểm thông báo là lúc xảy ra hành động, không phải lúc dispatcher xử lý
+        notification.setCreatedAt(event.getCreatedAt());
+        return notification;
+    }
+
+    private Notification commentNotification(NotificationEvent event, String message) {
+        Long commentId = event.getTargetId();
+        // Tìm postId từ commentId để tạo link
+        Optional<Long> postIdOpt = commentDao.findPostIdByCommentId(commentId);
+        String link = postIdOpt.map(postId -> "/posts/" + postId + "#comment-" + commentId)
+                .orElse("/"); // Fallback về trang chủ nếu không tìm thấy
+
+        return Notification.builder()
+                .recipientId(event.getRecipientId())
+                .senderId(event.getSenderId())
+                .type(event.getType())
+                .message(message)
+                .relatedEntityId(commentId)
+                .relatedEntityType("COMMENT")
+                .link(link)
+                .build();
+    }
+
+    private Notification friendshipNotification(NotificationEvent event, String senderName, String message) {
+        return Notification.builder()
+                .recipientId(event.getRecipientId())
+                .senderId(event.getSenderId())
+                .type(event.getType())
+                .message(message)
+                .relatedEntityId(event.getSenderId())
+                .relatedEntityType("USER")
+                .link("/profile/" + senderName)
+                .build();
+    }
+
+    private void scheduleRetry(NotificationEvent event, Exception error) {
+        failures.increment();
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        String message = String.valueOf(error.getMessage());
+        event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+
+        if (attempts >= maxAttempts) {
+            // Giữ lại row để kiểm tra thủ công, dispatcher không nhận lại nữa
+            event.setNextAttemptAt(null);
+            log.error("Bỏ qua sự kiện thông báo {} ({} -> user {}) sau {} lần thử: {}",
+                    event.getId(), event.getType(), event.getRecipientId(), attempts, message);
+        } else {
+            event.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        }
+    }
+
+    // initial-backoff * 2^(attempts-1), tối đa max-backoff
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void recordLag(long lagMs) {
+        totalLagMs.add(Math.max(lagMs, 0));
+        maxLagMs.accumulateAndGet(lagMs, Math::max);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", notificationEventDao.countByNextAttemptAtIsNotNull());
+        stats.put("abandoned", notificationEventDao.countByNextAttemptAtIsNull());
+        LocalDateTime oldest = notificationEventDao.findOldestPendingCreatedAt();
+        stats.put("oldestPendingAgeMs", oldest != null ? Duration.between(oldest, LocalDateTime.now()).toMillis() : 0L);
+        long count = dispatched.sum();
+        stats.put("dispatched", count);
+        stats.put("failures", failures.sum());
+        stats.put("avgLagMs", count > 0 ? totalLagMs.sum() / count : 0L);
+        stats.put("maxLagMs", maxLagMs.get());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("throttledPushes", throttledPushes.sum());
+        stats.put("pendingUpdates", pendingUpdates.size());
+        return stats;
+    }
+}
@@ -14,18 +14,20 @@ public interface NotificationService {
     Long getUnreadCount(Long userId);
     void markAsRead(Long notificationId);
     void markAllAsRead(Long userId);
-    List<Map<String, Object>> getNotificationDtos(Long userId);
+    // Trang thông báo mới nhất trước, id < beforeId (null = trang đầu); limit null -> app.notification.page-size
+    List<Map<String, Object>> getNotificationDtos(Long userId, Long beforeId, Integer limit);
     
-    // Các method tạo thông báo cụ thể
-    Notification createPostLikeNotification(Long postId, Long postAuthorId, Long likerId);
-    Notification createPostCommentNotification(Long postId, Long postAuthorId, Long commenterId, Long commentId);
-    Notification createCommentLikeNotification(Long commentId, Long commentAuthorId, Long likerId);
-    Notification createCommentReplyNotification(Long parentCommentId, Long parentCommentAuthorId, Long replierId, Long replyId);
-    Notification createFriendshipRequestNotification(Long recipientId, Long senderId);
-    Notification createFriendshipAcceptedNotification(Long recipientId, Long senderId);
-    Notification createFriendshipRejectedNotification(Long recipientId, Long senderId);
-    Notification createFriendshipCancelledNotification(Long recipientId, Long senderId);
-    Notification createMentionNotification(Long mentionedUserId, Long mentionerId, Long entityId, String entityType);
+    // Các method tạo thông báo cụ thể: chỉ ghi sự kiện vào outbox trong transaction hiện tại,
+    // thông báo được tạo và đẩy qua WebSocket bởi NotificationDispatchService
+    void createPostLikeNotification(Long postId, Long postAuthorId, Long likerId);
+    void createPostCommentNotification(Long postId, Long postAuthorId, Long commenterId, Long commentId);
+    void createCommentLikeNotification(Long commentId, Long commentAuthorId, Long likerId);
+    void createCommentReplyNotification(Long parentCommentId, Long parentCommentAuthorId, Long replierId, Long replyId);
+    void createFriendshipRequestNotification(Long recipientId, Long senderId);
+    void createFriendshipAcceptedNotification(Long recipientId, Long senderId);
+    void createFriendshipRejectedNotification(Long recipientId, Long senderId);
+    void createFriendshipCancelledNotification(Long recipientId, Long senderId);
+    void createMentionNotification(Long mentionedUserId, Long mentionerId, Long entityId, String entityType);
     Notification createSystemNotification(Long userId, String message);
     Notification createWelcomeNotification(Long userId);
     
@@ -1,18 +1,19 @@
 package GraduationProject.forumikaa.service;
 
-import GraduationProject.forumikaa.dao.CommentDao;
 import GraduationProject.forumikaa.dao.NotificationDao;
-import GraduationProject.forumikaa.dao.UserDao;
+import GraduationProject.forumikaa.dto.NotificationDto;
 import GraduationProject.forumikaa.entity.Notification;
-import GraduationProject.forumikaa.entity.User;
+import GraduationProject.forumikaa.entity.NotificationEvent;
 import GraduationProject.forumikaa.handler.notification.NotificationBroadcaster;
 import GraduationProject.forumikaa.patterns.builder.NotificationBuilder;
 import GraduationProject.forumikaa.patterns.factory.NotificationFactoryManager;
+import GraduationProject.forumikaa.util.TransactionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,8 +25,13 @@ import java.util.stream.Collectors;
 public class NotificationServiceImpl implements NotificationService{
     private NotificationBroadcaster notificationBroadcaster;
     private NotificationDao notificationDao;
-    private UserDao userDao;
-    private CommentDao commentDao;
+    private NotificationCounterService notificationCounterService;
+    private NotificationDispatchService notificationDispatchService;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Value("${app.notification.page-size:20}")
+    private int pageSize;
 
     @Autowired
     public void setNotificationBroadcaster(NotificationBroadcaster notificationBroadcaster) {
@@ -36,12 +42,33 @@ public class NotificationServiceImpl implements NotificationService{
         this.notificationDao = notificationDao;
     }
     @Autowired
-    public void setUserDao(UserDao userDao) {
-        this.userDao = userDao;
+    public void setNotificationCounterService(NotificationCounterService notificationCounterService) {
+        this.notificationCounterService = notificationCounterService;
     }
     @Autowired
-    public void setCommentDao(CommentDao commentDao) {
-        this.commentDao = commentDao;
+    public void setNotificationDispatchService(NotificationDispatchService notificationDispatchService) {
+        this.notificationDispatchService = notificationDispatchService;
+    }
+
+    // Lưu thông báo; sau khi commit mới tăng counter chưa đọc và đẩy qua WebSocket (không gửi thông báo bị rollback)
+    private Notification saveAndPublish(Notification notification) {
+        Notification saved = notificationDao.save(notification);
+        notificationCounterService.increment(saved.getRecipientId());
+        TransactionUtils.afterCommit(() -> notificationBroadcaster.publish(saved.getRecipientId(), saved));
+        return saved;
+    }
+
+    // Ghi sự kiện vào outbox cùng transaction với hành động của user
+    private void enqueue(Notification.NotificationType type, Long recipientId, Long senderId,
+                         Long targetId, String targetType, Long detailId) {
+        NotificationEvent event = new NotificationEvent();
+        event.setType(type);
+        event.setRecipientId(recipientId);
+        event.setSenderId(senderId);
+        event.setTargetId(targetId);
+        event.setTargetType(targetType);
+        event.setDetailId(detailId);
+        notificationDispatchService.enqueue(event);
     }
 
     @Override
@@ -54,9 +81,7 @@ public class NotificationServiceImpl implements NotificationService{
                 .type(Notification.NotificationType.SYSTEM_MESSAGE)
                 .build();
 
-        Notification saved = notificationDao.save(noti);
-        notificationBroadcaster.publish(recipientId, saved);
-        return saved;
+        return saveAndPublish(noti);
     }
 
     @Override
@@ -68,9 +93,7 @@ public class NotificationServiceImpl implements NotificationService{
                 .type(Notification.NotificationType.SYSTEM_MESSAGE)
                 .build();
 
-        Notification saved = notificationDao.save(noti);
-        notificationBroadcaster.publish(recipientId, saved);
-        return saved;
+        return saveAndPublish(noti);
     }
 
     @Override
@@ -80,22 +103,28 @@ public class NotificationServiceImpl implements NotificationService{
 
     @Override
     public Long getUnreadCount(Long userId) {
-        return notificationDao.countUnreadByRecipientId(userId);
+        return notificationCounterService.getUnreadCount(userId);
     }
 
     @Override
     public void markAsRead(Long notificationId) {
-        notificationDao.markAsReadById(notificationId);
+        Optional<Long> recipientId = notificationDao.findRecipientIdById(notificationId);
+        if (recipientId.isPresent() && notificationDao.markAsReadById(notificationId) > 0) {
+            notificationCounterService.decrement(recipientId.get(), 1);
+        }
     }
 
     @Override
     public void markAllAsRead(Long userId) {
         notificationDao.markAllAsReadByRecipientId(userId);
+        notificationCounterService.reset(userId);
     }
 
     @Override
-    public List<Map<String, Object>> getNotificationDtos(Long userId) {
-        List<Notification> notifications = getUserNotifications(userId);
+    public List<Map<String, Object>> getNotificationDtos(Long userId, Long beforeId, Integer limit) {
+        int size = limit == null || limit <= 0 ? pageSize : Math.min(limit, MAX_PAGE_SIZE);
+        List<NotificationDto> notifications = notificationDao.findPageByRecipientId(userId,
+                beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, size));
         return notifications.stream().map(n -> {
             Map<String, Object> dto = new HashMap<>();
             dto.put("id", n.getId());
@@ -107,13 +136,11 @@ public class NotificationServiceImpl implements NotificationService{
             dto.put("relatedEntityId", n.getRelatedEntityId());
             dto.put("relatedEntityType", n.getRelatedEntityType());
 
-            // Lấy thông tin sender
-            if (n.getSenderId() != null) {
-                Optional<User> sender = userDao.findById(n.getSenderId());
-                if (sender.isPresent()) {
-                    dto.put("senderId", n.getSenderId());
-                    dto.put("senderName", sender.get().getUsername());
-                }
+            // Thông tin sender đã join sẵn trong query
+            if (n.getSenderUsername() != null) {
+                dto.put("senderId", n.getSenderId());
+                dto.put("senderName", n.getSenderUsername());
+                dto.put("senderAvatar", n.getSenderAvatar());
             }
 
             return dto;
@@ -121,191 +148,48 @@ public class NotificationServiceImpl implements NotificationService{
     }
 
     @Override
-    public Notification createPostLikeNotification(Long postId, Long postAuthorId, Long likerId) {
-        // Lấy tên thật của người thích từ database
-        Optional<User> liker = userDao.findById(likerId);
-        String likerName = liker.map(User::getUsername).orElse("Người dùng");
-
-        // Sử dụng Factory Manager thay vì Builder trực tiếp
-        var factory = NotificationFactoryManager.createPostLikeFactory(postId, postAuthorId, likerId, likerName);
-
-        Notification notification = factory.createNotification();
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(postAuthorId, saved);
-        return saved;
+    public void createPostLikeNotification(Long postId, Long postAuthorId, Long likerId) {
+        enqueue(Notification.NotificationType.POST_LIKE, postAuthorId, likerId, postId, "POST", null);
     }
 
     @Override
-    public Notification createPostCommentNotification(Long postId, Long postAuthorId, Long commenterId, Long commentId) {
-        Optional<User> commenter = userDao.findById(commenterId);
-        String commenterName = commenter.map(User::getUsername).orElse("Người dùng");
-
-        Notification notification = NotificationBuilder.postCommentNotification(postId, postAuthorId, commenterId, commentId)
-                .message(commenterName + " đã bình luận bài viết của bạn")
-                .build();
-
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(postAuthorId, saved);
-        return saved;
+    public void createPostCommentNotification(Long postId, Long postAuthorId, Long commenterId, Long commentId) {
+        enqueue(Notification.NotificationType.POST_COMMENT, postAuthorId, commenterId, postId, "POST", commentId);
     }
 
     @Override
-    public Notification createCommentLikeNotification(Long commentId, Long commentAuthorId, Long likerId) {
-        Optional<User> liker = userDao.findById(likerId);
-        String likerName = liker.map(User::getUsername).orElse("Người dùng");
-
-        // Tìm postId từ commentId để tạo link
-        Optional<Long> postIdOpt = commentDao.findPostIdByCommentId(commentId);
-        String link = postIdOpt.map(postId -> "/posts/" + postId + "#comment-" + commentId)
-                .orElse("/"); // Fallback về trang chủ nếu không tìm thấy
-
-        Notification notification = Notification.builder()
-                .recipientId(commentAuthorId)
-                .senderId(likerId)
-                .type(Notification.NotificationType.COMMENT_LIKE)
-                .message(likerName + " đã thích bình luận của bạn")
-                .relatedEntityId(commentId)
-                .relatedEntityType("COMMENT")
-                .link(link)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(commentAuthorId, saved);
-        return saved;
+    public void createCommentLikeNotification(Long commentId, Long commentAuthorId, Long likerId) {
+        enqueue(Notification.NotificationType.COMMENT_LIKE, commentAuthorId, likerId, commentId, "COMMENT", null);
     }
 
     @Override
-    public Notification createCommentReplyNotification(Long parentCommentId, Long parentCommentAuthorId, Long replierId, Long replyId) {
-        Optional<User> replier = userDao.findById(replierId);
-        String replierName = replier.map(User::getUsername).orElse("Người dùng");
-
-        // Tìm postId từ commentId để tạo link
-        Optional<Long> postIdOpt = commentDao.findPostIdByCommentId(parentCommentId);
-        String link = postIdOpt.map(postId -> "/posts/" + postId + "#comment-" + parentCommentId)
-                .orElse("/"); // Fallback về trang chủ nếu không tìm thấy
-
-        Notification notification = Notification.builder()
-                .recipientId(parentCommentAuthorId)
-                .senderId(replierId)
-                .type(Notification.NotificationType.COMMENT_REPLY)
-                .message(replierName + " đã trả lời bình luận của bạn")
-                .relatedEntityId(parentCommentId)
-                .relatedEntityType("COMMENT")
-                .link(link)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(parentCommentAuthorId, saved);
-        return saved;
+    public void createCommentReplyNotification(Long parentCommentId, Long parentCommentAuthorId, Long replierId, Long replyId) {
+        enqueue(Notification.NotificationType.COMMENT_REPLY, parentCommentAuthorId, replierId, parentCommentId, "COMMENT", replyId);
     }
 
     @Override
-    public Notification createFriendshipRequestNotification(Long recipientId, Long senderId) {
-        // Lấy tên thật của người gửi yêu cầu từ database
-        Optional<User> sender = userDao.findById(senderId);
-        String senderName = sender.map(User::getUsername).orElse("Người dùng");
-
-        // Sử dụng Factory Manager thay vì Builder trực tiếp
-        var factory = NotificationFactoryManager.createFriendshipRequestFactory(recipientId, senderId, senderName);
-
-        Notification notification = factory.createNotification();
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(recipientId, saved);
-        return saved;
+    public void createFriendshipRequestNotification(Long recipientId, Long senderId) {
+        enqueue(Notification.NotificationType.FRIENDSHIP_REQUEST, recipientId, senderId, senderId, "USER", null);
     }
 
     @Override
-    public Notification createFriendshipAcceptedNotification(Long recipientId, Long senderId) {
-        Optional<User> sender = userDao.findById(senderId);
-        String senderName = sender.map(User::getUsername).orElse("Người dùng");
-
-        Notification notification = Notification.builder()
-                .recipientId(recipientId)
-                .senderId(senderId)
-                .type(Notification.NotificationType.FRIENDSHIP_ACCEPTED)
-                .message(senderName + " đã chấp nhận lời mời kết bạn")
-                .relatedEntityId(senderId)
-                .relatedEntityType("USER")
-                .link("/profile/" + senderName)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(recipientId, saved);
-        return saved;
+    public void createFriendshipAcceptedNotification(Long recipientId, Long senderId) {
+        enqueue(Notification.NotificationType.FRIENDSHIP_ACCEPTED, recipientId, senderId, senderId, "USER", null);
     }
 
     @Override
-    public Notification createFriendshipRejectedNotification(Long recipientId, Long senderId) {
-        Optional<User> sender = userDao.findById(senderId);
-        String senderName = sender.map(User::getUsername).orElse("Người dùng");
-
-        Notification notification = Notification.builder()
-                .recipientId(recipientId)
-                .senderId(senderId)
-                .type(Notification.NotificationType.FRIENDSHIP_REJECTED)
-                .message(senderName + " đã từ chối lời mời kết bạn")
-                .relatedEntityId(senderId)
-                .relatedEntityType("USER")
-                .link("/profile/" + senderName)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(recipientId, saved);
-        return saved;
+    public void createFriendshipRejectedNotification(Long recipientId, Long senderId) {
+        enqueue(Notification.NotificationType.FRIENDSHIP_REJECTED, recipientId, senderId, senderId, "USER", null);
     }
 
     @Override
-    public Notification createFriendshipCancelledNotification(Long recipientId, Long senderId) {
-        Optional<User> sender = userDao.findById(senderId);
-        String senderName = sender.map(User::getUsername).orElse("Người dùng");
-
-        Notification notification = Notification.builder()
-                .recipientId(recipientId)
-                .senderId(senderId)
-                .type(Notification.NotificationType.FRIENDSHIP_CANCELLED)
-                .message(senderName + " đã hủy kết bạn")
-                .relatedEntityId(senderId)
-                .relatedEntityType("USER")
-                .link("/profile/" + senderName)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(recipientId, saved);
-        return saved;
+    public void createFriendshipCancelledNotification(Long recipientId, Long senderId) {
+        enqueue(Notification.NotificationType.FRIENDSHIP_CANCELLED, recipientId, senderId, senderId, "USER", null);
     }
 
     @Override
-    public Notification createMentionNotification(Long mentionedUserId, Long mentionerId, Long entityId, String entityType) {
-        Optional<User> mentioner = userDao.findById(mentionerId);
-        String mentionerName = mentioner.map(User::getUsername).orElse("Người dùng");
-
-        String link = "/" + entityType.toLowerCase() + "s/" + entityId;
-
-        Notification notification = Notification.builder()
-                .recipientId(mentionedUserId)
-                .senderId(mentionerId)
-                .type(Notification.NotificationType.MENTION)
-                .message(mentionerName + " đã nhắc đến bạn trong " + entityType.toLowerCase())
-                .relatedEntityId(entityId)
-                .relatedEntityType(entityType)
-                .link(link)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(mentionedUserId, saved);
-        return saved;
+    public void createMentionNotification(Long mentionedUserId, Long mentionerId, Long entityId, String entityType) {
+        enqueue(Notification.NotificationType.MENTION, mentionedUserId, mentionerId, entityId, entityType, null);
     }
 
     @Override
@@ -314,18 +198,14 @@ public class NotificationServiceImpl implements NotificationService{
         var factory = NotificationFactoryManager.createSystemMessageFactory(userId);
 
         Notification notification = factory.createNotification(message);
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(userId, saved);
-        return saved;
+        return saveAndPublish(notification);
     }
 
     @Override
     public Notification createWelcomeNotification(Long userId) {
         Notification notification = NotificationBuilder.welcomeNotification(userId).build();
 
-        Notification saved = notificationDao.save(notification);
-        notificationBroadcaster.publish(userId, saved);
-        return saved;
+        return saveAndPublish(notification);
     }
 
     @Override
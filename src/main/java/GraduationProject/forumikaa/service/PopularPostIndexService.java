@@ -0,0 +1,54 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.util.PopularCursor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bảng xếp hạng bài viết phổ biến: điểm Like(1) + Comment(2) + Share(3) giảm dần theo tuổi bài viết.
+ * Chỉ gồm bài gốc APPROVED trong cửa sổ app.popular.window, cập nhật khi counter được flush.
+ */
+public interface PopularPostIndexService {
+
+    // Thêm / cập nhật / gỡ bài viết theo status hiện tại (chạy sau khi commit)
+    void onPostSaved(Post post);
+
+    void onPostDeleted(Long postId);
+
+    /**
+     * Đọc tối đa limit bài thỏa filter.
+     * cursor == null: snapshot mới nhất, bỏ qua offset bài đầu tiên thỏa filter.
+     * cursor != null: đọc tiếp trên snapshot của cursor (offset bị bỏ qua); snapshot đã hết hạn / bị loại / thuộc
+     * node khác thì đọc lại từ đầu snapshot mới nhất và đánh dấu cursorExpired để client làm mới danh sách.
+     */
+    PopularPage readPage(PopularCursor cursor, int offset, int limit, Predicate<PopularPost> filter);
+
+    Map<String, Object> getStats();
+
+    @Getter
+    @AllArgsConstructor
+    final class PopularPost {
+        private final Long postId;
+        private final Long authorId;
+        private final PostPrivacy privacy;
+        private final long createdAtMillis;
+        // Điểm đã giảm theo tuổi bài viết tại thời điểm chụp snapshot
+        private final double score;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    final class PopularPage {
+        private final List<PopularPost> posts;
+        // null nếu không còn trang tiếp theo
+        private final PopularCursor nextCursor;
+        // Snapshot của cursor không còn: trang này bắt đầu lại từ đầu snapshot mới nhất
+        private final boolean cursorExpired;
+    }
+}
@@ -0,0 +1,382 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.entity.PostStatus;
+import GraduationProject.forumikaa.event.PostCountersFlushedEvent;
+import GraduationProject.forumikaa.service.PostCounterService.Counter;
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.PopularCursor;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bảng xếp hạng bài viết phổ biến duy trì trong bộ nhớ.
+ *
+ * Điểm = (like * w + comment * w + share * w) * 0.5^(tuổi bài viết / half-life). Dùng forward decay như
+ * TrendingTopicServiceImpl: khóa sắp xếp là điểm tương tác nhân 2^((createdAt - landmark) / halfLife) nên thứ tự
+ * không đổi theo thời gian và TreeSet chỉ cần cập nhật khi counter của bài viết thay đổi (O(log n)).
+ *
+ * Mỗi lần đọc dùng 1 snapshot bất biến gồm app.popular.snapshot-size bài đầu bảng, chụp lại tối đa 1 lần mỗi
+ * app.popular.snapshot-refresh khi có thay đổi. Cursor trỏ vào snapshot nên các trang sau ổn định và đọc O(page).
+ */
+@Slf4j
+@Service
+public class PopularPostIndexServiceImpl implements PopularPostIndexService {
+
+    // Dời landmark khi hệ số vượt 2^32 để điểm không tràn số
+    private static final double RESCALE_AFTER_HALF_LIVES = 32;
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingDouble((Entry entry) -> entry.key).reversed()
+            .thenComparing(entry -> entry.postId, Comparator.reverseOrder());
+
+    @Autowired private PostDao postDao;
+    @Autowired private PostCounterService postCounterService;
+
+    @Value("${app.popular.half-life:72h}")
+    private Duration halfLife;
+
+    @Value("${app.popular.window:30d}")
+    private Duration window;
+
+    @Value("${app.popular.max-tracked:50000}")
+    private int maxTracked;
+
+    @Value("${app.popular.snapshot-size:1000}")
+    private int snapshotSize;
+
+    @Value("${app.popular.snapshot-refresh:30s}")
+    private Duration snapshotRefresh;
+
+    @Value("${app.popular.snapshot-ttl:15m}")
+    private Duration snapshotTtl;
+
+    @Value("${app.popular.max-snapshots:64}")
+    private int maxSnapshots;
+
+    @Value("${app.popular.weight.like:1.0}")
+    private double likeWeight;
+
+    @Value("${app.popular.weight.comment:2.0}")
+    private double commentWeight;
+
+    @Value("${app.popular.weight.share:3.0}")
+    private double shareWeight;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    // Mọi thao tác trên entries/ranking/latest nằm trong synchronized (entries)
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(RANKING);
+    private long landmarkMillis;
+    private long nextSnapshotId;
+    private Snapshot latest;
+    private boolean dirty = true;
+
+    // Snapshot còn được cursor tham chiếu
+    private ExpiringLruCache<Long, Snapshot> snapshots;
+
+    @PostConstruct
+    void init() {
+        landmarkMillis = clock.getAsLong();
+        // Id theo thời gian khởi động: cursor của instance trước không trùng snapshot của instance này
+        nextSnapshotId = landmarkMillis;
+        snapshots = new ExpiringLruCache<>(maxSnapshots, snapshotTtl);
+    }
+
+    /**
+     * Nạp bảng xếp hạng từ các bài viết trong cửa sổ - chỉ chạy 1 lần khi khởi động
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime since = toLocalDateTime(clock.getAsLong() - window.toMillis());
+        try {
+            List<Object[]> rows = postDao.findPopularityRowsSince(since);
+            synchronized (entries) {
+                for (Object[] row : rows) {
+                    apply(row);
+                }
+                trimToMaxTracked();
+                dirty = true;
+            }
+            log.info("Đã nạp bảng xếp hạng bài viết phổ biến từ {} bài viết", rows.size());
+        } catch (DataAccessException e) {
+            log.warn("Không thể nạp bảng xếp hạng bài viết phổ biến: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onPostSaved(Post post) {
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        Long postId = post.getId();
+        if (post.getStatus() != PostStatus.APPROVED || post.getOriginalPostId() != null || post.getCreatedAt() == null) {
+            TransactionUtils.afterCommit(() -> remove(postId));
+            return;
+        }
+        Long authorId = post.getUser() != null ? post.getUser().getId() : null;
+        PostPrivacy privacy = post.getPrivacy();
+        long createdAtMillis = toEpochMillis(post.getCreatedAt());
+        Long likes = post.getLikeCount();
+        Long comments = post.getCommentCount();
+        Long shares = post.getShareCount();
+        TransactionUtils.afterCommit(() -> {
+            synchronized (entries) {
+                upsert(postId, authorId, privacy, createdAtMillis, likes, comments, shares);
+            }
+        });
+    }
+
+    @Override
+    public void onPostDeleted(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> remove(postId));
+    }
+
+    /**
+     * Counter vừa được ghi xuống database: tải lại số like/comment/share của các bài viết đó bằng 1 query
+     */
+    @EventListener
+    public void onCountersFlushed(PostCountersFlushedEvent event) {
+        if (event.getPostIds() == null || event.getPostIds().isEmpty()) {
+            return;
+        }
+        try {
+            List<Object[]> rows = postDao.findPopularityRowsByIdIn(event.getPostIds());
+            Map<Long, Object[]> rowsById = new HashMap<>();
+            for (Object[] row : rows) {
+                rowsById.put((Long) row[0], row);
+            }
+            synchronized (entries) {
+                for (Long postId : event.getPostIds()) {
+                    Object[] row = rowsById.get(postId);
+                    if (row != null) {
+                        apply(row);
+                    } else {
+                        // Bài chia sẻ / chưa duyệt / đã xóa
+                        removeLocked(postId);
+                    }
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Không thể cập nhật bảng xếp hạng cho {} bài viết: {}", event.getPostIds().size(), e.getMessage());
+        }
+    }
+
+    // Gọi trong synchronized (entries)
+    private void apply(Object[] row) {
+        upsert((Long) row[0], (Long) row[1], (PostPrivacy) row[2], toEpochMillis((LocalDateTime) row[3]),
+                (Long) row[4], (Long) row[5], (Long) row[6]);
+    }
+
+    // Gọi trong synchronized (entries)
+    private void upsert(Long postId, Long authorId, PostPrivacy privacy, long createdAtMillis,
+                        Long likes, Long comments, Long shares) {
+        if (createdAtMillis < clock.getAsLong() - window.toMillis()) {
+            removeLocked(postId);
+            return;
+        }
+        // Cộng phần delta chưa được flush để không tụt hạng trong lúc chờ flush
+        double engagement = postCounterService.getCount(postId, Counter.LIKE, likes) * likeWeight
+                + postCounterService.getCount(postId, Counter.COMMENT, comments) * commentWeight
+                + postCounterService.getCount(postId, Counter.SHARE, shares) * shareWeight;
+
+        Entry entry = entries.get(postId);
+        if (entry != null) {
+            ranking.remove(entry);
+        } else {
+            entry = new Entry(postId);
+            entries.put(postId, entry);
+        }
+        entry.authorId = authorId;
+        entry.privacy = privacy;
+        entry.createdAtMillis = createdAtMillis;
+        entry.engagement = engagement;
+        entry.key = engagement * forwardFactor(createdAtMillis);
+        ranking.add(entry);
+        dirty = true;
+    }
+
+    private void remove(Long postId) {
+        synchronized (entries) {
+            removeLocked(postId);
+        }
+    }
+
+    // Gọi trong synchronized (entries)
+    private void removeLocked(Long postId) {
+        Entry entry = entries.remove(postId);
+        if (entry != null) {
+            ranking.remove(entry);
+            dirty = true;
+        }
+    }
+
+    @Override
+    public PopularPage readPage(PopularCursor cursor, int offset, int limit, Predicate<PopularPost> filter) {
+        Snapshot snapshot = cursor != null ? snapshots.get(cursor.getSnapshotId()) : null;
+        // Vị trí của cursor chỉ có nghĩa trên snapshot của nó: snapshot mới thì đọc lại từ đầu
+        boolean cursorExpired = cursor != null && snapshot == null;
+        if (snapshot == null) {
+            snapshot = latestSnapshot();
+        }
+        int position = cursor != null && !cursorExpired ? cursor.getPosition() : 0;
+        int skip = cursor != null ? 0 : Math.max(0, offset);
+
+        List<PopularPost> page = new ArrayList<>(Math.max(0, Math.min(limit, snapshot.posts.length)));
+        while (position < snapshot.posts.length && page.size() < limit) {
+            PopularPost post = snapshot.posts[position++];
+            if (!filter.test(post)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            page.add(post);
+        }
+        // Còn bài trong snapshot: trang sau có thể rỗng nếu tất cả bài còn lại bị filter loại
+        PopularCursor next = position < snapshot.posts.length ? new PopularCursor(snapshot.id, position) : null;
+        return new PopularPage(page, next, cursorExpired);
+    }
+
+    private Snapshot latestSnapshot() {
+        long now = clock.getAsLong();
+        Snapshot snapshot;
+        synchronized (entries) {
+            if (latest != null && (!dirty || now - latest.takenAtMillis < snapshotRefresh.toMillis())) {
+                return latest;
+            }
+            double decay = 1.0 / forwardFactor(now);
+            PopularPost[] posts = new PopularPost[Math.min(snapshotSize, ranking.size())];
+            int i = 0;
+            for (Entry entry : ranking) {
+                if (i >= posts.length) {
+                    break;
+                }
+                posts[i++] = new PopularPost(entry.postId, entry.authorId, entry.privacy,
+                        entry.createdAtMillis, entry.key * decay);
+            }
+            snapshot = new Snapshot(nextSnapshotId++, now, posts);
+            latest = snapshot;
+            dirty = false;
+        }
+        snapshots.put(snapshot.id, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Loại bài ngoài cửa sổ, giới hạn số bài theo dõi và dời landmark
+     */
+    @Scheduled(fixedDelayString = "${app.popular.maintain-interval-ms:600000}")
+    public void maintain() {
+        long now = clock.getAsLong();
+        long cutoff = now - window.toMillis();
+        synchronized (entries) {
+            List<Long> expired = new ArrayList<>();
+            for (Entry entry : entries.values()) {
+                if (entry.createdAtMillis < cutoff) {
+                    expired.add(entry.postId);
+                }
+            }
+            expired.forEach(this::removeLocked);
+            trimToMaxTracked();
+
+            if ((now - landmarkMillis) > RESCALE_AFTER_HALF_LIVES * halfLife.toMillis()) {
+                landmarkMillis = now;
+                ranking.clear();
+                for (Entry entry : entries.values()) {
+                    entry.key = entry.engagement * forwardFactor(entry.createdAtMillis);
+                    ranking.add(entry);
+                }
+                dirty = true;
+            }
+        }
+    }
+
+    // Gọi trong synchronized (entries)
+    private void trimToMaxTracked() {
+        while (ranking.size() > maxTracked) {
+            Entry lowest = ranking.pollLast();
+            entries.remove(lowest.postId);
+            dirty = true;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("trackedPosts", entries.size());
+            stats.put("latestSnapshotSize", latest != null ? latest.posts.length : 0);
+        }
+        stats.put("halfLifeSeconds", halfLife.getSeconds());
+        stats.put("windowSeconds", window.getSeconds());
+        stats.put("snapshots", snapshots.stats());
+        return stats;
+    }
+
+    private double forwardFactor(long atMillis) {
+        return Math.pow(2.0, (double) (atMillis - landmarkMillis) / halfLife.toMillis());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static final class Entry {
+        private final Long postId;
+        private Long authorId;
+        private PostPrivacy privacy;
+        private long createdAtMillis;
+        private double engagement;
+        private double key;
+
+        private Entry(Long postId) {
+            this.postId = postId;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long id;
+        private final long takenAtMillis;
+        private final PopularPost[] posts;
+
+        private Snapshot(long id, long takenAtMillis, PopularPost[] posts) {
+            this.id = id;
+            this.takenAtMillis = takenAtMillis;
+            this.posts = posts;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dto.PostResponse;
+
+import java.util.Map;
+
+public interface PostCardCacheService {
+
+    // Card bài viết đọc qua cache; quyền xem, isLiked và counter được tính theo người xem lúc đọc
+    PostResponse getPostCard(Long postId, Long viewerId);
+
+    // Xóa card của bài viết (và các bài share nó) sau khi transaction hiện tại commit
+    void invalidatePost(Long postId);
+
+    // Xóa các card thuộc group - dùng khi đổi tên/ảnh/mô tả group
+    void invalidateGroup(Long groupId);
+
+    // Hit ratio, eviction, số entry
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,190 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.FriendshipDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.event.PostCountersFlushedEvent;
+import GraduationProject.forumikaa.event.PostDocumentsChangedEvent;
+import GraduationProject.forumikaa.exception.ResourceNotFoundException;
+import GraduationProject.forumikaa.service.PostCounterService.Counter;
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-through cache cho trang chi tiết bài viết.
+ *
+ * Card trong cache không phụ thuộc người xem (hydrate với viewer = null, count là giá trị đã persist);
+ * quyền xem, isLiked và phần counter chưa flush được áp lên 1 bản sao ở mỗi lần đọc.
+ */
+@Service
+public class PostCardCacheServiceImpl implements PostCardCacheService {
+
+    @Autowired private PostDao postDao;
+    @Autowired private FriendshipDao friendshipDao;
+    @Autowired private PostHydrationService postHydrationService;
+    @Autowired private LikeService likeService;
+    @Autowired private PostCounterService postCounterService;
+
+    @Value("${app.post-cache.max-size:2000}")
+    private int maxSize;
+
+    @Value("${app.post-cache.ttl:10m}")
+    private Duration ttl;
+
+    private ExpiringLruCache<Long, PostResponse> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new ExpiringLruCache<>(maxSize, ttl);
+    }
+
+    @Override
+    public PostResponse getPostCard(Long postId, Long viewerId) {
+        PostResponse card = cache.get(postId);
+        if (card != null) {
+            if (!canView(card, viewerId)) {
+                throw new ResourceNotFoundException("Post not found or access denied");
+            }
+        } else {
+            long generation = cache.generation();
+            Post post = postDao.findPostByIdAndUserAccess(postId, viewerId);
+            if (post == null) {
+                throw new ResourceNotFoundException("Post not found or access denied");
+            }
+            card = postHydrationService.hydrate(post, null);
+            // Counter chưa flush được cộng lúc đọc, card chỉ giữ giá trị trong database
+            card.setLikeCount(persisted(post.getLikeCount()));
+            card.setCommentCount(persisted(post.getCommentCount()));
+            card.setShareCount(persisted(post.getShareCount()));
+            cache.putIfGeneration(postId, card, generation);
+        }
+        return forViewer(card, viewerId);
+    }
+
+    @Override
+    public void invalidatePost(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> cache.invalidateIf((id, card) -> id.equals(postId) || postId.equals(originalPostId(card))));
+    }
+
+    @Override
+    public void invalidateGroup(Long groupId) {
+        if (groupId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> cache.invalidateIf((id, card) -> groupId.equals(card.getGroupId())
+                || (card.getOriginalPost() != null && groupId.equals(card.getOriginalPost().get("groupId")))));
+    }
+
+    /**
+     * Cộng delta vừa flush vào count đã persist của card thay vì bỏ card: bài nóng flush mỗi chu kỳ,
+     * bỏ card thì gần như lần đọc nào cũng hydrate lại từ database.
+     * Bài chia sẻ của bài vừa flush vẫn bị bỏ vì count trong originalPost đã gồm cả phần chưa flush lúc hydrate.
+     */
+    @EventListener
+    public void onCountersFlushed(PostCountersFlushedEvent event) {
+        Map<Long, long[]> deltas = event.getDeltas();
+        deltas.forEach((postId, delta) -> cache.update(postId, card -> withFlushedDelta(card, delta)));
+        Set<Long> postIds = event.getPostIds();
+        cache.invalidateIf((id, card) -> postIds.contains(originalPostId(card)));
+    }
+
+    // Upload/xóa file chạy trên executor riêng: nhận qua event để tránh phụ thuộc vòng với FileUploadService
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentsChanged(PostDocumentsChangedEvent event) {
+        invalidatePost(event.getPostId());
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(cache.stats());
+        stats.put("ttlSeconds", ttl.getSeconds());
+        return stats;
+    }
+
+    /**
+     * Cùng điều kiện với PostDao.findPostByIdAndUserAccess
+     */
+    private boolean canView(PostResponse card, Long viewerId) {
+        if (card.getPrivacy() == PostPrivacy.PUBLIC) {
+            return true;
+        }
+        if (viewerId == null) {
+            return false;
+        }
+        if (viewerId.equals(card.getUserId())) {
+            return true;
+        }
+        return card.getPrivacy() == PostPrivacy.FRIENDS && friendshipDao.areFriends(viewerId, card.getUserId());
+    }
+
+    private PostResponse forViewer(PostResponse card, Long viewerId) {
+        PostResponse dto = copyOf(card);
+        dto.setIsLiked(viewerId != null && likeService.isPostLikedByUser(card.getId(), viewerId));
+        dto.setLikeCount(postCounterService.getCount(card.getId(), Counter.LIKE, card.getLikeCount()));
+        dto.setCommentCount(postCounterService.getCount(card.getId(), Counter.COMMENT, card.getCommentCount()));
+        dto.setShareCount(postCounterService.getCount(card.getId(), Counter.SHARE, card.getShareCount()));
+        return dto;
+    }
+
+    // Bản sao nông: danh sách topic/documents và originalPost chỉ được đọc, không bị sửa sau khi cache
+    private static PostResponse copyOf(PostResponse card) {
+        PostResponse dto = new PostResponse();
+        dto.setId(card.getId());
+        dto.setTitle(card.getTitle());
+        dto.setContent(card.getContent());
+        dto.setUserId(card.getUserId());
+        dto.setUserName(card.getUserName());
+        dto.setUserAvatar(card.getUserAvatar());
+        dto.setTopicNames(card.getTopicNames());
+        dto.setStatus(card.getStatus());
+        dto.setPrivacy(card.getPrivacy());
+        dto.setCreatedAt(card.getCreatedAt());
+        dto.setLikeCount(card.getLikeCount());
+        dto.setCommentCount(card.getCommentCount());
+        dto.setShareCount(card.getShareCount());
+        dto.setIsLiked(card.getIsLiked());
+        dto.setDocuments(card.getDocuments());
+        dto.setRecommendationScore(card.getRecommendationScore());
+        dto.setIsCrawledContent(card.getIsCrawledContent());
+        dto.setUser(card.getUser());
+        dto.setGroupId(card.getGroupId());
+        dto.setGroupName(card.getGroupName());
+        dto.setGroupAvatar(card.getGroupAvatar());
+        dto.setGroupDescription(card.getGroupDescription());
+        dto.setGroupMemberCount(card.getGroupMemberCount());
+        dto.setOriginalPost(card.getOriginalPost());
+        return dto;
+    }
+
+    private static PostResponse withFlushedDelta(PostResponse card, long[] delta) {
+        PostResponse updated = copyOf(card);
+        updated.setLikeCount(persisted(card.getLikeCount()) + delta[0]);
+        updated.setCommentCount(persisted(card.getCommentCount()) + delta[1]);
+        updated.setShareCount(persisted(card.getShareCount()) + delta[2]);
+        return updated;
+    }
+
+    private static Object originalPostId(PostResponse card) {
+        return card.getOriginalPost() != null ? card.getOriginalPost().get("id") : null;
+    }
+
+    private static Long persisted(Long count) {
+        return count != null ? count : 0L;
+    }
+}
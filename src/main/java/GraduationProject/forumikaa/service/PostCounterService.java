@@ -0,0 +1,26 @@
+package GraduationProject.forumikaa.service;
+
+public interface PostCounterService {
+
+    enum Counter {
+        LIKE,
+        COMMENT,
+        SHARE
+    }
+
+    // Ghi nhận delta trong bộ nhớ (sau khi transaction hiện tại commit), flush định kỳ xuống database
+    void increment(Long postId, Counter counter, long delta);
+
+    // Phần delta chưa được flush - cộng với giá trị trong database để ra số hiện tại
+    long getPendingDelta(Long postId, Counter counter);
+
+    default long getCount(Long postId, Counter counter, Long persisted) {
+        return Math.max(0L, (persisted != null ? persisted : 0L) + getPendingDelta(postId, counter));
+    }
+
+    /**
+     * Flush toàn bộ delta đang chờ bằng 1 batch UPDATE
+     * @return số bài viết được cập nhật
+     */
+    int flush();
+}
@@ -0,0 +1,167 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.event.PostCountersFlushedEvent;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind cho like/comment/share count.
+ *
+ * Mỗi request chỉ cộng vào LongAdder của bài viết (không khóa row posts), scheduler gom các delta
+ * thành 1 batch "UPDATE posts SET like_count = like_count + ?". Các cột count trong entity Post
+ * là updatable = false nên việc save entity không ghi đè giá trị đã flush.
+ */
+@Slf4j
+@Service
+public class PostCounterServiceImpl implements PostCounterService {
+
+    static final String FLUSH_SQL = """
+        UPDATE posts SET
+            like_count = GREATEST(COALESCE(like_count, 0) + ?, 0),
+            comment_count = GREATEST(COALESCE(comment_count, 0) + ?, 0),
+            share_count = GREATEST(COALESCE(share_count, 0) + ?, 0)
+        WHERE id = ?
+    """;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentHashMap<Long, PendingDelta> pending = new ConcurrentHashMap<>();
+
+    // Entry đã gỡ khỏi map ở lần flush trước - drain thêm 1 lần để lấy các delta ghi muộn
+    private List<PendingDelta> retiredLastFlush = new ArrayList<>();
+
+    @Override
+    public void increment(Long postId, Counter counter, long delta) {
+        if (postId == null || delta == 0) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> add(postId, counter, delta));
+    }
+
+    private void add(Long postId, Counter counter, long delta) {
+        while (true) {
+            PendingDelta entry = pending.computeIfAbsent(postId, PendingDelta::new);
+            entry.adder(counter).add(delta);
+            if (!entry.retired) {
+                return;
+            }
+            // Entry vừa bị flush gỡ ra: hoàn tác trên entry cũ (sẽ được drain lại) và ghi vào entry mới
+            entry.adder(counter).add(-delta);
+        }
+    }
+
+    @Override
+    public long getPendingDelta(Long postId, Counter counter) {
+        PendingDelta entry = pending.get(postId);
+        return entry != null ? entry.adder(counter).sum() : 0L;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.counter.flush-interval-ms:2000}")
+    public synchronized int flush() {
+        // Sắp theo post id để các instance flush đồng thời khóa row theo cùng thứ tự
+        Map<Long, long[]> batch = new TreeMap<>();
+
+        for (PendingDelta entry : retiredLastFlush) {
+            drainInto(batch, entry);
+        }
+
+        List<PendingDelta> retired = new ArrayList<>();
+        for (PendingDelta entry : pending.values()) {
+            if (!drainInto(batch, entry)) {
+                // Không có thay đổi trong chu kỳ vừa rồi: gỡ khỏi map để giới hạn bộ nhớ
+                entry.retired = true;
+                pending.remove(entry.postId, entry);
+                drainInto(batch, entry);
+                retired.add(entry);
+            }
+        }
+        retiredLastFlush = retired;
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> args = new ArrayList<>(batch.size());
+        batch.forEach((postId, deltas) -> args.add(new Object[]{deltas[0], deltas[1], deltas[2], postId}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, args));
+            eventPublisher.publishEvent(new PostCountersFlushedEvent(Collections.unmodifiableMap(batch)));
+            return batch.size();
+        } catch (DataAccessException e) {
+            // Giữ lại delta cho lần flush sau
+            log.warn("Không thể flush {} post counter: {}", batch.size(), e.getMessage());
+            batch.forEach((postId, deltas) -> {
+                add(postId, Counter.LIKE, deltas[0]);
+                add(postId, Counter.COMMENT, deltas[1]);
+                add(postId, Counter.SHARE, deltas[2]);
+            });
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * @return true nếu entry có delta khác 0
+     */
+    private boolean drainInto(Map<Long, long[]> batch, PendingDelta entry) {
+        long likes = entry.likes.sumThenReset();
+        long comments = entry.comments.sumThenReset();
+        long shares = entry.shares.sumThenReset();
+        if (likes == 0 && comments == 0 && shares == 0) {
+            return false;
+        }
+        long[] deltas = batch.computeIfAbsent(entry.postId, id -> new long[3]);
+        deltas[0] += likes;
+        deltas[1] += comments;
+        deltas[2] += shares;
+        return true;
+    }
+
+    private static final class PendingDelta {
+        private final Long postId;
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder comments = new LongAdder();
+        private final LongAdder shares = new LongAdder();
+        private volatile boolean retired;
+
+        private PendingDelta(Long postId) {
+            this.postId = postId;
+        }
+
+        private LongAdder adder(Counter counter) {
+            switch (counter) {
+                case LIKE:
+                    return likes;
+                case COMMENT:
+                    return comments;
+                case SHARE:
+                    return shares;
+                default:
+                    throw new IllegalArgumentException("Unsupported counter: " + counter);
+            }
+        }
+    }
+}
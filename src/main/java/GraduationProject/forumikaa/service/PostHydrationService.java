@@ -0,0 +1,19 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.entity.Post;
+
+import java.util.List;
+
+/**
+ * Chuyển danh sách Post sang PostResponse theo lô: like-state, documents, bài viết gốc,
+ * topics và profile tác giả được tải bằng một số query IN (...) cố định, không phụ thuộc số bài viết.
+ */
+public interface PostHydrationService {
+
+    List<PostResponse> hydrate(List<Post> posts, Long viewerId);
+
+    default PostResponse hydrate(Post post, Long viewerId) {
+        return hydrate(List.of(post), viewerId).get(0);
+    }
+}
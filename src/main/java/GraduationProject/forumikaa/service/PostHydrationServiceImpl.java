@@ -0,0 +1,226 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.GroupDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dao.UserDao;
+import GraduationProject.forumikaa.dto.FileUploadResponse;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.entity.Group;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class PostHydrationServiceImpl implements PostHydrationService {
+
+    private static final String DEFAULT_AVATAR = "https://cdn.pixabay.com/photo/2023/02/18/11/00/icon-7797704_640.png";
+
+    @Autowired private PostDao postDao;
+    @Autowired private UserDao userDao;
+    @Autowired private GroupDao groupDao;
+    @Autowired private LikeService likeService;
+    @Autowired private FileUploadService fileUploadService;
+    @Autowired private PostCounterService postCounterService;
+
+    @Override
+    public List<PostResponse> hydrate(List<Post> posts, Long viewerId) {
+        if (posts == null || posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // 1. Bài viết gốc của các bài chia sẻ (kèm tác giả, profile, group)
+        Set<Long> originalIds = posts.stream()
+                .map(Post::getOriginalPostId)
+                .filter(id -> id != null)
+                .collect(Collectors.toSet());
+        Map<Long, Post> originals = originalIds.isEmpty()
+                ? Map.of()
+                : postDao.findAllWithAuthorByIdIn(originalIds).stream()
+                        .collect(Collectors.toMap(Post::getId, Function.identity()));
+
+        // 2. Tác giả và group chưa được fetch join bởi query gọi hydrate
+        preloadAuthorsAndGroups(posts);
+
+        // 3. Topics và documents của cả bài viết lẫn bài viết gốc
+        Set<Long> allIds = new HashSet<>(postIds);
+        allIds.addAll(originals.keySet());
+        Map<Long, List<Topic>> topicsByPost = loadTopics(allIds);
+        Map<Long, List<FileUploadResponse>> documentsByPost = loadDocuments(allIds);
+
+        // 4. Like-state của người xem
+        Set<Long> likedIds = loadLikedIds(viewerId, postIds);
+
+        List<PostResponse> responses = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            PostResponse dto = toResponse(post, topicsByPost, documentsByPost);
+            dto.setIsLiked(likedIds.contains(post.getId()));
+
+            if (post.getOriginalPostId() != null) {
+                Post originalPost = originals.get(post.getOriginalPostId());
+                if (originalPost != null) {
+                    dto.setOriginalPost(toOriginalPostInfo(originalPost, topicsByPost, documentsByPost));
+                }
+            }
+            responses.add(dto);
+        }
+        return responses;
+    }
+
+    private void preloadAuthorsAndGroups(List<Post> posts) {
+        Set<Long> authorIds = posts.stream()
+                .map(Post::getUser)
+                .filter(user -> !Hibernate.isInitialized(user))
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        if (!authorIds.isEmpty()) {
+            userDao.findAllWithProfileByIdIn(authorIds);
+        }
+
+        Set<Long> groupIds = posts.stream()
+                .map(Post::getGroup)
+                .filter(group -> group != null && !Hibernate.isInitialized(group))
+                .map(Group::getId)
+                .collect(Collectors.toSet());
+        if (!groupIds.isEmpty()) {
+            groupDao.findAllById(groupIds);
+        }
+    }
+
+    private Map<Long, List<Topic>> loadTopics(Set<Long> postIds) {
+        Map<Long, List<Topic>> topicsByPost = new HashMap<>();
+        for (Object[] row : postDao.findTopicsByPostIds(postIds)) {
+            topicsByPost.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Topic) row[1]);
+        }
+        return topicsByPost;
+    }
+
+    private Map<Long, List<FileUploadResponse>> loadDocuments(Set<Long> postIds) {
+        try {
+            return fileUploadService.getFilesByPostIds(postIds);
+        } catch (Exception e) {
+            // Không làm hỏng cả trang khi lỗi tải tài liệu
+            log.warn("Lỗi tải tài liệu cho các bài viết {}", postIds, e);
+            return Map.of();
+        }
+    }
+
+    private Set<Long> loadLikedIds(Long viewerId, Set<Long> postIds) {
+        if (viewerId == null) {
+            return Set.of();
+        }
+        try {
+            return likeService.getLikedPostIds(viewerId, postIds);
+        } catch (Exception e) {
+            // Không làm hỏng cả trang khi lỗi tải trạng thái like: các bài hiển thị như chưa like
+            log.warn("Lỗi tải trạng thái like của user {} cho các bài viết {}", viewerId, postIds, e);
+            return Set.of();
+        }
+    }
+
+    private PostResponse toResponse(Post post,
+                                    Map<Long, List<Topic>> topicsByPost,
+                                    Map<Long, List<FileUploadResponse>> documentsByPost) {
+        PostResponse dto = new PostResponse();
+        dto.setId(post.getId());
+        dto.setTitle(post.getTitle());
+        dto.setContent(post.getContent());
+        dto.setUserId(post.getUser().getId());
+        dto.setUserName(post.getUser().getUsername());
+        dto.setUserAvatar(avatarOf(post.getUser()));
+
+        dto.setCreatedAt(post.getCreatedAt());
+        dto.setLikeCount(postCounterService.getCount(post.getId(), PostCounterService.Counter.LIKE, post.getLikeCount()));
+        dto.setCommentCount(postCounterService.getCount(post.getId(), PostCounterService.Counter.COMMENT, post.getCommentCount()));
+        dto.setShareCount(postCounterService.getCount(post.getId(), PostCounterService.Counter.SHARE, post.getShareCount()));
+        dto.setStatus(post.getStatus());
+        dto.setPrivacy(post.getPrivacy());
+
+        dto.setTopicNames(topicsByPost.getOrDefault(post.getId(), List.of()).stream()
+                .map(Topic::getName)
+                .collect(Collectors.toList()));
+        dto.setDocuments(new ArrayList<>(documentsByPost.getOrDefault(post.getId(), List.of())));
+
+        // Set group information if post belongs to a group
+        Group group = post.getGroup();
+        if (group != null) {
+            dto.setGroupId(group.getId());
+            dto.setGroupName(group.getName());
+            dto.setGroupDescription(group.getDescription());
+
+            // Set group avatar with fallback
+            String groupAvatar = group.getAvatar();
+            if (groupAvatar != null && !groupAvatar.trim().isEmpty()) {
+                dto.setGroupAvatar(groupAvatar);
+            } else {
+                dto.setGroupAvatar("https://ui-avatars.com/api/?name=" +
+                    URLEncoder.encode(group.getName(), StandardCharsets.UTF_8) +
+                    "&background=007bff&color=ffffff&size=64");
+            }
+            dto.setGroupMemberCount(group.getMemberCount() != null ? group.getMemberCount() : 0L);
+        }
+        return dto;
+    }
+
+    private Map<String, Object> toOriginalPostInfo(Post originalPost,
+                                                   Map<Long, List<Topic>> topicsByPost,
+                                                   Map<Long, List<FileUploadResponse>> documentsByPost) {
+        Map<String, Object> originalPostInfo = new HashMap<>();
+        originalPostInfo.put("id", originalPost.getId());
+        originalPostInfo.put("title", originalPost.getTitle());
+        originalPostInfo.put("content", originalPost.getContent());
+        originalPostInfo.put("userName", originalPost.getUser().getUsername());
+        originalPostInfo.put("userAvatar", avatarOf(originalPost.getUser()));
+        originalPostInfo.put("privacy", originalPost.getPrivacy());
+        originalPostInfo.put("createdAt", originalPost.getCreatedAt());
+        originalPostInfo.put("likeCount", postCounterService.getCount(originalPost.getId(), PostCounterService.Counter.LIKE, originalPost.getLikeCount()));
+        originalPostInfo.put("commentCount", postCounterService.getCount(originalPost.getId(), PostCounterService.Counter.COMMENT, originalPost.getCommentCount()));
+        originalPostInfo.put("shareCount", postCounterService.getCount(originalPost.getId(), PostCounterService.Counter.SHARE, originalPost.getShareCount()));
+
+        // Thông tin group nếu bài viết gốc thuộc group
+        if (originalPost.getGroup() != null) {
+            originalPostInfo.put("groupId", originalPost.getGroup().getId());
+            originalPostInfo.put("groupName", originalPost.getGroup().getName());
+            originalPostInfo.put("groupAvatar", originalPost.getGroup().getAvatar());
+            originalPostInfo.put("groupDescription", originalPost.getGroup().getDescription());
+        }
+
+        List<Topic> topics = topicsByPost.get(originalPost.getId());
+        if (topics != null && !topics.isEmpty()) {
+            originalPostInfo.put("topics", topics);
+        }
+        List<FileUploadResponse> documents = documentsByPost.get(originalPost.getId());
+        if (documents != null && !documents.isEmpty()) {
+            originalPostInfo.put("documents", documents);
+        }
+        return originalPostInfo;
+    }
+
+    private String avatarOf(User user) {
+        if (user.getUserProfile() != null && user.getUserProfile().getAvatar() != null
+                && !user.getUserProfile().getAvatar().trim().isEmpty()) {
+            return user.getUserProfile().getAvatar();
+        }
+        return DEFAULT_AVATAR;
+    }
+}
@@ -1,6 +1,10 @@
 package GraduationProject.forumikaa.service;
 
+import GraduationProject.forumikaa.dto.FeedPageResponse;
 import GraduationProject.forumikaa.dto.PostResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
 import java.util.*;
 
 public interface PostRecommendationService {
@@ -19,6 +23,21 @@ public interface PostRecommendationService {
      * Lấy bài viết được nhiều người quan tâm với phân trang
      */
     List<PostResponse> getPopularPosts(Long userId, Integer limit, Integer offset);
+
+    /**
+     * Bài viết phổ biến theo cursor - các trang sau giữ nguyên thứ tự của trang đầu
+     */
+    FeedPageResponse getPopularPostsPage(Long userId, String cursor, Integer limit);
+    
+    /**
+     * Bước chấm điểm của tab "Cho riêng bạn" (chưa hydrate) - dùng cho job tính sẵn slate
+     */
+    List<RankedPost> rankPersonalizedPosts(Long userId, int limit);
+
+    /**
+     * Tải và hydrate các bài viết đã xếp hạng theo đúng thứ tự, bỏ qua bài đã bị xóa / không còn APPROVED
+     */
+    List<PostResponse> toRecommendedPosts(List<RankedPost> rankedPosts, Long userId);
     
     // Legacy methods for backward compatibility
     @Deprecated
@@ -29,4 +48,12 @@ public interface PostRecommendationService {
 
     @Deprecated
     List<PostResponse> getCrawledContentByInterest(Long userId, String interest, Integer limit);
+
+    @Getter
+    @AllArgsConstructor
+    final class RankedPost {
+        private final Long postId;
+        private final double score;
+        private final long createdAtMillis;
+    }
 }
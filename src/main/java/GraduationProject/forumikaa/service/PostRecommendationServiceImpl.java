@@ -3,25 +3,45 @@ package GraduationProject.forumikaa.service;
 import GraduationProject.forumikaa.dao.*;
 import GraduationProject.forumikaa.dto.*;
 import GraduationProject.forumikaa.entity.*;
+import GraduationProject.forumikaa.service.PopularPostIndexService.PopularPage;
+import GraduationProject.forumikaa.service.PopularPostIndexService.PopularPost;
+import GraduationProject.forumikaa.service.RecommendationScoringService.ScoringResult;
+import GraduationProject.forumikaa.service.TopicPostIndexService.IndexedPost;
+import GraduationProject.forumikaa.util.PopularCursor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @Transactional
 public class PostRecommendationServiceImpl implements PostRecommendationService{
+
+    // Điểm giảm dần, cùng điểm thì bài mới hơn trước
+    private static final Comparator<RankedPost> RANKING = Comparator.comparingDouble(RankedPost::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(RankedPost::getCreatedAtMillis).reversed());
     
     @Autowired private PostDao postDao;
-    @Autowired private LikeDao likeDao;
-    @Autowired private CommentDao commentDao;
     @Autowired private TopicDao topicDao;
-    @Autowired private TopicService topicService;
+    @Autowired private TrendingTopicService trendingTopicService;
     @Autowired private FriendshipDao friendshipDao;
-    @Autowired private FileUploadService fileUploadService;
+    @Autowired private PostHydrationService postHydrationService;
+    @Autowired private TopicPostIndexService topicPostIndexService;
+    @Autowired private PopularPostIndexService popularPostIndexService;
+    @Autowired private RecommendationScoringService recommendationScoringService;
+
+    @Value("${app.recommendation.candidates-per-topic:50}")
+    private int candidatesPerTopic;
+
+    @Value("${app.recommendation.max-candidates:1000}")
+    private int maxCandidates;
 
     /**
      * Tab 1: Cho riêng bạn - Phân tích điểm dựa trên topic quan tâm và tương tác
@@ -40,86 +60,94 @@ public class PostRecommendationServiceImpl implements PostRecommendationService{
     }
     
     /**
-     * Lấy bài viết được nhiều người quan tâm với phân trang
+     * Lấy bài viết được nhiều người quan tâm với phân trang theo offset (đọc từ snapshot mới nhất của bảng xếp hạng)
      */
+    @Override
     public List<PostResponse> getPopularPosts(Long userId, Integer limit, Integer offset) {
-        System.out.println("=== POPULAR POSTS RECOMMENDATION ===");
-        System.out.println("User ID: " + userId + ", Limit: " + limit + ", Offset: " + offset);
-        
-        // Lấy tất cả posts (không chỉ crawled content)
-        List<Post> allPosts = postDao.findAll();
-        System.out.println("Total posts: " + allPosts.size());
-        
-        if (allPosts.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        // Tính điểm trending: Like(1) + Comment(2) + Share(3)
-        List<PostRecommendationScore> scoredPosts = new ArrayList<>();
-        
-        for (Post post : allPosts) {
-            // Loại trừ posts của chính user
-            if (post.getUser().getId().equals(userId)) {
-                continue;
-            }
-            
-            // Loại trừ shared posts
-            if (post.getOriginalPostId() != null) {
-                continue;
-            }
-            
-            double trendingScore = calculateTrendingScore(post);
-            scoredPosts.add(new PostRecommendationScore(post, trendingScore));
-        }
-        
-        // Sắp xếp theo điểm trending và áp dụng phân trang
-        return scoredPosts.stream()
-                .sorted((a, b) -> Double.compare(b.getScore(), a.getScore()))
-                .skip(offset) // Bỏ qua offset posts đầu tiên
-                .limit(limit)  // Lấy limit posts tiếp theo
-                .map(this::convertToPostResponse)
+        PopularPage page = popularPostIndexService.readPage(null, offset, limit, popularFilter(userId));
+        return toPopularResponses(page, userId);
+    }
+
+    /**
+     * Bài viết phổ biến theo cursor: các trang sau đọc tiếp trên cùng snapshot nên thứ tự ổn định
+     */
+    @Override
+    public FeedPageResponse getPopularPostsPage(Long userId, String cursor, Integer limit) {
+        PopularPage page = popularPostIndexService.readPage(PopularCursor.decode(cursor), 0, limit, popularFilter(userId));
+        PopularCursor next = page.getNextCursor();
+        return new FeedPageResponse(toPopularResponses(page, userId), next != null ? next.encode() : null, next != null,
+                page.isCursorExpired());
+    }
+
+    // Loại bài của chính user, bài chỉ bạn bè xem được khi tác giả không phải bạn bè, và bài riêng tư
+    private Predicate<PopularPost> popularFilter(Long userId) {
+        Set<Long> friendIds = new HashSet<>(friendshipDao.findFriendIdsOf(userId));
+        return post -> !userId.equals(post.getAuthorId())
+                && (post.getPrivacy() == PostPrivacy.PUBLIC
+                    || (post.getPrivacy() == PostPrivacy.FRIENDS && friendIds.contains(post.getAuthorId())));
+    }
+
+    private List<PostResponse> toPopularResponses(PopularPage page, Long userId) {
+        List<RankedPost> ranked = page.getPosts().stream()
+                .map(post -> new RankedPost(post.getPostId(), post.getScore(), post.getCreatedAtMillis()))
                 .collect(Collectors.toList());
+        return toRecommendedPosts(ranked, userId);
     }
     
     /**
-     * Gợi ý tất cả bài viết dựa trên mối quan tâm và tương tác của user
+     * Gợi ý tất cả bài viết dựa trên mối quan tâm và tương tác của user.
+     *
+     * 2 bước: dựng hồ sơ quan tâm 1 lần (số query cố định), lấy ứng viên từ topic-post index
+     * rồi chấm điểm trong bộ nhớ - chỉ tải từ database các bài viết được trả về.
      */
     public List<PostResponse> getRecommendedAllPosts(Long userId, Integer limit) {
-        System.out.println("=== ALL POSTS RECOMMENDATION ===");
-        System.out.println("User ID: " + userId);
-        
-        // Lấy tất cả posts (không chỉ crawled content)
-        List<Post> allPosts = postDao.findAll();
-        System.out.println("Total posts: " + allPosts.size());
-        
-        if (allPosts.isEmpty()) {
+        return toRecommendedPosts(rankPersonalizedPosts(userId, limit), userId);
+    }
+
+    @Override
+    public List<RankedPost> rankPersonalizedPosts(Long userId, int limit) {
+        InterestProfile profile = buildInterestProfile(userId);
+        if (profile.isEmpty()) {
             return new ArrayList<>();
         }
-        
-        // Lấy mối quan tâm của user
-        Set<String> userInterests = getUserInterests(userId);
-        System.out.println("User interests: " + userInterests);
-        
-        // Lấy lịch sử tương tác của user
-        Map<Long, Double> userInteractionScores = getUserInteractionScores(userId);
-        System.out.println("User interaction scores: " + userInteractionScores);
-        
-        // Tính điểm recommendation cho từng post
-        List<PostRecommendationScore> scoredPosts = new ArrayList<>();
-        
-        for (Post post : allPosts) {
-            double score = calculateRecommendationScore(post, userId, userInterests, userInteractionScores);
-            if (score > 0) {
-                scoredPosts.add(new PostRecommendationScore(post, score));
+
+        List<IndexedPost> candidates = topicPostIndexService.findCandidates(
+                profile.getAllTopicIds(), candidatesPerTopic, maxCandidates);
+
+        // Chấm điểm song song trên snapshot ứng viên + hồ sơ chỉ đọc; hết deadline thì trả về top của phần đã chấm
+        ScoringResult<RankedPost> scored = recommendationScoringService.topK("posts", candidates, candidate ->
+                scoreCandidate(candidate, userId, profile), RANKING, limit);
+        log.debug("Gợi ý cho user {}: {} topic quan tâm, {} ứng viên, {} bài được trả về{}",
+                userId, profile.getAllTopicIds().size(), candidates.size(), scored.getResults().size(),
+                scored.isPartial() ? " (hết deadline)" : "");
+        return scored.getResults();
+    }
+
+    private RankedPost scoreCandidate(IndexedPost candidate, Long userId, InterestProfile profile) {
+        if (!isVisibleCandidate(candidate, userId, profile)) {
+            return null;
+        }
+        double score = calculateRecommendationScore(candidate.getTopicIds(), profile);
+        return score > 0 ? new RankedPost(candidate.getPostId(), score, candidate.getCreatedAtMillis()) : null;
+    }
+
+    @Override
+    public List<PostResponse> toRecommendedPosts(List<RankedPost> rankedPosts, Long userId) {
+        if (rankedPosts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> postIds = rankedPosts.stream().map(RankedPost::getPostId).collect(Collectors.toList());
+        Map<Long, Post> postsById = postDao.findAllWithAuthorByIdIn(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, post -> post));
+
+        List<PostRecommendationScore> result = new ArrayList<>();
+        for (RankedPost ranked : rankedPosts) {
+            Post post = postsById.get(ranked.getPostId());
+            if (post != null && post.getStatus() == PostStatus.APPROVED) {
+                result.add(new PostRecommendationScore(post, ranked.getScore()));
             }
         }
-        
-        // Sắp xếp theo điểm số và trả về
-        return scoredPosts.stream()
-                .sorted((a, b) -> Double.compare(b.getScore(), a.getScore()))
-                .limit(limit)
-                .map(this::convertToPostResponse)
-                .collect(Collectors.toList());
+        return convertToPostResponses(result, userId);
     }
     
     /**
@@ -128,41 +156,36 @@ public class PostRecommendationServiceImpl implements PostRecommendationService{
     @Override
     @Deprecated
     public List<PostResponse> getRecommendedCrawledContent(Long userId, Integer limit) {
-        System.out.println("=== CRAWLED CONTENT RECOMMENDATION ===");
-        System.out.println("User ID: " + userId);
-        
         // Lấy tất cả crawled posts (từ admin user)
         List<Post> crawledPosts = postDao.findByUserUsername("admin");
-        System.out.println("Total crawled posts: " + crawledPosts.size());
-        
         if (crawledPosts.isEmpty()) {
             return new ArrayList<>();
         }
         
-        // Lấy mối quan tâm của user
-        Set<String> userInterests = getUserInterests(userId);
-        System.out.println("User interests: " + userInterests);
-        
-        // Lấy lịch sử tương tác của user
-        Map<Long, Double> userInteractionScores = getUserInteractionScores(userId);
-        System.out.println("User interaction scores: " + userInteractionScores);
+        InterestProfile profile = buildInterestProfile(userId);
         
         // Tính điểm recommendation cho từng crawled post
         List<PostRecommendationScore> scoredPosts = new ArrayList<>();
         
         for (Post post : crawledPosts) {
-            double score = calculateRecommendationScore(post, userId, userInterests, userInteractionScores);
+            // Loại trừ posts của chính user và shared posts (posts có originalPostId)
+            if (post.getUser().getId().equals(userId) || post.getOriginalPostId() != null) {
+                continue;
+            }
+            List<Long> postTopicIds = post.getTopics().stream()
+                    .map(Topic::getId)
+                    .collect(Collectors.toList());
+            double score = calculateRecommendationScore(postTopicIds, profile);
             if (score > 0) {
                 scoredPosts.add(new PostRecommendationScore(post, score));
             }
         }
         
         // Sắp xếp theo điểm số và trả về
-        return scoredPosts.stream()
+        return convertToPostResponses(scoredPosts.stream()
                 .sorted((a, b) -> Double.compare(b.getScore(), a.getScore()))
                 .limit(limit)
-                .map(this::convertToPostResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), userId);
     }
     
     /**
@@ -170,26 +193,28 @@ public class PostRecommendationServiceImpl implements PostRecommendationService{
      */
     @Override
     public List<PostResponse> getTrendingCrawledContent(Long userId, Integer limit) {
-        // Lấy trending topics
-        List<Topic> trendingTopics = topicService.getTopTopics(10);
+        // Lấy trending topics theo điểm giảm dần theo thời gian (đọc từ bộ nhớ, không query)
+        List<Long> trendingTopicIds = trendingTopicService.getTrendingTopics(10).stream()
+                .map(TrendingTopicResponse::getId)
+                .collect(Collectors.toList());
+        if (trendingTopicIds.isEmpty()) {
+            return new ArrayList<>();
+        }
         
         // Lấy crawled posts thuộc trending topics (từ admin user)
-        List<Post> trendingCrawledPosts = new ArrayList<>();
-        for (Topic topic : trendingTopics) {
-            List<Post> posts = postDao.findByTopicsAndUserUsername(topic, "admin");
-            trendingCrawledPosts.addAll(posts);
-        }
+        List<Post> trendingCrawledPosts = postDao.findDistinctByTopicsIdInAndUserUsername(trendingTopicIds, "admin");
         
         // Sắp xếp theo engagement (likes + comments + shares)
-        return trendingCrawledPosts.stream()
+        List<PostRecommendationScore> topPosts = trendingCrawledPosts.stream()
                 .sorted((a, b) -> {
                     long engagementA = a.getLikeCount() + a.getCommentCount() + a.getShareCount();
                     long engagementB = b.getLikeCount() + b.getCommentCount() + b.getShareCount();
                     return Long.compare(engagementB, engagementA);
                 })
                 .limit(limit)
-                .map(post -> convertToPostResponse(new PostRecommendationScore(post, 0.0)))
+                .map(post -> new PostRecommendationScore(post, 0.0))
                 .collect(Collectors.toList());
+        return convertToPostResponses(topPosts, userId);
     }
     
     /**
@@ -207,391 +232,132 @@ public class PostRecommendationServiceImpl implements PostRecommendationService{
         List<Post> posts = postDao.findByTopicsAndUserUsername(topic.get(), "admin");
         
         // Sắp xếp theo engagement
-        return posts.stream()
+        List<PostRecommendationScore> topPosts = posts.stream()
                 .sorted((a, b) -> {
                     long engagementA = a.getLikeCount() + a.getCommentCount() + a.getShareCount();
                     long engagementB = b.getLikeCount() + b.getCommentCount() + b.getShareCount();
                     return Long.compare(engagementB, engagementA);
                 })
                 .limit(limit)
-                .map(post -> convertToPostResponse(new PostRecommendationScore(post, 0.0)))
+                .map(post -> new PostRecommendationScore(post, 0.0))
                 .collect(Collectors.toList());
+        return convertToPostResponses(topPosts, userId);
     }
     
-    private double calculateRecommendationScore(Post post, Long userId, Set<String> userInterests, Map<Long, Double> userInteractionScores) {
-        double score = 0.0;
-        
+    /**
+     * Dựng hồ sơ quan tâm của user: 4 query, không phụ thuộc số bài viết trong hệ thống
+     */
+    private InterestProfile buildInterestProfile(Long userId) {
+        Set<Long> authored = new HashSet<>(postDao.findAuthoredTopicIds(userId));
+        Set<Long> interacted = new HashSet<>(postDao.findInteractedTopicIds(userId));
+        Set<Long> friendIds = new HashSet<>(friendshipDao.findFriendIdsOf(userId));
+        Set<Long> friends = friendIds.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(postDao.findTopicIdsByAuthorIds(friendIds));
+        return new InterestProfile(authored, interacted, friends, friendIds);
+    }
+    
+    private boolean isVisibleCandidate(IndexedPost candidate, Long userId, InterestProfile profile) {
         // Loại trừ posts của chính user
-        if (post.getUser().getId().equals(userId)) {
-            return 0.0;
+        if (candidate.getAuthorId().equals(userId)) {
+            return false;
         }
-        
-        // Loại trừ shared posts (posts có originalPostId)
-        if (post.getOriginalPostId() != null) {
+        if (candidate.getPrivacy() == PostPrivacy.PUBLIC) {
+            return true;
+        }
+        return candidate.getPrivacy() == PostPrivacy.FRIENDS && profile.getFriendIds().contains(candidate.getAuthorId());
+    }
+    
+    private double calculateRecommendationScore(Collection<Long> postTopicIds, InterestProfile profile) {
+        if (postTopicIds.isEmpty()) {
             return 0.0;
         }
-        
-        // Lấy topics của post hiện tại
-        Set<String> postTopics = post.getTopics().stream()
-                .map(Topic::getName)
-                .collect(Collectors.toSet());
+        double score = 0.0;
         
         // 1. ĐIỂM TỪ BÀI VIẾT CỦA USER (40%) - User đã đăng về chủ đề này
-        double authoredScore = calculateAuthoredTopicsScore(postTopics, userId);
-        score += authoredScore * 0.4;
+        // 8 điểm mỗi topic chung, bonus 5 nếu tất cả topics đều match, 3 cho mỗi topic chung thêm
+        score += calculateTopicMatchScore(postTopicIds, profile.getAuthoredTopicIds(), 8.0, 5.0, 3.0) * 0.4;
         
         // 2. ĐIỂM TỪ TƯƠNG TÁC (35%) - User đã like/comment/share về chủ đề này
-        double interactionScore = calculateInteractionTopicsScore(postTopics, userId);
-        score += interactionScore * 0.35;
+        score += calculateTopicMatchScore(postTopicIds, profile.getInteractedTopicIds(), 6.0, 4.0, 2.0) * 0.35;
         
         // 3. ĐIỂM TỪ BẠN BÈ (25%) - Bạn bè đang đăng nhiều về chủ đề này
-        double friendsScore = calculateFriendsTopicsScore(postTopics, userId);
-        score += friendsScore * 0.25;
+        score += calculateTopicMatchScore(postTopicIds, profile.getFriendTopicIds(), 4.0, 3.0, 1.5) * 0.25;
         
         return Math.max(0, score); // Đảm bảo score >= 0
     }
     
-    /**
-     * Tính điểm dựa trên topics mà user đã đăng bài
-     */
-    private double calculateAuthoredTopicsScore(Set<String> postTopics, Long userId) {
-        double score = 0.0;
-        
-        // Lấy topics từ các bài viết mà user đã đăng
-        Set<String> userAuthoredTopics = getUserAuthoredTopics(userId);
-        
-        // Đếm topics chung
-        long commonTopics = postTopics.stream()
-                .mapToLong(topic -> userAuthoredTopics.contains(topic) ? 1 : 0)
-                .sum();
-        
-        if (commonTopics > 0) {
-            // Trọng số cao cho topics mà user đã đăng
-            score += (commonTopics * 8.0); // 8 điểm mỗi topic user đã đăng
-            
-            // Bonus cho exact match
-            if (commonTopics == postTopics.size()) {
-                score += 5.0; // Bonus nếu tất cả topics đều match
-            }
-            
-            // Bonus cho nhiều topics chung
-            if (commonTopics > 1) {
-                score += (commonTopics - 1) * 3.0; // Bonus 3 điểm cho mỗi topic chung thêm
-            }
+    private double calculateTopicMatchScore(Collection<Long> postTopicIds, Set<Long> profileTopicIds,
+                                            double perTopic, double exactMatchBonus, double extraTopicBonus) {
+        long commonTopics = postTopicIds.stream().filter(profileTopicIds::contains).count();
+        if (commonTopics == 0) {
+            return 0.0;
         }
-        
-        return score;
-    }
-    
-    /**
-     * Tính điểm dựa trên topics mà user đã like/comment/share
-     */
-    private double calculateInteractionTopicsScore(Set<String> postTopics, Long userId) {
-        double score = 0.0;
-        
-        // Lấy topics từ các bài viết mà user đã tương tác
-        Set<String> userInteractionTopics = getUserInteractionTopics(userId);
-        
-        // Đếm topics chung
-        long commonTopics = postTopics.stream()
-                .mapToLong(topic -> userInteractionTopics.contains(topic) ? 1 : 0)
-                .sum();
-        
-        if (commonTopics > 0) {
-            // Trọng số trung bình cho topics mà user đã tương tác
-            score += (commonTopics * 6.0); // 6 điểm mỗi topic user đã tương tác
-            
-            // Bonus cho exact match
-            if (commonTopics == postTopics.size()) {
-                score += 4.0; // Bonus nếu tất cả topics đều match
-            }
-            
-            // Bonus cho nhiều topics chung
-            if (commonTopics > 1) {
-                score += (commonTopics - 1) * 2.0; // Bonus 2 điểm cho mỗi topic chung thêm
-            }
+        double score = commonTopics * perTopic;
+        if (commonTopics == postTopicIds.size()) {
+            score += exactMatchBonus;
+        }
+        if (commonTopics > 1) {
+            score += (commonTopics - 1) * extraTopicBonus;
         }
-        
         return score;
     }
     
-    /**
-     * Tính điểm dựa trên topics mà bạn bè đang đăng nhiều
-     */
-    private double calculateFriendsTopicsScore(Set<String> postTopics, Long userId) {
-        double score = 0.0;
-        
-        // Lấy topics từ các bài viết của bạn bè
-        Set<String> friendsTopics = getFriendsActiveTopics(userId);
-        
-        // Đếm topics chung
-        long commonTopics = postTopics.stream()
-                .mapToLong(topic -> friendsTopics.contains(topic) ? 1 : 0)
-                .sum();
+    private List<PostResponse> convertToPostResponses(List<PostRecommendationScore> scoredPosts, Long userId) {
+        List<Post> posts = scoredPosts.stream()
+                .map(PostRecommendationScore::getPost)
+                .collect(Collectors.toList());
+        List<PostResponse> responses = postHydrationService.hydrate(posts, userId);
         
-        if (commonTopics > 0) {
-            // Trọng số thấp hơn cho topics của bạn bè
-            score += (commonTopics * 4.0); // 4 điểm mỗi topic bạn bè đang đăng
+        for (int i = 0; i < responses.size(); i++) {
+            Post post = posts.get(i);
+            PostResponse response = responses.get(i);
             
-            // Bonus cho exact match
-            if (commonTopics == postTopics.size()) {
-                score += 3.0; // Bonus nếu tất cả topics đều match
-            }
+            // Recommendation specific fields
+            response.setRecommendationScore(scoredPosts.get(i).getScore());
             
-            // Bonus cho nhiều topics chung
-            if (commonTopics > 1) {
-                score += (commonTopics - 1) * 1.5; // Bonus 1.5 điểm cho mỗi topic chung thêm
-            }
-        }
-        
-        return score;
-    }
-    
-    /**
-     * Lấy topics từ các bài viết mà user đã đăng
-     */
-    private Set<String> getUserAuthoredTopics(Long userId) {
-        return postDao.findByUserId(userId).stream()
-                .flatMap(post -> post.getTopics().stream())
-                .map(Topic::getName)
-                .collect(Collectors.toSet());
-    }
-    
-    /**
-     * Lấy topics từ các bài viết mà user đã like/comment/share
-     */
-    private Set<String> getUserInteractionTopics(Long userId) {
-        Set<String> topics = new HashSet<>();
-        
-        // Topics từ posts đã like
-        topics.addAll(likeDao.findByUserIdAndLikeableType(userId, LikeableType.POST).stream()
-                .flatMap(like -> {
-                    Post post = postDao.findById(like.getLikeableId()).orElse(null);
-                    return post != null ? post.getTopics().stream() : Stream.empty();
-                })
-                .map(Topic::getName)
-                .collect(Collectors.toSet()));
-        
-        // Topics từ posts đã comment
-        topics.addAll(commentDao.findByUserId(userId).stream()
-                .flatMap(comment -> comment.getPost().getTopics().stream())
-                .map(Topic::getName)
-                .collect(Collectors.toSet()));
-        
-        // Topics từ posts đã share (shared posts có originalPostId)
-        topics.addAll(postDao.findByUserId(userId).stream()
-                .filter(post -> post.getOriginalPostId() != null) // Chỉ lấy shared posts
-                .flatMap(sharedPost -> {
-                    // Lấy topics từ original post
-                    Post originalPost = postDao.findById(sharedPost.getOriginalPostId()).orElse(null);
-                    return originalPost != null ? originalPost.getTopics().stream() : Stream.empty();
-                })
-                .map(Topic::getName)
-                .collect(Collectors.toSet()));
-        
-        return topics;
-    }
-    
-    /**
-     * Lấy topics từ các bài viết của bạn bè
-     */
-    private Set<String> getFriendsActiveTopics(Long userId) {
-        // Lấy danh sách bạn bè
-        List<User> friends = friendshipDao.findFriendsOfWithProfile(userId);
-        
-        if (friends.isEmpty()) {
-            return new HashSet<>();
-        }
-        
-        // Lấy topics từ posts của bạn bè
-        return friends.stream()
-                .flatMap(friend -> postDao.findByUserId(friend.getId()).stream())
-                .flatMap(post -> post.getTopics().stream())
-                .map(Topic::getName)
-                .collect(Collectors.toSet());
-    }
-    
-    private double calculateTrendingScore(Post post) {
-        // Tính điểm trending: Like(1) + Comment(2) + Share(3)
-        long likeScore = post.getLikeCount() * 1;
-        long commentScore = post.getCommentCount() * 2;
-        long shareScore = post.getShareCount() * 3;
-        
-        return likeScore + commentScore + shareScore;
-    }
-    
-    private Set<String> getUserInterests(Long userId) {
-        // Lấy mối quan tâm từ posts user đã tương tác
-        Set<String> interests = new HashSet<>();
-        
-        try {
-        // Từ posts user đã like
-        List<Post> likedPosts = likeDao.findPostsLikedByUser(userId);
-            if (likedPosts != null) {
-        for (Post post : likedPosts) {
-                    if (post.getTopics() != null) {
-            post.getTopics().forEach(topic -> interests.add(topic.getName()));
-                    }
-                }
-        }
-        
-        // Từ posts user đã comment
-        List<Post> commentedPosts = commentDao.findPostsCommentedByUser(userId);
-            if (commentedPosts != null) {
-        for (Post post : commentedPosts) {
-                    if (post.getTopics() != null) {
-                        post.getTopics().forEach(topic -> interests.add(topic.getName()));
-                    }
-                }
-            }
+            // Kiểm tra xem có phải crawled content không
+            boolean isCrawledContent = "admin".equals(post.getUser().getUsername());
+            response.setIsCrawledContent(isCrawledContent);
             
-            // Từ posts user đã đăng (topics từ posts của chính họ)
-            List<Post> userPosts = postDao.findByUserId(userId);
-            if (userPosts != null) {
-                for (Post post : userPosts) {
-                    if (post.getTopics() != null) {
-            post.getTopics().forEach(topic -> interests.add(topic.getName()));
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error getting user interests: " + e.getMessage());
+            // Set user info for compatibility
+            UserBasicDto userResponse = new UserBasicDto();
+            userResponse.setId(post.getUser().getId());
+            userResponse.setUsername(post.getUser().getUsername());
+            userResponse.setFirstName(post.getUser().getFirstName());
+            userResponse.setLastName(post.getUser().getLastName());
+            response.setUser(userResponse);
         }
         
-        return interests;
+        return responses;
     }
     
-    private Map<Long, Double> getUserInteractionScores(Long userId) {
-        Map<Long, Double> scores = new HashMap<>();
-        
-        // Tính điểm dựa trên tương tác trước đó
-        List<Post> userPosts = postDao.findByUserId(userId);
-        for (Post post : userPosts) {
-            long engagement = post.getLikeCount() + post.getCommentCount() + post.getShareCount();
-            scores.put(post.getId(), engagement * 0.05); // 0.05 điểm mỗi engagement
-        }
-        
-        return scores;
-    }
     
-    private PostResponse convertToPostResponse(PostRecommendationScore scoredPost) {
-        Post post = scoredPost.getPost();
-        PostResponse response = new PostResponse();
-        
-        // Basic post info
-        response.setId(post.getId());
-        response.setTitle(post.getTitle());
-        response.setContent(post.getContent());
-        response.setCreatedAt(post.getCreatedAt());
-        response.setStatus(post.getStatus());
-        response.setPrivacy(post.getPrivacy());
-        
-        // Engagement counts
-        response.setLikeCount(post.getLikeCount() != null ? post.getLikeCount() : 0L);
-        response.setCommentCount(post.getCommentCount() != null ? post.getCommentCount() : 0L);
-        response.setShareCount(post.getShareCount() != null ? post.getShareCount() : 0L);
-        
-        // User info
-        response.setUserId(post.getUser().getId());
-        response.setUserName(post.getUser().getUsername());
-        
-        // User avatar
-        String userAvatar = null;
-        if (post.getUser().getUserProfile() != null && 
-            post.getUser().getUserProfile().getAvatar() != null && 
-            !post.getUser().getUserProfile().getAvatar().trim().isEmpty()) {
-            userAvatar = post.getUser().getUserProfile().getAvatar();
-        } else {
-            userAvatar = "https://cdn.pixabay.com/photo/2023/02/18/11/00/icon-7797704_640.png";
-        }
-        response.setUserAvatar(userAvatar);
-        
-        // Set topic names
-        if (post.getTopics() != null && !post.getTopics().isEmpty()) {
-            List<String> topicNames = post.getTopics().stream()
-                    .map(Topic::getName)
-                    .collect(Collectors.toList());
-            response.setTopicNames(topicNames);
-        } else {
-            response.setTopicNames(new ArrayList<>());
-        }
-        
-        // Set documents
-        try {
-            List<FileUploadResponse> documents = fileUploadService.getFilesByPostId(post.getId());
-            response.setDocuments(documents != null ? documents : new ArrayList<>());
-        } catch (Exception e) {
-            System.err.println("Error loading documents for post " + post.getId() + ": " + e.getMessage());
-            response.setDocuments(new ArrayList<>());
-        }
-        
-        // Set group information if post belongs to a group
-        if (post.getGroup() != null) {
-            response.setGroupId(post.getGroup().getId());
-            response.setGroupName(post.getGroup().getName());
-            response.setGroupDescription(post.getGroup().getDescription());
-            response.setGroupMemberCount(post.getGroup().getMemberCount());
-            
-            // Group avatar
-            if (post.getGroup().getAvatar() != null && !post.getGroup().getAvatar().trim().isEmpty()) {
-                response.setGroupAvatar(post.getGroup().getAvatar());
-            } else {
-                response.setGroupAvatar("https://cdn.pixabay.com/photo/2023/02/18/11/00/icon-7797704_640.png");
-            }
+    // Hồ sơ quan tâm của user, dựng 1 lần cho mỗi request - chỉ đọc vì được dùng chung giữa các thread chấm điểm
+    @Getter
+    private static class InterestProfile {
+        private final Set<Long> authoredTopicIds;
+        private final Set<Long> interactedTopicIds;
+        private final Set<Long> friendTopicIds;
+        private final Set<Long> friendIds;
+        // Thứ tự lấy ứng viên: topic user đã đăng, đã tương tác, rồi của bạn bè
+        private final Set<Long> allTopicIds = new LinkedHashSet<>();
+
+        InterestProfile(Set<Long> authoredTopicIds, Set<Long> interactedTopicIds, Set<Long> friendTopicIds, Set<Long> friendIds) {
+            this.authoredTopicIds = Collections.unmodifiableSet(authoredTopicIds);
+            this.interactedTopicIds = Collections.unmodifiableSet(interactedTopicIds);
+            this.friendTopicIds = Collections.unmodifiableSet(friendTopicIds);
+            this.friendIds = Collections.unmodifiableSet(friendIds);
+            allTopicIds.addAll(authoredTopicIds);
+            allTopicIds.addAll(interactedTopicIds);
+            allTopicIds.addAll(friendTopicIds);
         }
-        
-        // Check if this is a shared post
-        if (post.getOriginalPostId() != null) {
-            try {
-                Optional<Post> originalPost = postDao.findById(post.getOriginalPostId());
-                if (originalPost.isPresent()) {
-                    Map<String, Object> originalPostInfo = new HashMap<>();
-                    originalPostInfo.put("id", originalPost.get().getId());
-                    originalPostInfo.put("title", originalPost.get().getTitle());
-                    originalPostInfo.put("content", originalPost.get().getContent());
-                    originalPostInfo.put("userName", originalPost.get().getUser().getUsername());
-                    originalPostInfo.put("createdAt", originalPost.get().getCreatedAt());
-                    
-                    // Original post user avatar
-                    String originalUserAvatar = null;
-                    if (originalPost.get().getUser().getUserProfile() != null && 
-                        originalPost.get().getUser().getUserProfile().getAvatar() != null && 
-                        !originalPost.get().getUser().getUserProfile().getAvatar().trim().isEmpty()) {
-                        originalUserAvatar = originalPost.get().getUser().getUserProfile().getAvatar();
-                    } else {
-                        originalUserAvatar = "https://cdn.pixabay.com/photo/2023/02/18/11/00/icon-7797704_640.png";
-                    }
-                    originalPostInfo.put("userAvatar", originalUserAvatar);
-                    
-                    response.setOriginalPost(originalPostInfo);
-                }
-            } catch (Exception e) {
-                System.err.println("Error loading original post: " + e.getMessage());
-            }
+
+        boolean isEmpty() {
+            return allTopicIds.isEmpty();
         }
-        
-        // Set isLiked (will be set by controller if needed)
-        response.setIsLiked(false);
-        
-        // Recommendation specific fields
-        response.setRecommendationScore(scoredPost.getScore());
-        
-        // Kiểm tra xem có phải crawled content không
-        boolean isCrawledContent = "admin".equals(post.getUser().getUsername());
-        response.setIsCrawledContent(isCrawledContent);
-        
-        // Set user info for compatibility
-        UserBasicDto userResponse = new UserBasicDto();
-        userResponse.setId(post.getUser().getId());
-        userResponse.setUsername(post.getUser().getUsername());
-        userResponse.setFirstName(post.getUser().getFirstName());
-        userResponse.setLastName(post.getUser().getLastName());
-        response.setUser(userResponse);
-        
-        return response;
     }
     
-    
     // Inner class để lưu điểm recommendation
     private static class PostRecommendationScore {
         private final Post post;
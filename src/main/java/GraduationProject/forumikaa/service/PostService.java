@@ -1,4 +1,6 @@
 package GraduationProject.forumikaa.service;
+import GraduationProject.forumikaa.dto.FeedPageResponse;
+import GraduationProject.forumikaa.dto.LikeToggleResult;
 import GraduationProject.forumikaa.dto.PostRequest;
 import GraduationProject.forumikaa.dto.PostResponse;
 import GraduationProject.forumikaa.entity.Post;
@@ -16,7 +18,7 @@ public interface PostService {
 
     void deletePost(Long postId, Long userId);
     PostResponse getPostById(Long postId, Long userId);
-    List<PostResponse> getUserFeed(Long userId);
+    FeedPageResponse getUserFeed(Long userId, String cursor, Integer size);
     List<PostResponse> getUserPosts(Long userId);
     List<PostResponse> getPostsByTopic(Long topicId, Long userId);
     List<PostResponse> getPostsByGroup(Long groupId, Long userId);
@@ -29,7 +31,11 @@ public interface PostService {
     boolean canEditPost(Long postId, Long userId);
     
     // Like functionality
-    boolean toggleLike(Long postId, Long userId);
+    default boolean toggleLike(Long postId, Long userId) {
+        return toggleLike(postId, userId, null).isLiked();
+    }
+    // liked = null: toggle, ngược lại đặt đúng trạng thái mong muốn (idempotent)
+    LikeToggleResult toggleLike(Long postId, Long userId, Boolean liked);
     boolean isPostLikedByUser(Long postId, Long userId);
     Long getPostLikeCount(Long postId);
     
@@ -52,6 +58,7 @@ public interface PostService {
     Optional<Post> findById(Long id);
     Post save(Post post);
     void deleteById(Long id);
+    int deleteAllByIds(List<Long> ids);
     List<Post> findAll();
 
 }
@@ -5,30 +5,22 @@ import GraduationProject.forumikaa.dao.TopicDao;
 import GraduationProject.forumikaa.dao.UserDao;
 import GraduationProject.forumikaa.dao.CommentDao;
 import GraduationProject.forumikaa.dao.GroupDao;
+import GraduationProject.forumikaa.dto.FeedPageResponse;
+import GraduationProject.forumikaa.dto.LikeToggleResult;
 import GraduationProject.forumikaa.dto.PostRequest;
 import GraduationProject.forumikaa.dto.PostResponse;
 import GraduationProject.forumikaa.entity.*;
 import GraduationProject.forumikaa.exception.ResourceNotFoundException;
 import GraduationProject.forumikaa.exception.UnauthorizedException;
-import GraduationProject.forumikaa.patterns.strategy.FileStorageStrategyFactory;
+import GraduationProject.forumikaa.util.FeedCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -39,7 +31,6 @@ import java.util.HashMap;
 import java.util.Optional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import GraduationProject.forumikaa.dto.FileUploadResponse;
 
 @Service
 @Transactional
@@ -52,9 +43,24 @@ public class PostServiceImpl implements PostService {
     @Autowired private LikeService likeService;
     @Autowired private CommentDao commentDao;
     @Autowired private NotificationService notificationService;
-    @Autowired private FileUploadService fileUploadService;
-    @Autowired private FileStorageStrategyFactory strategyFactory;
     @Autowired private GroupDao groupDao;
+    @Autowired private PostHydrationService postHydrationService;
+    @Autowired private TimelineService timelineService;
+    @Autowired private PostCounterService postCounterService;
+    @Autowired private PostCardCacheService postCardCacheService;
+    @Autowired private StorageCleanupService storageCleanupService;
+    @Autowired private TrendingTopicService trendingTopicService;
+    @Autowired private TopicPostIndexService topicPostIndexService;
+    @Autowired private PopularPostIndexService popularPostIndexService;
+    @Autowired private UserInterestService userInterestService;
+    @Autowired private InteractionService interactionService;
+    @Autowired private RecommendationCacheService recommendationCacheService;
+
+    @Value("${app.feed.page-size:10}")
+    private int feedPageSize;
+
+    @Value("${app.feed.max-page-size:50}")
+    private int feedMaxPageSize;
 
     @Override
     public PostResponse createPost(PostRequest request, Long userId) {
@@ -78,14 +84,9 @@ public class PostServiceImpl implements PostService {
         // Process topics from topicNames (hashtags)
         Set<Topic> topics = new HashSet<>();
         
-        // If topicNames is provided (from hashtag input)
+        // If topicNames is provided (from hashtag input) - resolve cả lô trong 1-2 query
         if (request.getTopicNames() != null && !request.getTopicNames().isEmpty()) {
-            for (String topicName : request.getTopicNames()) {
-                if (topicName != null && !topicName.trim().isEmpty()) {
-                    Topic topic = topicService.findOrCreateTopic(topicName.trim(), user);
-                    topics.add(topic);
-                }
-            }
+            topics.addAll(topicService.processTopicsFromInput(request.getTopicNames(), user));
         }
         
         // Fallback: if topicId is provided (backward compatibility)
@@ -105,6 +106,14 @@ public class PostServiceImpl implements PostService {
 
         topics.forEach(topicService::incrementUsageCount);
 
+        timelineService.onPostCreated(savedPost);
+        topicPostIndexService.onPostSaved(savedPost);
+        popularPostIndexService.onPostSaved(savedPost);
+        trendingTopicService.record(savedPost, TrendingTopicService.Signal.POST);
+        userInterestService.record(savedPost, UserInterestService.Signal.AUTHORED, 1);
+        // Hashtag của bài mới thay đổi hồ sơ quan tâm của tác giả - ảnh hưởng mọi tab gợi ý
+        recommendationCacheService.invalidateUser(userId);
+
         return convertToDto(savedPost);
     }
 
@@ -117,8 +126,7 @@ public class PostServiceImpl implements PostService {
             throw new UnauthorizedException("You can only edit your own posts");
         }
 
-        // Giảm usage count của topics cũ
-        post.getTopics().forEach(topicService::decrementUsageCount);
+        Set<Topic> oldTopics = new HashSet<>(post.getTopics());
 
         post.setTitle(request.getTitle());
         post.setContent(request.getContent());
@@ -139,12 +147,7 @@ public class PostServiceImpl implements PostService {
         
         // If topicNames is provided (from hashtag input)
         if (request.getTopicNames() != null && !request.getTopicNames().isEmpty()) {
-            for (String topicName : request.getTopicNames()) {
-                if (topicName != null && !topicName.trim().isEmpty()) {
-                    Topic topic = topicService.findOrCreateTopic(topicName.trim(), post.getUser());
-                    newTopics.add(topic);
-                }
-            }
+            newTopics.addAll(topicService.processTopicsFromInput(request.getTopicNames(), post.getUser()));
         }
         // Fallback: if topicId is provided (backward compatibility)
         else if (request.getTopicId() != null) {
@@ -162,8 +165,18 @@ public class PostServiceImpl implements PostService {
 
         Post savedPost = postDao.save(post);
 
-        // Cập nhật usage count cho topics mới
-        newTopics.forEach(topicService::incrementUsageCount);
+        // Chỉ hashtag thêm/bớt mới thay đổi usage count và hồ sơ quan tâm của tác giả
+        topicService.updateUsageCounts(oldTopics, newTopics);
+        if (!oldTopics.equals(newTopics)) {
+            userInterestService.onTopicsChanged(savedPost, oldTopics);
+            recommendationCacheService.invalidateUser(userId);
+            trendingTopicService.invalidatePost(postId);
+        }
+
+        timelineService.onPostUpdated(savedPost);
+        topicPostIndexService.onPostSaved(savedPost);
+        popularPostIndexService.onPostSaved(savedPost);
+        postCardCacheService.invalidatePost(postId);
 
         return convertToDto(savedPost);
     }
@@ -177,6 +190,13 @@ public class PostServiceImpl implements PostService {
             throw new UnauthorizedException("You can only delete your own posts");
         }
 
+        deletePostAndFiles(post);
+    }
+
+    /**
+     * Xóa bài viết; file vật lý được ghi vào outbox trong cùng transaction và xóa bởi worker nền
+     */
+    private void deletePostAndFiles(Post post) {
         // Get documents before deleting post (for file cleanup)
         List<Document> documents = new ArrayList<>(post.getDocuments());
 
@@ -185,150 +205,78 @@ public class PostServiceImpl implements PostService {
 
         // Delete the post first (documents will be deleted by cascade due to orphanRemoval=true)
         postDao.delete(post);
-
-        // Now delete physical files from storage (after database cleanup)
-        try {
-            for (Document document : documents) {
-                // Delete from storage using the appropriate strategy
-                if (strategyFactory.getCurrentStrategyType().equals("local")) {
-                    // For local storage, delete physical file
-                    Path filePath = Paths.get(System.getProperty("user.dir"), "uploads", document.getFilePath());
-                    if (Files.exists(filePath)) {
-                        Files.deleteIfExists(filePath);
-                    }
-                } else if (strategyFactory.getCurrentStrategyType().equals("cloudinary")) {
-                    // For Cloudinary, delete using the correct public_id
-                    try {
-                        deleteFromCloudinary(document.getFileName());
-                    } catch (Exception ex) {
-                        System.err.println("Failed to delete Cloudinary file: " + ex.getMessage());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to delete physical files for post " + postId + ": " + e.getMessage());
-        }
+        storageCleanupService.enqueue(documents);
+        timelineService.onPostDeleted(post);
+        topicPostIndexService.onPostDeleted(post.getId());
+        popularPostIndexService.onPostDeleted(post.getId());
+        userInterestService.record(post, UserInterestService.Signal.AUTHORED, -1);
+        trendingTopicService.invalidatePost(post.getId());
+        postCardCacheService.invalidatePost(post.getId());
     }
 
-    /**
-     * Delete file from Cloudinary using public_id
-     */
-    private void deleteFromCloudinary(String publicId) throws IOException {
-        // Get Cloudinary credentials from application properties
-        String cloudName = "dsqkymrkm";
-        String apiKey = "769412498641216";
-        String apiSecret = "iCRSwCZ8p3j7NzIUm8pb3itcMB4";
-        
-        // Try different resource types
-        String[] resourceTypes = {"image", "video", "raw"};
-        
-        for (String resourceType : resourceTypes) {
-            try {
-                String deleteUrl = "https://api.cloudinary.com/v1_1/" + cloudName + "/" + resourceType + "/destroy";
-                
-                // Generate timestamp and signature
-                long timestamp = System.currentTimeMillis() / 1000;
-                String signature = generateSignature(publicId, timestamp, apiSecret);
-                
-                // URL encode the public_id
-                String encodedPublicId = java.net.URLEncoder.encode(publicId, StandardCharsets.UTF_8);
-                String formData = "public_id=" + encodedPublicId + 
-                                "&api_key=" + apiKey + 
-                                "&timestamp=" + timestamp + 
-                                "&signature=" + signature;
-                
-                HttpClient httpClient = HttpClient.newHttpClient();
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(deleteUrl))
-                        .header("Content-Type", "application/x-www-form-urlencoded")
-                        .POST(HttpRequest.BodyPublishers.ofString(formData))
-                        .build();
-                
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-                
-                if (response.statusCode() == 200) {
-                    return; // Success, exit the method
-                }
-            } catch (Exception e) {
-                // Continue to next resource type
-            }
-        }
-        
-        throw new IOException("Failed to delete file from Cloudinary with public_id: " + publicId);
+    @Override
+    public PostResponse getPostById(Long postId, Long userId) {
+        return postCardCacheService.getPostCard(postId, userId);
     }
 
-    /**
-     * Generate Cloudinary signature for API authentication
-     */
-    private String generateSignature(String publicId, long timestamp, String apiSecret) {
-        try {
-            // Create the string to sign in the format: key=value&key=value
-            String stringToSign = "public_id=" + publicId + "&timestamp=" + timestamp;
-            
-            // Append API secret to the string to sign
-            String stringToSignWithSecret = stringToSign + apiSecret;
-            
-            // Create SHA-1 hash
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
-            byte[] hash = md.digest(stringToSignWithSecret.getBytes("UTF-8"));
-            
-            // Convert to hex string
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException | java.io.UnsupportedEncodingException e) {
-            throw new RuntimeException("Failed to generate signature", e);
-        }
-    }
+    @Override
+    @Transactional(readOnly = true)
+    public FeedPageResponse getUserFeed(Long userId, String cursor, Integer size) {
+        int pageSize = (size == null || size <= 0) ? feedPageSize : Math.min(size, feedMaxPageSize);
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
 
-    
+        // Lấy thêm 1 bài để biết còn trang tiếp theo hay không
+        // Ưu tiên timeline đã fan-out, fallback về query keyset khi timeline không dùng được
+        List<Post> posts = timelineService.readPage(userId, feedCursor, pageSize + 1)
+                .map(this::loadPostsInOrder)
+                .orElseGet(() -> {
+                    Pageable limit = PageRequest.of(0, pageSize + 1);
+                    return feedCursor == null
+                            ? postDao.findUserFeedFirstPage(userId, limit)
+                            : postDao.findUserFeedAfter(userId, feedCursor.getCreatedAt(), feedCursor.getId(), limit);
+                });
 
-    @Override
-    public PostResponse getPostById(Long postId, Long userId) {
-        Post post = postDao.findPostByIdAndUserAccess(postId, userId);
-        if (post == null) {
-            throw new ResourceNotFoundException("Post not found or access denied");
+        boolean hasMore = posts.size() > pageSize;
+        List<Post> page = hasMore ? posts.subList(0, pageSize) : posts;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Post last = page.get(page.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
         }
-        return convertToDto(post);
+
+        List<PostResponse> responses = postHydrationService.hydrate(page, userId);
+        return new FeedPageResponse(responses, nextCursor, hasMore);
     }
 
-    @Override
-    public List<PostResponse> getUserFeed(Long userId) {
-        return postDao.findUserFeed(userId)
-                .stream()
-                .map(post -> convertToDto(post, userId))
-                .toList();
+    /**
+     * Tải bài viết theo danh sách id, giữ nguyên thứ tự của timeline (bỏ qua bài đã bị xóa)
+     */
+    private List<Post> loadPostsInOrder(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Post> postsById = postDao.findAllWithAuthorByIdIn(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, post -> post));
+        return postIds.stream()
+                .map(postsById::get)
+                .filter(post -> post != null && post.getStatus() == PostStatus.APPROVED)
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<PostResponse> getUserPosts(Long userId) {
-        return postDao.findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .map(post -> convertToDto(post, userId))
-                .toList();
+        return postHydrationService.hydrate(postDao.findByUserIdOrderByCreatedAtDesc(userId), userId);
     }
 
     @Override
     public List<PostResponse> getPostsByTopic(Long topicId, Long userId) {
-        return postDao.findByTopicIdWithUserAccess(topicId, userId)
-                .stream()
-                .map(post -> convertToDto(post, userId))
-                .toList();
+        return postHydrationService.hydrate(postDao.findByTopicIdWithUserAccess(topicId, userId), userId);
     }
 
     @Override
     public List<PostResponse> getPostsByGroup(Long groupId, Long userId) {
-        return postDao.findByGroupIdWithUserAccess(groupId, userId)
-                .stream()
-                .map(post -> convertToDto(post, userId))
-                .toList();
+        return postHydrationService.hydrate(postDao.findByGroupIdWithUserAccess(groupId, userId), userId);
     }
 
     @Override
@@ -337,7 +285,12 @@ public class PostServiceImpl implements PostService {
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
 
         post.setStatus(PostStatus.APPROVED);
-        return convertToDto(postDao.save(post));
+        Post savedPost = postDao.save(post);
+        timelineService.onPostUpdated(savedPost);
+        topicPostIndexService.onPostSaved(savedPost);
+        popularPostIndexService.onPostSaved(savedPost);
+        postCardCacheService.invalidatePost(postId);
+        return convertToDto(savedPost);
     }
 
     @Override
@@ -346,7 +299,12 @@ public class PostServiceImpl implements PostService {
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
 
         post.setStatus(PostStatus.REJECTED);
-        return convertToDto(postDao.save(post));
+        Post savedPost = postDao.save(post);
+        timelineService.onPostUpdated(savedPost);
+        topicPostIndexService.onPostSaved(savedPost);
+        popularPostIndexService.onPostSaved(savedPost);
+        postCardCacheService.invalidatePost(postId);
+        return convertToDto(savedPost);
     }
 
     @Override
@@ -364,41 +322,28 @@ public class PostServiceImpl implements PostService {
 
     // Like functionality
     @Override
-    public boolean toggleLike(Long postId, Long userId) {
-        System.out.println("=== TOGGLE LIKE DEBUG ===");
-        System.out.println("PostId: " + postId + ", UserId: " + userId);
-        
-        Post post = postDao.findById(postId)
+    public LikeToggleResult toggleLike(Long postId, Long userId, Boolean liked) {
+        Long authorId = postDao.findAuthorIdById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
 
-        userDao.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        LikeToggleResult result = liked == null
+                ? likeService.toggle(userId, postId, LikeableType.POST)
+                : likeService.setLiked(userId, postId, LikeableType.POST, liked);
 
-        boolean wasLiked = likeService.isPostLikedByUser(postId, userId);
-        System.out.println("Was liked before toggle: " + wasLiked);
-        
-        if (wasLiked) {
-            System.out.println("Calling unlikePost...");
-            likeService.unlikePost(postId, userId);
-        } else {
-            System.out.println("Calling likePost...");
-            likeService.likePost(postId, userId);
-            // Gửi notification khi like bài viết (chỉ khi chưa like trước đó)
-            if (!post.getUser().getId().equals(userId)) { // Không gửi notification cho chính mình
-                notificationService.createPostLikeNotification(postId, post.getUser().getId(), userId);
-            }
+        postCounterService.increment(postId, PostCounterService.Counter.LIKE, result.getDelta());
+
+        // Gửi notification chỉ khi thực sự tạo like mới (request lặp lại không gửi thêm)
+        if (result.getDelta() > 0 && !authorId.equals(userId)) { // Không gửi notification cho chính mình
+            notificationService.createPostLikeNotification(postId, authorId, userId);
         }
-        
-        // always recompute from DB to avoid drift
-        Long freshCount = likeService.getPostLikeCount(postId);
-        post.setLikeCount(freshCount);
-        postDao.save(post);
-        
-        boolean newState = !wasLiked;
-        System.out.println("New like state: " + newState + ", Like count: " + freshCount);
-        System.out.println("=== END TOGGLE LIKE DEBUG ===");
-        
-        return newState;
+        if (result.getDelta() > 0) {
+            trendingTopicService.record(postId, TrendingTopicService.Signal.LIKE);
+            interactionService.record(userId, authorId, InteractionEvent.Type.LIKE);
+        } else if (result.getDelta() < 0) {
+            interactionService.retract(userId, authorId, InteractionEvent.Type.LIKE);
+        }
+        userInterestService.record(userId, postId, UserInterestService.Signal.LIKED, result.getDelta());
+        return result;
     }
 
     @Override
@@ -410,7 +355,7 @@ public class PostServiceImpl implements PostService {
     public Long getPostLikeCount(Long postId) {
         Post post = postDao.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-        return post.getLikeCount() != null ? post.getLikeCount() : 0L;
+        return postCounterService.getCount(postId, PostCounterService.Counter.LIKE, post.getLikeCount());
     }
 
     // Comment functionality
@@ -459,8 +404,10 @@ public class PostServiceImpl implements PostService {
         Comment savedComment = commentDao.save(comment);
         
         // Update comment count
-        post.setCommentCount(post.getCommentCount() + 1);
-        postDao.save(post);
+        postCounterService.increment(postId, PostCounterService.Counter.COMMENT, 1);
+        trendingTopicService.record(postId, TrendingTopicService.Signal.COMMENT);
+        userInterestService.record(userId, postId, UserInterestService.Signal.COMMENTED, 1);
+        interactionService.record(userId, post.getUser().getId(), InteractionEvent.Type.COMMENT);
         
         // Gửi notification khi comment bài viết
         if (!post.getUser().getId().equals(userId)) { // Không gửi notification cho chính mình
@@ -492,12 +439,16 @@ public class PostServiceImpl implements PostService {
             throw new UnauthorizedException("Cannot delete this comment");
         }
         
+        // Người viết comment (có thể khác người xóa khi chủ bài viết xóa)
+        Long commenterId = commentDao.findById(commentId).map(comment -> comment.getUser().getId()).orElse(null);
+
         // Delete comment
         commentDao.deleteById(commentId);
         
         // Update comment count
-        post.setCommentCount(Math.max(0, post.getCommentCount() - 1));
-        postDao.save(post);
+        postCounterService.increment(postId, PostCounterService.Counter.COMMENT, -1);
+        userInterestService.record(commenterId, postId, UserInterestService.Signal.COMMENTED, -1);
+        interactionService.retract(commenterId, post.getUser().getId(), InteractionEvent.Type.COMMENT);
     }
 
     @Override
@@ -533,7 +484,7 @@ public class PostServiceImpl implements PostService {
     public Long getPostCommentCount(Long postId) {
         Post post = postDao.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-        return post.getCommentCount() != null ? post.getCommentCount() : 0L;
+        return postCounterService.getCount(postId, PostCounterService.Counter.COMMENT, post.getCommentCount());
     }
 
     // Share functionality
@@ -564,11 +515,14 @@ public class PostServiceImpl implements PostService {
         }
         
         // Update share count of original post
-        originalPost.setShareCount(originalPost.getShareCount() + 1);
-        postDao.save(originalPost);
+        postCounterService.increment(originalPost.getId(), PostCounterService.Counter.SHARE, 1);
         
         // Save shared post
         Post savedSharedPost = postDao.save(sharedPost);
+        timelineService.onPostCreated(savedSharedPost);
+        trendingTopicService.record(savedSharedPost, TrendingTopicService.Signal.SHARE);
+        userInterestService.record(savedSharedPost, UserInterestService.Signal.AUTHORED, 1);
+        interactionService.record(userId, originalPost.getUser().getId(), InteractionEvent.Type.SHARE);
         
         Map<String, Object> sharedPostData = new HashMap<>();
         sharedPostData.put("id", savedSharedPost.getId());
@@ -615,7 +569,7 @@ public class PostServiceImpl implements PostService {
     public Long getPostShareCount(Long postId) {
         Post post = postDao.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-        return post.getShareCount() != null ? post.getShareCount() : 0L;
+        return postCounterService.getCount(postId, PostCounterService.Counter.SHARE, post.getShareCount());
     }
 
     @Override
@@ -642,153 +596,7 @@ public class PostServiceImpl implements PostService {
      * Convert Post entity sang PostDto with user context for isLiked
      */
     private PostResponse convertToDto(Post post, Long currentUserId) {
-        PostResponse dto = new PostResponse();
-        dto.setId(post.getId());
-        dto.setTitle(post.getTitle());
-        dto.setContent(post.getContent());
-        dto.setUserId(post.getUser().getId());
-        dto.setUserName(post.getUser().getUsername());
-        
-        // Lấy avatar của user từ UserProfile
-        String userAvatar = null;
-        if (post.getUser().getUserProfile() != null && post.getUser().getUserProfile().getAvatar() != null && !post.getUser().getUserProfile().getAvatar().trim().isEmpty()) {
-            userAvatar = post.getUser().getUserProfile().getAvatar();
-        } else {
-            userAvatar = "https://cdn.pixabay.com/photo/2023/02/18/11/00/icon-7797704_640.png";
-        }
-        dto.setUserAvatar(userAvatar);
-        
-        dto.setCreatedAt(post.getCreatedAt());
-        dto.setLikeCount(post.getLikeCount() != null ? post.getLikeCount() : 0L);
-        dto.setCommentCount(post.getCommentCount() != null ? post.getCommentCount() : 0L);
-        dto.setShareCount(post.getShareCount() != null ? post.getShareCount() : 0L);
-        dto.setStatus(post.getStatus());
-        dto.setPrivacy(post.getPrivacy());
-        
-        // Check if this is a shared post using originalPostId field
-        if (post.getOriginalPostId() != null) {
-            // This is a shared post, create originalPost info
-            Map<String, Object> originalPostInfo = new HashMap<>();
-            
-            // Get originalPostId from field
-            Long originalPostId = post.getOriginalPostId();
-            
-            // Content is already the share message, no need to parse
-            // dto.setContent() is already set above
-            
-            // Tìm bài viết gốc bằng originalPostId
-            if (originalPostId != null) {
-                try {
-                    Post originalPost = postDao.findById(originalPostId).orElse(null);
-                    if (originalPost != null) {
-                        // Lấy thông tin thật từ bài viết gốc
-                        originalPostInfo.put("id", originalPost.getId());
-                        originalPostInfo.put("title", originalPost.getTitle());
-                        originalPostInfo.put("content", originalPost.getContent());
-                        originalPostInfo.put("userName", originalPost.getUser().getUsername());
-                        originalPostInfo.put("privacy", originalPost.getPrivacy()); // Privacy của bài viết gốc
-                        originalPostInfo.put("createdAt", originalPost.getCreatedAt());
-                        originalPostInfo.put("likeCount", originalPost.getLikeCount() != null ? originalPost.getLikeCount() : 0L);
-                        originalPostInfo.put("commentCount", originalPost.getCommentCount() != null ? originalPost.getCommentCount() : 0L);
-                        originalPostInfo.put("shareCount", originalPost.getShareCount() != null ? originalPost.getShareCount() : 0L);
-                        
-                        // Thông tin group nếu bài viết gốc thuộc group
-                        if (originalPost.getGroup() != null) {
-                            originalPostInfo.put("groupId", originalPost.getGroup().getId());
-                            originalPostInfo.put("groupName", originalPost.getGroup().getName());
-                            originalPostInfo.put("groupAvatar", originalPost.getGroup().getAvatar());
-                            originalPostInfo.put("groupDescription", originalPost.getGroup().getDescription());
-                        }
-                        
-                        // Thông tin topics của bài viết gốc
-                        if (originalPost.getTopics() != null && !originalPost.getTopics().isEmpty()) {
-                            originalPostInfo.put("topics", originalPost.getTopics());
-                        }
-                        
-                        // Avatar của người đăng bài gốc
-                        String originalUserAvatar = null;
-                        if (originalPost.getUser().getUserProfile() != null && originalPost.getUser().getUserProfile().getAvatar() != null && !originalPost.getUser().getUserProfile().getAvatar().trim().isEmpty()) {
-                            originalUserAvatar = originalPost.getUser().getUserProfile().getAvatar();
-                        } else {
-                            originalUserAvatar = "https://cdn.pixabay.com/photo/2023/02/18/11/00/icon-7797704_640.png";
-                        }
-                        originalPostInfo.put("userAvatar", originalUserAvatar);
-                        
-                        // Documents của bài viết gốc
-                        if (originalPost.getDocuments() != null && !originalPost.getDocuments().isEmpty()) {
-                            originalPostInfo.put("documents", originalPost.getDocuments());
-                        }
-                        
-                        dto.setOriginalPost(originalPostInfo);
-                    }
-                } catch (Exception e) {
-                    // Fallback nếu không tìm thấy bài viết gốc
-                    originalPostInfo.put("id", post.getId());
-                    originalPostInfo.put("title", post.getTitle());
-                    originalPostInfo.put("content", "Nội dung bài viết gốc...");
-                    originalPostInfo.put("userName", "Tác giả gốc");
-                    originalPostInfo.put("userAvatar", userAvatar);
-                    originalPostInfo.put("createdAt", post.getCreatedAt());
-                    dto.setOriginalPost(originalPostInfo);
-                }
-            }
-        }
-        
-        // Set isLiked if currentUserId is provided
-        if (currentUserId != null) {
-            try {
-                dto.setIsLiked(isPostLikedByUser(post.getId(), currentUserId));
-            } catch (Exception e) {
-                dto.setIsLiked(false);
-            }
-        } else {
-            dto.setIsLiked(false);
-        }
-
-        // Set topic names for hashtag functionality 
-        if (post.getTopics() != null && !post.getTopics().isEmpty()) {
-            List<String> topicNames = post.getTopics().stream()
-                    .map(Topic::getName)
-                    .toList();
-            dto.setTopicNames(topicNames);
-        } else {
-            // Set empty list if no topics
-            dto.setTopicNames(new ArrayList<>());
-        }
-
-        // Set documents
-        try {
-            List<FileUploadResponse> documents = fileUploadService.getFilesByPostId(post.getId());
-            dto.setDocuments(documents != null ? documents : new ArrayList<>());
-        } catch (Exception e) {
-            // Log error but don't fail the entire post
-            System.err.println("Error loading documents for post " + post.getId() + ": " + e.getMessage());
-            dto.setDocuments(new ArrayList<>());
-        }
-
-        // Set group information if post belongs to a group
-        if (post.getGroup() != null) {
-            dto.setGroupId(post.getGroup().getId());
-            dto.setGroupName(post.getGroup().getName());
-            dto.setGroupDescription(post.getGroup().getDescription());
-            
-            // Set group avatar with fallback
-            String groupAvatar = post.getGroup().getAvatar();
-            if (groupAvatar != null && !groupAvatar.trim().isEmpty()) {
-                dto.setGroupAvatar(groupAvatar);
-            } else {
-                // Default group avatar or generate one based on group name
-                dto.setGroupAvatar("https://ui-avatars.com/api/?name=" + 
-                    java.net.URLEncoder.encode(post.getGroup().getName(), java.nio.charset.StandardCharsets.UTF_8) + 
-                    "&background=007bff&color=ffffff&size=64");
-            }
-            
-            // Get member count from group entity
-            Long memberCount = post.getGroup().getMemberCount();
-            dto.setGroupMemberCount(memberCount != null ? memberCount : 0L);
-        }
-
-        return dto;
+        return postHydrationService.hydrate(post, currentUserId);
     }
 
     // ========== ADMIN MANAGEMENT METHODS ==========
@@ -866,7 +674,12 @@ public class PostServiceImpl implements PostService {
     @Override
     @Transactional
     public Post save(Post post) {
-        return postDao.save(post);
+        Post savedPost = postDao.save(post);
+        timelineService.onPostUpdated(savedPost);
+        topicPostIndexService.onPostSaved(savedPost);
+        popularPostIndexService.onPostSaved(savedPost);
+        postCardCacheService.invalidatePost(savedPost.getId());
+        return savedPost;
     }
 
     @Override
@@ -875,45 +688,24 @@ public class PostServiceImpl implements PostService {
         // Find the post first to get topics before deletion
         Optional<Post> postOpt = postDao.findById(id);
         if (postOpt.isPresent()) {
-            Post post = postOpt.get();
-            
-            // Get documents before deleting post (for file cleanup)
-            List<Document> documents = new ArrayList<>(post.getDocuments());
-            
-            // Decrement topic usage counts
-            post.getTopics().forEach(topicService::decrementUsageCount);
-            
-            // Delete the post first (documents will be deleted by cascade due to orphanRemoval=true)
-            postDao.delete(post);
-            
-            // Now delete physical files from storage (after database cleanup)
-            try {
-                for (Document document : documents) {
-                    // Delete from storage using the appropriate strategy
-                    if (strategyFactory.getCurrentStrategyType().equals("local")) {
-                        // For local storage, delete physical file
-                        Path filePath = Paths.get(System.getProperty("user.dir"), "uploads", document.getFilePath());
-                        if (Files.exists(filePath)) {
-                            Files.deleteIfExists(filePath);
-                        }
-                    } else if (strategyFactory.getCurrentStrategyType().equals("cloudinary")) {
-                        // For Cloudinary, delete using the correct public_id
-                        try {
-                            deleteFromCloudinary(document.getFileName());
-                        } catch (Exception ex) {
-                            System.err.println("Failed to delete Cloudinary file: " + ex.getMessage());
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Failed to delete physical files for post " + id + ": " + e.getMessage());
-            }
+            deletePostAndFiles(postOpt.get());
         } else {
             // Post not found, just delete by ID (in case of orphaned records)
             postDao.deleteById(id);
         }
     }
 
+    @Override
+    @Transactional
+    public int deleteAllByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        List<Post> posts = postDao.findAllById(ids);
+        posts.forEach(this::deletePostAndFiles);
+        return posts.size();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Post> findAll() {
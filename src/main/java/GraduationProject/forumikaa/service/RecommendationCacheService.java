@@ -0,0 +1,26 @@
+package GraduationProject.forumikaa.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache kết quả gợi ý theo (user, tab, trang) trong bộ nhớ của node, hết hạn sau app.recommendation.cache.ttl.
+ * Hành động làm thay đổi gợi ý của user (kết bạn, tham gia nhóm, đăng bài) xóa các entry của user đó sau khi commit.
+ */
+public interface RecommendationCacheService {
+
+    enum Tab {
+        PERSONALIZED, USERS, GROUPS
+    }
+
+    // page phân biệt các biến thể của cùng tab (limit, loại gợi ý); loader chạy khi chưa có trong cache
+    <T> List<T> get(Long userId, Tab tab, String page, Supplier<List<T>> loader);
+
+    // Xóa mọi tab của user
+    void invalidateUser(Long userId);
+
+    void invalidateTab(Long userId, Tab tab);
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,159 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Danh sách gợi ý được cache nguyên dạng trả về cho user (bất biến), gom theo user: invalidate 1 user / 1 tab
+ * chỉ đụng tới các entry của user đó. Invalidate tăng generation của stripe chứa user nên kết quả đang tính dở
+ * trong lúc invalidate không bị ghi vào cache; kết quả một phần (hết deadline chấm điểm) không được cache.
+ */
+@Service
+public class RecommendationCacheServiceImpl implements RecommendationCacheService {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    @Autowired private RecommendationScoringService recommendationScoringService;
+
+    @Value("${app.recommendation.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.recommendation.cache.max-size:20000}")
+    private int maxSize;
+
+    @Value("${app.recommendation.cache.ttl:60s}")
+    private Duration ttl;
+
+    // user id -> các danh sách gợi ý của user; hết hạn sau ttl tính từ lần ghi đầu tiên của user
+    private ExpiringLruCache<Long, UserEntries> cache;
+
+    // Ghi vào cache và invalidate nằm trong synchronized (generations) để không ghi bản cũ sau khi vừa invalidate
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        cache = new ExpiringLruCache<>(maxSize, ttl);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Long userId, Tab tab, String page, Supplier<List<T>> loader) {
+        if (!enabled || userId == null) {
+            return loader.get();
+        }
+        Key key = new Key(tab, page);
+        UserEntries entries = cache.get(userId);
+        List<T> cached = entries != null ? (List<T>) entries.lists.get(key) : null;
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        int stripe = stripe(userId);
+        long generation = generations.get(stripe);
+        recommendationScoringService.consumePartialFlag();
+        List<T> loaded = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+        // Kết quả bị cắt bởi deadline chấm điểm chỉ trả cho lần xem này, lần sau tính lại
+        if (!recommendationScoringService.consumePartialFlag()) {
+            store(userId, key, loaded, stripe, generation);
+        }
+        return loaded;
+    }
+
+    private void store(Long userId, Key key, List<?> loaded, int stripe, long expectedGeneration) {
+        synchronized (generations) {
+            if (generations.get(stripe) != expectedGeneration) {
+                return;
+            }
+            UserEntries entries = cache.get(userId);
+            if (entries == null) {
+                entries = new UserEntries();
+                cache.put(userId, entries);
+            }
+            entries.lists.put(key, loaded);
+        }
+    }
+
+    @Override
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            synchronized (generations) {
+                generations.incrementAndGet(stripe(userId));
+                cache.invalidate(userId);
+            }
+            invalidations.increment();
+        });
+    }
+
+    @Override
+    public void invalidateTab(Long userId, Tab tab) {
+        if (userId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            synchronized (generations) {
+                generations.incrementAndGet(stripe(userId));
+                UserEntries entries = cache.get(userId);
+                if (entries != null) {
+                    entries.lists.keySet().removeIf(key -> key.tab == tab);
+                }
+            }
+            invalidations.increment();
+        });
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("invalidations", invalidations.sum());
+        stats.put("ttlSeconds", ttl.getSeconds());
+        stats.put("users", cache.stats());
+        return stats;
+    }
+
+    private static int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) GENERATION_STRIPES);
+    }
+
+    private static final class UserEntries {
+        private final Map<Key, List<?>> lists = new ConcurrentHashMap<>();
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Key {
+        private final Tab tab;
+        private final String page;
+    }
+}
@@ -0,0 +1,54 @@
+package GraduationProject.forumikaa.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Chấm điểm ứng viên gợi ý song song trên virtual thread với deadline cho mỗi request.
+ * Ứng viên phải là snapshot chỉ đọc (không truy cập database / entity lazy trong hàm chấm điểm hay nguồn ứng viên:
+ * task chạy ngoài transaction của request và bị interrupt khi hết deadline).
+ * Hết deadline thì trả về kết quả tốt nhất đã có và ghi nhận vào thống kê.
+ */
+public interface RecommendationScoringService {
+
+    /**
+     * Chia candidates thành các phân vùng theo thứ tự, chấm điểm song song và trả về top-limit theo ranking
+     * (phần tử tốt nhất trước). scoring trả null để loại ứng viên.
+     * Phân vùng chưa xong khi hết deadline chỉ đóng góp các ứng viên đã chấm.
+     */
+    <C, R> ScoringResult<R> topK(String scorer, List<C> candidates, Function<C, R> scoring, Comparator<R> ranking, int limit);
+
+    /**
+     * Chạy song song các nguồn ứng viên; kết quả giữ thứ tự nguồn, nguồn chưa xong khi hết deadline bị bỏ qua.
+     */
+    <T> ScoringResult<T> gather(String scorer, List<Callable<T>> sources);
+
+    /**
+     * Chạy work trên thread hiện tại không giới hạn deadline (job nền tính slate): mọi lần chấm điểm bên trong
+     * chạy đến hết ứng viên / nguồn.
+     */
+    <T> T withoutDeadline(Supplier<T> work);
+
+    /**
+     * true nếu có lần chấm điểm trên thread hiện tại hết deadline kể từ lần gọi trước (đồng thời xóa cờ).
+     * Kết quả một phần không nên được cache.
+     */
+    boolean consumePartialFlag();
+
+    Map<String, Object> getStats();
+
+    @Getter
+    @AllArgsConstructor
+    final class ScoringResult<R> {
+        private final List<R> results;
+        // true nếu deadline hết trước khi chấm xong toàn bộ ứng viên
+        private final boolean partial;
+    }
+}
@@ -0,0 +1,264 @@
+package GraduationProject.forumikaa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Mỗi phân vùng ứng viên chạy trên 1 virtual thread, kiểm tra deadline trước mỗi ứng viên và trả về top-limit
+ * của phần đã chấm; request thread gộp các phân vùng xong trước deadline (+ GRACE_NANOS), phân vùng còn lại bị hủy.
+ * Ứng viên ít hơn 1 phân vùng được chấm ngay trên request thread. Trong withoutDeadline (job nền) deadline bị tắt.
+ */
+@Slf4j
+@Service
+public class RecommendationScoringServiceImpl implements RecommendationScoringService {
+
+    // Thời gian chờ thêm để phân vùng vừa dừng ở deadline kịp trả kết quả đã chấm
+    private static final long GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // Deadline của job nền - đủ xa để không bao giờ tới, vẫn an toàn khi cộng với System.nanoTime()
+    private static final long NO_DEADLINE_NANOS = Long.MAX_VALUE / 4;
+
+    @Autowired
+    @Qualifier("recommendationScoringExecutor")
+    private ExecutorService scoringExecutor;
+
+    @Value("${app.recommendation.scoring.deadline:150ms}")
+    private Duration deadline;
+
+    @Value("${app.recommendation.scoring.partition-size:250}")
+    private int partitionSize;
+
+    private final Map<String, ScorerStats> stats = new ConcurrentHashMap<>();
+
+    // Đánh dấu request thread vừa nhận kết quả một phần
+    private final ThreadLocal<Boolean> partialOnThread = new ThreadLocal<>();
+
+    // Thread đang chạy trong withoutDeadline
+    private final ThreadLocal<Boolean> unboundedOnThread = new ThreadLocal<>();
+
+    @Override
+    public <C, R> ScoringResult<R> topK(String scorer, List<C> candidates, Function<C, R> scoring, Comparator<R> ranking, int limit) {
+        long startedAt = System.nanoTime();
+        long deadlineAt = startedAt + deadlineNanos();
+        if (candidates.isEmpty() || limit <= 0) {
+            return new ScoringResult<>(new ArrayList<>(), false);
+        }
+
+        List<Partial<R>> partials = new ArrayList<>();
+        boolean timedOut = false;
+        if (candidates.size() <= partitionSize) {
+            partials.add(scorePartition(candidates, scoring, ranking, limit, deadlineAt));
+        } else {
+            List<Future<Partial<R>>> futures = new ArrayList<>();
+            for (int from = 0; from < candidates.size(); from += partitionSize) {
+                List<C> partition = candidates.subList(from, Math.min(from + partitionSize, candidates.size()));
+                futures.add(scoringExecutor.submit(() -> scorePartition(partition, scoring, ranking, limit, deadlineAt)));
+            }
+            for (Future<Partial<R>> future : futures) {
+                Partial<R> partial = await(future, deadlineAt + GRACE_NANOS);
+                if (partial == null) {
+                    timedOut = true;
+                } else {
+                    partials.add(partial);
+                }
+            }
+        }
+
+        PriorityQueue<R> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        long scored = 0;
+        for (Partial<R> partial : partials) {
+            timedOut |= !partial.complete;
+            scored += partial.scored;
+            for (R result : partial.top) {
+                offer(top, result, limit);
+            }
+        }
+        List<R> results = new ArrayList<>(top);
+        results.sort(ranking);
+
+        ScorerStats scorerStats = stats(scorer);
+        scorerStats.scored.add(scored);
+        scorerStats.record(startedAt, timedOut, results.isEmpty());
+        if (timedOut) {
+            partialOnThread.set(Boolean.TRUE);
+            log.debug("Chấm điểm {} hết deadline: {}/{} ứng viên, trả về {} kết quả", scorer, scored, candidates.size(), results.size());
+        }
+        return new ScoringResult<>(results, timedOut);
+    }
+
+    @Override
+    public <T> ScoringResult<T> gather(String scorer, List<Callable<T>> sources) {
+        long startedAt = System.nanoTime();
+        long deadlineAt = startedAt + deadlineNanos();
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> source : sources) {
+            futures.add(scoringExecutor.submit(source));
+        }
+
+        List<T> results = new ArrayList<>();
+        boolean timedOut = false;
+        for (Future<T> future : futures) {
+            T result = await(future, deadlineAt);
+            if (result == null) {
+                timedOut = true;
+            } else {
+                results.add(result);
+            }
+        }
+
+        stats(scorer).record(startedAt, timedOut, results.isEmpty());
+        if (timedOut) {
+            partialOnThread.set(Boolean.TRUE);
+            log.debug("Nguồn gợi ý {} hết deadline: {}/{} nguồn xong", scorer, results.size(), sources.size());
+        }
+        return new ScoringResult<>(results, timedOut);
+    }
+
+    @Override
+    public <T> T withoutDeadline(Supplier<T> work) {
+        Boolean previous = unboundedOnThread.get();
+        unboundedOnThread.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                unboundedOnThread.remove();
+            }
+        }
+    }
+
+    private long deadlineNanos() {
+        return unboundedOnThread.get() != null ? NO_DEADLINE_NANOS : deadline.toNanos();
+    }
+
+    // null nếu task chưa xong trước deadlineAt - task bị hủy, kết quả của nó bị bỏ qua
+    private static <T> T await(Future<T> future, long deadlineAt) {
+        try {
+            return future.get(Math.max(0, deadlineAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Lỗi khi chấm điểm gợi ý", e.getCause());
+        }
+    }
+
+    private static <C, R> Partial<R> scorePartition(List<C> partition, Function<C, R> scoring, Comparator<R> ranking,
+                                                    int limit, long deadlineAt) {
+        Partial<R> partial = new Partial<>(limit, ranking);
+        for (C candidate : partition) {
+            if (System.nanoTime() - deadlineAt > 0) {
+                partial.complete = false;
+                break;
+            }
+            partial.scored++;
+            R result = scoring.apply(candidate);
+            if (result != null) {
+                offer(partial.top, result, limit);
+            }
+        }
+        return partial;
+    }
+
+    // Heap giữ phần tử kém nhất ở đầu: vượt limit thì bỏ phần tử kém nhất
+    private static <R> void offer(PriorityQueue<R> top, R result, int limit) {
+        top.add(result);
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+
+    @Override
+    public boolean consumePartialFlag() {
+        boolean partial = partialOnThread.get() != null;
+        partialOnThread.remove();
+        return partial;
+    }
+
+    private ScorerStats stats(String scorer) {
+        return stats.computeIfAbsent(scorer, name -> new ScorerStats());
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("deadlineMs", deadline.toMillis());
+        result.put("partitionSize", partitionSize);
+        for (Map.Entry<String, ScorerStats> entry : stats.entrySet()) {
+            ScorerStats scorerStats = entry.getValue();
+            long requests = scorerStats.requests.sum();
+            Map<String, Object> scorer = new LinkedHashMap<>();
+            scorer.put("requests", requests);
+            scorer.put("timeouts", scorerStats.timeouts.sum());
+            scorer.put("partialResults", scorerStats.partialResults.sum());
+            scorer.put("scoredCandidates", scorerStats.scored.sum());
+            scorer.put("avgLatencyMs", requests == 0 ? 0.0 : scorerStats.latencyNanos.sum() / 1e6 / requests);
+            scorer.put("maxLatencyMs", scorerStats.maxLatencyNanos.get() / 1e6);
+            result.put(entry.getKey(), scorer);
+        }
+        return result;
+    }
+
+    private static final class Partial<R> {
+        private final PriorityQueue<R> top;
+        private int scored;
+        private boolean complete = true;
+
+        private Partial(int limit, Comparator<R> ranking) {
+            this.top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        }
+    }
+
+    private static final class ScorerStats {
+        private final LongAdder requests = new LongAdder();
+        // Request hết deadline trước khi chấm xong
+        private final LongAdder timeouts = new LongAdder();
+        // Request hết deadline nhưng vẫn trả về kết quả tốt nhất đã có
+        private final LongAdder partialResults = new LongAdder();
+        private final LongAdder scored = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+        private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+        private void record(long startedAt, boolean timedOut, boolean empty) {
+            long elapsed = System.nanoTime() - startedAt;
+            requests.increment();
+            latencyNanos.add(elapsed);
+            maxLatencyNanos.accumulate(elapsed);
+            if (timedOut) {
+                timeouts.increment();
+                if (!empty) {
+                    partialResults.increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dto.GroupRecommendationResponse;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.dto.UserRecommendationResponse;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface RecommendationSlateService {
+
+    /**
+     * Tính slate bài viết / người dùng / nhóm cho các user hoạt động gần đây, chia theo phân vùng chạy song song.
+     * Chạy lại cùng runDate sẽ tiếp tục từ tiến độ đã lưu.
+     *
+     * @return số user đã được tính trong lần gọi này
+     */
+    long runBatch(LocalDate runDate);
+
+    /**
+     * Optional.empty() khi user chưa có slate hoặc slate đã quá cũ - caller tính trực tiếp.
+     */
+    Optional<List<PostResponse>> getPostSlate(Long userId, int limit);
+
+    Optional<List<UserRecommendationResponse>> getUserSlate(Long userId, int limit);
+
+    Optional<List<GroupRecommendationResponse>> getGroupSlate(Long userId, int limit);
+
+    Map<String, Object> getStats();
+}
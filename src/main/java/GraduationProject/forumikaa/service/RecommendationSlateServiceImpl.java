@@ -0,0 +1,375 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.FriendshipDao;
+import GraduationProject.forumikaa.dao.GroupMemberDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dao.RecommendationJobPartitionDao;
+import GraduationProject.forumikaa.dao.RecommendationSlateDao;
+import GraduationProject.forumikaa.dao.UserDao;
+import GraduationProject.forumikaa.dto.GroupRecommendationResponse;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.dto.UserRecommendationResponse;
+import GraduationProject.forumikaa.entity.RecommendationJobPartition;
+import GraduationProject.forumikaa.entity.RecommendationSlate;
+import GraduationProject.forumikaa.entity.RecommendationSlate.Kind;
+import GraduationProject.forumikaa.service.PostRecommendationService.RankedPost;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Slate gợi ý tính sẵn bởi RecommendationSlateJob (Quartz, JDBC job store).
+ *
+ * User hoạt động gần đây được chia thành app.recommendation.slates.partitions phân vùng theo user id.
+ * Các worker nhận phân vùng bằng lease (FOR UPDATE SKIP LOCKED) nên có thể chạy song song trên nhiều node;
+ * mỗi lô user được ghi slate và checkpoint last_user_id trong cùng 1 transaction để chạy tiếp khi bị gián đoạn.
+ * Khi đọc, slate được re-rank nhẹ (độ mới của bài viết, bỏ bài đã like, người đã có quan hệ kết bạn / nhóm đã tham gia);
+ * slate bài viết tính trước bài đăng mới nhất của user bị bỏ qua để tính trực tiếp theo mối quan tâm mới.
+ */
+@Slf4j
+@Service
+public class RecommendationSlateServiceImpl implements RecommendationSlateService {
+
+    static final String UPSERT_SLATE_SQL = """
+        INSERT INTO recommendation_slates (user_id, kind, items, computed_at) VALUES (?, ?, ?, ?)
+        ON CONFLICT (user_id, kind) DO UPDATE SET items = EXCLUDED.items, computed_at = EXCLUDED.computed_at
+    """;
+
+    // Tiến độ chỉ tăng: worker đã mất lease không thể kéo checkpoint lùi lại
+    static final String CHECKPOINT_SQL = """
+        UPDATE recommendation_job_partitions
+        SET last_user_id = ?, processed_users = processed_users + ?, lease_until = ?, updated_at = ?
+        WHERE id = ? AND last_user_id < ?
+    """;
+
+    static final String COMPLETE_PARTITION_SQL = """
+        UPDATE recommendation_job_partitions SET completed = true, lease_until = NULL, updated_at = ? WHERE id = ?
+    """;
+
+    private static final TypeReference<List<PostSlateItem>> POST_ITEMS = new TypeReference<>() {};
+    private static final TypeReference<List<UserRecommendationResponse>> USER_ITEMS = new TypeReference<>() {};
+    private static final TypeReference<List<GroupRecommendationResponse>> GROUP_ITEMS = new TypeReference<>() {};
+
+    @Autowired private UserDao userDao;
+    @Autowired private FriendshipDao friendshipDao;
+    @Autowired private GroupMemberDao groupMemberDao;
+    @Autowired private PostDao postDao;
+    @Autowired private RecommendationSlateDao slateDao;
+    @Autowired private RecommendationJobPartitionDao partitionDao;
+    @Autowired private PostRecommendationService postRecommendationService;
+    @Autowired private RecommendationService recommendationService;
+    @Autowired private RecommendationScoringService recommendationScoringService;
+    @Autowired private LikeService likeService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("recommendationBatchExecutor")
+    private Executor batchExecutor;
+
+    @Value("${app.recommendation.slates.partitions:16}")
+    private int partitions;
+
+    @Value("${app.recommendation.slates.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.recommendation.slates.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${app.recommendation.slates.size:50}")
+    private int slateSize;
+
+    @Value("${app.recommendation.slates.active-days:14}")
+    private int activeDays;
+
+    @Value("${app.recommendation.slates.lease:10m}")
+    private Duration lease;
+
+    @Value("${app.recommendation.slates.retry-delay:30s}")
+    private Duration retryDelay;
+
+    @Value("${app.recommendation.slates.max-run-duration:6h}")
+    private Duration maxRunDuration;
+
+    @Value("${app.recommendation.slates.max-age:36h}")
+    private Duration maxAge;
+
+    @Value("${app.recommendation.slates.freshness-half-life:48h}")
+    private Duration freshnessHalfLife;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Override
+    public long runBatch(LocalDate runDate) {
+        String runKey = runDate.toString();
+        transactionTemplate.executeWithoutResult(status -> {
+            partitionDao.deleteRunsBefore(runDate.minusDays(7).toString());
+            for (int partitionNo = 0; partitionNo < partitions; partitionNo++) {
+                partitionDao.insertIfAbsent(runKey, partitionNo);
+            }
+        });
+
+        long startedAt = clock.getAsLong();
+        long deadline = startedAt + maxRunDuration.toMillis();
+        List<CompletableFuture<Long>> workers = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(CompletableFuture.supplyAsync(() -> runWorker(runKey, deadline), batchExecutor));
+        }
+        long processed = workers.stream().mapToLong(CompletableFuture::join).sum();
+
+        long remaining = partitionDao.countByRunKeyAndCompletedFalse(runKey);
+        if (remaining == 0) {
+            // Slate của user không còn hoạt động sẽ không được tính lại
+            Integer removed = transactionTemplate.execute(status ->
+                    slateDao.deleteComputedBefore(toLocalDateTime(startedAt - maxAge.toMillis())));
+            log.info("Job gợi ý {} hoàn tất: {} user được tính trong lần chạy này, xóa {} slate cũ", runKey, processed, removed);
+        } else {
+            log.warn("Job gợi ý {} dừng khi còn {} phân vùng chưa xong, lần chạy sau sẽ tiếp tục", runKey, remaining);
+        }
+        return processed;
+    }
+
+    private long runWorker(String runKey, long deadline) {
+        long processed = 0;
+        while (clock.getAsLong() < deadline) {
+            LocalDateTime now = toLocalDateTime(clock.getAsLong());
+            List<RecommendationJobPartition> claimed = transactionTemplate.execute(status ->
+                    partitionDao.claimNext(runKey, now, now.plus(lease)));
+            if (claimed == null || claimed.isEmpty()) {
+                if (partitionDao.countByRunKeyAndCompletedFalse(runKey) == 0) {
+                    break;
+                }
+                // Phân vùng còn lại đang được worker khác giữ, hoặc lease của node đã chết chưa hết hạn
+                if (!sleep(retryDelay)) {
+                    break;
+                }
+                continue;
+            }
+            try {
+                processed += processPartition(claimed.get(0), deadline);
+            } catch (RuntimeException e) {
+                // Giữ nguyên checkpoint, phân vùng được nhận lại khi hết lease
+                log.error("Lỗi khi tính slate cho phân vùng {} của {}: {}",
+                        claimed.get(0).getPartitionNo(), runKey, e.getMessage());
+                break;
+            }
+        }
+        return processed;
+    }
+
+    long processPartition(RecommendationJobPartition partition, long deadline) {
+        long afterId = partition.getLastUserId();
+        long processed = 0;
+        LocalDateTime since = toLocalDateTime(clock.getAsLong()).minusDays(activeDays);
+        while (clock.getAsLong() < deadline) {
+            List<Long> userIds = userDao.findActiveUserIdsInPartition(
+                    afterId, partitions, partition.getPartitionNo(), since, chunkSize);
+            if (userIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                        COMPLETE_PARTITION_SQL, Timestamp.valueOf(toLocalDateTime(clock.getAsLong())), partition.getId()));
+                return processed;
+            }
+
+            Timestamp computedAt = Timestamp.valueOf(toLocalDateTime(clock.getAsLong()));
+            List<Object[]> rows = new ArrayList<>();
+            for (Long userId : userIds) {
+                rows.addAll(computeSlates(userId, computedAt));
+            }
+
+            long lastUserId = userIds.get(userIds.size() - 1);
+            LocalDateTime now = toLocalDateTime(clock.getAsLong());
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_SLATE_SQL, rows);
+                }
+                jdbcTemplate.update(CHECKPOINT_SQL, lastUserId, userIds.size(),
+                        Timestamp.valueOf(now.plus(lease)), Timestamp.valueOf(now), partition.getId(), lastUserId);
+            });
+            afterId = lastUserId;
+            processed += userIds.size();
+        }
+        return processed;
+    }
+
+    private List<Object[]> computeSlates(Long userId, Timestamp computedAt) {
+        try {
+            // Slate được dùng tới 36h: chấm hết ứng viên, không dùng deadline của request
+            recommendationScoringService.consumePartialFlag();
+            List<PostSlateItem> posts = recommendationScoringService.withoutDeadline(() ->
+                    postRecommendationService.rankPersonalizedPosts(userId, slateSize)).stream()
+                    .map(post -> new PostSlateItem(post.getPostId(), post.getScore(), post.getCreatedAtMillis()))
+                    .collect(Collectors.toList());
+            List<UserRecommendationResponse> users = recommendationScoringService.withoutDeadline(() ->
+                    recommendationService.recommendUsers(userId, slateSize));
+            List<GroupRecommendationResponse> groups = recommendationService.recommendGroups(userId, slateSize);
+            if (recommendationScoringService.consumePartialFlag()) {
+                // Chấm điểm bị cắt (vd. thread bị interrupt): không lưu slate thiếu, tab gợi ý tính trực tiếp
+                log.warn("Bỏ qua slate gợi ý chưa đầy đủ của user {}", userId);
+                return List.of();
+            }
+
+            List<Object[]> rows = new ArrayList<>(3);
+            rows.add(new Object[]{userId, Kind.POST.name(), mapper.writeValueAsString(posts), computedAt});
+            rows.add(new Object[]{userId, Kind.USER.name(), mapper.writeValueAsString(users), computedAt});
+            rows.add(new Object[]{userId, Kind.GROUP.name(), mapper.writeValueAsString(groups), computedAt});
+            return rows;
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Bỏ qua user lỗi, lần chạy sau tính lại - tab gợi ý sẽ tính trực tiếp trong lúc đó
+            log.warn("Không thể tính slate gợi ý cho user {}: {}", userId, e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public Optional<List<PostResponse>> getPostSlate(Long userId, int limit) {
+        // User đăng bài sau khi slate được tính: hồ sơ quan tâm đã đổi, slate không còn đúng
+        Optional<List<PostSlateItem>> items = freshSlate(userId, Kind.POST)
+                .filter(slate -> !postDao.existsByUserIdAndCreatedAtAfter(userId, slate.getComputedAt()))
+                .flatMap(slate -> parse(slate, POST_ITEMS));
+        if (items.isEmpty()) {
+            return Optional.empty();
+        }
+        if (items.get().isEmpty()) {
+            return Optional.of(new ArrayList<>());
+        }
+
+        Set<Long> liked = likeService.getLikedPostIds(userId,
+                items.get().stream().map(PostSlateItem::getId).collect(Collectors.toList()));
+        long now = clock.getAsLong();
+        List<RankedPost> reranked = new ArrayList<>();
+        for (PostSlateItem item : items.get()) {
+            if (liked.contains(item.getId())) {
+                continue;
+            }
+            // Điểm giảm 1 nửa sau mỗi half-life tính từ lúc đăng bài
+            double age = Math.max(0, now - item.getCreatedAt());
+            double freshness = Math.pow(0.5, age / freshnessHalfLife.toMillis());
+            reranked.add(new RankedPost(item.getId(), item.getScore() * freshness, item.getCreatedAt()));
+        }
+        if (reranked.isEmpty()) {
+            return Optional.empty();
+        }
+        reranked.sort(Comparator.comparingDouble(RankedPost::getScore).reversed());
+        List<RankedPost> top = new ArrayList<>(reranked.subList(0, Math.min(limit, reranked.size())));
+        return Optional.of(postRecommendationService.toRecommendedPosts(top, userId));
+    }
+
+    @Override
+    public Optional<List<UserRecommendationResponse>> getUserSlate(Long userId, int limit) {
+        return readSlate(userId, Kind.USER, USER_ITEMS).map(users -> {
+            // Bỏ những người đã trở thành bạn bè / đã gửi hoặc nhận lời mời sau khi slate được tính
+            Set<Long> relatedIds = new HashSet<>(friendshipDao.findRelatedUserIdsOf(userId));
+            return users.stream()
+                    .filter(user -> !relatedIds.contains(user.getUserId()))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public Optional<List<GroupRecommendationResponse>> getGroupSlate(Long userId, int limit) {
+        return readSlate(userId, Kind.GROUP, GROUP_ITEMS).map(groups -> {
+            // Bỏ những nhóm user đã tham gia sau khi slate được tính
+            Set<Long> joinedGroupIds = new HashSet<>(groupMemberDao.findGroupIdsByUserId(userId));
+            return groups.stream()
+                    .filter(group -> !joinedGroupIds.contains(group.getId()))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private <T> Optional<List<T>> readSlate(Long userId, Kind kind, TypeReference<List<T>> type) {
+        return freshSlate(userId, kind).flatMap(slate -> parse(slate, type));
+    }
+
+    private Optional<RecommendationSlate> freshSlate(Long userId, Kind kind) {
+        LocalDateTime freshAfter = toLocalDateTime(clock.getAsLong() - maxAge.toMillis());
+        return slateDao.findByUserIdAndKind(userId, kind)
+                .filter(s -> s.getComputedAt().isAfter(freshAfter));
+    }
+
+    private <T> Optional<List<T>> parse(RecommendationSlate slate, TypeReference<List<T>> type) {
+        try {
+            return Optional.of(mapper.readValue(slate.getItems(), type));
+        } catch (JsonProcessingException e) {
+            log.warn("Slate {} của user {} không đọc được: {}", slate.getKind(), slate.getUserId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("slates", slateDao.count());
+        String runKey = partitionDao.findLatestRunKey();
+        stats.put("latestRun", runKey);
+        if (runKey != null) {
+            List<RecommendationJobPartition> runPartitions = partitionDao.findByRunKeyOrderByPartitionNo(runKey);
+            stats.put("partitions", runPartitions.size());
+            stats.put("completedPartitions", runPartitions.stream().filter(RecommendationJobPartition::getCompleted).count());
+            stats.put("processedUsers", runPartitions.stream().mapToLong(RecommendationJobPartition::getProcessedUsers).sum());
+        }
+        return stats;
+    }
+
+    private boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    // Bài viết trong slate: id, điểm lúc tính và thời điểm đăng (epoch millis) để re-rank theo độ mới
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class PostSlateItem {
+        private Long id;
+        private double score;
+        private long createdAt;
+    }
+}
@@ -0,0 +1,33 @@
+package GraduationProject.forumikaa.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Username / avatar của người gửi thông báo, cache theo user id (giới hạn số entry, hết hạn sau
+ * app.notification.sender-cache.ttl). Dùng chung cho việc tạo thông báo và đẩy thông báo / replay qua WebSocket.
+ */
+public interface SenderSnippetCacheService {
+
+    // null nếu user không tồn tại
+    SenderSnippet get(Long userId);
+
+    // Các id chưa có trong cache được lấy bằng 1 query; user không tồn tại không có trong kết quả
+    Map<Long, SenderSnippet> getAll(Collection<Long> userIds);
+
+    // Sau khi đổi username / avatar (áp dụng sau khi transaction hiện tại commit)
+    void invalidate(Long userId);
+
+    Map<String, Object> getStats();
+
+    @Getter
+    @AllArgsConstructor
+    final class SenderSnippet {
+        private final Long id;
+        private final String username;
+        private final String avatar;
+    }
+}
@@ -0,0 +1,86 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.UserDao;
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class SenderSnippetCacheServiceImpl implements SenderSnippetCacheService {
+
+    @Autowired private UserDao userDao;
+
+    @Value("${app.notification.sender-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.notification.sender-cache.ttl:10m}")
+    private Duration ttl;
+
+    private ExpiringLruCache<Long, SenderSnippet> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new ExpiringLruCache<>(maxSize, ttl);
+    }
+
+    @Override
+    public SenderSnippet get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        return getAll(List.of(userId)).get(userId);
+    }
+
+    @Override
+    public Map<Long, SenderSnippet> getAll(Collection<Long> userIds) {
+        Map<Long, SenderSnippet> result = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (userId == null || result.containsKey(userId)) {
+                continue;
+            }
+            SenderSnippet cached = cache.get(userId);
+            if (cached != null) {
+                result.put(userId, cached);
+            } else if (!missing.contains(userId)) {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long generation = cache.generation();
+        for (Object[] row : userDao.findSenderSnippets(missing)) {
+            SenderSnippet snippet = new SenderSnippet((Long) row[0], (String) row[1], (String) row[2]);
+            cache.putIfGeneration(snippet.getId(), snippet, generation);
+            result.put(snippet.getId(), snippet);
+        }
+        return result;
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> cache.invalidate(userId));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(cache.stats());
+        stats.put("ttlSeconds", ttl.getSeconds());
+        return stats;
+    }
+}
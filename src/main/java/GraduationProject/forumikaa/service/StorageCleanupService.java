@@ -0,0 +1,18 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.Document;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface StorageCleanupService {
+
+    // Ghi task xóa file vào outbox - gọi trong transaction xóa bài viết, không gọi storage
+    void enqueue(Collection<Document> documents);
+
+    // Xử lý các task đến hạn theo lô, trả về số task đã xử lý (thành công hoặc lên lịch thử lại)
+    int processDueTasks();
+
+    // Số task đang chờ và số task đã bỏ cuộc
+    Map<String, Object> getStats();
+}
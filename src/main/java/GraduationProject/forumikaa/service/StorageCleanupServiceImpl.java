@@ -0,0 +1,160 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.StorageCleanupTaskDao;
+import GraduationProject.forumikaa.entity.Document;
+import GraduationProject.forumikaa.entity.StorageCleanupTask;
+import GraduationProject.forumikaa.patterns.strategy.FileStorageStrategy;
+import GraduationProject.forumikaa.patterns.strategy.FileStorageStrategyFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outbox xóa file vật lý của bài viết đã xóa.
+ *
+ * Request xóa bài viết chỉ ghi task vào bảng storage_cleanup_tasks (cùng transaction), worker chạy nền
+ * nhận task theo lô, gọi storage và thử lại với backoff tăng dần khi storage lỗi.
+ */
+@Slf4j
+@Service
+public class StorageCleanupServiceImpl implements StorageCleanupService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired private StorageCleanupTaskDao storageCleanupTaskDao;
+    @Autowired private FileStorageStrategyFactory strategyFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Value("${app.storage-cleanup.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.storage-cleanup.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.storage-cleanup.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${app.storage-cleanup.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    @Value("${app.storage-cleanup.lease:5m}")
+    private Duration lease;
+
+    @Override
+    public void enqueue(Collection<Document> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return;
+        }
+        String storageType = strategyFactory.getCurrentStrategyType();
+        FileStorageStrategy strategy = strategyFactory.getStorageStrategy(storageType);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<StorageCleanupTask> tasks = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            StorageCleanupTask task = new StorageCleanupTask();
+            task.setStorageType(storageType);
+            task.setStorageKey(strategy.getStorageKey(document));
+            task.setMimeType(document.getMimeType());
+            task.setPostId(document.getPost() != null ? document.getPost().getId() : null);
+            task.setNextAttemptAt(now);
+            tasks.add(task);
+        }
+        storageCleanupTaskDao.saveAll(tasks);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.storage-cleanup.poll-interval-ms:5000}")
+    public int processDueTasks() {
+        int processed = 0;
+        try {
+            List<StorageCleanupTask> batch;
+            do {
+                batch = claimBatch();
+                processBatch(batch);
+                processed += batch.size();
+            } while (batch.size() == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Không thể xử lý storage cleanup outbox: {}", e.getMessage());
+        }
+        return processed;
+    }
+
+    private List<StorageCleanupTask> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StorageCleanupTask> batch = transactionTemplate.execute(
+                status -> storageCleanupTaskDao.claimDue(now, now.plus(lease), batchSize));
+        return batch != null ? batch : List.of();
+    }
+
+    private void processBatch(List<StorageCleanupTask> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Long> done = new ArrayList<>();
+        List<StorageCleanupTask> failed = new ArrayList<>();
+        for (StorageCleanupTask task : batch) {
+            try {
+                strategyFactory.getStorageStrategy(task.getStorageType())
+                        .deleteByStorageKey(task.getStorageKey(), task.getMimeType());
+                done.add(task.getId());
+            } catch (Exception e) {
+                scheduleRetry(task, e);
+                failed.add(task);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!done.isEmpty()) {
+                storageCleanupTaskDao.deleteAllByIdInBatch(done);
+            }
+            if (!failed.isEmpty()) {
+                storageCleanupTaskDao.saveAll(failed);
+            }
+        });
+        if (!failed.isEmpty()) {
+            log.warn("Storage cleanup: {} file đã xóa, {} file lỗi sẽ thử lại", done.size(), failed.size());
+        }
+    }
+
+    private void scheduleRetry(StorageCleanupTask task, Exception error) {
+        int attempts = task.getAttempts() + 1;
+        task.setAttempts(attempts);
+        String message = String.valueOf(error.getMessage());
+        task.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+
+        if (attempts >= maxAttempts) {
+            // Giữ lại row để kiểm tra thủ công, worker không nhận lại nữa
+            task.setNextAttemptAt(null);
+            log.error("Bỏ qua xóa file {} ({}) sau {} lần thử: {}",
+                    task.getStorageKey(), task.getStorageType(), attempts, message);
+        } else {
+            task.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        }
+    }
+
+    // initial-backoff * 2^(attempts-1), tối đa max-backoff
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", storageCleanupTaskDao.countByNextAttemptAtIsNotNull());
+        stats.put("abandoned", storageCleanupTaskDao.countByNextAttemptAtIsNull());
+        return stats;
+    }
+}
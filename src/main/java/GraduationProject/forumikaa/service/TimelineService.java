@@ -0,0 +1,27 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.util.FeedCursor;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface TimelineService {
+
+    // Fan-out khi bài viết được tạo / thay đổi privacy, status / bị xóa (chạy sau khi commit)
+    void onPostCreated(Post post);
+
+    void onPostUpdated(Post post);
+
+    void onPostDeleted(Post post);
+
+    // Quan hệ bạn bè thay đổi: timeline cá nhân của 2 người sẽ được rebuild ở lần đọc tiếp theo
+    void onFriendshipChanged(Long userId, Long otherUserId);
+
+    /**
+     * Đọc tối đa limit post id sau cursor (mới nhất trước).
+     * Optional.empty() khi timeline không dùng được (tắt, lỗi store, vượt quá phần đã lưu)
+     * - caller phải fallback về query database.
+     */
+    Optional<List<Long>> readPage(Long userId, FeedCursor cursor, int limit);
+}
@@ -0,0 +1,277 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.FriendshipDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dto.TimelineEntry;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.entity.PostStatus;
+import GraduationProject.forumikaa.patterns.strategy.TimelineStoreStrategy;
+import GraduationProject.forumikaa.patterns.strategy.TimelineStoreStrategyFactory;
+import GraduationProject.forumikaa.util.FeedCursor;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Home timeline fan-out-on-write.
+ *
+ * Bài PUBLIC nằm trong 1 timeline chung (không thể fan-out tới mọi user), bài FRIENDS/PRIVATE
+ * được đẩy vào timeline cá nhân của tác giả và bạn bè. Khi đọc, 2 timeline được merge theo
+ * (createdAt, id) giống hệt thứ tự của query keyset trong PostDao.
+ */
+@Slf4j
+@Service
+public class TimelineServiceImpl implements TimelineService {
+
+    static final String PUBLIC_KEY = "timeline:public";
+    static final String PERSONAL_KEY_PREFIX = "timeline:user:";
+
+    // Timeline rỗng vẫn cần tồn tại để không rebuild mỗi lần đọc
+    private static final long EMPTY_MARKER_ID = 0L;
+
+    // Có mặt (score thấp nhất) từ trước khi đọc database đến khi rebuild xong; hết lease nếu rebuild bị gián đoạn
+    private static final long REBUILDING_MARKER_ID = -1L;
+    private static final double REBUILDING_MARKER_SCORE = -2;
+    private static final Duration REBUILD_LEASE = Duration.ofMinutes(1);
+
+    // Số entry đọc dư để xử lý các bài có cùng createdAt với cursor
+    private static final int TIE_SLACK = 16;
+
+    private static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparingDouble(TimelineEntry::getScore).reversed()
+            .thenComparing(TimelineEntry::getPostId, Comparator.reverseOrder());
+
+    @Autowired private TimelineStoreStrategyFactory storeFactory;
+    @Autowired private PostDao postDao;
+    @Autowired private FriendshipDao friendshipDao;
+
+    @Value("${app.timeline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.timeline.max-size:800}")
+    private int maxSize;
+
+    @Value("${app.timeline.ttl:7d}")
+    private Duration ttl;
+
+    @Override
+    public void onPostCreated(Post post) {
+        if (!enabled || post == null || post.getId() == null) {
+            return;
+        }
+        // Danh sách bạn bè được đọc trong transaction hiện tại, Redis chỉ được ghi sau commit
+        Set<String> keys = keysFor(post);
+        TimelineEntry entry = new TimelineEntry(post.getId(), toScore(post.getCreatedAt()));
+        boolean visible = post.getStatus() == PostStatus.APPROVED;
+        afterCommit(() -> {
+            if (visible) {
+                storeFactory.getStore().addIfExists(keys, entry, maxSize);
+            }
+        });
+    }
+
+    @Override
+    public void onPostUpdated(Post post) {
+        if (!enabled || post == null || post.getId() == null) {
+            return;
+        }
+        // Privacy có thể đã đổi: gỡ khỏi mọi timeline có thể chứa bài rồi thêm lại theo trạng thái mới
+        Set<String> allKeys = new LinkedHashSet<>();
+        allKeys.add(PUBLIC_KEY);
+        allKeys.addAll(personalKeysOfAuthorAndFriends(post.getUser().getId()));
+
+        Set<String> keys = keysFor(post);
+        TimelineEntry entry = new TimelineEntry(post.getId(), toScore(post.getCreatedAt()));
+        boolean visible = post.getStatus() == PostStatus.APPROVED;
+        afterCommit(() -> {
+            TimelineStoreStrategy store = storeFactory.getStore();
+            store.remove(allKeys, entry.getPostId());
+            if (visible) {
+                store.addIfExists(keys, entry, maxSize);
+            }
+        });
+    }
+
+    @Override
+    public void onPostDeleted(Post post) {
+        if (!enabled || post == null || post.getId() == null) {
+            return;
+        }
+        Set<String> keys = keysFor(post);
+        Long postId = post.getId();
+        afterCommit(() -> storeFactory.getStore().remove(keys, postId));
+    }
+
+    @Override
+    public void onFriendshipChanged(Long userId, Long otherUserId) {
+        if (!enabled) {
+            return;
+        }
+        List<String> keys = List.of(personalKey(userId), personalKey(otherUserId));
+        afterCommit(() -> storeFactory.getStore().delete(keys));
+    }
+
+    @Override
+    public Optional<List<Long>> readPage(Long userId, FeedCursor cursor, int limit) {
+        if (!enabled || userId == null) {
+            return Optional.empty();
+        }
+        try {
+            TimelineStoreStrategy store = storeFactory.getStore();
+            String personalKey = personalKey(userId);
+            boolean publicReady = ensureTimeline(store, PUBLIC_KEY,
+                    () -> postDao.findPublicTimelineEntries(PageRequest.of(0, maxSize)));
+            boolean personalReady = ensureTimeline(store, personalKey,
+                    () -> postDao.findPersonalTimelineEntries(userId, PageRequest.of(0, maxSize)));
+            // Request khác đang rebuild: lần này đọc database
+            if (!publicReady || !personalReady) {
+                return Optional.empty();
+            }
+
+            double maxScore = cursor == null ? Double.POSITIVE_INFINITY : toScore(cursor.getCreatedAt());
+            int fetch = limit + TIE_SLACK;
+            List<TimelineEntry> publicEntries = store.reverseRange(PUBLIC_KEY, maxScore, fetch);
+            List<TimelineEntry> personalEntries = store.reverseRange(personalKey, maxScore, fetch);
+
+            // Đọc hết phần đã lưu của 1 timeline bị cắt bớt: phần cũ hơn chỉ còn trong database
+            if (isExhaustedAndTruncated(store, PUBLIC_KEY, publicEntries, fetch)
+                    || isExhaustedAndTruncated(store, personalKey, personalEntries, fetch)) {
+                return Optional.empty();
+            }
+
+            List<TimelineEntry> merged = new ArrayList<>(publicEntries.size() + personalEntries.size());
+            merged.addAll(publicEntries);
+            merged.addAll(personalEntries);
+            merged.sort(NEWEST_FIRST);
+
+            List<Long> postIds = new ArrayList<>(limit);
+            Set<Long> seen = new LinkedHashSet<>();
+            for (TimelineEntry entry : merged) {
+                if (postIds.size() >= limit) {
+                    break;
+                }
+                if (entry.getPostId() <= EMPTY_MARKER_ID || !isAfterCursor(entry, cursor, maxScore)) {
+                    continue;
+                }
+                if (seen.add(entry.getPostId())) {
+                    postIds.add(entry.getPostId());
+                }
+            }
+            store.touch(personalKey, ttl);
+            return Optional.of(postIds);
+        } catch (DataAccessException e) {
+            log.warn("Timeline store không khả dụng, fallback về database: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Rebuild timeline nguội từ database; false nếu request khác đang rebuild key này.
+     * Key được tạo (kèm marker) trước khi đọc database nên bài commit trong lúc rebuild vẫn được addIfExists ghi vào,
+     * sau đó kết quả đọc được merge vào key thay vì ghi đè.
+     */
+    private boolean ensureTimeline(TimelineStoreStrategy store, String key, Supplier<List<Object[]>> loader) {
+        Optional<TimelineEntry> oldest = store.oldest(key);
+        if (oldest.isPresent()) {
+            return oldest.get().getPostId() != REBUILDING_MARKER_ID;
+        }
+        store.merge(key, List.of(new TimelineEntry(REBUILDING_MARKER_ID, REBUILDING_MARKER_SCORE)), maxSize, REBUILD_LEASE);
+        List<TimelineEntry> entries;
+        try {
+            entries = toEntries(loader.get());
+        } catch (RuntimeException e) {
+            store.delete(List.of(key));
+            throw e;
+        }
+        if (entries.isEmpty()) {
+            entries.add(new TimelineEntry(EMPTY_MARKER_ID, -1));
+        }
+        store.merge(key, entries, maxSize, ttl);
+        store.remove(List.of(key), REBUILDING_MARKER_ID);
+        return true;
+    }
+
+    private boolean isExhaustedAndTruncated(TimelineStoreStrategy store, String key,
+                                            List<TimelineEntry> entries, int requested) {
+        return entries.size() < requested && store.size(key) >= maxSize;
+    }
+
+    private boolean isAfterCursor(TimelineEntry entry, FeedCursor cursor, double cursorScore) {
+        if (cursor == null) {
+            return true;
+        }
+        return entry.getScore() < cursorScore
+                || (entry.getScore() == cursorScore && entry.getPostId() < cursor.getId());
+    }
+
+    private Set<String> keysFor(Post post) {
+        Set<String> keys = new LinkedHashSet<>();
+        PostPrivacy privacy = post.getPrivacy();
+        Long authorId = post.getUser().getId();
+        if (privacy == PostPrivacy.PUBLIC) {
+            keys.add(PUBLIC_KEY);
+        } else if (privacy == PostPrivacy.FRIENDS) {
+            keys.addAll(personalKeysOfAuthorAndFriends(authorId));
+        } else if (privacy == PostPrivacy.PRIVATE) {
+            keys.add(personalKey(authorId));
+        }
+        return keys;
+    }
+
+    private Set<String> personalKeysOfAuthorAndFriends(Long authorId) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(personalKey(authorId));
+        for (Long friendId : friendshipDao.findFriendIdsOf(authorId)) {
+            keys.add(personalKey(friendId));
+        }
+        return keys;
+    }
+
+    private List<TimelineEntry> toEntries(List<Object[]> rows) {
+        List<TimelineEntry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(new TimelineEntry((Long) row[0], toScore((LocalDateTime) row[1])));
+        }
+        return entries;
+    }
+
+    private void afterCommit(Runnable task) {
+        TransactionUtils.afterCommit(() -> runQuietly(task));
+    }
+
+    private void runQuietly(Runnable task) {
+        try {
+            task.run();
+        } catch (DataAccessException e) {
+            // Timeline chỉ là bản sao để đọc nhanh - không làm hỏng request ghi
+            log.warn("Không thể cập nhật timeline: {}", e.getMessage());
+        }
+    }
+
+    static String personalKey(Long userId) {
+        return PERSONAL_KEY_PREFIX + userId;
+    }
+
+    // createdAt -> epoch micro giây (độ chính xác của timestamp PostgreSQL, vừa trong mantissa của double)
+    static double toScore(LocalDateTime createdAt) {
+        LocalDateTime micros = createdAt.truncatedTo(ChronoUnit.MICROS);
+        return micros.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + micros.getNano() / 1_000L;
+    }
+}
@@ -0,0 +1,39 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index hashtag -> bài viết gần đây (chỉ bài APPROVED, không tính bài chia sẻ).
+ * Dùng để sinh tập ứng viên cho gợi ý bài viết mà không phải quét bảng posts.
+ */
+public interface TopicPostIndexService {
+
+    // Thêm / cập nhật / gỡ bài viết khỏi index theo status và topics hiện tại (chạy sau khi commit)
+    void onPostSaved(Post post);
+
+    void onPostDeleted(Long postId);
+
+    /**
+     * Bài viết mới nhất của từng hashtag, tối đa perTopic bài mỗi hashtag và maxCandidates bài tổng cộng
+     */
+    List<IndexedPost> findCandidates(Collection<Long> topicIds, int perTopic, int maxCandidates);
+
+    Map<String, Object> getStats();
+
+    @Getter
+    @AllArgsConstructor
+    final class IndexedPost {
+        private final Long postId;
+        private final Long authorId;
+        private final PostPrivacy privacy;
+        private final long createdAtMillis;
+        private final List<Long> topicIds;
+    }
+}
@@ -0,0 +1,250 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.entity.PostStatus;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * Mỗi hashtag giữ tối đa app.recommendation.index.per-topic bài mới nhất (TreeSet theo createdAt giảm dần),
+ * bài cũ hơn app.recommendation.index.window bị loại ở lần maintain. Index được nạp 1 lần khi khởi động
+ * và cập nhật từ PostServiceImpl sau mỗi lần tạo / sửa / duyệt / xóa bài viết.
+ */
+@Slf4j
+@Service
+public class TopicPostIndexServiceImpl implements TopicPostIndexService {
+
+    private static final Comparator<IndexedPost> NEWEST_FIRST = Comparator
+            .comparingLong(IndexedPost::getCreatedAtMillis).reversed()
+            .thenComparing(IndexedPost::getPostId, Comparator.reverseOrder());
+
+    @Autowired private PostDao postDao;
+
+    @Value("${app.recommendation.index.per-topic:200}")
+    private int perTopicLimit;
+
+    @Value("${app.recommendation.index.window:30d}")
+    private Duration window;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    // Mọi thao tác trên posts/byTopic nằm trong synchronized (posts)
+    private final Map<Long, IndexedPost> posts = new HashMap<>();
+    private final Map<Long, TreeSet<IndexedPost>> byTopic = new HashMap<>();
+
+    /**
+     * Nạp index từ các bài viết trong cửa sổ - chỉ chạy 1 lần khi khởi động
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(clock.getAsLong() - window.toMillis()), ZoneId.systemDefault());
+        try {
+            List<Object[]> rows = postDao.findTopicIndexRowsSince(since);
+            // Các dòng được sắp theo post id: gom topic id của cùng 1 bài viết
+            Object[] current = null;
+            List<Long> topicIds = new ArrayList<>();
+            synchronized (posts) {
+                for (Object[] row : rows) {
+                    if (current != null && !current[0].equals(row[0])) {
+                        put(toIndexedPost(current, topicIds));
+                        topicIds = new ArrayList<>();
+                    }
+                    current = row;
+                    topicIds.add((Long) row[4]);
+                }
+                if (current != null) {
+                    put(toIndexedPost(current, topicIds));
+                }
+            }
+            log.info("Đã nạp topic-post index với {} bài viết", posts.size());
+        } catch (DataAccessException e) {
+            log.warn("Không thể nạp topic-post index: {}", e.getMessage());
+        }
+    }
+
+    private IndexedPost toIndexedPost(Object[] row, List<Long> topicIds) {
+        return new IndexedPost((Long) row[0], (Long) row[1], (PostPrivacy) row[2], toMillis((LocalDateTime) row[3]), topicIds);
+    }
+
+    @Override
+    public void onPostSaved(Post post) {
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        Long postId = post.getId();
+        boolean indexable = post.getStatus() == PostStatus.APPROVED
+                && post.getOriginalPostId() == null
+                && post.getTopics() != null && !post.getTopics().isEmpty();
+        if (!indexable) {
+            TransactionUtils.afterCommit(() -> remove(postId));
+            return;
+        }
+        // Chụp dữ liệu trong transaction, áp dụng sau khi commit
+        List<Long> topicIds = new ArrayList<>();
+        for (Topic topic : post.getTopics()) {
+            topicIds.add(topic.getId());
+        }
+        long createdAt = post.getCreatedAt() != null ? toMillis(post.getCreatedAt()) : clock.getAsLong();
+        IndexedPost entry = new IndexedPost(postId, post.getUser().getId(), post.getPrivacy(), createdAt, topicIds);
+        TransactionUtils.afterCommit(() -> {
+            synchronized (posts) {
+                removeLocked(postId);
+                put(entry);
+            }
+        });
+    }
+
+    @Override
+    public void onPostDeleted(Long postId) {
+        if (postId != null) {
+            TransactionUtils.afterCommit(() -> remove(postId));
+        }
+    }
+
+    @Override
+    public List<IndexedPost> findCandidates(Collection<Long> topicIds, int perTopic, int maxCandidates) {
+        Map<Long, IndexedPost> candidates = new LinkedHashMap<>();
+        synchronized (posts) {
+            for (Long topicId : topicIds) {
+                TreeSet<IndexedPost> recent = byTopic.get(topicId);
+                if (recent == null) {
+                    continue;
+                }
+                int taken = 0;
+                for (IndexedPost entry : recent) {
+                    if (taken++ >= perTopic || candidates.size() >= maxCandidates) {
+                        break;
+                    }
+                    candidates.putIfAbsent(entry.getPostId(), entry);
+                }
+                if (candidates.size() >= maxCandidates) {
+                    break;
+                }
+            }
+        }
+        return new ArrayList<>(candidates.values());
+    }
+
+    /**
+     * Loại bài viết ngoài cửa sổ
+     */
+    @Scheduled(fixedDelayString = "${app.recommendation.index.maintain-interval-ms:600000}")
+    public void maintain() {
+        long cutoff = clock.getAsLong() - window.toMillis();
+        int removed = 0;
+        synchronized (posts) {
+            Iterator<IndexedPost> iterator = posts.values().iterator();
+            while (iterator.hasNext()) {
+                IndexedPost entry = iterator.next();
+                if (entry.getCreatedAtMillis() < cutoff) {
+                    iterator.remove();
+                    unlinkTopics(entry);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.debug("Đã loại {} bài viết cũ khỏi topic-post index", removed);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (posts) {
+            stats.put("posts", posts.size());
+            stats.put("topics", byTopic.size());
+        }
+        stats.put("perTopicLimit", perTopicLimit);
+        stats.put("windowSeconds", window.getSeconds());
+        return stats;
+    }
+
+    private void remove(Long postId) {
+        synchronized (posts) {
+            removeLocked(postId);
+        }
+    }
+
+    // Gọi trong synchronized (posts)
+    private void removeLocked(Long postId) {
+        IndexedPost existing = posts.remove(postId);
+        if (existing != null) {
+            unlinkTopics(existing);
+        }
+    }
+
+    // Gọi trong synchronized (posts)
+    private void put(IndexedPost entry) {
+        if (entry.getCreatedAtMillis() < clock.getAsLong() - window.toMillis()) {
+            return;
+        }
+        posts.put(entry.getPostId(), entry);
+        List<IndexedPost> evicted = new ArrayList<>();
+        for (Long topicId : entry.getTopicIds()) {
+            TreeSet<IndexedPost> recent = byTopic.computeIfAbsent(topicId, id -> new TreeSet<>(NEWEST_FIRST));
+            recent.add(entry);
+            if (recent.size() > perTopicLimit) {
+                evicted.add(recent.pollLast());
+            }
+        }
+        // Bài viết không còn nằm trong hashtag nào thì bỏ khỏi index
+        for (IndexedPost oldest : evicted) {
+            if (!isLinked(oldest)) {
+                posts.remove(oldest.getPostId(), oldest);
+            }
+        }
+    }
+
+    private boolean isLinked(IndexedPost entry) {
+        for (Long topicId : entry.getTopicIds()) {
+            TreeSet<IndexedPost> recent = byTopic.get(topicId);
+            if (recent != null && recent.contains(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void unlinkTopics(IndexedPost entry) {
+        for (Long topicId : entry.getTopicIds()) {
+            TreeSet<IndexedPost> recent = byTopic.get(topicId);
+            if (recent != null) {
+                recent.remove(entry);
+                if (recent.isEmpty()) {
+                    byTopic.remove(topicId);
+                }
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
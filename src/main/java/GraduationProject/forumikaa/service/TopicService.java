@@ -2,7 +2,9 @@ package GraduationProject.forumikaa.service;
 import GraduationProject.forumikaa.entity.Topic;
 import GraduationProject.forumikaa.entity.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 public interface TopicService {
@@ -22,4 +24,13 @@ public interface TopicService {
     // Giảm usage count cho hashtag
     void decrementUsageCount(Topic topic);
 
+    // Cập nhật usage count theo phần chênh lệch giữa 2 tập hashtag (khi sửa bài viết)
+    void updateUsageCounts(Collection<Topic> oldTopics, Collection<Topic> newTopics);
+
+    // Ghi các delta usage count đang chờ xuống database, trả về số hashtag đã cập nhật
+    int flushUsageCounts();
+
+    // Hit/miss của registry tên -> id
+    Map<String, Object> getRegistryStats();
+
 }
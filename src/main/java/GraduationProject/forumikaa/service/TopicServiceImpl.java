@@ -3,35 +3,77 @@ package GraduationProject.forumikaa.service;
 import GraduationProject.forumikaa.dao.TopicDao;
 import GraduationProject.forumikaa.entity.Topic;
 import GraduationProject.forumikaa.entity.User;
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * Hashtag được resolve theo lô: registry trong bộ nhớ giữ tên (đã chuẩn hóa) -> id, hashtag mới của cả lô được
+ * tạo bằng 1 câu INSERT ... ON CONFLICT DO NOTHING. Usage count được cộng dồn delta và ghi xuống database theo batch.
+ */
+@Slf4j
 @Service
 @Transactional
 public class TopicServiceImpl implements TopicService {
 
+    static final String FLUSH_USAGE_SQL =
+            "UPDATE topics SET usage_count = GREATEST(COALESCE(usage_count, 0) + ?, 0) WHERE id = ?";
+
     @Autowired
     private TopicDao topicDao;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.topic.registry.max-size:50000}")
+    private int registryMaxSize;
+
+    @Value("${app.topic.registry.ttl:1h}")
+    private Duration registryTtl;
+
+    // Tên hashtag đã chuẩn hóa -> id
+    private ExpiringLruCache<String, Long> topicIds;
+
+    // topic id -> delta usage count chưa ghi xuống database
+    private final ConcurrentHashMap<Long, Long> pendingUsage = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        topicIds = new ExpiringLruCache<>(registryMaxSize, registryTtl);
+    }
+
     @Override
     public Topic findOrCreateTopic(String name, User createdBy) {
         String cleanName = cleanHashtagName(name);
-        System.out.println("DEBUG: TopicService.findOrCreateTopic() called with name: " + name + ", cleanName: " + cleanName);
-        
-        return topicDao.findByName(cleanName)
-                .orElseGet(() -> {
-                    System.out.println("DEBUG: Creating new topic: " + cleanName);
-                    Topic newTopic = new Topic(cleanName);
-                    newTopic.setCreatedBy(createdBy);
-                    newTopic.setUsageCount(0);
-                    Topic savedTopic = topicDao.save(newTopic);
-                    System.out.println("DEBUG: New topic saved with ID: " + savedTopic.getId());
-                    return savedTopic;
-                });
+        return resolveTopics(List.of(cleanName), createdBy).get(0);
     }
 
     @Override
@@ -39,14 +81,73 @@ public class TopicServiceImpl implements TopicService {
         if (topicNames == null || topicNames.isEmpty()) {
             return List.of();
         }
-        
-        return topicNames.stream()
+
+        Set<String> cleanNames = topicNames.stream()
                 .filter(name -> name != null && !name.trim().isEmpty())
-                .map(name -> findOrCreateTopic(name, createdBy))
-                .distinct()
+                .map(this::cleanHashtagName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return resolveTopics(cleanNames, createdBy);
+    }
+
+    /**
+     * Lấy entity của các hashtag theo tên đã chuẩn hóa, giữ thứ tự đầu vào.
+     * Tên đã có trong registry: 1 query theo id cho cả lô. Tên chưa biết: 1 query theo tên, sau đó
+     * 1 INSERT ... ON CONFLICT cho tất cả tên chưa tồn tại và 1 query lấy lại các hashtag vừa tạo.
+     */
+    private List<Topic> resolveTopics(Collection<String> cleanNames, User createdBy) {
+        if (cleanNames.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Topic> byName = new HashMap<>();
+        Map<Long, String> knownIds = new HashMap<>();
+        Set<String> unknown = new LinkedHashSet<>();
+        for (String name : cleanNames) {
+            Long id = topicIds.get(name);
+            if (id != null) {
+                knownIds.put(id, name);
+            } else {
+                unknown.add(name);
+            }
+        }
+
+        if (!knownIds.isEmpty()) {
+            for (Topic topic : topicDao.findAllById(knownIds.keySet())) {
+                byName.put(topic.getName(), topic);
+            }
+            knownIds.forEach((id, name) -> {
+                if (!byName.containsKey(name)) {
+                    // Hashtag đã bị xóa khỏi database: bỏ khỏi registry và tạo lại
+                    topicIds.invalidate(name);
+                    unknown.add(name);
+                }
+            });
+        }
+
+        if (!unknown.isEmpty()) {
+            collect(topicDao.findByNameIn(unknown), byName);
+            List<String> missing = unknown.stream()
+                    .filter(name -> !byName.containsKey(name))
+                    .collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                Long createdById = createdBy != null ? createdBy.getId() : null;
+                topicDao.insertAllIfAbsent(missing, createdById);
+                collect(topicDao.findByNameIn(missing), byName);
+            }
+        }
+
+        return cleanNames.stream()
+                .map(byName::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    private void collect(List<Topic> topics, Map<String, Topic> byName) {
+        for (Topic topic : topics) {
+            byName.put(topic.getName(), topic);
+            topicIds.put(topic.getName(), topic.getId());
+        }
+    }
+
 
     @Override
     @Transactional(readOnly = true)
@@ -56,20 +157,95 @@ public class TopicServiceImpl implements TopicService {
 
     @Override
     public void incrementUsageCount(Topic topic) {
-        if (topic.getUsageCount() == null) {
-            topic.setUsageCount(1);
-        } else {
-            topic.setUsageCount(topic.getUsageCount() + 1);
-        }
-        topicDao.save(topic);
+        addUsageDelta(topic, 1);
     }
 
     @Override
     public void decrementUsageCount(Topic topic) {
-        if (topic.getUsageCount() != null && topic.getUsageCount() > 0) {
-            topic.setUsageCount(topic.getUsageCount() - 1);
-            topicDao.save(topic);
+        addUsageDelta(topic, -1);
+    }
+
+    @Override
+    public void updateUsageCounts(Collection<Topic> oldTopics, Collection<Topic> newTopics) {
+        Set<Long> oldIds = idsOf(oldTopics);
+        Set<Long> newIds = idsOf(newTopics);
+        // Hashtag giữ nguyên không đổi usage count
+        for (Long id : oldIds) {
+            if (!newIds.contains(id)) {
+                addUsageDelta(id, -1);
+            }
+        }
+        for (Long id : newIds) {
+            if (!oldIds.contains(id)) {
+                addUsageDelta(id, 1);
+            }
+        }
+    }
+
+    private void addUsageDelta(Topic topic, long delta) {
+        if (topic != null) {
+            addUsageDelta(topic.getId(), delta);
+        }
+    }
+
+    private void addUsageDelta(Long topicId, long delta) {
+        if (topicId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> pendingUsage.merge(topicId, delta, Long::sum));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(fixedDelayString = "${app.topic.usage-flush-interval-ms:2000}")
+    public synchronized int flushUsageCounts() {
+        // remove() lấy và xóa delta nguyên tử; delta ghi sau đó tạo entry mới cho lần flush sau
+        Map<Long, Long> batch = new TreeMap<>();
+        for (Long topicId : pendingUsage.keySet()) {
+            Long delta = pendingUsage.remove(topicId);
+            if (delta != null && delta != 0) {
+                batch.put(topicId, delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> args = new ArrayList<>(batch.size());
+        batch.forEach((topicId, delta) -> args.add(new Object[]{delta, topicId}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_USAGE_SQL, args));
+            return batch.size();
+        } catch (DataAccessException e) {
+            log.warn("Không thể flush usage count của {} hashtag: {}", batch.size(), e.getMessage());
+            batch.forEach((topicId, delta) -> pendingUsage.merge(topicId, delta, Long::sum));
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushUsageCounts();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getRegistryStats() {
+        Map<String, Object> stats = topicIds.stats();
+        stats.put("pendingUsageDeltas", pendingUsage.size());
+        return stats;
+    }
+
+    private static Set<Long> idsOf(Collection<Topic> topics) {
+        Set<Long> ids = new HashSet<>();
+        if (topics != null) {
+            for (Topic topic : topics) {
+                if (topic != null && topic.getId() != null) {
+                    ids.add(topic.getId());
+                }
+            }
         }
+        return ids;
     }
 
     /**
@@ -0,0 +1,28 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dto.TrendingTopicResponse;
+import GraduationProject.forumikaa.entity.Post;
+
+import java.util.List;
+import java.util.Map;
+
+public interface TrendingTopicService {
+
+    enum Signal {
+        POST, SHARE, COMMENT, LIKE
+    }
+
+    // Bài viết mới / bài share: hashtag lấy trực tiếp từ entity, ghi nhận sau khi transaction commit
+    void record(Post post, Signal signal);
+
+    // Like / comment: hashtag của bài viết được tra trong cache (1 query khi chưa có)
+    void record(Long postId, Signal signal);
+
+    // Xóa hashtag đã cache của bài viết sau khi transaction hiện tại commit - gọi khi sửa hashtag hoặc xóa bài
+    void invalidatePost(Long postId);
+
+    // Top hashtag theo điểm giảm dần theo thời gian - đọc O(K) từ bộ nhớ
+    List<TrendingTopicResponse> getTrendingTopics(int limit);
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,315 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dto.TrendingTopicResponse;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * Trending hashtag với điểm giảm dần theo thời gian (exponential decay, cấu hình half-life).
+ *
+ * Dùng forward decay: mỗi sự kiện cộng weight * 2^((t - landmark) / halfLife) vào điểm của hashtag, nên mọi điểm
+ * cùng giảm theo 1 hệ số chung và thứ tự giữa các hashtag không đổi theo thời gian. Nhờ vậy top-K chỉ cần cập nhật
+ * khi có sự kiện (O(log K)) và đọc là O(K). Hashtag không có hoạt động trong app.trending.window bị loại khỏi index.
+ */
+@Slf4j
+@Service
+public class TrendingTopicServiceImpl implements TrendingTopicService {
+
+    // Dời landmark khi hệ số vượt 2^32 để điểm không tràn số
+    private static final double RESCALE_AFTER_HALF_LIVES = 32;
+
+    private static final Comparator<TopicScore> RANKING = Comparator
+            .comparingDouble((TopicScore entry) -> entry.score).reversed()
+            .thenComparing(entry -> entry.topicId);
+
+    @Autowired private PostDao postDao;
+
+    @Value("${app.trending.half-life:6h}")
+    private Duration halfLife;
+
+    @Value("${app.trending.window:7d}")
+    private Duration window;
+
+    @Value("${app.trending.top-k:50}")
+    private int topK;
+
+    @Value("${app.trending.max-tracked:10000}")
+    private int maxTracked;
+
+    @Value("${app.trending.weight.post:3.0}")
+    private double postWeight;
+
+    @Value("${app.trending.weight.share:2.0}")
+    private double shareWeight;
+
+    @Value("${app.trending.weight.comment:1.0}")
+    private double commentWeight;
+
+    @Value("${app.trending.weight.like:0.5}")
+    private double likeWeight;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    // Mọi thao tác trên scores/top nằm trong synchronized (scores)
+    private final Map<Long, TopicScore> scores = new HashMap<>();
+    private final TreeSet<TopicScore> top = new TreeSet<>(RANKING);
+    private long landmarkMillis;
+
+    // post id -> hashtag của bài viết, cho like/comment
+    private final ExpiringLruCache<Long, List<TopicRef>> postTopics = new ExpiringLruCache<>(10_000, Duration.ofMinutes(30));
+
+    @PostConstruct
+    void init() {
+        landmarkMillis = clock.getAsLong();
+    }
+
+    /**
+     * Nạp index từ các bài viết trong cửa sổ - chỉ chạy 1 lần khi khởi động
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long now = clock.getAsLong();
+        LocalDateTime since = toLocalDateTime(now - window.toMillis());
+        try {
+            List<Object[]> rows = postDao.findTopicActivitySince(since);
+            synchronized (scores) {
+                for (Object[] row : rows) {
+                    long at = ((LocalDateTime) row[2]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    apply((Long) row[0], (String) row[1], postWeight, true, Math.min(at, now));
+                }
+            }
+            log.info("Đã nạp trending index từ {} hashtag của bài viết gần đây", rows.size());
+        } catch (DataAccessException e) {
+            log.warn("Không thể nạp trending index: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void record(Post post, Signal signal) {
+        if (post == null || post.getTopics() == null || post.getTopics().isEmpty()) {
+            return;
+        }
+        List<TopicRef> refs = new ArrayList<>();
+        for (Topic topic : post.getTopics()) {
+            refs.add(new TopicRef(topic.getId(), topic.getName()));
+        }
+        if (post.getId() != null) {
+            postTopics.put(post.getId(), refs);
+        }
+        TransactionUtils.afterCommit(() -> apply(refs, signal));
+    }
+
+    @Override
+    public void record(Long postId, Signal signal) {
+        if (postId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            try {
+                apply(topicsOf(postId), signal);
+            } catch (DataAccessException e) {
+                log.warn("Không thể ghi nhận trending cho bài viết {}: {}", postId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void invalidatePost(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> postTopics.invalidate(postId));
+    }
+
+    private List<TopicRef> topicsOf(Long postId) {
+        List<TopicRef> refs = postTopics.get(postId);
+        if (refs == null) {
+            long generation = postTopics.generation();
+            refs = new ArrayList<>();
+            for (Object[] row : postDao.findTopicRefsByPostId(postId)) {
+                refs.add(new TopicRef((Long) row[0], (String) row[1]));
+            }
+            // Bỏ qua nếu bài viết vừa bị sửa hashtag trong lúc query để không cache lại hashtag cũ
+            postTopics.putIfGeneration(postId, refs, generation);
+        }
+        return refs;
+    }
+
+    private void apply(List<TopicRef> refs, Signal signal) {
+        if (refs.isEmpty()) {
+            return;
+        }
+        double weight = weightOf(signal);
+        boolean isPost = signal == Signal.POST || signal == Signal.SHARE;
+        long now = clock.getAsLong();
+        synchronized (scores) {
+            for (TopicRef ref : refs) {
+                apply(ref.id, ref.name, weight, isPost, now);
+            }
+        }
+    }
+
+    // Gọi trong synchronized (scores)
+    private void apply(Long topicId, String name, double weight, boolean isPost, long at) {
+        if (topicId == null) {
+            return;
+        }
+        double factor = forwardFactor(at);
+        TopicScore entry = scores.computeIfAbsent(topicId, id -> new TopicScore(id, name));
+        // Điểm chỉ tăng: hashtag ngoài top-K chỉ có thể vào top khi chính nó có thêm sự kiện
+        boolean inTop = top.remove(entry);
+        entry.score += weight * factor;
+        if (isPost) {
+            entry.posts += factor;
+        }
+        entry.lastSeenMillis = Math.max(entry.lastSeenMillis, at);
+        if (inTop || top.size() < topK) {
+            top.add(entry);
+        } else if (RANKING.compare(entry, top.last()) < 0) {
+            top.add(entry);
+            top.pollLast();
+        }
+    }
+
+    @Override
+    public List<TrendingTopicResponse> getTrendingTopics(int limit) {
+        long now = clock.getAsLong();
+        long cutoff = now - window.toMillis();
+        List<TrendingTopicResponse> result = new ArrayList<>(Math.min(limit, topK));
+        synchronized (scores) {
+            double decay = 1.0 / forwardFactor(now);
+            for (TopicScore entry : top) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (entry.lastSeenMillis < cutoff) {
+                    continue; // Sẽ bị loại ở lần maintain tiếp theo
+                }
+                result.add(new TrendingTopicResponse(entry.topicId, entry.name,
+                        entry.score * decay, Math.round(entry.posts * decay)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loại hashtag ngoài cửa sổ, giới hạn số hashtag theo dõi, dời landmark và dựng lại top-K
+     */
+    @Scheduled(fixedDelayString = "${app.trending.maintain-interval-ms:60000}")
+    public void maintain() {
+        long now = clock.getAsLong();
+        long cutoff = now - window.toMillis();
+        synchronized (scores) {
+            scores.values().removeIf(entry -> entry.lastSeenMillis < cutoff);
+
+            if (scores.size() > maxTracked) {
+                List<TopicScore> ranked = new ArrayList<>(scores.values());
+                ranked.sort(RANKING);
+                for (TopicScore entry : ranked.subList(maxTracked, ranked.size())) {
+                    scores.remove(entry.topicId);
+                }
+            }
+
+            if ((now - landmarkMillis) > RESCALE_AFTER_HALF_LIVES * halfLife.toMillis()) {
+                double decay = 1.0 / forwardFactor(now);
+                for (TopicScore entry : scores.values()) {
+                    entry.score *= decay;
+                    entry.posts *= decay;
+                }
+                landmarkMillis = now;
+            }
+
+            top.clear();
+            for (TopicScore entry : scores.values()) {
+                top.add(entry);
+                if (top.size() > topK) {
+                    top.pollLast();
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (scores) {
+            stats.put("trackedTopics", scores.size());
+            stats.put("topK", top.size());
+        }
+        stats.put("halfLifeSeconds", halfLife.getSeconds());
+        stats.put("windowSeconds", window.getSeconds());
+        stats.put("postTopicCache", postTopics.stats());
+        return stats;
+    }
+
+    private double forwardFactor(long atMillis) {
+        return Math.pow(2.0, (double) (atMillis - landmarkMillis) / halfLife.toMillis());
+    }
+
+    private double weightOf(Signal signal) {
+        switch (signal) {
+            case POST:
+                return postWeight;
+            case SHARE:
+                return shareWeight;
+            case COMMENT:
+                return commentWeight;
+            case LIKE:
+                return likeWeight;
+            default:
+                throw new IllegalArgumentException("Unsupported trending signal: " + signal);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static final class TopicRef {
+        private final Long id;
+        private final String name;
+
+        private TopicRef(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static final class TopicScore {
+        private final Long topicId;
+        private final String name;
+        private double score;
+        private double posts;
+        private long lastSeenMillis = Long.MIN_VALUE;
+
+        private TopicScore(Long topicId, String name) {
+            this.topicId = topicId;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.util.TopicInterestIndex.SimilarUser;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vector quan tâm theo hashtag của từng user (đăng / like / comment), lưu trong user_topic_interests
+ * và cập nhật tăng dần, kèm index tìm user có cùng mối quan tâm.
+ */
+public interface UserInterestService {
+
+    enum Signal {
+        AUTHORED, LIKED, COMMENTED
+    }
+
+    // Đăng / xóa bài viết (delta = 1 / -1): hashtag lấy trực tiếp từ entity, ghi nhận sau khi transaction commit
+    void record(Post post, Signal signal, int delta);
+
+    // Sửa hashtag của bài viết: AUTHORED -1 cho hashtag bị bỏ, +1 cho hashtag thêm mới; cập nhật cache hashtag của bài
+    void onTopicsChanged(Post post, Collection<Topic> oldTopics);
+
+    // Like / comment (delta = 1 / -1) của userId trên bài viết postId
+    void record(Long userId, Long postId, Signal signal, int delta);
+
+    // Topic id -> trọng số quan tâm của user
+    Map<Long, Double> getTopicWeights(Long userId);
+
+    // User chưa là bạn bè có vector quan tâm gần nhất (cosine), giảm dần
+    List<SimilarUser> findSimilarUsers(Long userId, int limit);
+
+    // Ghi các delta đang chờ xuống database
+    int flush();
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,370 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.util.ExpiringLruCache;
+import GraduationProject.forumikaa.util.TopicInterestIndex;
+import GraduationProject.forumikaa.util.TopicInterestIndex.SimilarUser;
+import GraduationProject.forumikaa.util.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Vector quan tâm của user được cập nhật tăng dần: mỗi lần đăng / like / comment cộng trọng số vào index trong bộ nhớ
+ * ngay sau khi commit và gom delta (user, topic) để scheduler upsert theo batch vào user_topic_interests.
+ *
+ * Index được dựng lại định kỳ từ bảng để nhận thay đổi từ các node khác; lần đầu chạy khi bảng còn trống,
+ * dữ liệu được tính lại từ posts / likes / comments bằng 1 câu INSERT ... SELECT.
+ */
+@Slf4j
+@Service
+public class UserInterestServiceImpl implements UserInterestService {
+
+    static final String UPSERT_SQL = """
+        INSERT INTO user_topic_interests (user_id, topic_id, authored_count, liked_count, commented_count, updated_at)
+        VALUES (?, ?, GREATEST(?, 0), GREATEST(?, 0), GREATEST(?, 0), ?)
+        ON CONFLICT (user_id, topic_id) DO UPDATE SET
+            authored_count = GREATEST(user_topic_interests.authored_count + ?, 0),
+            liked_count = GREATEST(user_topic_interests.liked_count + ?, 0),
+            commented_count = GREATEST(user_topic_interests.commented_count + ?, 0),
+            updated_at = EXCLUDED.updated_at
+    """;
+
+    static final String LOAD_SQL =
+            "SELECT user_id, topic_id, authored_count, liked_count, commented_count FROM user_topic_interests";
+
+    static final String HAS_ROWS_SQL = "SELECT EXISTS (SELECT 1 FROM user_topic_interests)";
+
+    static final String BACKFILL_SQL = """
+        INSERT INTO user_topic_interests (user_id, topic_id, authored_count, liked_count, commented_count, updated_at)
+        SELECT user_id, topic_id, SUM(authored), SUM(liked), SUM(commented), NOW() FROM (
+            SELECT p.user_id, pt.topic_id, 1 AS authored, 0 AS liked, 0 AS commented
+            FROM posts p JOIN post_topics pt ON pt.post_id = p.id
+            UNION ALL
+            SELECT l.user_id, pt.topic_id, 0, 1, 0
+            FROM likes l JOIN post_topics pt ON pt.post_id = l.likeable_id
+            WHERE l.likeable_type = 'POST'
+            UNION ALL
+            SELECT c.user_id, pt.topic_id, 0, 0, 1
+            FROM comments c JOIN post_topics pt ON pt.post_id = c.post_id
+        ) interactions
+        GROUP BY user_id, topic_id
+        ON CONFLICT (user_id, topic_id) DO NOTHING
+    """;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private PostDao postDao;
+    @Autowired private FriendGraphService friendGraphService;
+
+    @Value("${app.interest.weight.authored:3.0}")
+    private double authoredWeight;
+
+    @Value("${app.interest.weight.commented:2.0}")
+    private double commentedWeight;
+
+    @Value("${app.interest.weight.liked:1.0}")
+    private double likedWeight;
+
+    @Value("${app.interest.max-scanned:20000}")
+    private int maxScanned;
+
+    private volatile TopicInterestIndex index = new TopicInterestIndex();
+
+    // user id -> topic id -> delta {authored, liked, commented} chưa ghi xuống database; mọi truy cập trong synchronized (pendingLock)
+    private final Object pendingLock = new Object();
+    private Map<Long, Map<Long, long[]>> pending = new HashMap<>();
+    // Thay đổi xảy ra trong lúc dựng lại index - áp dụng lại lên index mới trước khi thay thế
+    private List<Change> changesDuringRebuild;
+
+    // post id -> topic id của bài viết, cho like/comment
+    private final ExpiringLruCache<Long, List<Long>> postTopics = new ExpiringLruCache<>(10_000, Duration.ofMinutes(30));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_ROWS_SQL, Boolean.class))) {
+                int rows = jdbcTemplate.update(BACKFILL_SQL);
+                log.info("Đã tính vector quan tâm từ dữ liệu cũ: {} cặp user - hashtag", rows);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Không thể tính vector quan tâm từ dữ liệu cũ: {}", e.getMessage());
+        }
+        rebuild();
+    }
+
+    @Override
+    public void record(Post post, Signal signal, int delta) {
+        if (post == null || post.getUser() == null || post.getTopics() == null || post.getTopics().isEmpty() || delta == 0) {
+            return;
+        }
+        Long userId = post.getUser().getId();
+        List<Long> topicIds = new ArrayList<>();
+        for (Topic topic : post.getTopics()) {
+            if (topic.getId() != null) {
+                topicIds.add(topic.getId());
+            }
+        }
+        if (post.getId() != null) {
+            postTopics.put(post.getId(), topicIds);
+        }
+        TransactionUtils.afterCommit(() -> apply(new Change(userId, topicIds, signal, delta)));
+    }
+
+    @Override
+    public void onTopicsChanged(Post post, Collection<Topic> oldTopics) {
+        if (post == null || post.getId() == null || post.getUser() == null) {
+            return;
+        }
+        Long userId = post.getUser().getId();
+        Long postId = post.getId();
+        List<Long> newIds = topicIdsOf(post.getTopics());
+        List<Long> oldIds = topicIdsOf(oldTopics);
+        List<Long> removed = new ArrayList<>(oldIds);
+        removed.removeAll(newIds);
+        List<Long> added = new ArrayList<>(newIds);
+        added.removeAll(oldIds);
+        TransactionUtils.afterCommit(() -> {
+            // Like / comment sau khi sửa bài phải tính theo hashtag mới
+            postTopics.put(postId, newIds);
+            apply(new Change(userId, removed, Signal.AUTHORED, -1));
+            apply(new Change(userId, added, Signal.AUTHORED, 1));
+        });
+    }
+
+    private static List<Long> topicIdsOf(Collection<Topic> topics) {
+        List<Long> topicIds = new ArrayList<>();
+        if (topics != null) {
+            for (Topic topic : topics) {
+                if (topic != null && topic.getId() != null && !topicIds.contains(topic.getId())) {
+                    topicIds.add(topic.getId());
+                }
+            }
+        }
+        return topicIds;
+    }
+
+    @Override
+    public void record(Long userId, Long postId, Signal signal, int delta) {
+        if (userId == null || postId == null || delta == 0) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            try {
+                apply(new Change(userId, topicsOf(postId), signal, delta));
+            } catch (DataAccessException e) {
+                log.warn("Không thể ghi nhận quan tâm của user {} cho bài viết {}: {}", userId, postId, e.getMessage());
+            }
+        });
+    }
+
+    private List<Long> topicsOf(Long postId) {
+        List<Long> topicIds = postTopics.get(postId);
+        if (topicIds == null) {
+            topicIds = new ArrayList<>();
+            for (Object[] row : postDao.findTopicRefsByPostId(postId)) {
+                topicIds.add((Long) row[0]);
+            }
+            postTopics.put(postId, topicIds);
+        }
+        return topicIds;
+    }
+
+    private void apply(Change change) {
+        if (change.topicIds.isEmpty()) {
+            return;
+        }
+        synchronized (pendingLock) {
+            change.applyTo(index, weightOf(change.signal));
+            Map<Long, long[]> userDeltas = pending.computeIfAbsent(change.userId, id -> new HashMap<>());
+            for (Long topicId : change.topicIds) {
+                userDeltas.computeIfAbsent(topicId, id -> new long[3])[change.signal.ordinal()] += change.delta;
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        }
+    }
+
+    @Override
+    public Map<Long, Double> getTopicWeights(Long userId) {
+        return userId != null ? index.vectorOf(userId) : new HashMap<>();
+    }
+
+    @Override
+    public List<SimilarUser> findSimilarUsers(Long userId, int limit) {
+        if (userId == null) {
+            return new ArrayList<>();
+        }
+        long[] friendIds = friendGraphService.getFriendIds(userId);
+        return index.mostSimilar(userId, limit, candidate -> Arrays.binarySearch(friendIds, candidate) >= 0, maxScanned);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.interest.flush-interval-ms:5000}")
+    public synchronized int flush() {
+        Map<Long, Map<Long, long[]>> batch;
+        synchronized (pendingLock) {
+            batch = drainPending();
+        }
+        return write(batch) ? countPairs(batch) : 0;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Dựng lại index từ database. Delta đang chờ được ghi trước khi đọc bảng; flush không chạy đồng thời
+     * (cùng synchronized) nên thay đổi trong lúc đọc chỉ nằm trong pending và được áp dụng lại lên index mới.
+     */
+    @Scheduled(fixedDelayString = "${app.interest.reload-interval-ms:3600000}",
+            initialDelayString = "${app.interest.reload-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        Map<Long, Map<Long, long[]>> batch;
+        synchronized (pendingLock) {
+            batch = drainPending();
+            changesDuringRebuild = new ArrayList<>();
+        }
+        TopicInterestIndex rebuilt = new TopicInterestIndex();
+        try {
+            if (!write(batch)) {
+                throw new IllegalStateException("chưa ghi được delta đang chờ");
+            }
+            jdbcTemplate.query(LOAD_SQL, (RowCallbackHandler) rs -> {
+                double weight = rs.getLong(3) * authoredWeight + rs.getLong(4) * likedWeight + rs.getLong(5) * commentedWeight;
+                rebuilt.add(rs.getLong(1), rs.getLong(2), weight);
+            });
+        } catch (DataAccessException | IllegalStateException e) {
+            log.warn("Không thể nạp vector quan tâm: {}", e.getMessage());
+            synchronized (pendingLock) {
+                changesDuringRebuild = null;
+            }
+            return;
+        }
+        synchronized (pendingLock) {
+            for (Change change : changesDuringRebuild) {
+                change.applyTo(rebuilt, weightOf(change.signal));
+            }
+            changesDuringRebuild = null;
+            index = rebuilt;
+        }
+        log.info("Đã nạp vector quan tâm: {}", rebuilt.stats());
+    }
+
+    // Gọi trong synchronized (pendingLock)
+    private Map<Long, Map<Long, long[]>> drainPending() {
+        Map<Long, Map<Long, long[]>> batch = pending;
+        pending = new HashMap<>();
+        return batch;
+    }
+
+    /**
+     * Upsert batch theo thứ tự (user id, topic id) để các node flush đồng thời khóa row theo cùng thứ tự.
+     * Lỗi thì trả delta về pending cho lần flush sau (index trong bộ nhớ đã có sẵn các delta này).
+     */
+    private boolean write(Map<Long, Map<Long, long[]>> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        new TreeMap<>(batch).forEach((userId, topics) -> new TreeMap<>(topics).forEach((topicId, deltas) -> {
+            if (deltas[0] != 0 || deltas[1] != 0 || deltas[2] != 0) {
+                args.add(new Object[]{userId, topicId, deltas[0], deltas[1], deltas[2], now, deltas[0], deltas[1], deltas[2]});
+            }
+        }));
+        if (args.isEmpty()) {
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, args));
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Không thể ghi {} vector quan tâm: {}", args.size(), e.getMessage());
+            synchronized (pendingLock) {
+                batch.forEach((userId, topics) -> topics.forEach((topicId, deltas) -> {
+                    long[] merged = pending.computeIfAbsent(userId, id -> new HashMap<>()).computeIfAbsent(topicId, id -> new long[3]);
+                    for (int i = 0; i < merged.length; i++) {
+                        merged[i] += deltas[i];
+                    }
+                }));
+            }
+            return false;
+        }
+    }
+
+    private static int countPairs(Map<Long, Map<Long, long[]>> batch) {
+        int pairs = 0;
+        for (Map<Long, long[]> topics : batch.values()) {
+            pairs += topics.size();
+        }
+        return pairs;
+    }
+
+    private double weightOf(Signal signal) {
+        switch (signal) {
+            case AUTHORED:
+                return authoredWeight;
+            case COMMENTED:
+                return commentedWeight;
+            case LIKED:
+                return likedWeight;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(index.stats());
+        synchronized (pendingLock) {
+            stats.put("pendingPairs", countPairs(pending));
+        }
+        return stats;
+    }
+
+    private static final class Change {
+        private final long userId;
+        private final List<Long> topicIds;
+        private final Signal signal;
+        private final int delta;
+
+        private Change(long userId, List<Long> topicIds, Signal signal, int delta) {
+            this.userId = userId;
+            this.topicIds = topicIds;
+            this.signal = signal;
+            this.delta = delta;
+        }
+
+        private void applyTo(TopicInterestIndex target, double weight) {
+            for (Long topicId : topicIds) {
+                target.add(userId, topicId, weight * delta);
+            }
+        }
+    }
+}
@@ -31,6 +31,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private SenderSnippetCacheService senderSnippetCacheService;
+
     @Override
     public Page<User> findPaginated(String keyword, String status, String roleName, Pageable pageable) {
         //truy vấn động
@@ -150,6 +153,8 @@ public class UserServiceImpl implements UserService {
                 existingUser.setRoles(user.getRoles());
             }
             userDao.save(existingUser);
+            // Username / avatar có thể đã đổi
+            senderSnippetCacheService.invalidate(existingUser.getId());
         } else {
             // Chỉ mã hóa mật khẩu nếu nó chưa được mã hóa (không bắt đầu bằng $2a$)
             if (user.getPassword() != null && !user.getPassword().isEmpty() && !user.getPassword().startsWith("$2a$")) {
@@ -0,0 +1,169 @@
+package GraduationProject.forumikaa.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Tập id dạng nén theo kiểu Roaring bitmap.
+ * Id được chia theo 16 bit cao (container) và 16 bit thấp: container thưa lưu mảng char đã sắp xếp
+ * (2 byte/id), container dày (> 4096 id) chuyển sang bitmap 8KB. Không thread-safe.
+ */
+public class CompactIdSet {
+
+    private static final int ARRAY_CONTAINER_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10; // 65536 bit
+
+    private long[] highs = new long[0];
+    private Container[] containers = new Container[0];
+    private long cardinality;
+
+    public static CompactIdSet of(Collection<Long> ids) {
+        CompactIdSet set = new CompactIdSet();
+        long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+        for (long id : sorted) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    public boolean contains(long id) {
+        int index = Arrays.binarySearch(highs, id >>> 16);
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    public boolean add(long id) {
+        long high = id >>> 16;
+        int index = Arrays.binarySearch(highs, high);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, high);
+        }
+        boolean added = containers[index].add((char) id);
+        if (added) {
+            cardinality++;
+        }
+        return added;
+    }
+
+    public boolean remove(long id) {
+        int index = Arrays.binarySearch(highs, id >>> 16);
+        if (index < 0 || !containers[index].remove((char) id)) {
+            return false;
+        }
+        cardinality--;
+        if (containers[index].cardinality == 0) {
+            removeContainer(index);
+        }
+        return true;
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    // Ước lượng bộ nhớ (byte) - dùng cho memory budget của cache
+    public long estimatedBytes() {
+        long bytes = 48L + highs.length * 8L + containers.length * 8L;
+        for (Container container : containers) {
+            bytes += container.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    private void insertContainer(int index, long high) {
+        long[] newHighs = new long[highs.length + 1];
+        Container[] newContainers = new Container[containers.length + 1];
+        System.arraycopy(highs, 0, newHighs, 0, index);
+        System.arraycopy(containers, 0, newContainers, 0, index);
+        newHighs[index] = high;
+        newContainers[index] = new Container();
+        System.arraycopy(highs, index, newHighs, index + 1, highs.length - index);
+        System.arraycopy(containers, index, newContainers, index + 1, containers.length - index);
+        highs = newHighs;
+        containers = newContainers;
+    }
+
+    private void removeContainer(int index) {
+        long[] newHighs = new long[highs.length - 1];
+        Container[] newContainers = new Container[containers.length - 1];
+        System.arraycopy(highs, 0, newHighs, 0, index);
+        System.arraycopy(containers, 0, newContainers, 0, index);
+        System.arraycopy(highs, index + 1, newHighs, index, highs.length - index - 1);
+        System.arraycopy(containers, index + 1, newContainers, index, containers.length - index - 1);
+        highs = newHighs;
+        containers = newContainers;
+    }
+
+    private static final class Container {
+        private char[] values = new char[4]; // mảng đã sắp xếp (khi bitmap == null)
+        private long[] bitmap;
+        private int cardinality;
+
+        boolean contains(char low) {
+            if (bitmap != null) {
+                return (bitmap[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        boolean add(char low) {
+            if (bitmap != null) {
+                long before = bitmap[low >>> 6];
+                bitmap[low >>> 6] = before | (1L << low);
+                if (before == bitmap[low >>> 6]) {
+                    return false;
+                }
+                cardinality++;
+                return true;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_CONTAINER_MAX) {
+                toBitmap();
+                return add(low);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_CONTAINER_MAX));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (bitmap != null) {
+                long before = bitmap[low >>> 6];
+                bitmap[low >>> 6] = before & ~(1L << low);
+                if (before == bitmap[low >>> 6]) {
+                    return false;
+                }
+                cardinality--;
+                return true;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            return true;
+        }
+
+        long estimatedBytes() {
+            return 32L + (bitmap != null ? bitmap.length * 8L : values.length * 2L);
+        }
+
+        private void toBitmap() {
+            bitmap = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                char low = values[i];
+                bitmap[low >>> 6] |= 1L << low;
+            }
+            values = null;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package GraduationProject.forumikaa.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Đồ thị bạn bè vô hướng: mỗi user giữ mảng long[] id bạn bè đã sắp xếp tăng dần (không boxing từng cạnh).
+ *
+ * Mảng kề là copy-on-write: thêm / xóa cạnh tạo mảng mới rồi thay vào map, nên đọc không cần khóa và mảng
+ * trả về từ friendsOf không bao giờ bị sửa. Ghi được tuần tự hóa bằng synchronized.
+ */
+public class FriendGraph {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ConcurrentHashMap<Long, long[]> adjacency;
+
+    public FriendGraph() {
+        this.adjacency = new ConcurrentHashMap<>();
+    }
+
+    private FriendGraph(Map<Long, long[]> adjacency) {
+        this.adjacency = new ConcurrentHashMap<>(adjacency);
+    }
+
+    // Mảng bạn bè đã sắp xếp - không được sửa
+    public long[] friendsOf(long userId) {
+        long[] friends = adjacency.get(userId);
+        return friends != null ? friends : EMPTY;
+    }
+
+    public boolean areFriends(long userId, long otherUserId) {
+        return Arrays.binarySearch(friendsOf(userId), otherUserId) >= 0;
+    }
+
+    public synchronized boolean addEdge(long userId, long friendId) {
+        if (userId == friendId || areFriends(userId, friendId)) {
+            return false;
+        }
+        adjacency.put(userId, insert(friendsOf(userId), friendId));
+        adjacency.put(friendId, insert(friendsOf(friendId), userId));
+        return true;
+    }
+
+    public synchronized boolean removeEdge(long userId, long friendId) {
+        if (!areFriends(userId, friendId)) {
+            return false;
+        }
+        putOrRemove(userId, delete(friendsOf(userId), friendId));
+        putOrRemove(friendId, delete(friendsOf(friendId), userId));
+        return true;
+    }
+
+    public int userCount() {
+        return adjacency.size();
+    }
+
+    public long edgeCount() {
+        long degrees = 0;
+        for (long[] friends : adjacency.values()) {
+            degrees += friends.length;
+        }
+        return degrees / 2;
+    }
+
+    /**
+     * Số bạn chung = giao của 2 mảng đã sắp xếp, O(d1 + d2)
+     */
+    public int mutualCount(long userId, long otherUserId) {
+        long[] a = friendsOf(userId);
+        long[] b = friendsOf(otherUserId);
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Bạn của bạn chưa kết bạn với userId, xếp theo số bạn chung giảm dần (cùng số thì id nhỏ trước).
+     *
+     * Đếm số lần mỗi id xuất hiện trong mảng bạn bè của các bạn bằng bảng băm địa chỉ mở long -> int
+     * (không boxing, cấp phát theo lần gọi với kích thước theo S): xuất hiện c lần nghĩa là có c bạn chung. Bạn hiện tại bị loại bằng
+     * binary search trên mảng đã sắp xếp, top-limit giữ bằng heap giới hạn. O(S) với S = tổng bậc của các bạn.
+     */
+    public List<MutualCandidate> mutualCandidates(long userId, int limit) {
+        long[] friends = friendsOf(userId);
+        if (friends.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        long[][] lists = new long[friends.length][];
+        int total = 0;
+        for (int i = 0; i < friends.length; i++) {
+            lists[i] = friendsOf(friends[i]);
+            total += lists[i].length;
+        }
+
+        CountingTable table = new CountingTable(total);
+        for (long[] list : lists) {
+            for (long candidate : list) {
+                table.increment(candidate);
+            }
+        }
+
+        TopCandidates top = new TopCandidates(limit);
+        for (int i = 0; i < table.size; i++) {
+            int slot = table.used[i];
+            long candidate = table.keys[slot];
+            if (candidate == userId || Arrays.binarySearch(friends, candidate) >= 0) {
+                continue;
+            }
+            top.offer(candidate, table.counts[slot]);
+        }
+        return top.toSortedList();
+    }
+
+    private static long[] insert(long[] sorted, long value) {
+        int index = -Arrays.binarySearch(sorted, value) - 1;
+        long[] result = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(sorted, index, result, index + 1, sorted.length - index);
+        return result;
+    }
+
+    private static long[] delete(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        long[] result = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, index);
+        System.arraycopy(sorted, index + 1, result, index, sorted.length - index - 1);
+        return result;
+    }
+
+    private void putOrRemove(long userId, long[] friends) {
+        if (friends.length == 0) {
+            adjacency.remove(userId);
+        } else {
+            adjacency.put(userId, friends);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Dựng đồ thị từ danh sách cạnh (nạp toàn bộ khi khởi động); cạnh lặp / 2 chiều được gộp
+     */
+    public static class Builder {
+
+        private final Map<Long, long[]> lists = new HashMap<>();
+        private final Map<Long, Integer> sizes = new HashMap<>();
+
+        public Builder addEdge(long userId, long friendId) {
+            if (userId != friendId) {
+                append(userId, friendId);
+                append(friendId, userId);
+            }
+            return this;
+        }
+
+        private void append(long userId, long friendId) {
+            long[] list = lists.get(userId);
+            int size = sizes.getOrDefault(userId, 0);
+            if (list == null) {
+                list = new long[4];
+            } else if (size == list.length) {
+                list = Arrays.copyOf(list, size * 2);
+            }
+            list[size] = friendId;
+            lists.put(userId, list);
+            sizes.put(userId, size + 1);
+        }
+
+        public FriendGraph build() {
+            Map<Long, long[]> adjacency = new HashMap<>(lists.size() * 2);
+            for (Map.Entry<Long, long[]> entry : lists.entrySet()) {
+                long[] list = entry.getValue();
+                int size = sizes.get(entry.getKey());
+                Arrays.sort(list, 0, size);
+                // Bỏ trùng sau khi sắp xếp
+                int distinct = 0;
+                for (int i = 0; i < size; i++) {
+                    if (distinct == 0 || list[i] != list[distinct - 1]) {
+                        list[distinct++] = list[i];
+                    }
+                }
+                adjacency.put(entry.getKey(), Arrays.copyOf(list, distinct));
+            }
+            return new FriendGraph(adjacency);
+        }
+    }
+
+    public static final class MutualCandidate {
+        private final long userId;
+        private final int mutualFriends;
+
+        public MutualCandidate(long userId, int mutualFriends) {
+            this.userId = userId;
+            this.mutualFriends = mutualFriends;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public int getMutualFriends() {
+            return mutualFriends;
+        }
+    }
+
+    // Bảng băm địa chỉ mở long -> int, used giữ các slot đã dùng để duyệt trong O(số key)
+    private static final class CountingTable {
+        private final long[] keys;
+        private final int[] counts;
+        private final int[] used;
+        private final int mask;
+        private int size;
+
+        // Hệ số tải tối đa 0.5 cho expectedKeys
+        private CountingTable(int expectedKeys) {
+            int capacity = Integer.highestOneBit(Math.max(expectedKeys, 8) * 2 - 1) << 1;
+            keys = new long[capacity];
+            counts = new int[capacity];
+            used = new int[capacity / 2];
+            mask = capacity - 1;
+        }
+
+        private void increment(long key) {
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (counts[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (counts[slot] == 0) {
+                keys[slot] = key;
+                used[size++] = slot;
+            }
+            counts[slot]++;
+        }
+    }
+
+    // Heap giới hạn limit phần tử, gốc là ứng viên kém nhất (ít bạn chung nhất, cùng số thì id lớn nhất)
+    private static final class TopCandidates {
+        private final long[] ids;
+        private final int[] counts;
+        private int size;
+
+        private TopCandidates(int limit) {
+            this.ids = new long[limit];
+            this.counts = new int[limit];
+        }
+
+        private void offer(long id, int count) {
+            if (size < ids.length) {
+                ids[size] = id;
+                counts[size] = count;
+                siftUp(size++);
+            } else if (worse(ids[0], counts[0], id, count)) {
+                ids[0] = id;
+                counts[0] = count;
+                siftDown(0);
+            }
+        }
+
+        private List<MutualCandidate> toSortedList() {
+            List<MutualCandidate> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(new MutualCandidate(ids[i], counts[i]));
+            }
+            result.sort(Comparator.comparingInt(MutualCandidate::getMutualFriends).reversed()
+                    .thenComparingLong(MutualCandidate::getUserId));
+            return result;
+        }
+
+        // a kém hơn b
+        private static boolean worse(long idA, int countA, long idB, int countB) {
+            return countA < countB || (countA == countB && idA > idB);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(ids[index], counts[index], ids[parent], counts[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int left = 2 * index + 1;
+                if (left >= size) {
+                    return;
+                }
+                int right = left + 1;
+                int worst = right < size && worse(ids[right], counts[right], ids[left], counts[left]) ? right : left;
+                if (!worse(ids[worst], counts[worst], ids[index], counts[index])) {
+                    return;
+                }
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            int count = counts[i];
+            counts[i] = counts[j];
+            counts[j] = count;
+        }
+    }
+}
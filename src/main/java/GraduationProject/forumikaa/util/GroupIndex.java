@@ -0,0 +1,351 @@
+package GraduationProject.forumikaa.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index nhóm cho gợi ý: trọng số hashtag của từng nhóm (hashtag khai báo + tỉ lệ hashtag trong bài viết của nhóm)
+ * với posting list topic -> nhóm, và membership user -> nhóm (mảng id đã sắp xếp) kèm số thành viên.
+ *
+ * Ứng viên chỉ đến từ posting list của hashtag user quan tâm và nhóm mà bạn bè đã tham gia, được chấm điểm
+ * trong 1 lượt; không duyệt toàn bộ danh sách nhóm.
+ */
+public class GroupIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private static final Comparator<GroupCandidate> RANKING = Comparator
+            .comparingDouble(GroupCandidate::getScore).reversed()
+            .thenComparingLong(GroupCandidate::getGroupId);
+
+    private final Map<Long, GroupEntry> groups = new HashMap<>();
+    private final Map<Long, Map<Long, Double>> postings = new HashMap<>();
+    private final Map<Long, long[]> membership = new HashMap<>();
+    // Nhóm đông thành viên nhất - dùng khi user chưa có hashtag / bạn bè, tính lại khi dựng index
+    private List<Long> popular = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Trọng số hashtag của nhóm = declaredWeight nếu hashtag được khai báo + tỉ lệ bài viết của nhóm có hashtag đó
+     */
+    public void putGroup(long groupId, Collection<Long> declaredTopics, Map<Long, Double> activityShares, double declaredWeight) {
+        lock.writeLock().lock();
+        try {
+            GroupEntry entry = groups.computeIfAbsent(groupId, GroupEntry::new);
+            entry.declared = new HashSet<>(declaredTopics);
+            if (activityShares != null) {
+                entry.activity = new HashMap<>(activityShares);
+            }
+            reindex(entry, declaredWeight);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Chỉ thay hashtag khai báo, giữ tỉ lệ hashtag bài viết đã nạp
+    public void updateDeclaredTopics(long groupId, Collection<Long> declaredTopics, double declaredWeight) {
+        putGroup(groupId, declaredTopics, null, declaredWeight);
+    }
+
+    public void removeGroup(long groupId) {
+        lock.writeLock().lock();
+        try {
+            GroupEntry entry = groups.remove(groupId);
+            if (entry != null) {
+                unindex(entry);
+            }
+            // Mảng membership còn id nhóm cũ được bỏ qua khi chấm điểm và dọn ở lần dựng lại index
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addMember(long groupId, long userId) {
+        lock.writeLock().lock();
+        try {
+            long[] joined = membership.getOrDefault(userId, EMPTY);
+            int index = Arrays.binarySearch(joined, groupId);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            long[] result = new long[joined.length + 1];
+            System.arraycopy(joined, 0, result, 0, index);
+            result[index] = groupId;
+            System.arraycopy(joined, index, result, index + 1, joined.length - index);
+            membership.put(userId, result);
+            groups.computeIfAbsent(groupId, GroupEntry::new).memberCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeMember(long groupId, long userId) {
+        lock.writeLock().lock();
+        try {
+            long[] joined = membership.getOrDefault(userId, EMPTY);
+            int index = Arrays.binarySearch(joined, groupId);
+            if (index < 0) {
+                return;
+            }
+            if (joined.length == 1) {
+                membership.remove(userId);
+            } else {
+                long[] result = new long[joined.length - 1];
+                System.arraycopy(joined, 0, result, 0, index);
+                System.arraycopy(joined, index + 1, result, index, joined.length - index - 1);
+                membership.put(userId, result);
+            }
+            GroupEntry entry = groups.get(groupId);
+            if (entry != null && entry.memberCount > 0) {
+                entry.memberCount--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Id nhóm user đã tham gia, đã sắp xếp - không được sửa mảng trả về
+    public long[] groupsOf(long userId) {
+        lock.readLock().lock();
+        try {
+            return membership.getOrDefault(userId, EMPTY);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long memberCount(long groupId) {
+        lock.readLock().lock();
+        try {
+            GroupEntry entry = groups.get(groupId);
+            return entry != null ? entry.memberCount : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tính lại danh sách nhóm phổ biến (O(số nhóm)) - gọi sau khi nạp index, không gọi theo request
+    public void refreshPopular(int size) {
+        lock.writeLock().lock();
+        try {
+            PriorityQueue<GroupEntry> top = new PriorityQueue<>(Comparator.comparingLong((GroupEntry entry) -> entry.memberCount)
+                    .thenComparing(entry -> -entry.groupId));
+            for (GroupEntry entry : groups.values()) {
+                top.add(entry);
+                if (top.size() > size) {
+                    top.poll();
+                }
+            }
+            List<Long> result = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                result.add(top.poll().groupId);
+            }
+            Collections.reverse(result);
+            popular = result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top-limit nhóm user chưa tham gia.
+     *
+     * score = topicWeight * cosine(vector hashtag của user, vector hashtag của nhóm)
+     *       + friendWeight * ln(1 + số bạn bè trong nhóm) + popularityWeight * ln(1 + số thành viên).
+     * Thiếu ứng viên thì bổ sung nhóm phổ biến.
+     */
+    public List<GroupCandidate> recommend(long userId, Map<Long, Double> userTopics, long[] friendIds, int limit, int maxScanned,
+                                          double topicWeight, double friendWeight, double popularityWeight) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            long[] joined = membership.getOrDefault(userId, EMPTY);
+            Map<Long, Accumulator> candidates = new HashMap<>();
+
+            double userNorm = 0;
+            for (double weight : userTopics.values()) {
+                userNorm += weight * weight;
+            }
+            userNorm = Math.sqrt(userNorm);
+            // Hashtag user quan tâm nhiều nhất trước; dừng sau maxScanned phần tử posting list
+            List<Map.Entry<Long, Double>> topics = new ArrayList<>(userTopics.entrySet());
+            topics.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+            int scanned = 0;
+            for (Map.Entry<Long, Double> topic : topics) {
+                Map<Long, Double> posting = postings.get(topic.getKey());
+                if (posting == null) {
+                    continue;
+                }
+                for (Map.Entry<Long, Double> entry : posting.entrySet()) {
+                    if (scanned++ >= maxScanned) {
+                        break;
+                    }
+                    if (Arrays.binarySearch(joined, entry.getKey()) >= 0) {
+                        continue;
+                    }
+                    Accumulator accumulator = candidates.computeIfAbsent(entry.getKey(), id -> new Accumulator());
+                    accumulator.dot += topic.getValue() * entry.getValue();
+                    accumulator.commonTopics.add(topic.getKey());
+                }
+            }
+            for (long friendId : friendIds) {
+                for (long groupId : membership.getOrDefault(friendId, EMPTY)) {
+                    if (Arrays.binarySearch(joined, groupId) < 0) {
+                        candidates.computeIfAbsent(groupId, id -> new Accumulator()).friends++;
+                    }
+                }
+            }
+
+            PriorityQueue<GroupCandidate> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (Map.Entry<Long, Accumulator> candidate : candidates.entrySet()) {
+                GroupEntry group = groups.get(candidate.getKey());
+                if (group == null) {
+                    continue;
+                }
+                Accumulator accumulator = candidate.getValue();
+                double cosine = accumulator.dot > 0 ? accumulator.dot / (userNorm * group.norm) : 0;
+                double score = topicWeight * cosine
+                        + friendWeight * Math.log1p(accumulator.friends)
+                        + popularityWeight * Math.log1p(group.memberCount);
+                top.add(new GroupCandidate(group.groupId, score, accumulator.friends, accumulator.commonTopics, group.memberCount));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<GroupCandidate> result = new ArrayList<>(top);
+            result.sort(RANKING);
+
+            for (Long groupId : popular) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                GroupEntry group = groups.get(groupId);
+                if (group == null || candidates.containsKey(groupId) || Arrays.binarySearch(joined, groupId) >= 0) {
+                    continue;
+                }
+                result.add(new GroupCandidate(groupId, popularityWeight * Math.log1p(group.memberCount), 0,
+                        new ArrayList<>(), group.memberCount));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            long memberships = 0;
+            for (long[] joined : membership.values()) {
+                memberships += joined.length;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("groups", groups.size());
+            stats.put("topics", postings.size());
+            stats.put("users", membership.size());
+            stats.put("memberships", memberships);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Gọi trong write lock
+    private void reindex(GroupEntry entry, double declaredWeight) {
+        unindex(entry);
+        Map<Long, Double> weights = new HashMap<>(entry.activity);
+        for (Long topicId : entry.declared) {
+            weights.merge(topicId, declaredWeight, Double::sum);
+        }
+        double sum = 0;
+        for (Map.Entry<Long, Double> weight : weights.entrySet()) {
+            postings.computeIfAbsent(weight.getKey(), id -> new HashMap<>()).put(entry.groupId, weight.getValue());
+            sum += weight.getValue() * weight.getValue();
+        }
+        entry.weights = weights;
+        entry.norm = Math.sqrt(sum);
+    }
+
+    // Gọi trong write lock
+    private void unindex(GroupEntry entry) {
+        for (Long topicId : entry.weights.keySet()) {
+            Map<Long, Double> posting = postings.get(topicId);
+            if (posting != null) {
+                posting.remove(entry.groupId);
+                if (posting.isEmpty()) {
+                    postings.remove(topicId);
+                }
+            }
+        }
+    }
+
+    private static final class GroupEntry {
+        private final long groupId;
+        private Set<Long> declared = new HashSet<>();
+        private Map<Long, Double> activity = new HashMap<>();
+        private Map<Long, Double> weights = new HashMap<>();
+        private double norm;
+        private long memberCount;
+
+        private GroupEntry(long groupId) {
+            this.groupId = groupId;
+        }
+    }
+
+    private static final class Accumulator {
+        private double dot;
+        private int friends;
+        private final List<Long> commonTopics = new ArrayList<>();
+    }
+
+    public static final class GroupCandidate {
+        private final long groupId;
+        private final double score;
+        private final int friendsInGroup;
+        private final List<Long> commonTopicIds;
+        private final long memberCount;
+
+        public GroupCandidate(long groupId, double score, int friendsInGroup, List<Long> commonTopicIds, long memberCount) {
+            this.groupId = groupId;
+            this.score = score;
+            this.friendsInGroup = friendsInGroup;
+            this.commonTopicIds = commonTopicIds;
+            this.memberCount = memberCount;
+        }
+
+        public long getGroupId() {
+            return groupId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getFriendsInGroup() {
+            return friendsInGroup;
+        }
+
+        public List<Long> getCommonTopicIds() {
+            return commonTopicIds;
+        }
+
+        public long getMemberCount() {
+            return memberCount;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package GraduationProject.forumikaa.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor (snapshot id, vị trí) cho phân trang bài viết phổ biến.
+ * Các trang sau đọc tiếp trên cùng 1 snapshot của bảng xếp hạng nên không bị trùng / sót bài khi điểm thay đổi.
+ */
+@Data
+@AllArgsConstructor
+public class PopularCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private long snapshotId;
+    private int position;
+
+    public String encode() {
+        String raw = snapshotId + SEPARATOR + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PopularCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(SEPARATOR);
+            if (idx <= 0) {
+                throw new IllegalArgumentException("Invalid popular cursor: " + token);
+            }
+            PopularCursor cursor = new PopularCursor(Long.parseLong(raw.substring(0, idx)), Integer.parseInt(raw.substring(idx + 1)));
+            if (cursor.position < 0) {
+                throw new IllegalArgumentException("Invalid popular cursor: " + token);
+            }
+            return cursor;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid popular cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package GraduationProject.forumikaa.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Vector quan tâm thưa theo hashtag của từng user (topic id -> trọng số) kèm inverted index topic -> user.
+ *
+ * Tìm user tương tự chỉ duyệt posting list của các hashtag mà user quan tâm (user không chung hashtag nào
+ * không bao giờ được chạm tới), cộng dồn tích vô hướng rồi chia cho độ dài 2 vector để ra cosine.
+ */
+public class TopicInterestIndex {
+
+    private static final Comparator<SimilarUser> RANKING = Comparator
+            .comparingDouble(SimilarUser::getScore).reversed()
+            .thenComparingLong(SimilarUser::getUserId);
+
+    private final Map<Long, UserVector> vectors = new HashMap<>();
+    private final Map<Long, Map<Long, Double>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Cộng delta vào trọng số (userId, topicId); trọng số <= 0 thì bỏ khỏi vector và posting list
+     */
+    public void add(long userId, long topicId, double delta) {
+        if (delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            UserVector vector = vectors.computeIfAbsent(userId, id -> new UserVector());
+            double weight = vector.weights.getOrDefault(topicId, 0.0) + delta;
+            if (weight > 0) {
+                vector.weights.put(topicId, weight);
+                postings.computeIfAbsent(topicId, id -> new HashMap<>()).put(userId, weight);
+            } else {
+                vector.weights.remove(topicId);
+                Map<Long, Double> posting = postings.get(topicId);
+                if (posting != null) {
+                    posting.remove(userId);
+                    if (posting.isEmpty()) {
+                        postings.remove(topicId);
+                    }
+                }
+            }
+            if (vector.weights.isEmpty()) {
+                vectors.remove(userId);
+            } else {
+                vector.updateNorm();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Bản sao vector của user (topic id -> trọng số), rỗng nếu chưa có tương tác
+    public Map<Long, Double> vectorOf(long userId) {
+        lock.readLock().lock();
+        try {
+            UserVector vector = vectors.get(userId);
+            return vector != null ? new HashMap<>(vector.weights) : new HashMap<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Top-limit user theo cosine với userId, bỏ qua user bị excluded.
+     *
+     * Posting list được duyệt theo thứ tự hashtag user quan tâm nhiều nhất trước; dừng khi đã duyệt maxScanned
+     * phần tử để hashtag phổ biến (rất nhiều user) không kéo dài request.
+     */
+    public List<SimilarUser> mostSimilar(long userId, int limit, LongPredicate excluded, int maxScanned) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            UserVector source = vectors.get(userId);
+            if (source == null) {
+                return new ArrayList<>();
+            }
+
+            List<Map.Entry<Long, Double>> topics = new ArrayList<>(source.weights.entrySet());
+            topics.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+
+            Map<Long, Double> dots = new HashMap<>();
+            int scanned = 0;
+            for (Map.Entry<Long, Double> topic : topics) {
+                if (scanned >= maxScanned) {
+                    break;
+                }
+                Map<Long, Double> posting = postings.get(topic.getKey());
+                if (posting == null) {
+                    continue;
+                }
+                double sourceWeight = topic.getValue();
+                for (Map.Entry<Long, Double> entry : posting.entrySet()) {
+                    long candidate = entry.getKey();
+                    if (candidate != userId && !excluded.test(candidate)) {
+                        dots.merge(candidate, sourceWeight * entry.getValue(), Double::sum);
+                    }
+                    if (++scanned >= maxScanned) {
+                        break;
+                    }
+                }
+            }
+
+            // Heap giới hạn limit phần tử, gốc là ứng viên kém nhất
+            PriorityQueue<SimilarUser> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (Map.Entry<Long, Double> entry : dots.entrySet()) {
+                UserVector candidate = vectors.get(entry.getKey());
+                double score = entry.getValue() / (source.norm * candidate.norm);
+                top.add(new SimilarUser(entry.getKey(), score, null));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<SimilarUser> result = new ArrayList<>(top.size());
+            for (SimilarUser similar : top) {
+                result.add(new SimilarUser(similar.userId, similar.score,
+                        commonTopics(topics, vectors.get(similar.userId))));
+            }
+            result.sort(RANKING);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Hashtag chung, theo thứ tự trọng số giảm dần của user nguồn
+    private static List<Long> commonTopics(List<Map.Entry<Long, Double>> sourceTopics, UserVector other) {
+        List<Long> common = new ArrayList<>();
+        for (Map.Entry<Long, Double> topic : sourceTopics) {
+            if (other.weights.containsKey(topic.getKey())) {
+                common.add(topic.getKey());
+            }
+        }
+        return common;
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            long entries = 0;
+            for (UserVector vector : vectors.values()) {
+                entries += vector.weights.size();
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("users", vectors.size());
+            stats.put("topics", postings.size());
+            stats.put("entries", entries);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class UserVector {
+        private final Map<Long, Double> weights = new HashMap<>();
+        private double norm;
+
+        // Tính lại từ đầu (vector thường chỉ vài chục hashtag) để không tích lũy sai số
+        private void updateNorm() {
+            double sum = 0;
+            for (double weight : weights.values()) {
+                sum += weight * weight;
+            }
+            norm = Math.sqrt(sum);
+        }
+    }
+
+    public static final class SimilarUser {
+        private final long userId;
+        private final double score;
+        private final List<Long> commonTopicIds;
+
+        public SimilarUser(long userId, double score, List<Long> commonTopicIds) {
+            this.userId = userId;
+            this.score = score;
+            this.commonTopicIds = commonTopicIds;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public List<Long> getCommonTopicIds() {
+            return commonTopicIds;
+        }
+    }
+}
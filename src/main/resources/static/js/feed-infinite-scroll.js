@@ -0,0 +1,86 @@
+/**
+ * Feed Infinite Scroll - Tải trang tiếp theo của news feed theo cursor
+ * Server trả về HTML fragment (fragments/user/feed-posts) kèm cursor của trang kế tiếp
+ */
+
+class FeedInfiniteScroll {
+    constructor() {
+        this.feed = document.getElementById('feed');
+        this.sentinel = document.getElementById('feed-sentinel');
+        this.loading = false;
+        this.init();
+    }
+
+    init() {
+        if (!this.feed || !this.sentinel) {
+            return; // Không có trang tiếp theo
+        }
+
+        this.observer = new IntersectionObserver((entries) => {
+            if (entries.some(entry => entry.isIntersecting)) {
+                this.loadNextPage();
+            }
+        }, { rootMargin: '600px 0px' });
+
+        this.observer.observe(this.sentinel);
+    }
+
+    async loadNextPage() {
+        const cursor = this.sentinel.getAttribute('data-next-cursor');
+        if (this.loading || !cursor) return;
+
+        this.loading = true;
+        const spinner = this.sentinel.querySelector('.spinner-border');
+        spinner?.classList.remove('d-none');
+
+        try {
+            const response = await authenticatedFetch(`/feed/page?cursor=${encodeURIComponent(cursor)}`);
+            if (!response.ok) {
+                console.error('Failed to load next feed page:', response.status);
+                return;
+            }
+
+            const container = document.createElement('div');
+            container.innerHTML = await response.text();
+
+            const meta = container.querySelector('.feed-page-meta');
+            const nextCursor = meta ? meta.getAttribute('data-next-cursor') : null;
+            meta?.remove();
+
+            const newCards = Array.from(container.querySelectorAll(':scope > .card[data-post-id]'));
+            newCards.forEach(card => this.feed.insertBefore(card, this.sentinel));
+
+            // Đồng bộ trạng thái like cho các bài viết mới
+            newCards.forEach(card => {
+                const likeButton = card.querySelector('.like-btn');
+                if (likeButton && window.postInteractions) {
+                    window.postInteractions.loadLikeStatus(likeButton);
+                }
+            });
+
+            if (nextCursor) {
+                this.sentinel.setAttribute('data-next-cursor', nextCursor);
+            } else {
+                this.finish();
+            }
+        } catch (error) {
+            console.error('Error loading next feed page:', error);
+        } finally {
+            spinner?.classList.add('d-none');
+            this.loading = false;
+        }
+    }
+
+    finish() {
+        this.observer?.disconnect();
+        this.sentinel.removeAttribute('data-next-cursor');
+        this.sentinel.textContent = 'Bạn đã xem hết bài viết.';
+    }
+}
+
+// Initialize
+document.addEventListener('DOMContentLoaded', () => {
+    if (!window.feedInfiniteScroll) {
+        window.feedInfiniteScroll = new FeedInfiniteScroll();
+    }
+});
@@ -47,10 +47,31 @@
                 handleNewNotification(notification, true); // true = từ WebSocket
                 break;
                 
+            case 'NOTIFICATION_BATCH':
+                // Replay khi kết nối: thông báo mới hơn lần nhận cuối, cũ trước - không hiển thị toast
+                (data.notifications || []).forEach(n => handleNewNotification(n, false));
+                // Thông báo đã nhận nhưng thay đổi khi mất kết nối (vd. dòng gộp có thêm người thích)
+                (data.updates || []).forEach(n => {
+                    if (!updateNotificationInList(n)) {
+                        handleNewNotification(n, false);
+                    }
+                });
+                if (data.hasMore && window.notificationsLoaded) {
+                    // Bỏ lỡ nhiều hơn giới hạn replay -> tải lại danh sách đầy đủ
+                    loadNotifications();
+                }
+                unreadCount = data.unreadCount || 0;
+                updateBadge();
+                break;
+                
             case 'NOTIFICATION_UPDATE':
-                // Cập nhật thông báo
+                // Cập nhật thông báo (vd. thông báo gộp có thêm người thích)
                 const updatedNotification = data.notification;
-                updateNotificationInList(updatedNotification);
+                if (!updateNotificationInList(updatedNotification)) {
+                    handleNewNotification(updatedNotification, true);
+                } else if (window.toastManager && window.notificationsLoaded && !updatedNotification.isRead) {
+                    window.toastManager.info(updatedNotification.message);
+                }
                 break;
                 
             case 'NOTIFICATION_DELETE':
@@ -526,7 +547,9 @@
         if (index !== -1) {
             notifications[index] = updatedNotification;
             renderNotifications();
+            return true;
         }
+        return false;
     }
 
     // Xóa notification khỏi danh sách
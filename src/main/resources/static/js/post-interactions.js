@@ -39,7 +39,9 @@ class PostInteractions {
         
         try {
             console.log('Attempting to like post:', postId);
-            const response = await authenticatedFetch(`/api/posts/${postId}/like`, { method: 'POST' });
+            // Gửi trạng thái mong muốn để request lặp lại (retry) không đảo ngược like
+            const liked = button.getAttribute('data-liked') !== 'true';
+            const response = await authenticatedFetch(`/api/posts/${postId}/like?liked=${liked}`, { method: 'POST' });
             
             console.log('Response status:', response.status);
             
@@ -43,7 +43,12 @@ class WebSocketManager {
 
             // Use WSS for HTTPS, WS for HTTP
             const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
-            const wsUrl = `${protocol}//${window.location.host}/ws/notifications?recipientId=${this.currentUserId}`;
+            // Gửi id thông báo mới nhất và thời điểm cập nhật mới nhất đã nhận để server chỉ replay phần còn thiếu
+            const lastSeenId = this.getLastSeenNotificationId();
+            const lastUpdatedAt = this.getStoredNumber('lastUpdatedAt');
+            const wsUrl = `${protocol}//${window.location.host}/ws/notifications?recipientId=${this.currentUserId}`
+                + (lastSeenId ? `&lastSeenId=${lastSeenId}` : '')
+                + (lastUpdatedAt ? `&lastUpdatedAt=${lastUpdatedAt}` : '');
             
             this.websocket = new WebSocket(wsUrl);
             
@@ -142,6 +147,7 @@ class WebSocketManager {
     onMessage(event) {
         try {
             const data = JSON.parse(event.data);
+            this.trackNotificationIds(data);
             
             // Gọi tất cả message handlers
             this.messageHandlers.forEach((handler, key) => {
@@ -157,6 +163,50 @@ class WebSocketManager {
         }
     }
 
+    /**
+     * Ghi nhớ id thông báo lớn nhất và updatedAt lớn nhất đã nhận (theo user) cho lần kết nối sau
+     */
+    trackNotificationIds(data) {
+        let received = [];
+        if ((data.type === 'NOTIFICATION' || data.type === 'NOTIFICATION_UPDATE') && data.notification) {
+            received = [data.notification];
+        } else if (data.type === 'NOTIFICATION_BATCH') {
+            received = (data.notifications || []).concat(data.updates || []);
+        }
+        let maxId = 0;
+        let maxUpdatedAt = 0;
+        received.forEach(notification => {
+            maxId = Math.max(maxId, notification.id || 0);
+            maxUpdatedAt = Math.max(maxUpdatedAt, notification.updatedAt || 0);
+        });
+        if (maxId > this.getLastSeenNotificationId()) {
+            this.storeNumber('lastSeenId', maxId);
+        }
+        if (maxUpdatedAt > this.getStoredNumber('lastUpdatedAt')) {
+            this.storeNumber('lastUpdatedAt', maxUpdatedAt);
+        }
+    }
+
+    getLastSeenNotificationId() {
+        return this.getStoredNumber('lastSeenId');
+    }
+
+    getStoredNumber(name) {
+        try {
+            return Number(localStorage.getItem(`notifications.${name}.${this.currentUserId}`)) || 0;
+        } catch (error) {
+            return 0;
+        }
+    }
+
+    storeNumber(name, value) {
+        try {
+            localStorage.setItem(`notifications.${name}.${this.currentUserId}`, String(value));
+        } catch (error) {
+            // Silent error
+        }
+    }
+
     /**
      * Xử lý thay đổi trạng thái kết nối
      */
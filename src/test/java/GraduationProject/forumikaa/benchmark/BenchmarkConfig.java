@@ -0,0 +1,94 @@
+package GraduationProject.forumikaa.benchmark;
+
+import GraduationProject.forumikaa.benchmark.SocialGraphGenerator.Dataset;
+import GraduationProject.forumikaa.benchmark.SocialGraphGenerator.Scale;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cấu hình profile "benchmark": đếm câu lệnh SQL qua DataSource và sinh dữ liệu trước khi các index warm-up
+ * (ApplicationReadyEvent chạy sau ApplicationRunner).
+ */
+@Configuration
+@Profile("benchmark")
+public class BenchmarkConfig {
+
+    // Câu lệnh được chuẩn bị trên mọi thread, kể cả virtual thread chấm điểm gợi ý
+    static final LongAdder QUERY_COUNT = new LongAdder();
+
+    // Câu lệnh được chuẩn bị trên thread hiện tại: đo 1 lời gọi đồng bộ không lẫn query của thread khác
+    static final ThreadLocal<long[]> THREAD_QUERY_COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    static final AtomicReference<Dataset> DATASET = new AtomicReference<>();
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)
+                        ? new QueryCountingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public ApplicationRunner socialGraphGenerator(JdbcTemplate jdbcTemplate,
+                                                  @Value("${benchmark.posts:10000}") int posts,
+                                                  @Value("${benchmark.seed:42}") long seed) {
+        return args -> DATASET.set(new SocialGraphGenerator(jdbcTemplate, Scale.ofPosts(posts, seed)).generate());
+    }
+
+    static final class QueryCountingDataSource extends DelegatingDataSource {
+
+        QueryCountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private static Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (STATEMENT_METHODS.contains(method.getName())) {
+                            QUERY_COUNT.increment();
+                            THREAD_QUERY_COUNT.get()[0]++;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
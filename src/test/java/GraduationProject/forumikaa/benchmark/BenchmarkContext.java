@@ -0,0 +1,93 @@
+package GraduationProject.forumikaa.benchmark;
+
+import GraduationProject.forumikaa.ForumikaaApplication;
+import GraduationProject.forumikaa.benchmark.SocialGraphGenerator.Dataset;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Khởi động ứng dụng với profile "benchmark" (H2 chế độ PostgreSQL mặc định, hoặc Postgres qua BENCH_DB_URL).
+ * Số bài viết lấy từ system property benchmark.posts, mặc định 10000.
+ * startOnPostgres dùng Postgres của BENCH_DB_URL, nếu không có thì chạy 1 container PostgreSQL (cần Docker).
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+
+    private final ConfigurableApplicationContext context;
+    private final Dataset dataset;
+    private final PostgreSQLContainer postgres;
+
+    private BenchmarkContext(ConfigurableApplicationContext context, Dataset dataset, PostgreSQLContainer postgres) {
+        this.context = context;
+        this.dataset = dataset;
+        this.postgres = postgres;
+    }
+
+    static BenchmarkContext start(int posts) {
+        return start(posts, null);
+    }
+
+    static BenchmarkContext startOnPostgres(int posts) {
+        String url = System.getenv("BENCH_DB_URL");
+        if (url != null && url.startsWith("jdbc:postgresql:")) {
+            return start(posts);
+        }
+        PostgreSQLContainer postgres = new PostgreSQLContainer(POSTGRES_IMAGE);
+        postgres.start();
+        try {
+            return start(posts, postgres);
+        } catch (RuntimeException e) {
+            postgres.stop();
+            throw e;
+        }
+    }
+
+    private static BenchmarkContext start(int posts, PostgreSQLContainer postgres) {
+        List<String> properties = new ArrayList<>(List.of("benchmark.posts=" + posts, "server.port=0"));
+        if (postgres != null) {
+            properties.addAll(List.of(
+                    "spring.datasource.url=" + postgres.getJdbcUrl(),
+                    "spring.datasource.username=" + postgres.getUsername(),
+                    "spring.datasource.password=" + postgres.getPassword(),
+                    "spring.datasource.driver-class-name=org.postgresql.Driver",
+                    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                    "spring.quartz.jdbc.schema=classpath:db/quartz/tables_postgres.sql",
+                    "spring.quartz.properties.org.quartz.jobStore.driverDelegateClass="
+                            + "org.quartz.impl.jdbcjobstore.PostgreSQLDelegate"));
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ForumikaaApplication.class)
+                .profiles("benchmark")
+                .properties(properties.toArray(String[]::new))
+                .run();
+        return new BenchmarkContext(context, BenchmarkConfig.DATASET.get(), postgres);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    Dataset dataset() {
+        return dataset;
+    }
+
+    static long queryCount() {
+        return BenchmarkConfig.QUERY_COUNT.sum();
+    }
+
+    static long threadQueryCount() {
+        return BenchmarkConfig.THREAD_QUERY_COUNT.get()[0];
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package GraduationProject.forumikaa.benchmark;
+
+import GraduationProject.forumikaa.util.FriendGraph;
+import GraduationProject.forumikaa.util.FriendGraph.MutualCandidate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gợi ý bạn chung cho 1 user có friendCount bạn, mỗi bạn có friendCount bạn ngẫu nhiên trong users user.
+ *
+ * Chạy: mvn test-compile rồi chạy main() của class này với classpath test (hoặc từ IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendGraphBenchmark {
+
+    private static final long TARGET_USER = 0L;
+
+    @Param({"100", "500"})
+    private int friendCount;
+
+    @Param({"100000"})
+    private int users;
+
+    private FriendGraph graph;
+    private long[] candidatePool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        FriendGraph.Builder builder = FriendGraph.builder();
+        for (long friend = 1; friend <= friendCount; friend++) {
+            builder.addEdge(TARGET_USER, friend);
+            for (int i = 0; i < friendCount; i++) {
+                builder.addEdge(friend, 1 + random.nextInt(users));
+            }
+        }
+        graph = builder.build();
+        candidatePool = graph.friendsOf(graph.friendsOf(TARGET_USER)[0]);
+    }
+
+    @Benchmark
+    public List<MutualCandidate> mutualCandidatesTop20() {
+        return graph.mutualCandidates(TARGET_USER, 20);
+    }
+
+    @Benchmark
+    public int mutualCountWithFriendOfFriend() {
+        int total = 0;
+        for (long candidate : candidatePool) {
+            total += graph.mutualCount(TARGET_USER, candidate);
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FriendGraphBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
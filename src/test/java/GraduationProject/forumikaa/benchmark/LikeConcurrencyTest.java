@@ -0,0 +1,93 @@
+package GraduationProject.forumikaa.benchmark;
+
+import GraduationProject.forumikaa.dto.LikeToggleResult;
+import GraduationProject.forumikaa.entity.LikeableType;
+import GraduationProject.forumikaa.service.LikeService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Toggle like đồng thời trên database thật: INSERT ... ON CONFLICT DO NOTHING RETURNING và DELETE ... RETURNING.
+ * H2 không hỗ trợ RETURNING nên test luôn chạy trên PostgreSQL: BENCH_DB_URL nếu có, ngược lại 1 container.
+ * Không gắn tag benchmark: là test tính đúng, chạy trong mvn test mặc định (cần Docker khi không có BENCH_DB_URL).
+ */
+@Tag("postgres")
+class LikeConcurrencyTest {
+
+    private static BenchmarkContext context;
+
+    @BeforeAll
+    static void start() {
+        context = BenchmarkContext.startOnPostgres(1_000);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void toggle_ConcurrentTogglesOnOnePost_ShouldKeepDeltasConsistentWithRows() throws Exception {
+        JdbcTemplate jdbcTemplate = context.bean(JdbcTemplate.class);
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        assertEquals("PostgreSQL", database);
+
+        LikeService likeService = context.bean(LikeService.class);
+        long[] users = context.dataset().sampleUsers(4);
+        Long postId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM posts WHERE id >= ?", Long.class,
+                SocialGraphGenerator.ID_BASE);
+        long initialRows = countLikes(jdbcTemplate, postId);
+
+        int threads = 16;
+        int togglesPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Mỗi 4 thread chung 1 user (mô phỏng double-click / retry)
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long userId = users[i % users.length];
+            futures.add(executor.submit(() -> {
+                start.await();
+                long delta = 0;
+                for (int j = 0; j < togglesPerThread; j++) {
+                    LikeToggleResult result = likeService.toggle(userId, postId, LikeableType.POST);
+                    assertTrue(result.isLiked() ? result.getDelta() >= 0 : result.getDelta() == -1);
+                    delta += result.getDelta();
+                }
+                return delta;
+            }));
+        }
+        start.countDown();
+
+        long totalDelta = 0;
+        for (Future<Long> future : futures) {
+            totalDelta += future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Tổng delta (dùng để cập nhật like_count) khớp số row thực tế, không có lỗi unique constraint
+        assertEquals(countLikes(jdbcTemplate, postId) - initialRows, totalDelta);
+    }
+
+    private static long countLikes(JdbcTemplate jdbcTemplate, Long postId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM likes WHERE likeable_type = 'POST' AND likeable_id = ?", Long.class, postId);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,70 @@
+package GraduationProject.forumikaa.benchmark;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.service.PostHydrationService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Đếm câu lệnh SQL thật (qua DataSource đếm của profile benchmark, H2 chế độ PostgreSQL) khi hydrate 1 trang feed:
+ * số câu lệnh không phụ thuộc số bài viết trong trang. Chỉ đếm câu lệnh của thread gọi hydrate.
+ */
+@Tag("benchmark")
+class PostHydrationQueryCountTest {
+
+    // bài gốc, tác giả, nhóm, hashtag, tài liệu, trạng thái like của viewer, counter
+    private static final int QUERY_BUDGET = 8;
+
+    private static BenchmarkContext context;
+
+    @BeforeAll
+    static void start() {
+        context = BenchmarkContext.start(2_000);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void hydrate_ShouldIssueFixedNumberOfStatementsRegardlessOfPageSize() {
+        long viewerId = context.dataset().sampleUsers(1)[0];
+
+        long smallPage = countStatements(10, viewerId);
+        long largePage = countStatements(50, viewerId);
+
+        assertEquals(smallPage, largePage);
+        assertTrue(largePage <= QUERY_BUDGET, "hydrate dùng " + largePage + " câu lệnh SQL");
+    }
+
+    private long countStatements(int pageSize, long viewerId) {
+        TransactionTemplate transactionTemplate = context.bean(TransactionTemplate.class);
+        PostDao postDao = context.bean(PostDao.class);
+        PostHydrationService postHydrationService = context.bean(PostHydrationService.class);
+
+        Long count = transactionTemplate.execute(status -> {
+            List<Post> posts = postDao.findAll(PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "id"))).getContent();
+            assertEquals(pageSize, posts.size());
+
+            long before = BenchmarkContext.threadQueryCount();
+            List<PostResponse> responses = postHydrationService.hydrate(posts, viewerId);
+            long statements = BenchmarkContext.threadQueryCount() - before;
+
+            assertEquals(pageSize, responses.size());
+            return statements;
+        });
+        return count != null ? count : -1;
+    }
+}
@@ -0,0 +1,97 @@
+package GraduationProject.forumikaa.benchmark;
+
+import GraduationProject.forumikaa.dto.GroupRecommendationResponse;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.dto.UserRecommendationResponse;
+import GraduationProject.forumikaa.service.PostRecommendationService;
+import GraduationProject.forumikaa.service.RecommendationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gợi ý bài viết / user / nhóm trên dữ liệu sinh bởi SocialGraphGenerator, qua toàn bộ Spring context.
+ * Mode.SampleTime cho percentile p50/p90/p99; user được xoay vòng theo mẫu trải đều số bạn bè.
+ *
+ * Chạy: mvn test-compile rồi chạy main() của class này với classpath test (hoặc từ IDE).
+ * Postgres cục bộ: đặt BENCH_DB_URL, BENCH_DB_USER, BENCH_DB_PASSWORD, BENCH_DB_DRIVER, BENCH_DB_DIALECT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class RecommendationBenchmark {
+
+    private static final int LIMIT = 20;
+
+    @Param({"10000", "100000"})
+    private int posts;
+
+    private BenchmarkContext context;
+    private PostRecommendationService postRecommendationService;
+    private RecommendationService recommendationService;
+    private long[] users;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(posts);
+        postRecommendationService = context.bean(PostRecommendationService.class);
+        recommendationService = context.bean(RecommendationService.class);
+        users = context.dataset().sampleUsers(200);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long nextUser() {
+        next = (next + 1) % users.length;
+        return users[next];
+    }
+
+    @Benchmark
+    public List<PostResponse> personalizedPosts() {
+        return postRecommendationService.getPersonalizedContent(nextUser(), LIMIT);
+    }
+
+    @Benchmark
+    public List<PostResponse> trendingPosts() {
+        return postRecommendationService.getTrendingContent(nextUser(), LIMIT);
+    }
+
+    @Benchmark
+    public List<UserRecommendationResponse> recommendUsers() {
+        return recommendationService.recommendUsers(nextUser(), LIMIT);
+    }
+
+    @Benchmark
+    public List<GroupRecommendationResponse> recommendGroups() {
+        return recommendationService.recommendGroups(nextUser(), LIMIT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecommendationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package GraduationProject.forumikaa.benchmark;
+
+import GraduationProject.forumikaa.service.PostRecommendationService;
+import GraduationProject.forumikaa.service.RecommendationScoringService;
+import GraduationProject.forumikaa.service.RecommendationService;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Đo end-to-end các luồng gợi ý trên dữ liệu sinh bởi SocialGraphGenerator: mỗi luồng gọi lần lượt cho các user mẫu
+ * (trải đều theo số bạn bè), in p50 / p90 / p99 / max độ trễ và số câu lệnh SQL trung bình mỗi lần gọi.
+ *
+ * Chạy: mvn test-compile rồi chạy main() của class này với classpath test (hoặc từ IDE).
+ * Tham số: -Dbenchmark.posts=100000 -Dbenchmark.users=500 -Dbenchmark.rounds=3
+ */
+public class RecommendationEndToEndBenchmark {
+
+    private static final int LIMIT = 20;
+
+    public static void main(String[] args) {
+        int posts = Integer.getInteger("benchmark.posts", 10_000);
+        int sampleSize = Integer.getInteger("benchmark.users", 200);
+        int rounds = Integer.getInteger("benchmark.rounds", 3);
+
+        try (BenchmarkContext context = BenchmarkContext.start(posts)) {
+            PostRecommendationService postRecommendationService = context.bean(PostRecommendationService.class);
+            RecommendationService recommendationService = context.bean(RecommendationService.class);
+            long[] users = context.dataset().sampleUsers(sampleSize);
+
+            Map<String, LongFunction<List<?>>> flows = new LinkedHashMap<>();
+            flows.put("posts.personalized", user -> postRecommendationService.getPersonalizedContent(user, LIMIT));
+            flows.put("posts.trending", user -> postRecommendationService.getTrendingContent(user, LIMIT));
+            flows.put("users.combined", user -> recommendationService.recommendUsers(user, LIMIT));
+            flows.put("users.mutualFriends", user -> recommendationService.recommendUsersByMutualFriends(user, LIMIT));
+            flows.put("users.interests", user -> recommendationService.recommendUsersByInterests(user, LIMIT));
+            flows.put("users.recentInteractions", user -> recommendationService.recommendUsersByRecentInteractions(user, LIMIT));
+            flows.put("groups", user -> recommendationService.recommendGroups(user, LIMIT));
+
+            System.out.println("Dữ liệu: " + context.dataset());
+            System.out.printf("%-26s %8s %8s %8s %8s %8s %10s%n", "flow", "calls", "p50 ms", "p90 ms", "p99 ms", "max ms", "queries/op");
+            for (Map.Entry<String, LongFunction<List<?>>> flow : flows.entrySet()) {
+                // Vòng đầu là warm-up (JIT, cache kế hoạch truy vấn), không tính
+                run(flow.getValue(), users);
+                long queriesBefore = BenchmarkContext.queryCount();
+                long[] latencies = new long[users.length * rounds];
+                int calls = 0;
+                for (int round = 0; round < rounds; round++) {
+                    for (long nanos : run(flow.getValue(), users)) {
+                        latencies[calls++] = nanos;
+                    }
+                }
+                Arrays.sort(latencies);
+                System.out.printf("%-26s %8d %8.2f %8.2f %8.2f %8.2f %10.1f%n", flow.getKey(), calls,
+                        percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                        latencies[latencies.length - 1] / 1e6,
+                        (double) (BenchmarkContext.queryCount() - queriesBefore) / calls);
+            }
+            System.out.println("Chấm điểm: " + context.bean(RecommendationScoringService.class).getStats());
+        }
+    }
+
+    private static long[] run(LongFunction<List<?>> flow, long[] users) {
+        long[] latencies = new long[users.length];
+        for (int i = 0; i < users.length; i++) {
+            long startedAt = System.nanoTime();
+            flow.apply(users[i]);
+            latencies[i] = System.nanoTime() - startedAt;
+        }
+        return latencies;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+}
@@ -0,0 +1,574 @@
+package GraduationProject.forumikaa.benchmark;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Sinh dữ liệu mạng xã hội tổng hợp cho benchmark gợi ý, tất định theo Scale (cùng seed -> cùng dữ liệu).
+ *
+ * - Số bạn bè theo phân phối lũy thừa (Pareto, số mũ friendExponent), ghép cạnh theo configuration model.
+ * - Mức hoạt động của user, độ phổ biến của hashtag và nhóm theo phân phối Zipf.
+ * - Mỗi user có vài hashtag "ruột": bài viết chủ yếu dùng hashtag ruột của tác giả, một nửa lượt like / comment
+ *   đến từ bạn bè của tác giả - đủ để các index sở thích, bạn chung và nhóm có ứng viên thực tế.
+ *
+ * Id bắt đầu từ ID_BASE để không trùng dữ liệu khởi tạo của ứng dụng; chạy lại sẽ xóa dữ liệu benchmark cũ trước.
+ * Bảng dẫn xuất (user_topic_interests, interaction_aggregates) được tính bằng INSERT ... SELECT trên dữ liệu vừa sinh,
+ * chạy được trên cả H2 (chế độ PostgreSQL) và PostgreSQL.
+ */
+@Slf4j
+public class SocialGraphGenerator {
+
+    static final long ID_BASE = 10_000_000L;
+
+    private static final int BATCH_SIZE = 5_000;
+
+    // Không dùng để đăng nhập
+    private static final String PASSWORD_HASH = "{noop}benchmark";
+
+    static final String INTERESTS_SQL = """
+        INSERT INTO user_topic_interests (user_id, topic_id, authored_count, liked_count, commented_count, updated_at)
+        SELECT s.user_id, s.topic_id, SUM(s.authored), SUM(s.liked), SUM(s.commented), ?
+        FROM (
+            SELECT p.user_id, pt.topic_id, 1 AS authored, 0 AS liked, 0 AS commented
+            FROM posts p JOIN post_topics pt ON pt.post_id = p.id
+            WHERE p.id >= ?
+            UNION ALL
+            SELECT l.user_id, pt.topic_id, 0, 1, 0
+            FROM likes l JOIN post_topics pt ON pt.post_id = l.likeable_id
+            WHERE l.likeable_type = 'POST' AND l.id >= ?
+            UNION ALL
+            SELECT c.user_id, pt.topic_id, 0, 0, 1
+            FROM comments c JOIN post_topics pt ON pt.post_id = c.post_id
+            WHERE c.id >= ?
+        ) s
+        GROUP BY s.user_id, s.topic_id
+    """;
+
+    static final String INTERACTIONS_SQL = """
+        INSERT INTO interaction_aggregates (target_user_id, actor_id, like_count, comment_count, share_count,
+                                            interaction_count, last_interaction_at)
+        SELECT p.user_id, s.actor_id, SUM(s.liked), SUM(s.commented), 0, COUNT(*), MAX(s.created_at)
+        FROM (
+            SELECT l.user_id AS actor_id, l.likeable_id AS post_id, 1 AS liked, 0 AS commented, l.created_at
+            FROM likes l
+            WHERE l.likeable_type = 'POST' AND l.id >= ? AND l.created_at >= ?
+            UNION ALL
+            SELECT c.user_id, c.post_id, 0, 1, c.created_at
+            FROM comments c
+            WHERE c.id >= ? AND c.created_at >= ?
+        ) s
+        JOIN posts p ON p.id = s.post_id
+        WHERE p.user_id <> s.actor_id
+        GROUP BY p.user_id, s.actor_id
+    """;
+
+    // Thứ tự xóa ngược với thứ tự khóa ngoại
+    private static final String[] CLEANUP_SQL = {
+        "DELETE FROM interaction_aggregates WHERE target_user_id >= ?",
+        "DELETE FROM user_topic_interests WHERE user_id >= ?",
+        "DELETE FROM comments WHERE id >= ?",
+        "DELETE FROM likes WHERE id >= ?",
+        "DELETE FROM post_topics WHERE post_id >= ?",
+        "DELETE FROM posts WHERE id >= ?",
+        "DELETE FROM group_members WHERE id >= ?",
+        "DELETE FROM group_topics WHERE group_id >= ?",
+        "DELETE FROM groups WHERE id >= ?",
+        "DELETE FROM friendships WHERE id >= ?",
+        "DELETE FROM topics WHERE id >= ?",
+        "DELETE FROM user_profiles WHERE user_id >= ?",
+        "DELETE FROM users WHERE id >= ?"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Scale scale;
+    private final Random random;
+    private final LocalDateTime now;
+
+    private int[][] friends;
+    private int[][] homeTopics;
+    private int[][] userGroups;
+    private int friendshipCount;
+    private int membershipCount;
+    private long likeCount;
+    private long commentCount;
+
+    public SocialGraphGenerator(JdbcTemplate jdbcTemplate, Scale scale) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scale = scale;
+        this.random = new Random(scale.getSeed());
+        this.now = LocalDateTime.now().withNano(0);
+    }
+
+    public Dataset generate() {
+        long startedAt = System.currentTimeMillis();
+        for (String sql : CLEANUP_SQL) {
+            jdbcTemplate.update(sql, ID_BASE);
+        }
+
+        int users = scale.getUsers();
+        ZipfSampler topicPopularity = new ZipfSampler(scale.getTopics(), scale.getZipfExponent());
+        ZipfSampler activity = new ZipfSampler(users, scale.getZipfExponent());
+        // Hạng hoạt động -> user, để user hoạt động nhiều không trùng với user có nhiều bạn
+        int[] activityRank = permutation(users);
+
+        writeUsers(topicPopularity);
+        writeTopics();
+        friends = buildFriendGraph();
+        writeGroups(topicPopularity, activity, activityRank);
+        int[] topicUsage = writePosts(topicPopularity, activity, activityRank);
+
+        List<Object[]> usage = new ArrayList<>();
+        for (int topic = 0; topic < topicUsage.length; topic++) {
+            usage.add(new Object[]{topicUsage[topic], ID_BASE + topic});
+        }
+        batch("UPDATE topics SET usage_count = ? WHERE id = ?", usage);
+
+        Timestamp cutoff = Timestamp.valueOf(now.minusDays(scale.getInteractionWindowDays()));
+        jdbcTemplate.update(INTERESTS_SQL, Timestamp.valueOf(now), ID_BASE, ID_BASE, ID_BASE);
+        jdbcTemplate.update(INTERACTIONS_SQL, ID_BASE, cutoff, ID_BASE, cutoff);
+        analyzeIfPostgres();
+
+        Dataset dataset = new Dataset(users, scale.getPosts(), friendshipCount, scale.getGroups(), membershipCount,
+                likeCount, commentCount, degrees());
+        log.info("Đã sinh dữ liệu benchmark trong {} ms: {}", System.currentTimeMillis() - startedAt, dataset);
+        return dataset;
+    }
+
+    private void writeUsers(ZipfSampler topicPopularity) {
+        homeTopics = new int[scale.getUsers()][];
+        BatchWriter userRows = new BatchWriter("""
+            INSERT INTO users (id, username, password, email, first_name, last_name, enabled, online_status, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, TRUE, FALSE, ?)
+        """);
+        BatchWriter profileRows = new BatchWriter("INSERT INTO user_profiles (user_id) VALUES (?)");
+        for (int user = 0; user < scale.getUsers(); user++) {
+            long id = ID_BASE + user;
+            userRows.add(id, "bench_" + user, PASSWORD_HASH, "bench_" + user + "@bench.local", "Bench", "User " + user,
+                    timestamp(scale.getDays() * 2));
+            profileRows.add(id);
+            homeTopics[user] = distinct(topicPopularity, scale.getHomeTopics());
+            if (userRows.isFull()) {
+                userRows.flush();
+                profileRows.flush();
+            }
+        }
+        userRows.flush();
+        profileRows.flush();
+    }
+
+    private void writeTopics() {
+        BatchWriter topicRows = new BatchWriter("INSERT INTO topics (id, name, usage_count, created_at) VALUES (?, ?, 0, ?)");
+        for (int topic = 0; topic < scale.getTopics(); topic++) {
+            topicRows.add(ID_BASE + topic, "bench_topic_" + topic, Timestamp.valueOf(now.minusDays(scale.getDays() * 2L)));
+        }
+        topicRows.flush();
+    }
+
+    // Configuration model: mỗi user có degree "đầu cạnh", xáo trộn rồi ghép từng cặp; bỏ vòng và cạnh trùng
+    private int[][] buildFriendGraph() {
+        int users = scale.getUsers();
+        int maxDegree = Math.min(scale.getMaxFriends(), users - 1);
+        int[] wanted = new int[users];
+        long stubCount = 0;
+        for (int user = 0; user < users; user++) {
+            double degree = scale.getMinFriends() * Math.pow(1 - random.nextDouble(), -1.0 / (scale.getFriendExponent() - 1));
+            wanted[user] = (int) Math.min(maxDegree, degree);
+            stubCount += wanted[user];
+        }
+        int[] stubs = new int[(int) stubCount];
+        int position = 0;
+        for (int user = 0; user < users; user++) {
+            for (int i = 0; i < wanted[user]; i++) {
+                stubs[position++] = user;
+            }
+        }
+        shuffle(stubs);
+
+        Set<Long> edges = new HashSet<>();
+        int[] degree = new int[users];
+        List<int[]> pairs = new ArrayList<>();
+        BatchWriter friendshipRows = new BatchWriter("""
+            INSERT INTO friendships (id, user_id, friend_id, status, created_at, updated_at)
+            VALUES (?, ?, ?, 'ACCEPTED', ?, ?)
+        """);
+        for (int i = 0; i + 1 < stubs.length; i += 2) {
+            int a = stubs[i];
+            int b = stubs[i + 1];
+            if (a == b || !edges.add((long) Math.min(a, b) * users + Math.max(a, b))) {
+                continue;
+            }
+            pairs.add(new int[]{a, b});
+            degree[a]++;
+            degree[b]++;
+            Timestamp createdAt = timestamp(scale.getDays() * 2);
+            friendshipRows.add(ID_BASE + friendshipCount++, ID_BASE + a, ID_BASE + b, createdAt, createdAt);
+            friendshipRows.flushIfFull();
+        }
+        friendshipRows.flush();
+
+        int[][] adjacency = new int[users][];
+        for (int user = 0; user < users; user++) {
+            adjacency[user] = new int[degree[user]];
+        }
+        int[] filled = new int[users];
+        for (int[] pair : pairs) {
+            adjacency[pair[0]][filled[pair[0]]++] = pair[1];
+            adjacency[pair[1]][filled[pair[1]]++] = pair[0];
+        }
+        return adjacency;
+    }
+
+    // Nhóm có hashtag khai báo theo độ phổ biến; user tham gia nhóm của bạn bè hoặc nhóm phổ biến
+    private void writeGroups(ZipfSampler topicPopularity, ZipfSampler activity, int[] activityRank) {
+        int groups = scale.getGroups();
+        ZipfSampler groupPopularity = new ZipfSampler(groups, scale.getZipfExponent());
+        List<Set<Integer>> joined = new ArrayList<>();
+        for (int user = 0; user < scale.getUsers(); user++) {
+            joined.add(new HashSet<>());
+        }
+        long[] memberCount = new long[groups];
+        int[] creators = new int[groups];
+        for (int group = 0; group < groups; group++) {
+            creators[group] = activityRank[activity.sample()];
+            joined.get(creators[group]).add(group);
+            memberCount[group]++;
+        }
+        for (int user = 0; user < scale.getUsers(); user++) {
+            int wanted = (int) (-Math.log(1 - random.nextDouble()) * scale.getGroupsPerUser());
+            for (int attempt = 0; attempt < wanted * 2 && joined.get(user).size() < wanted; attempt++) {
+                int group = groupPopularity.sample();
+                if (random.nextBoolean() && friends[user].length > 0) {
+                    Set<Integer> friendGroups = joined.get(friends[user][random.nextInt(friends[user].length)]);
+                    if (!friendGroups.isEmpty()) {
+                        group = friendGroups.iterator().next();
+                    }
+                }
+                if (joined.get(user).add(group)) {
+                    memberCount[group]++;
+                }
+            }
+        }
+
+        BatchWriter groupRows = new BatchWriter("""
+            INSERT INTO groups (id, name, description, created_by, created_at, member_count)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """);
+        BatchWriter groupTopicRows = new BatchWriter("INSERT INTO group_topics (group_id, topic_id) VALUES (?, ?)");
+        for (int group = 0; group < groups; group++) {
+            groupRows.add(ID_BASE + group, "Bench group " + group, "Nhóm sinh cho benchmark", ID_BASE + creators[group],
+                    timestamp(scale.getDays() * 2), memberCount[group]);
+            for (int topic : distinct(topicPopularity, 1 + random.nextInt(3))) {
+                groupTopicRows.add(ID_BASE + group, ID_BASE + topic);
+            }
+        }
+        groupRows.flush();
+        groupTopicRows.flush();
+
+        userGroups = new int[scale.getUsers()][];
+        BatchWriter memberRows = new BatchWriter("""
+            INSERT INTO group_members (id, group_id, user_id, role, joined_at) VALUES (?, ?, ?, ?, ?)
+        """);
+        for (int user = 0; user < scale.getUsers(); user++) {
+            userGroups[user] = joined.get(user).stream().mapToInt(Integer::intValue).sorted().toArray();
+            for (int group : userGroups[user]) {
+                memberRows.add(ID_BASE + membershipCount++, ID_BASE + group, ID_BASE + user,
+                        creators[group] == user ? "ADMIN" : "MEMBER", timestamp(scale.getDays() * 2));
+                memberRows.flushIfFull();
+            }
+        }
+        memberRows.flush();
+    }
+
+    /**
+     * Bài viết cùng lượt like / comment của nó; comment tham chiếu bài viết nên bài viết luôn được ghi trước.
+     *
+     * @return số bài viết theo từng hashtag
+     */
+    private int[] writePosts(ZipfSampler topicPopularity, ZipfSampler activity, int[] activityRank) {
+        int[] topicUsage = new int[scale.getTopics()];
+        BatchWriter postRows = new BatchWriter("""
+            INSERT INTO posts (id, title, content, user_id, group_id, like_count, comment_count, share_count,
+                               created_at, updated_at, status, privacy)
+            VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?, 'APPROVED', ?)
+        """);
+        BatchWriter postTopicRows = new BatchWriter("INSERT INTO post_topics (post_id, topic_id) VALUES (?, ?)");
+        BatchWriter likeRows = new BatchWriter("""
+            INSERT INTO likes (id, user_id, likeable_id, likeable_type, created_at) VALUES (?, ?, ?, 'POST', ?)
+        """);
+        BatchWriter commentRows = new BatchWriter("""
+            INSERT INTO comments (id, user_id, post_id, content, created_at) VALUES (?, ?, ?, ?, ?)
+        """);
+
+        for (int post = 0; post < scale.getPosts(); post++) {
+            long postId = ID_BASE + post;
+            int author = activityRank[activity.sample()];
+            LocalDateTime createdAt = now.minusSeconds((long) (random.nextDouble() * scale.getDays() * 86_400L));
+
+            Set<Integer> topics = new HashSet<>();
+            int topicCount = 1 + (random.nextDouble() < 0.35 ? 1 : 0) + (random.nextDouble() < 0.1 ? 1 : 0);
+            while (topics.size() < topicCount) {
+                topics.add(random.nextDouble() < 0.7
+                        ? homeTopics[author][random.nextInt(homeTopics[author].length)]
+                        : topicPopularity.sample());
+            }
+            for (int topic : topics) {
+                topicUsage[topic]++;
+                postTopicRows.add(postId, ID_BASE + topic);
+            }
+
+            Long groupId = null;
+            if (userGroups[author].length > 0 && random.nextDouble() < scale.getGroupPostRatio()) {
+                groupId = ID_BASE + userGroups[author][random.nextInt(userGroups[author].length)];
+            }
+            double privacyRoll = random.nextDouble();
+            String privacy = privacyRoll < 0.8 ? "PUBLIC" : privacyRoll < 0.95 ? "FRIENDS" : "PRIVATE";
+
+            long secondsSincePost = Duration.between(createdAt, now).getSeconds();
+            Set<Integer> likers = new HashSet<>();
+            int wantedLikes = (int) Math.min(scale.getUsers() - 1, -Math.log(1 - random.nextDouble()) * scale.getLikesPerPost());
+            for (int attempt = 0; attempt < wantedLikes * 4 && likers.size() < wantedLikes; attempt++) {
+                int liker = reactor(author, activity, activityRank);
+                if (liker != author && likers.add(liker)) {
+                    likeRows.add(ID_BASE + likeCount++, ID_BASE + liker, postId, after(createdAt, secondsSincePost));
+                }
+            }
+            int comments = (int) (-Math.log(1 - random.nextDouble()) * scale.getCommentsPerPost());
+            for (int i = 0; i < comments; i++) {
+                int commenter = reactor(author, activity, activityRank);
+                commentRows.add(ID_BASE + commentCount++, ID_BASE + commenter, postId, "Bình luận " + i,
+                        after(createdAt, secondsSincePost));
+            }
+
+            postRows.add(postId, "Bench post " + post, "Nội dung bài viết benchmark " + post, ID_BASE + author, groupId,
+                    (long) likers.size(), (long) comments, Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt), privacy);
+            if (postRows.isFull() || likeRows.isFull() || commentRows.isFull()) {
+                postRows.flush();
+                postTopicRows.flush();
+                likeRows.flush();
+                commentRows.flush();
+            }
+        }
+        postRows.flush();
+        postTopicRows.flush();
+        likeRows.flush();
+        commentRows.flush();
+        return topicUsage;
+    }
+
+    // Một nửa lượt tương tác đến từ bạn bè của tác giả, còn lại từ user hoạt động nhiều
+    private int reactor(int author, ZipfSampler activity, int[] activityRank) {
+        if (friends[author].length > 0 && random.nextBoolean()) {
+            return friends[author][random.nextInt(friends[author].length)];
+        }
+        return activityRank[activity.sample()];
+    }
+
+    private Timestamp after(LocalDateTime createdAt, long maxSeconds) {
+        return Timestamp.valueOf(createdAt.plusSeconds((long) (random.nextDouble() * maxSeconds)));
+    }
+
+    private Timestamp timestamp(int maxDaysAgo) {
+        return Timestamp.valueOf(now.minusSeconds((long) (random.nextDouble() * maxDaysAgo * 86_400L)));
+    }
+
+    private int[] distinct(ZipfSampler sampler, int count) {
+        Set<Integer> values = new HashSet<>();
+        for (int attempt = 0; attempt < count * 4 && values.size() < count; attempt++) {
+            values.add(sampler.sample());
+        }
+        return values.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private int[] permutation(int size) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        shuffle(values);
+        return values;
+    }
+
+    private void shuffle(int[] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    private int[] degrees() {
+        int[] degrees = new int[friends.length];
+        for (int user = 0; user < friends.length; user++) {
+            degrees[user] = friends[user].length;
+        }
+        return degrees;
+    }
+
+    private void analyzeIfPostgres() {
+        String product = jdbcTemplate.execute((Connection connection) -> {
+            try {
+                return connection.getMetaData().getDatabaseProductName();
+            } catch (SQLException e) {
+                return "";
+            }
+        });
+        if ("PostgreSQL".equals(product)) {
+            jdbcTemplate.execute("ANALYZE");
+        }
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    // Gom các dòng cùng câu lệnh rồi ghi bằng JDBC batch
+    private final class BatchWriter {
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        private BatchWriter(String sql) {
+            this.sql = sql;
+        }
+
+        private void add(Object... row) {
+            rows.add(row);
+        }
+
+        private boolean isFull() {
+            return rows.size() >= BATCH_SIZE;
+        }
+
+        private void flushIfFull() {
+            if (isFull()) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+
+    // Lấy mẫu hạng 0..size-1 với xác suất tỉ lệ 1 / (hạng + 1)^exponent
+    private final class ZipfSampler {
+        private final double[] cumulative;
+
+        private ZipfSampler(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 0; rank < size; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+        }
+
+        private int sample() {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+
+    /**
+     * Quy mô dữ liệu. ofPosts(n) suy ra các thông số còn lại từ số bài viết (10k - 1M).
+     */
+    @Getter
+    @Builder
+    public static final class Scale {
+        @Builder.Default private final int posts = 10_000;
+        @Builder.Default private final int users = 1_000;
+        @Builder.Default private final int groups = 20;
+        @Builder.Default private final int topics = 50;
+        @Builder.Default private final int homeTopics = 3;
+        @Builder.Default private final int minFriends = 5;
+        @Builder.Default private final int maxFriends = 2_000;
+        // Số mũ của phân phối lũy thừa số bạn bè: P(degree >= k) ~ k^-(friendExponent - 1)
+        @Builder.Default private final double friendExponent = 2.3;
+        @Builder.Default private final double zipfExponent = 1.0;
+        @Builder.Default private final double groupsPerUser = 2.0;
+        @Builder.Default private final double groupPostRatio = 0.2;
+        @Builder.Default private final double likesPerPost = 5.0;
+        @Builder.Default private final double commentsPerPost = 2.0;
+        // Bài viết trải đều trong days ngày gần nhất
+        @Builder.Default private final int days = 45;
+        @Builder.Default private final int interactionWindowDays = 30;
+        @Builder.Default private final long seed = 42L;
+
+        public static Scale ofPosts(int posts, long seed) {
+            int users = Math.max(100, posts / 10);
+            return Scale.builder()
+                    .posts(posts)
+                    .users(users)
+                    .groups(Math.max(10, users / 50))
+                    .topics(Math.max(50, Math.min(2_000, posts / 200)))
+                    .seed(seed)
+                    .build();
+        }
+    }
+
+    @Getter
+    public static final class Dataset {
+        private final int users;
+        private final int posts;
+        private final int friendships;
+        private final int groups;
+        private final int memberships;
+        private final long likes;
+        private final long comments;
+        private final int[] degrees;
+
+        private Dataset(int users, int posts, int friendships, int groups, int memberships, long likes, long comments, int[] degrees) {
+            this.users = users;
+            this.posts = posts;
+            this.friendships = friendships;
+            this.groups = groups;
+            this.memberships = memberships;
+            this.likes = likes;
+            this.comments = comments;
+            this.degrees = degrees;
+        }
+
+        /**
+         * count user trải đều theo số bạn bè (nhiều nhất trước) - percentile độ trễ phản ánh cả user "nặng"
+         */
+        public long[] sampleUsers(int count) {
+            Integer[] byDegree = new Integer[users];
+            for (int user = 0; user < users; user++) {
+                byDegree[user] = user;
+            }
+            Arrays.sort(byDegree, (a, b) -> degrees[b] != degrees[a] ? Integer.compare(degrees[b], degrees[a]) : Integer.compare(a, b));
+            int size = Math.min(count, users);
+            long[] sample = new long[size];
+            for (int i = 0; i < size; i++) {
+                sample[i] = ID_BASE + byDegree[(int) ((long) i * users / size)];
+            }
+            return sample;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d users, %d friendships, %d groups, %d memberships, %d posts, %d likes, %d comments",
+                    users, friendships, groups, memberships, posts, likes, comments);
+        }
+    }
+}
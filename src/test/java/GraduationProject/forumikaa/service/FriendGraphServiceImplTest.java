@@ -0,0 +1,92 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.util.FriendGraph.MutualCandidate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendGraphServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private FriendGraphServiceImpl friendGraphService;
+
+    @Test
+    void recommendsFriendsOfFriendsByMutualCount() throws Exception {
+        // 1 - {2, 3, 4}; 5 quen 2, 3, 4; 6 quen 2; 7 quen 3, 4
+        givenEdges(new long[][]{{1, 2}, {1, 3}, {4, 1}, {2, 5}, {3, 5}, {5, 4}, {2, 6}, {3, 7}, {7, 4}, {2, 1}});
+        friendGraphService.warmUp();
+
+        List<MutualCandidate> candidates = friendGraphService.recommendByMutualFriends(1L, 10);
+
+        assertEquals(List.of(5L, 7L, 6L), candidates.stream().map(MutualCandidate::getUserId).collect(Collectors.toList()));
+        assertEquals(List.of(3, 2, 1), candidates.stream().map(MutualCandidate::getMutualFriends).collect(Collectors.toList()));
+        assertEquals(3, friendGraphService.countMutualFriends(1L, 5L));
+        assertArrayEquals(new long[]{2, 3, 4}, friendGraphService.getFriendIds(1L));
+        assertEquals(1, friendGraphService.recommendByMutualFriends(1L, 1).size());
+    }
+
+    @Test
+    void acceptAndUnfriendUpdateGraphIncrementally() throws Exception {
+        givenEdges(new long[][]{{1, 2}, {2, 3}});
+        friendGraphService.warmUp();
+        assertEquals(List.of(3L), ids(friendGraphService.recommendByMutualFriends(1L, 10)));
+
+        friendGraphService.onFriendshipAccepted(3L, 1L);
+        assertTrue(friendGraphService.recommendByMutualFriends(1L, 10).isEmpty());
+        assertArrayEquals(new long[]{2, 3}, friendGraphService.getFriendIds(1L));
+
+        friendGraphService.onFriendshipRemoved(1L, 2L);
+        assertArrayEquals(new long[]{3}, friendGraphService.getFriendIds(1L));
+        assertEquals(List.of(2L), ids(friendGraphService.recommendByMutualFriends(1L, 10)));
+    }
+
+    @Test
+    void changesDuringRebuildAreReplayedOnNewGraph() throws Exception {
+        doAnswer(inv -> {
+            // Kết bạn được commit khi query nạp cạnh đang chạy (không có trong kết quả)
+            friendGraphService.onFriendshipAccepted(1L, 9L);
+            feed(inv.getArgument(1), new long[][]{{1, 2}});
+            return null;
+        }).when(jdbcTemplate).query(eq(FriendGraphServiceImpl.LOAD_EDGES_SQL), any(RowCallbackHandler.class));
+
+        friendGraphService.rebuild();
+
+        assertArrayEquals(new long[]{2, 9}, friendGraphService.getFriendIds(1L));
+    }
+
+    private void givenEdges(long[][] edges) {
+        doAnswer(inv -> {
+            feed(inv.getArgument(1), edges);
+            return null;
+        }).when(jdbcTemplate).query(eq(FriendGraphServiceImpl.LOAD_EDGES_SQL), any(RowCallbackHandler.class));
+    }
+
+    private static void feed(RowCallbackHandler handler, long[][] edges) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        for (long[] edge : edges) {
+            when(rs.getLong(1)).thenReturn(edge[0]);
+            when(rs.getLong(2)).thenReturn(edge[1]);
+            handler.processRow(rs);
+        }
+    }
+
+    private static List<Long> ids(List<MutualCandidate> candidates) {
+        return candidates.stream().map(MutualCandidate::getUserId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,115 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.entity.Group;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.util.GroupIndex.GroupCandidate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupIndexServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserInterestService userInterestService;
+
+    @Mock
+    private FriendGraphService friendGraphService;
+
+    @InjectMocks
+    private GroupIndexServiceImpl groupIndexService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(groupIndexService, "declaredTopicWeight", 1.0);
+        ReflectionTestUtils.setField(groupIndexService, "topicWeight", 3.0);
+        ReflectionTestUtils.setField(groupIndexService, "friendWeight", 1.0);
+        ReflectionTestUtils.setField(groupIndexService, "popularityWeight", 0.1);
+        ReflectionTestUtils.setField(groupIndexService, "popularSize", 10);
+        ReflectionTestUtils.setField(groupIndexService, "maxScanned", 20_000);
+    }
+
+    @Test
+    void recommendGroups_ShouldScoreTopicAndFriendCandidatesThenFillWithPopular() throws Exception {
+        // Nhóm 10 khai báo hashtag 1, nhóm 20 có bài viết hashtag 1, 2; bạn bè 7, 8 ở nhóm 30; user 1 đã ở nhóm 50
+        givenRows(GroupIndexServiceImpl.LOAD_GROUPS_SQL, new long[][]{{10}, {20}, {30}, {40}, {50}});
+        givenRows(GroupIndexServiceImpl.LOAD_DECLARED_TOPICS_SQL, new long[][]{{10, 1}, {50, 1}});
+        givenRows(GroupIndexServiceImpl.LOAD_POST_TOPICS_SQL, new long[][]{{20, 1, 1}, {20, 2, 3}});
+        givenRows(GroupIndexServiceImpl.LOAD_MEMBERS_SQL, new long[][]{
+                {30, 7}, {30, 8}, {50, 1}, {40, 100}, {40, 101}, {40, 102}, {40, 103}, {40, 104}});
+        groupIndexService.warmUp();
+        when(userInterestService.getTopicWeights(1L)).thenReturn(Map.of(1L, 3.0));
+        when(friendGraphService.getFriendIds(1L)).thenReturn(new long[]{7L, 8L});
+
+        List<GroupCandidate> candidates = groupIndexService.recommendGroups(1L, 10);
+
+        assertEquals(List.of(10L, 30L, 20L, 40L), candidates.stream().map(GroupCandidate::getGroupId).collect(Collectors.toList()));
+        assertEquals(3.0, candidates.get(0).getScore(), 1e-9);
+        assertEquals(List.of(1L), candidates.get(0).getCommonTopicIds());
+        assertEquals(2, candidates.get(1).getFriendsInGroup());
+        assertEquals(3.0 * 0.25 / Math.sqrt(0.25 * 0.25 + 0.75 * 0.75), candidates.get(2).getScore(), 1e-9);
+        assertEquals(5, candidates.get(3).getMemberCount());
+        assertArrayEquals(new long[]{50L}, groupIndexService.getJoinedGroupIds(1L));
+    }
+
+    @Test
+    void membershipAndTopicChanges_ShouldApplyIncrementally() {
+        when(userInterestService.getTopicWeights(1L)).thenReturn(Map.of(5L, 1.0));
+        when(friendGraphService.getFriendIds(1L)).thenReturn(new long[0]);
+        Group group = new Group();
+        group.setId(60L);
+        Topic topic = new Topic();
+        topic.setId(5L);
+        group.setTopics(Set.of(topic));
+
+        groupIndexService.onGroupSaved(group);
+        assertEquals(List.of(60L), ids(groupIndexService.recommendGroups(1L, 10)));
+
+        groupIndexService.onMemberAdded(60L, 1L);
+        assertTrue(groupIndexService.recommendGroups(1L, 10).isEmpty());
+        assertArrayEquals(new long[]{60L}, groupIndexService.getJoinedGroupIds(1L));
+
+        groupIndexService.onMemberRemoved(60L, 1L);
+        assertEquals(List.of(60L), ids(groupIndexService.recommendGroups(1L, 10)));
+
+        groupIndexService.onGroupDeleted(60L);
+        assertTrue(groupIndexService.recommendGroups(1L, 10).isEmpty());
+    }
+
+    private void givenRows(String sql, long[][] rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            for (long[] row : rows) {
+                for (int column = 0; column < row.length; column++) {
+                    when(rs.getLong(column + 1)).thenReturn(row[column]);
+                }
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(sql), any(RowCallbackHandler.class));
+    }
+
+    private static List<Long> ids(List<GroupCandidate> candidates) {
+        return candidates.stream().map(GroupCandidate::getGroupId).collect(Collectors.toList());
+    }
+}
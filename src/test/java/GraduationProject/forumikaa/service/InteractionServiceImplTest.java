@@ -0,0 +1,111 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.InteractionAggregateDao;
+import GraduationProject.forumikaa.dao.InteractionEventDao;
+import GraduationProject.forumikaa.entity.InteractionEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InteractionServiceImplTest {
+
+    @Mock
+    private InteractionEventDao interactionEventDao;
+
+    @Mock
+    private InteractionAggregateDao interactionAggregateDao;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private InteractionServiceImpl interactionService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(interactionService, "window", Duration.ofDays(30));
+        ReflectionTestUtils.setField(interactionService, "batchSize", 2);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void record_ShouldAppendEventButSkipOwnPosts() {
+        interactionService.record(1L, 2L, InteractionEvent.Type.COMMENT);
+        interactionService.record(2L, 2L, InteractionEvent.Type.LIKE);
+
+        ArgumentCaptor<InteractionEvent> captor = ArgumentCaptor.forClass(InteractionEvent.class);
+        verify(interactionEventDao, times(1)).save(captor.capture());
+        assertEquals(1L, captor.getValue().getActorId());
+        assertEquals(2L, captor.getValue().getTargetUserId());
+        assertEquals(InteractionEvent.Type.COMMENT, captor.getValue().getType());
+        assertNotNull(captor.getValue().getCreatedAt());
+        assertFalse(captor.getValue().getCompacted());
+    }
+
+    @Test
+    void retract_ShouldRemoveLatestEventOfPairButSkipOwnPosts() {
+        interactionService.retract(1L, 2L, InteractionEvent.Type.LIKE);
+        interactionService.retract(2L, 2L, InteractionEvent.Type.LIKE);
+
+        verify(jdbcTemplate).queryForObject(InteractionServiceImpl.RETRACT_SQL, Integer.class, 1L, 2L, "LIKE");
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void compact_ShouldDrainFullBatchesThenExpireAndDropEmptyAggregates() {
+        when(jdbcTemplate.queryForObject(eq(InteractionServiceImpl.COMPACT_SQL), eq(Integer.class), any(Timestamp.class), eq(2)))
+                .thenReturn(2, 2, 1);
+        when(jdbcTemplate.queryForObject(eq(InteractionServiceImpl.EXPIRE_SQL), eq(Integer.class), any(Timestamp.class), eq(2)))
+                .thenReturn(1);
+
+        assertEquals(6, interactionService.compact());
+
+        verify(jdbcTemplate, times(3)).queryForObject(eq(InteractionServiceImpl.COMPACT_SQL), eq(Integer.class), any(Timestamp.class), eq(2));
+        verify(interactionAggregateDao).deleteEmpty();
+    }
+
+    @Test
+    void compact_NothingExpired_ShouldNotTouchAggregates() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(Timestamp.class), eq(2))).thenReturn(0);
+
+        assertEquals(0, interactionService.compact());
+        verify(interactionAggregateDao, never()).deleteEmpty();
+    }
+
+    @Test
+    void compact_DatabaseError_ShouldKeepEventsForNextRun() {
+        when(jdbcTemplate.queryForObject(eq(InteractionServiceImpl.COMPACT_SQL), eq(Integer.class), any(Timestamp.class), eq(2)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        assertEquals(0, interactionService.compact());
+        verify(jdbcTemplate, never()).queryForObject(eq(InteractionServiceImpl.EXPIRE_SQL), eq(Integer.class), any(), any());
+    }
+}
@@ -0,0 +1,148 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.LikeDao;
+import GraduationProject.forumikaa.entity.LikeableType;
+import GraduationProject.forumikaa.util.CompactIdSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeCacheServiceImplTest {
+
+    @Mock
+    private LikeDao likeDao;
+
+    @InjectMocks
+    private LikeCacheServiceImpl likeCacheService;
+
+    private long now = 1_000_000L;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(likeCacheService, "enabled", true);
+        ReflectionTestUtils.setField(likeCacheService, "memoryBudget", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(likeCacheService, "ttl", Duration.ofMinutes(5));
+        likeCacheService.clock = () -> now;
+    }
+
+    @Test
+    void filterLiked_ShouldLoadOnceThenAnswerFromMemory() {
+        when(likeDao.findAllLikedIdsByUser(1L, LikeableType.POST)).thenReturn(List.of(3L, 7L, 100_000L));
+
+        Set<Long> first = likeCacheService.filterLiked(1L, LikeableType.POST, List.of(1L, 3L, 5L, 7L));
+        Set<Long> second = likeCacheService.filterLiked(1L, LikeableType.POST, List.of(100_000L, 100_001L));
+
+        assertEquals(Set.of(3L, 7L), first);
+        assertEquals(Set.of(100_000L), second);
+        verify(likeDao, times(1)).findAllLikedIdsByUser(1L, LikeableType.POST);
+        verify(likeDao, never()).existsByUserIdAndLikeableIdAndLikeableType(anyLong(), anyLong(), any());
+
+        Map<String, Object> stats = likeCacheService.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(1, stats.get("entries"));
+    }
+
+    @Test
+    void isLiked_AfterTtl_ShouldReloadChangesMadeOnOtherNodes() {
+        when(likeDao.findAllLikedIdsByUser(1L, LikeableType.POST)).thenReturn(List.of(3L), List.of(3L, 4L));
+
+        assertFalse(likeCacheService.isLiked(1L, 4L, LikeableType.POST));
+        now += Duration.ofMinutes(4).toMillis();
+        assertFalse(likeCacheService.isLiked(1L, 4L, LikeableType.POST));
+
+        // Like trên node khác không qua onLikeChanged ở node này: thấy được sau ttl
+        now += Duration.ofMinutes(2).toMillis();
+        assertTrue(likeCacheService.isLiked(1L, 4L, LikeableType.POST));
+        verify(likeDao, times(2)).findAllLikedIdsByUser(1L, LikeableType.POST);
+        assertEquals(1L, likeCacheService.getStats().get("expirations"));
+    }
+
+    @Test
+    void onLikeChanged_ShouldUpdateLoadedBitmapInPlace() {
+        when(likeDao.findAllLikedIdsByUser(1L, LikeableType.POST)).thenReturn(List.of(3L));
+        assertFalse(likeCacheService.isLiked(1L, 4L, LikeableType.POST));
+
+        likeCacheService.onLikeChanged(1L, 4L, LikeableType.POST, true);
+        likeCacheService.onLikeChanged(1L, 3L, LikeableType.POST, false);
+
+        assertTrue(likeCacheService.isLiked(1L, 4L, LikeableType.POST));
+        assertFalse(likeCacheService.isLiked(1L, 3L, LikeableType.POST));
+        verify(likeDao, times(1)).findAllLikedIdsByUser(1L, LikeableType.POST);
+    }
+
+    @Test
+    void postAndCommentLikes_ShouldBeCachedSeparately() {
+        when(likeDao.findAllLikedIdsByUser(1L, LikeableType.POST)).thenReturn(List.of(5L));
+        when(likeDao.findAllLikedIdsByUser(1L, LikeableType.COMMENT)).thenReturn(List.of());
+
+        assertTrue(likeCacheService.isLiked(1L, 5L, LikeableType.POST));
+        assertFalse(likeCacheService.isLiked(1L, 5L, LikeableType.COMMENT));
+    }
+
+    @Test
+    void memoryBudget_ShouldEvictLeastRecentlyUsedViewers() {
+        // Mỗi user ~ vài trăm byte: budget 1KB chỉ giữ được vài entry
+        ReflectionTestUtils.setField(likeCacheService, "memoryBudget", DataSize.ofBytes(1024));
+        List<Long> likes = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            likes.add(id);
+        }
+        when(likeDao.findAllLikedIdsByUser(anyLong(), eq(LikeableType.POST))).thenReturn(likes);
+
+        for (long userId = 1; userId <= 10; userId++) {
+            likeCacheService.isLiked(userId, 1L, LikeableType.POST);
+        }
+
+        Map<String, Object> stats = likeCacheService.getStats();
+        assertTrue((Long) stats.get("usedBytes") <= 1024);
+        assertTrue((Long) stats.get("evictions") > 0);
+
+        // User gần nhất vẫn trong cache, user đầu tiên đã bị loại và phải nạp lại
+        likeCacheService.isLiked(10L, 1L, LikeableType.POST);
+        verify(likeDao, times(1)).findAllLikedIdsByUser(10L, LikeableType.POST);
+        likeCacheService.isLiked(1L, 1L, LikeableType.POST);
+        verify(likeDao, times(2)).findAllLikedIdsByUser(1L, LikeableType.POST);
+    }
+
+    @Test
+    void whenDisabled_ShouldQueryDatabaseDirectly() {
+        ReflectionTestUtils.setField(likeCacheService, "enabled", false);
+        when(likeDao.existsByUserIdAndLikeableIdAndLikeableType(1L, 2L, LikeableType.POST)).thenReturn(true);
+
+        assertTrue(likeCacheService.isLiked(1L, 2L, LikeableType.POST));
+        verify(likeDao, never()).findAllLikedIdsByUser(anyLong(), any());
+    }
+
+    @Test
+    void compactIdSet_ShouldSwitchDenseContainersToBitmap() {
+        CompactIdSet set = new CompactIdSet();
+        for (long id = 0; id < 10_000; id++) {
+            assertTrue(set.add(id * 2));
+        }
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(19_998L));
+        assertFalse(set.contains(19_999L));
+        assertTrue(set.remove(19_998L));
+        assertFalse(set.contains(19_998L));
+        assertEquals(9_999, set.cardinality());
+        // 10k id trong 1 container dày: bitmap 8KB thay vì ~80KB với HashSet<Long>
+        assertTrue(set.estimatedBytes() < 10_000);
+    }
+}
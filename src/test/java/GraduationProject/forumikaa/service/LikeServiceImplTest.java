@@ -1,6 +1,7 @@
 package GraduationProject.forumikaa.service;
 
 import GraduationProject.forumikaa.dao.LikeDao;
+import GraduationProject.forumikaa.dto.LikeToggleResult;
 import GraduationProject.forumikaa.entity.Like;
 import GraduationProject.forumikaa.entity.LikeableType;
 import GraduationProject.forumikaa.entity.User;
@@ -13,7 +14,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -28,6 +32,9 @@ class LikeServiceImplTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private LikeCacheService likeCacheService;
+
     @InjectMocks
     private LikeServiceImpl likeService;
 
@@ -172,7 +179,7 @@ class LikeServiceImplTest {
     @Test
     void isLikedByUser_WhenLiked_ShouldReturnTrue() {
         // Given
-        when(likeDao.existsByUserIdAndLikeableIdAndLikeableType(1L, 1L, LikeableType.POST))
+        when(likeCacheService.isLiked(1L, 1L, LikeableType.POST))
                 .thenReturn(true);
 
         // When
@@ -186,7 +193,7 @@ class LikeServiceImplTest {
     @Test
     void isLikedByUser_WhenNotLiked_ShouldReturnFalse() {
         // Given
-        when(likeDao.existsByUserIdAndLikeableIdAndLikeableType(1L, 2L, LikeableType.POST))
+        when(likeCacheService.isLiked(1L, 2L, LikeableType.POST))
                 .thenReturn(false);
 
         // When
@@ -200,7 +207,7 @@ class LikeServiceImplTest {
     @Test
     void isLikedByUser_WithCommentType_ShouldWorkCorrectly() {
         // Given
-        when(likeDao.existsByUserIdAndLikeableIdAndLikeableType(1L, 1L, LikeableType.COMMENT))
+        when(likeCacheService.isLiked(1L, 1L, LikeableType.COMMENT))
                 .thenReturn(true);
 
         // When
@@ -317,7 +324,7 @@ class LikeServiceImplTest {
     @Test
     void isLikedByUser_WithNullUserId_ShouldReturnFalse() {
         // Given
-        when(likeDao.existsByUserIdAndLikeableIdAndLikeableType(null, 1L, LikeableType.POST))
+        when(likeCacheService.isLiked(null, 1L, LikeableType.POST))
                 .thenReturn(false);
 
         // When
@@ -331,7 +338,7 @@ class LikeServiceImplTest {
     @Test
     void isLikedByUser_WithNullLikeableId_ShouldReturnFalse() {
         // Given
-        when(likeDao.existsByUserIdAndLikeableIdAndLikeableType(1L, null, LikeableType.POST))
+        when(likeCacheService.isLiked(1L, null, LikeableType.POST))
                 .thenReturn(false);
 
         // When
@@ -345,7 +352,7 @@ class LikeServiceImplTest {
     @Test
     void isLikedByUser_WithNullLikeableType_ShouldReturnFalse() {
         // Given
-        when(likeDao.existsByUserIdAndLikeableIdAndLikeableType(1L, 1L, null))
+        when(likeCacheService.isLiked(1L, 1L, null))
                 .thenReturn(false);
 
         // When
@@ -427,4 +434,44 @@ class LikeServiceImplTest {
         assertTrue(result2);
         verify(likeDao, times(2)).save(any(Like.class));
     }
+
+    /**
+     * Giả lập INSERT ... ON CONFLICT DO NOTHING RETURNING / DELETE ... RETURNING:
+     * mỗi statement là atomic và chỉ trả về id khi thực sự thay đổi row
+     */
+    private Set<String> stubAtomicLikeTable() {
+        Set<String> rows = ConcurrentHashMap.newKeySet();
+        lenient().when(likeDao.insertIfAbsent(anyLong(), anyLong(), anyString())).thenAnswer(invocation ->
+                rows.add(invocation.getArgument(0) + ":" + invocation.getArgument(1) + ":" + invocation.getArgument(2))
+                        ? List.of(1L) : List.of());
+        lenient().when(likeDao.deleteReturningIds(anyLong(), anyLong(), anyString())).thenAnswer(invocation ->
+                rows.remove(invocation.getArgument(0) + ":" + invocation.getArgument(1) + ":" + invocation.getArgument(2))
+                        ? List.of(1L) : List.of());
+        return rows;
+    }
+
+    @Test
+    void toggle_ShouldUseAtMostTwoStatementsAndReportDelta() {
+        stubAtomicLikeTable();
+
+        LikeToggleResult liked = likeService.toggle(1L, 1L, LikeableType.POST);
+        LikeToggleResult unliked = likeService.toggle(1L, 1L, LikeableType.POST);
+
+        assertEquals(new LikeToggleResult(true, 1), liked);
+        assertEquals(new LikeToggleResult(false, -1), unliked);
+        verify(likeDao, times(2)).deleteReturningIds(1L, 1L, "POST");
+        verify(likeDao, times(1)).insertIfAbsent(1L, 1L, "POST");
+        verifyNoInteractions(userService);
+        verify(likeDao, never()).countByLikeableIdAndLikeableType(anyLong(), any());
+    }
+
+    @Test
+    void setLiked_WhenRepeated_ShouldBeIdempotent() {
+        stubAtomicLikeTable();
+
+        assertEquals(new LikeToggleResult(true, 1), likeService.setLiked(1L, 1L, LikeableType.POST, true));
+        assertEquals(new LikeToggleResult(true, 0), likeService.setLiked(1L, 1L, LikeableType.POST, true));
+        assertEquals(new LikeToggleResult(false, -1), likeService.setLiked(1L, 1L, LikeableType.POST, false));
+        assertEquals(new LikeToggleResult(false, 0), likeService.setLiked(1L, 1L, LikeableType.POST, false));
+    }
 }
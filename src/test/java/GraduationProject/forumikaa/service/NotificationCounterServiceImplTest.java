@@ -0,0 +1,125 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.NotificationDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationCounterServiceImplTest {
+
+    @Mock
+    private NotificationDao notificationDao;
+
+    @InjectMocks
+    private NotificationCounterServiceImpl notificationCounterService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(notificationCounterService, "maxSize", 100);
+        ReflectionTestUtils.setField(notificationCounterService, "ttl", Duration.ofMinutes(10));
+        notificationCounterService.init();
+    }
+
+    @Test
+    void getUnreadCount_ShouldCountOnceThenFollowIncrementsAndDecrements() {
+        when(notificationDao.countUnreadByRecipientId(1L)).thenReturn(5L);
+
+        assertEquals(5L, notificationCounterService.getUnreadCount(1L));
+        notificationCounterService.increment(1L);
+        notificationCounterService.increment(1L);
+        notificationCounterService.decrement(1L, 1);
+        assertEquals(6L, notificationCounterService.getUnreadCount(1L));
+
+        // Không âm khi trừ nhiều hơn số đang có
+        notificationCounterService.decrement(1L, 10);
+        assertEquals(0L, notificationCounterService.getUnreadCount(1L));
+        verify(notificationDao, times(1)).countUnreadByRecipientId(1L);
+    }
+
+    @Test
+    void reset_ShouldRecountFromDatabase() {
+        when(notificationDao.countUnreadByRecipientId(1L)).thenReturn(3L, 0L);
+
+        assertEquals(3L, notificationCounterService.getUnreadCount(1L));
+        notificationCounterService.reset(1L);
+        assertEquals(0L, notificationCounterService.getUnreadCount(1L));
+        verify(notificationDao, times(2)).countUnreadByRecipientId(1L);
+    }
+
+    @Test
+    void increment_DuringLoad_ShouldNotCacheStaleCount() {
+        // Thông báo mới commit trong lúc đang đếm: số đếm có thể chưa thấy dòng đó nên không được cache
+        when(notificationDao.countUnreadByRecipientId(1L)).thenAnswer(invocation -> {
+            notificationCounterService.increment(1L);
+            return 2L;
+        }).thenReturn(3L);
+
+        assertEquals(2L, notificationCounterService.getUnreadCount(1L));
+        assertEquals(3L, notificationCounterService.getUnreadCount(1L));
+        assertEquals(3L, notificationCounterService.getUnreadCount(1L));
+        verify(notificationDao, times(2)).countUnreadByRecipientId(1L);
+    }
+
+    @Test
+    void load_BetweenCommitAndAfterCommit_ShouldNotCountNewNotificationTwice() {
+        // Số đếm đã thấy thông báo vừa commit nhưng increment sau commit chưa chạy
+        when(notificationDao.countUnreadByRecipientId(1L)).thenReturn(4L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            notificationCounterService.increment(1L);
+            assertEquals(4L, notificationCounterService.getUnreadCount(1L));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(4L, notificationCounterService.getUnreadCount(1L));
+        assertEquals(4L, notificationCounterService.getUnreadCount(1L));
+        verify(notificationDao, times(2)).countUnreadByRecipientId(1L);
+    }
+
+    @Test
+    void increment_ForUncachedUser_ShouldNotBlockCachingOfOtherUsers() {
+        when(notificationDao.countUnreadByRecipientId(2L)).thenAnswer(invocation -> {
+            notificationCounterService.increment(1L);
+            return 7L;
+        });
+
+        assertEquals(7L, notificationCounterService.getUnreadCount(2L));
+        assertEquals(7L, notificationCounterService.getUnreadCount(2L));
+        verify(notificationDao, times(1)).countUnreadByRecipientId(2L);
+    }
+
+    @Test
+    void rolledBackIncrement_ShouldNotChangeCounterOrBlockLoads() {
+        when(notificationDao.countUnreadByRecipientId(1L)).thenReturn(2L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            notificationCounterService.increment(1L);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(2L, notificationCounterService.getUnreadCount(1L));
+        assertEquals(2L, notificationCounterService.getUnreadCount(1L));
+        verify(notificationDao, times(1)).countUnreadByRecipientId(1L);
+    }
+}
@@ -0,0 +1,345 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.CommentDao;
+import GraduationProject.forumikaa.dao.NotificationDao;
+import GraduationProject.forumikaa.dao.NotificationEventDao;
+import GraduationProject.forumikaa.entity.Notification;
+import GraduationProject.forumikaa.entity.NotificationEvent;
+import GraduationProject.forumikaa.handler.notification.NotificationBroadcaster;
+import GraduationProject.forumikaa.service.SenderSnippetCacheService.SenderSnippet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatchServiceImplTest {
+
+    @Mock private NotificationEventDao notificationEventDao;
+    @Mock private NotificationDao notificationDao;
+    @Mock private CommentDao commentDao;
+    @Mock private SenderSnippetCacheService senderSnippetCacheService;
+    @Mock private NotificationCounterService notificationCounterService;
+    @Mock private NotificationBroadcaster notificationBroadcaster;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private Executor dispatchExecutor;
+
+    @InjectMocks
+    private NotificationDispatchServiceImpl notificationDispatchService;
+
+    private long now = 1_000_000L;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(notificationDispatchService, "batchSize", 200);
+        ReflectionTestUtils.setField(notificationDispatchService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(notificationDispatchService, "initialBackoff", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(notificationDispatchService, "maxBackoff", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(notificationDispatchService, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(notificationDispatchService, "coalesceTypes", Set.of(
+                Notification.NotificationType.POST_LIKE, Notification.NotificationType.COMMENT_LIKE,
+                Notification.NotificationType.POST_COMMENT));
+        ReflectionTestUtils.setField(notificationDispatchService, "coalesceWindow", Duration.ofHours(1));
+        ReflectionTestUtils.setField(notificationDispatchService, "pushInterval", Duration.ofSeconds(30));
+        notificationDispatchService.clock = () -> now;
+        notificationDispatchService.init();
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        lenient().doAnswer(inv -> {
+            ((Consumer<TransactionStatus>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(senderSnippetCacheService.getAll(anyCollection())).thenReturn(Map.of(
+                2L, new SenderSnippet(2L, "alice", null),
+                6L, new SenderSnippet(6L, "bob", null)));
+    }
+
+    @Test
+    void dispatchPending_ShouldBatchInsertDeleteEventsAndPublish() {
+        NotificationEvent postLike = event(1L, Notification.NotificationType.POST_LIKE, 5L, "POST");
+        NotificationEvent commentLike = event(2L, Notification.NotificationType.COMMENT_LIKE, 7L, "COMMENT");
+        when(notificationEventDao.claimDue(any(), any(), eq(200))).thenReturn(List.of(postLike, commentLike));
+        when(commentDao.findPostIdByCommentId(7L)).thenReturn(Optional.of(5L));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(inv -> {
+                    BatchPreparedStatementSetter setter = inv.getArgument(1);
+                    KeyHolder keyHolder = inv.getArgument(2);
+                    for (int i = 0; i < setter.getBatchSize(); i++) {
+                        keyHolder.getKeyList().add(Map.of("id", 100L + i));
+                    }
+                    return new int[setter.getBatchSize()];
+                });
+
+        assertEquals(2, notificationDispatchService.dispatchPending());
+
+        verify(notificationEventDao).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(notificationCounterService, times(2)).increment(1L);
+        ArgumentCaptor<Notification> published = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationBroadcaster, times(2)).publish(eq(1L), published.capture());
+
+        Notification first = published.getAllValues().get(0);
+        assertEquals(100L, first.getId());
+        assertEquals("alice đã thích bài viết của bạn", first.getMessage());
+        assertEquals(postLike.getCreatedAt(), first.getCreatedAt());
+        Notification second = published.getAllValues().get(1);
+        assertEquals(101L, second.getId());
+        assertEquals("/posts/5#comment-7", second.getLink());
+        assertEquals(2L, notificationDispatchService.getStats().get("dispatched"));
+    }
+
+    @Test
+    void dispatchPending_ShouldCoalesceLikesIntoOpenRow() {
+        Notification row = coalescedRow(2, "3,4", true);
+        when(notificationDao.findCoalesceCandidates(anyCollection(), anyCollection(), anyCollection(), any()))
+                .thenReturn(List.of(row));
+        when(notificationEventDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(
+                likeFrom(1L, 2L), likeFrom(2L, 6L), likeFrom(3L, 2L)));
+
+        assertEquals(3, notificationDispatchService.dispatchPending());
+
+        // Người thích lại (2) không được đếm thêm, chỉ được đưa lên đầu
+        assertEquals(4, row.getActorCount());
+        assertEquals("2,6,3", row.getRecentActorIds());
+        assertEquals(2L, row.getSenderId());
+        assertFalse(row.isRead());
+        assertEquals("alice, bob và 2 người khác đã thích bài viết của bạn", row.getMessage());
+        verify(notificationDao).saveAll(List.of(row));
+        verify(notificationEventDao).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verifyNoInteractions(jdbcTemplate);
+        // Dòng đã đọc thành chưa đọc lại: counter tăng 1 lần, đẩy 1 cập nhật
+        verify(notificationCounterService, times(1)).increment(1L);
+        verify(notificationBroadcaster, times(1)).publish(1L, row);
+        assertEquals(3L, notificationDispatchService.getStats().get("coalesced"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unreadCountReadBetweenCommitAndIncrement_ShouldNotCountNewNotificationTwice() {
+        NotificationCounterServiceImpl counter = new NotificationCounterServiceImpl();
+        ReflectionTestUtils.setField(counter, "notificationDao", notificationDao);
+        ReflectionTestUtils.setField(counter, "maxSize", 100);
+        ReflectionTestUtils.setField(counter, "ttl", Duration.ofMinutes(10));
+        counter.init();
+        ReflectionTestUtils.setField(notificationDispatchService, "notificationCounterService", counter);
+
+        NotificationEvent postLike = event(1L, Notification.NotificationType.POST_LIKE, 5L, "POST");
+        when(notificationEventDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(postLike));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(inv -> {
+                    KeyHolder keyHolder = inv.getArgument(2);
+                    keyHolder.getKeyList().add(Map.of("id", 100L));
+                    return new int[]{1};
+                });
+        // Dòng mới đã commit: mọi lần đếm từ database đều thấy nó
+        when(notificationDao.countUnreadByRecipientId(1L)).thenReturn(1L);
+        // Transaction thật: callback, commit, 1 request đọc badge, rồi mới tới các hook sau commit
+        doAnswer(inv -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                ((Consumer<TransactionStatus>) inv.getArgument(0)).accept(null);
+                assertEquals(1L, counter.getUnreadCount(1L));
+                for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                    synchronization.afterCommit();
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+                }
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        notificationDispatchService.dispatchPending();
+
+        assertEquals(1L, counter.getUnreadCount(1L));
+        assertEquals(1L, counter.getUnreadCount(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatchPending_ShouldLockCoalesceKeysInOrderBeforeLookingUpOpenRows() {
+        when(notificationDao.findCoalesceCandidates(anyCollection(), anyCollection(), anyCollection(), any()))
+                .thenReturn(List.of(coalescedRow(1, "3", false)));
+        NotificationEvent otherPost = event(2L, Notification.NotificationType.POST_LIKE, 6L, "POST");
+        otherPost.setSenderId(6L);
+        when(notificationEventDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(likeFrom(1L, 2L), otherPost));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(inv -> {
+                    KeyHolder keyHolder = inv.getArgument(2);
+                    keyHolder.getKeyList().add(Map.of("id", 100L));
+                    return new int[]{1};
+                });
+
+        notificationDispatchService.dispatchPending();
+
+        ArgumentCaptor<Collection<Long>> keys = ArgumentCaptor.forClass(Collection.class);
+        InOrder inOrder = inOrder(notificationDao);
+        inOrder.verify(notificationDao).lockCoalesceKeys(keys.capture());
+        inOrder.verify(notificationDao).findCoalesceCandidates(anyCollection(), anyCollection(), anyCollection(), any());
+        List<Long> locked = List.copyOf(keys.getValue());
+        assertEquals(2, locked.size());
+        assertTrue(locked.get(0) < locked.get(1));
+    }
+
+    @Test
+    void dispatchPending_ShouldInsertOneRowForLikesInSameBatch() {
+        when(notificationEventDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(likeFrom(1L, 2L), likeFrom(2L, 6L)));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(inv -> {
+                    KeyHolder keyHolder = inv.getArgument(2);
+                    keyHolder.getKeyList().add(Map.of("id", 100L));
+                    return new int[]{1};
+                });
+
+        notificationDispatchService.dispatchPending();
+
+        ArgumentCaptor<Notification> published = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationBroadcaster, times(1)).publish(eq(1L), published.capture());
+        Notification notification = published.getValue();
+        assertEquals(100L, notification.getId());
+        assertEquals(2, notification.getActorCount());
+        assertEquals("bob và alice đã thích bài viết của bạn", notification.getMessage());
+        verify(notificationCounterService, times(1)).increment(1L);
+    }
+
+    @Test
+    void coalescedUpdates_ShouldBePushedAtMostOncePerPushInterval() {
+        Notification row = coalescedRow(1, "3", false);
+        when(notificationDao.findCoalesceCandidates(anyCollection(), anyCollection(), anyCollection(), any()))
+                .thenReturn(List.of(row));
+        when(notificationEventDao.claimDue(any(), any(), anyInt()))
+                .thenReturn(List.of(likeFrom(1L, 2L)))
+                .thenReturn(List.of(likeFrom(2L, 6L)));
+
+        notificationDispatchService.dispatchPending();
+        notificationDispatchService.dispatchPending();
+        verify(notificationBroadcaster, times(1)).publish(1L, row);
+        assertEquals(1, notificationDispatchService.getStats().get("pendingUpdates"));
+
+        // Chưa hết push-interval: flush không đẩy
+        notificationDispatchService.flushPendingUpdates();
+        verify(notificationBroadcaster, times(1)).publish(1L, row);
+
+        // Flush đọc lại trạng thái mới nhất của dòng gộp từ database
+        when(notificationDao.findAllById(List.of(50L))).thenReturn(List.of(row));
+        now += Duration.ofSeconds(31).toMillis();
+        notificationDispatchService.flushPendingUpdates();
+        verify(notificationBroadcaster, times(2)).publish(1L, row);
+        assertEquals(0, notificationDispatchService.getStats().get("pendingUpdates"));
+        assertEquals("bob, alice và 1 người khác đã thích bài viết của bạn", row.getMessage());
+        // Dòng chưa đọc: không tăng counter
+        verifyNoInteractions(notificationCounterService);
+    }
+
+    @Test
+    void dispatchPending_WhenInsertFails_ShouldRescheduleWholeBatch() {
+        NotificationEvent postLike = event(1L, Notification.NotificationType.POST_LIKE, 5L, "POST");
+        when(notificationEventDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(postLike));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"));
+
+        notificationDispatchService.dispatchPending();
+
+        verify(notificationEventDao).saveAll(List.of(postLike));
+        assertEquals(1, postLike.getAttempts());
+        assertEquals("connection reset", postLike.getLastError());
+        assertTrue(postLike.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(notificationEventDao, never()).deleteAllByIdInBatch(any());
+        verifyNoInteractions(notificationBroadcaster, notificationCounterService);
+    }
+
+    @Test
+    void dispatchPending_ShouldAbandonEventAfterMaxAttempts() {
+        NotificationEvent unsupported = event(1L, Notification.NotificationType.SYSTEM_MESSAGE, null, null);
+        unsupported.setAttempts(2);
+        when(notificationEventDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(unsupported));
+
+        notificationDispatchService.dispatchPending();
+
+        verify(notificationEventDao).saveAll(List.of(unsupported));
+        assertEquals(3, unsupported.getAttempts());
+        assertNull(unsupported.getNextAttemptAt());
+        verifyNoInteractions(jdbcTemplate, notificationBroadcaster);
+    }
+
+    @Test
+    void enqueue_ShouldWakeDispatcherOnceWhileWakeUpIsPending() {
+        notificationDispatchService.enqueue(event(null, Notification.NotificationType.POST_LIKE, 5L, "POST"));
+        notificationDispatchService.enqueue(event(null, Notification.NotificationType.POST_LIKE, 6L, "POST"));
+
+        verify(notificationEventDao, times(2)).save(any(NotificationEvent.class));
+        verify(dispatchExecutor, times(1)).execute(any());
+    }
+
+    @Test
+    void backoff_ShouldDoubleAndCapAtMaxBackoff() {
+        assertEquals(Duration.ofSeconds(5), notificationDispatchService.backoff(1));
+        assertEquals(Duration.ofSeconds(20), notificationDispatchService.backoff(3));
+        assertEquals(Duration.ofMinutes(10), notificationDispatchService.backoff(20));
+    }
+
+    private NotificationEvent likeFrom(Long id, Long senderId) {
+        NotificationEvent event = event(id, Notification.NotificationType.POST_LIKE, 5L, "POST");
+        event.setSenderId(senderId);
+        return event;
+    }
+
+    private Notification coalescedRow(int actorCount, String recentActorIds, boolean read) {
+        return Notification.builder()
+                .id(50L)
+                .recipientId(1L)
+                .senderId(Long.valueOf(recentActorIds.split(",")[0]))
+                .type(Notification.NotificationType.POST_LIKE)
+                .relatedEntityId(5L)
+                .relatedEntityType("POST")
+                .link("/posts/5")
+                .isRead(read)
+                .actorCount(actorCount)
+                .recentActorIds(recentActorIds)
+                .createdAt(LocalDateTime.now().minusMinutes(10))
+                .build();
+    }
+
+    private NotificationEvent event(Long id, Notification.NotificationType type, Long targetId, String targetType) {
+        NotificationEvent event = new NotificationEvent();
+        event.setId(id);
+        event.setType(type);
+        event.setRecipientId(1L);
+        event.setSenderId(2L);
+        event.setTargetId(targetId);
+        event.setTargetType(targetType);
+        event.setCreatedAt(LocalDateTime.now().minusSeconds(1));
+        return event;
+    }
+}
@@ -0,0 +1,166 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.event.PostCountersFlushedEvent;
+import GraduationProject.forumikaa.service.PopularPostIndexService.PopularPage;
+import GraduationProject.forumikaa.service.PopularPostIndexService.PopularPost;
+import GraduationProject.forumikaa.util.PopularCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PopularPostIndexServiceImplTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @Mock
+    private PostDao postDao;
+
+    @Mock
+    private PostCounterService postCounterService;
+
+    @InjectMocks
+    private PopularPostIndexServiceImpl popularIndex;
+
+    private long now = Instant.parse("2025-06-01T12:00:00Z").toEpochMilli();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(popularIndex, "halfLife", Duration.ofHours(24));
+        ReflectionTestUtils.setField(popularIndex, "window", Duration.ofDays(30));
+        ReflectionTestUtils.setField(popularIndex, "maxTracked", 100);
+        ReflectionTestUtils.setField(popularIndex, "snapshotSize", 100);
+        ReflectionTestUtils.setField(popularIndex, "snapshotRefresh", Duration.ZERO);
+        ReflectionTestUtils.setField(popularIndex, "snapshotTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(popularIndex, "maxSnapshots", 8);
+        ReflectionTestUtils.setField(popularIndex, "likeWeight", 1.0);
+        ReflectionTestUtils.setField(popularIndex, "commentWeight", 2.0);
+        ReflectionTestUtils.setField(popularIndex, "shareWeight", 3.0);
+        popularIndex.clock = () -> now;
+        popularIndex.init();
+
+        // Không có delta chờ flush: số đếm = giá trị trong database
+        lenient().when(postCounterService.getCount(anyLong(), any(), any()))
+                .thenAnswer(inv -> inv.getArgument(2));
+    }
+
+    @Test
+    void warmUp_ranksByWeightedEngagementDecayedByAge() {
+        when(postDao.findPopularityRowsSince(any())).thenReturn(List.of(
+                row(1L, now - 48 * HOUR, 20, 0, 0),   // 20 * 0.25 = 5
+                row(2L, now - HOUR, 2, 1, 1),         // 7 * ~0.97
+                row(3L, now - 2 * HOUR, 1, 0, 0)));
+        popularIndex.warmUp();
+
+        PopularPage page = popularIndex.readPage(null, 0, 10, post -> true);
+
+        assertEquals(List.of(2L, 1L, 3L), ids(page.getPosts()));
+        assertEquals(5.0, page.getPosts().get(1).getScore(), 1e-9);
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void cursorPagesStayOnSnapshotWhenScoresChange() {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            rows.add(row(id, now - HOUR, 10 - id, 0, 0));
+        }
+        when(postDao.findPopularityRowsSince(any())).thenReturn(rows);
+        popularIndex.warmUp();
+
+        PopularPage first = popularIndex.readPage(null, 0, 2, post -> true);
+        assertEquals(List.of(1L, 2L), ids(first.getPosts()));
+
+        // Bài 5 vượt lên đầu sau khi trang đầu đã được trả về
+        when(postDao.findPopularityRowsByIdIn(Set.of(5L))).thenReturn(List.<Object[]>of(row(5L, now - HOUR, 100, 0, 0)));
+        popularIndex.onCountersFlushed(new PostCountersFlushedEvent(Map.of(5L, new long[]{1, 0, 0})));
+        now += 1000;
+
+        PopularCursor cursor = PopularCursor.decode(first.getNextCursor().encode());
+        PopularPage second = popularIndex.readPage(cursor, 0, 2, post -> true);
+        PopularPage third = popularIndex.readPage(second.getNextCursor(), 0, 2, post -> true);
+        assertEquals(List.of(3L, 4L), ids(second.getPosts()));
+        assertEquals(List.of(5L), ids(third.getPosts()));
+        assertNull(third.getNextCursor());
+
+        // Không có cursor: snapshot mới phản ánh thứ hạng mới
+        assertEquals(List.of(5L, 1L), ids(popularIndex.readPage(null, 0, 2, post -> true).getPosts()));
+    }
+
+    @Test
+    void unknownSnapshotRestartsFromFirstPostAndFlagsCursorExpired() {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            rows.add(row(id, now - HOUR, 10 - id, 0, 0));
+        }
+        when(postDao.findPopularityRowsSince(any())).thenReturn(rows);
+        popularIndex.warmUp();
+
+        PopularPage first = popularIndex.readPage(null, 0, 2, post -> true);
+        assertFalse(first.isCursorExpired());
+
+        // Snapshot của node khác / đã bị loại khỏi cache
+        PopularCursor foreign = new PopularCursor(first.getNextCursor().getSnapshotId() + 100, 2);
+        PopularPage restarted = popularIndex.readPage(foreign, 0, 2, post -> true);
+
+        assertTrue(restarted.isCursorExpired());
+        assertEquals(List.of(1L, 2L), ids(restarted.getPosts()));
+        assertEquals(2, restarted.getNextCursor().getPosition());
+        assertFalse(popularIndex.readPage(restarted.getNextCursor(), 0, 2, post -> true).isCursorExpired());
+    }
+
+    @Test
+    void offsetCountsOnlyPostsAcceptedByFilter() {
+        when(postDao.findPopularityRowsSince(any())).thenReturn(List.of(
+                row(1L, now - HOUR, 9, 0, 0),
+                row(2L, now - HOUR, 8, 0, 0),
+                row(3L, now - HOUR, 7, 0, 0),
+                row(4L, now - HOUR, 6, 0, 0)));
+        popularIndex.warmUp();
+
+        PopularPage page = popularIndex.readPage(null, 1, 10, post -> post.getPostId() != 2L);
+
+        assertEquals(List.of(3L, 4L), ids(page.getPosts()));
+    }
+
+    @Test
+    void flushRemovesPostsNoLongerEligible() {
+        when(postDao.findPopularityRowsSince(any())).thenReturn(List.<Object[]>of(row(1L, now - HOUR, 3, 0, 0)));
+        popularIndex.warmUp();
+
+        // Bài bị ẩn / xóa: query không còn trả về
+        when(postDao.findPopularityRowsByIdIn(Set.of(1L))).thenReturn(List.of());
+        popularIndex.onCountersFlushed(new PostCountersFlushedEvent(Map.of(1L, new long[]{1, 0, 0})));
+
+        assertTrue(popularIndex.readPage(null, 0, 10, post -> true).getPosts().isEmpty());
+    }
+
+    private Object[] row(Long id, long createdAtMillis, long likes, long comments, long shares) {
+        LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAtMillis), ZoneId.systemDefault());
+        return new Object[]{id, 100L + id, PostPrivacy.PUBLIC, createdAt, likes, comments, shares};
+    }
+
+    private static List<Long> ids(List<PopularPost> posts) {
+        return posts.stream().map(PopularPost::getPostId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,160 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.FriendshipDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.entity.User;
+import GraduationProject.forumikaa.event.PostCountersFlushedEvent;
+import GraduationProject.forumikaa.exception.ResourceNotFoundException;
+import GraduationProject.forumikaa.service.PostCounterService.Counter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostCardCacheServiceImplTest {
+
+    @Mock
+    private PostDao postDao;
+
+    @Mock
+    private FriendshipDao friendshipDao;
+
+    @Mock
+    private PostHydrationService postHydrationService;
+
+    @Mock
+    private LikeService likeService;
+
+    @Mock
+    private PostCounterService postCounterService;
+
+    @InjectMocks
+    private PostCardCacheServiceImpl postCardCacheService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(postCardCacheService, "maxSize", 100);
+        ReflectionTestUtils.setField(postCardCacheService, "ttl", Duration.ofMinutes(10));
+        postCardCacheService.init();
+        lenient().when(postCounterService.getCount(anyLong(), any(), any())).thenCallRealMethod();
+    }
+
+    private PostResponse stubPost(Long id, Long authorId, PostPrivacy privacy, Long viewerId) {
+        User author = new User();
+        author.setId(authorId);
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(author);
+        post.setPrivacy(privacy);
+        post.setLikeCount(10L);
+
+        PostResponse card = new PostResponse();
+        card.setId(id);
+        card.setUserId(authorId);
+        card.setPrivacy(privacy);
+        card.setLikeCount(999L);
+
+        when(postDao.findPostByIdAndUserAccess(id, viewerId)).thenReturn(post);
+        when(postHydrationService.hydrate(post, null)).thenReturn(card);
+        return card;
+    }
+
+    @Test
+    void getPostCard_SecondRead_ShouldNotHitDatabase() {
+        stubPost(1L, 5L, PostPrivacy.PUBLIC, 2L);
+
+        postCardCacheService.getPostCard(1L, 2L);
+        PostResponse second = postCardCacheService.getPostCard(1L, 3L);
+
+        assertEquals(1L, second.getId());
+        verify(postDao, times(1)).findPostByIdAndUserAccess(anyLong(), any());
+        verify(postHydrationService, times(1)).hydrate(any(Post.class), any());
+
+        Map<String, Object> stats = postCardCacheService.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void getPostCard_ShouldOverlayViewerLikeAndPendingCounters() {
+        stubPost(1L, 5L, PostPrivacy.PUBLIC, 2L);
+        when(likeService.isPostLikedByUser(1L, 2L)).thenReturn(true);
+        when(postCounterService.getPendingDelta(1L, Counter.LIKE)).thenReturn(3L);
+
+        PostResponse forLiker = postCardCacheService.getPostCard(1L, 2L);
+        PostResponse forOther = postCardCacheService.getPostCard(1L, 3L);
+
+        // Count lấy từ entity (10) + delta chưa flush (3), không dùng giá trị hydrate
+        assertEquals(13L, forLiker.getLikeCount());
+        assertTrue(forLiker.getIsLiked());
+        assertFalse(forOther.getIsLiked());
+        assertNotSame(forLiker, forOther);
+    }
+
+    @Test
+    void getPostCard_CachedFriendsPost_ShouldDenyNonFriends() {
+        stubPost(1L, 5L, PostPrivacy.FRIENDS, 5L);
+        postCardCacheService.getPostCard(1L, 5L);
+        when(friendshipDao.areFriends(7L, 5L)).thenReturn(false);
+        when(friendshipDao.areFriends(8L, 5L)).thenReturn(true);
+
+        assertThrows(ResourceNotFoundException.class, () -> postCardCacheService.getPostCard(1L, 7L));
+        assertThrows(ResourceNotFoundException.class, () -> postCardCacheService.getPostCard(1L, null));
+        assertEquals(1L, postCardCacheService.getPostCard(1L, 8L).getId());
+        verify(postDao, times(1)).findPostByIdAndUserAccess(anyLong(), any());
+    }
+
+    @Test
+    void invalidatePost_ShouldDropPostAndItsShares() {
+        stubPost(1L, 5L, PostPrivacy.PUBLIC, 2L);
+        PostResponse share = stubPost(2L, 6L, PostPrivacy.PUBLIC, 2L);
+        share.setOriginalPost(Map.of("id", 1L));
+        postCardCacheService.getPostCard(1L, 2L);
+        postCardCacheService.getPostCard(2L, 2L);
+
+        postCardCacheService.invalidatePost(1L);
+        postCardCacheService.getPostCard(1L, 2L);
+        postCardCacheService.getPostCard(2L, 2L);
+
+        verify(postDao, times(2)).findPostByIdAndUserAccess(1L, 2L);
+        verify(postDao, times(2)).findPostByIdAndUserAccess(2L, 2L);
+    }
+
+    @Test
+    void onCountersFlushed_ShouldAddFlushedDeltaToCachedCardWithoutReloading() {
+        stubPost(1L, 5L, PostPrivacy.PUBLIC, 2L);
+        stubPost(2L, 5L, PostPrivacy.PUBLIC, 2L);
+        PostResponse share = stubPost(3L, 6L, PostPrivacy.PUBLIC, 2L);
+        share.setOriginalPost(Map.of("id", 1L));
+        when(postCounterService.getPendingDelta(1L, Counter.LIKE)).thenReturn(3L);
+        postCardCacheService.getPostCard(1L, 2L);
+        postCardCacheService.getPostCard(2L, 2L);
+        postCardCacheService.getPostCard(3L, 2L);
+
+        // Flush ghi 3 like xuống database, phần chưa flush về 0
+        when(postCounterService.getPendingDelta(1L, Counter.LIKE)).thenReturn(0L);
+        postCardCacheService.onCountersFlushed(new PostCountersFlushedEvent(Map.of(1L, new long[]{3, 0, 0})));
+
+        assertEquals(13L, postCardCacheService.getPostCard(1L, 2L).getLikeCount());
+        postCardCacheService.getPostCard(2L, 2L);
+        postCardCacheService.getPostCard(3L, 2L);
+        verify(postDao, times(1)).findPostByIdAndUserAccess(1L, 2L);
+        verify(postDao, times(1)).findPostByIdAndUserAccess(2L, 2L);
+        // Bài chia sẻ của bài vừa flush vẫn được tải lại
+        verify(postDao, times(2)).findPostByIdAndUserAccess(3L, 2L);
+    }
+}
@@ -0,0 +1,136 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.service.PostCounterService.Counter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostCounterServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private PostCounterServiceImpl postCounterService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> captureBatch() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(PostCounterServiceImpl.FLUSH_SQL), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void increment_ConcurrentWriters_ShouldFlushSingleSummedUpdatePerPost() throws Exception {
+        int threads = 8;
+        int perThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < perThread; j++) {
+                    postCounterService.increment(1L, Counter.LIKE, 1);
+                }
+                postCounterService.increment(2L, Counter.COMMENT, 1);
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, postCounterService.getPendingDelta(1L, Counter.LIKE));
+        assertEquals(2, postCounterService.flush());
+
+        List<Object[]> batch = captureBatch();
+        assertEquals(2, batch.size());
+        assertArrayEquals(new Object[]{(long) threads * perThread, 0L, 0L, 1L}, batch.get(0));
+        assertArrayEquals(new Object[]{0L, (long) threads, 0L, 2L}, batch.get(1));
+        assertEquals(0, postCounterService.getPendingDelta(1L, Counter.LIKE));
+    }
+
+    @Test
+    void getCount_ShouldMergePersistedValueWithPendingDelta() {
+        postCounterService.increment(1L, Counter.SHARE, 3);
+        postCounterService.increment(1L, Counter.COMMENT, -2);
+
+        assertEquals(13, postCounterService.getCount(1L, Counter.SHARE, 10L));
+        assertEquals(0, postCounterService.getCount(1L, Counter.COMMENT, 1L));
+        assertEquals(0, postCounterService.getCount(2L, Counter.LIKE, null));
+    }
+
+    @Test
+    void flush_WhenDatabaseFails_ShouldKeepDeltasForNextFlush() {
+        when(jdbcTemplate.batchUpdate(eq(PostCounterServiceImpl.FLUSH_SQL), anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[]{1});
+        postCounterService.increment(1L, Counter.LIKE, 5);
+
+        assertEquals(0, postCounterService.flush());
+        assertEquals(5, postCounterService.getPendingDelta(1L, Counter.LIKE));
+
+        assertEquals(1, postCounterService.flush());
+        assertEquals(0, postCounterService.getPendingDelta(1L, Counter.LIKE));
+    }
+
+    @Test
+    void flush_WhenNothingPending_ShouldNotTouchDatabase() {
+        postCounterService.increment(1L, Counter.LIKE, 1);
+        postCounterService.increment(1L, Counter.LIKE, -1);
+
+        assertEquals(0, postCounterService.flush());
+        assertEquals(0, postCounterService.flush());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void increment_AfterIdleEntryRetired_ShouldStillBeFlushed() {
+        postCounterService.increment(1L, Counter.LIKE, 1);
+        postCounterService.flush();          // flush delta
+        postCounterService.flush();          // entry rỗng -> bị gỡ khỏi map
+        reset(jdbcTemplate);
+
+        postCounterService.increment(1L, Counter.LIKE, 2);
+
+        assertEquals(2, postCounterService.getPendingDelta(1L, Counter.LIKE));
+        assertEquals(1, postCounterService.flush());
+        assertArrayEquals(new Object[]{2L, 0L, 0L, 1L}, captureBatch().get(0));
+    }
+}
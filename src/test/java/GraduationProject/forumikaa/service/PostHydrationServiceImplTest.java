@@ -0,0 +1,146 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.GroupDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dao.UserDao;
+import GraduationProject.forumikaa.dto.FileUploadResponse;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostHydrationServiceImplTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Mock
+    private PostDao postDao;
+
+    @Mock
+    private UserDao userDao;
+
+    @Mock
+    private GroupDao groupDao;
+
+    @Mock
+    private LikeService likeService;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @Mock
+    private PostCounterService postCounterService;
+
+    @InjectMocks
+    private PostHydrationServiceImpl postHydrationService;
+
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        author = new User();
+        author.setId(1L);
+        author.setUsername("author");
+    }
+
+    private Post newPost(Long id) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle("Post " + id);
+        post.setContent("Content " + id);
+        post.setUser(author);
+        post.setCreatedAt(LocalDateTime.now());
+        return post;
+    }
+
+    @Test
+    void hydrate_WhenEmpty_ShouldNotQuery() {
+        List<PostResponse> result = postHydrationService.hydrate(List.of(), 2L);
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(postDao, userDao, groupDao, likeService, fileUploadService);
+    }
+
+    @Test
+    void hydrate_ShouldCallEachDataSourceOncePerPage() {
+        // Given: một trang 50 bài, trong đó mỗi bài thứ 5 là bài chia sẻ
+        List<Post> posts = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            Post post = newPost(id);
+            if (id % 5 == 0) {
+                post.setOriginalPostId(1000L + id);
+            }
+            posts.add(post);
+        }
+        List<Post> originals = new ArrayList<>();
+        for (long id = 5; id <= PAGE_SIZE; id += 5) {
+            originals.add(newPost(1000L + id));
+        }
+
+        Topic topic = new Topic("java");
+        List<Object[]> topicRows = new ArrayList<>();
+        topicRows.add(new Object[]{1L, topic});
+        topicRows.add(new Object[]{1005L, topic});
+
+        FileUploadResponse document = new FileUploadResponse();
+        document.setId(7L);
+        Map<Long, List<FileUploadResponse>> documents = new HashMap<>();
+        documents.put(2L, List.of(document));
+
+        when(postDao.findAllWithAuthorByIdIn(anyCollection())).thenReturn(originals);
+        when(postDao.findTopicsByPostIds(anyCollection())).thenReturn(topicRows);
+        when(fileUploadService.getFilesByPostIds(anyCollection())).thenReturn(documents);
+        when(likeService.getLikedPostIds(eq(2L), anyCollection())).thenReturn(Set.of(3L));
+
+        // When
+        List<PostResponse> result = postHydrationService.hydrate(posts, 2L);
+
+        // Then: kết quả đúng thứ tự và đầy đủ
+        assertEquals(PAGE_SIZE, result.size());
+        assertEquals(List.of("java"), result.get(0).getTopicNames());
+        assertEquals(1, result.get(1).getDocuments().size());
+        assertTrue(result.get(2).getIsLiked());
+        assertFalse(result.get(3).getIsLiked());
+        assertEquals(1005L, result.get(4).getOriginalPost().get("id"));
+        assertEquals(List.of(topic), result.get(4).getOriginalPost().get("topics"));
+
+        // Then: query budget cố định - mỗi loại dữ liệu đúng 1 query
+        verify(postDao, times(1)).findAllWithAuthorByIdIn(anyCollection());
+        verify(postDao, times(1)).findTopicsByPostIds(anyCollection());
+        verify(fileUploadService, times(1)).getFilesByPostIds(anyCollection());
+        verify(likeService, times(1)).getLikedPostIds(eq(2L), anyCollection());
+        verifyNoMoreInteractions(postDao, likeService, fileUploadService);
+        verifyNoInteractions(userDao, groupDao);
+    }
+
+    @Test
+    void hydrate_WhenNoViewer_ShouldSkipLikeQuery() {
+        when(postDao.findTopicsByPostIds(anyCollection())).thenReturn(List.of());
+        when(fileUploadService.getFilesByPostIds(anyCollection())).thenReturn(Map.of());
+
+        PostResponse result = postHydrationService.hydrate(newPost(1L), null);
+
+        assertFalse(result.getIsLiked());
+        assertTrue(result.getTopicNames().isEmpty());
+        verify(postDao, never()).findAllWithAuthorByIdIn(anyCollection());
+        verifyNoInteractions(likeService);
+    }
+}
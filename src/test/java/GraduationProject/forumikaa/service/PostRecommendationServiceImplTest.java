@@ -0,0 +1,230 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.FriendshipDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.dto.TrendingTopicResponse;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.entity.PostStatus;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostRecommendationServiceImplTest {
+
+    private static final Long VIEWER_ID = 1L;
+
+    @Mock
+    private PostDao postDao;
+
+    @Mock
+    private FriendshipDao friendshipDao;
+
+    @Mock
+    private PostHydrationService postHydrationService;
+
+    @Mock
+    private TrendingTopicService trendingTopicService;
+
+    @InjectMocks
+    private PostRecommendationServiceImpl recommendationService;
+
+    private TopicPostIndexServiceImpl topicPostIndex;
+
+    private final Map<Long, Post> postTable = new HashMap<>();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        topicPostIndex = new TopicPostIndexServiceImpl();
+        ReflectionTestUtils.setField(topicPostIndex, "postDao", postDao);
+        ReflectionTestUtils.setField(topicPostIndex, "perTopicLimit", 3);
+        ReflectionTestUtils.setField(topicPostIndex, "window", Duration.ofDays(30));
+
+        RecommendationScoringServiceImpl scoringService = new RecommendationScoringServiceImpl();
+        ReflectionTestUtils.setField(scoringService, "scoringExecutor", Executors.newCachedThreadPool());
+        ReflectionTestUtils.setField(scoringService, "deadline", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(scoringService, "partitionSize", 2);
+
+        ReflectionTestUtils.setField(recommendationService, "topicPostIndexService", topicPostIndex);
+        ReflectionTestUtils.setField(recommendationService, "recommendationScoringService", scoringService);
+        ReflectionTestUtils.setField(recommendationService, "candidatesPerTopic", 50);
+        ReflectionTestUtils.setField(recommendationService, "maxCandidates", 1000);
+
+        lenient().when(postDao.findAllWithAuthorByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(postTable::get).collect(Collectors.toList());
+        });
+        lenient().when(postHydrationService.hydrate(anyList(), eq(VIEWER_ID))).thenAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+            List<PostResponse> responses = new ArrayList<>();
+            for (Post post : posts) {
+                PostResponse response = new PostResponse();
+                response.setId(post.getId());
+                responses.add(response);
+            }
+            return responses;
+        });
+    }
+
+    private Post indexPost(Long id, Long authorId, PostPrivacy privacy, int minutesAgo, Long... topicIds) {
+        User author = new User();
+        author.setId(authorId);
+        author.setUsername("user" + authorId);
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(author);
+        post.setPrivacy(privacy);
+        post.setStatus(PostStatus.APPROVED);
+        post.setCreatedAt(now.minusMinutes(minutesAgo));
+        post.setTopics(new HashSet<>());
+        for (Long topicId : topicIds) {
+            Topic topic = new Topic();
+            topic.setId(topicId);
+            topic.setName("topic" + topicId);
+            post.getTopics().add(topic);
+        }
+        postTable.put(id, post);
+        topicPostIndex.onPostSaved(post);
+        return post;
+    }
+
+    private void givenProfile(List<Long> authored, List<Long> interacted, List<Long> friendIds, List<Long> friendTopics) {
+        when(postDao.findAuthoredTopicIds(VIEWER_ID)).thenReturn(authored);
+        when(postDao.findInteractedTopicIds(VIEWER_ID)).thenReturn(interacted);
+        when(friendshipDao.findFriendIdsOf(VIEWER_ID)).thenReturn(friendIds);
+        if (!friendIds.isEmpty()) {
+            when(postDao.findTopicIdsByAuthorIds(anyCollection())).thenReturn(friendTopics);
+        }
+    }
+
+    private List<Long> ids(List<PostResponse> responses) {
+        return responses.stream().map(PostResponse::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void personalized_ShouldScoreIndexedCandidatesAndLoadOnlyReturnedPosts() {
+        indexPost(10L, 2L, PostPrivacy.PUBLIC, 5, 100L, 200L);   // authored + interacted, match toàn bộ
+        indexPost(11L, 2L, PostPrivacy.PUBLIC, 4, 100L, 999L);   // chỉ 1 topic authored
+        indexPost(12L, 3L, PostPrivacy.PUBLIC, 3, 300L);         // topic của bạn bè
+        indexPost(13L, 3L, PostPrivacy.PUBLIC, 2, 999L);         // không liên quan
+        givenProfile(List.of(100L), List.of(200L), List.of(3L), List.of(300L));
+
+        List<PostResponse> result = recommendationService.getPersonalizedContent(VIEWER_ID, 2);
+
+        assertEquals(List.of(10L, 11L), ids(result));
+        assertTrue(result.get(0).getRecommendationScore() > result.get(1).getRecommendationScore());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> loaded = ArgumentCaptor.forClass(Collection.class);
+        verify(postDao).findAllWithAuthorByIdIn(loaded.capture());
+        assertEquals(List.of(10L, 11L), new ArrayList<>(loaded.getValue()));
+        verify(postDao, never()).findAll();
+        verify(postDao, never()).findByUserId(anyLong());
+        verify(postDao, never()).findById(anyLong());
+    }
+
+    @Test
+    void personalized_ShouldSkipOwnPostsAndFriendsOnlyPostsOfStrangers() {
+        indexPost(20L, VIEWER_ID, PostPrivacy.PUBLIC, 5, 100L);
+        indexPost(21L, 4L, PostPrivacy.FRIENDS, 4, 100L);
+        indexPost(22L, 3L, PostPrivacy.FRIENDS, 3, 100L);
+        indexPost(23L, 3L, PostPrivacy.PRIVATE, 2, 100L);
+        givenProfile(List.of(100L), List.of(), List.of(3L), List.of());
+
+        assertEquals(List.of(22L), ids(recommendationService.getPersonalizedContent(VIEWER_ID, 10)));
+    }
+
+    @Test
+    void personalized_WithoutInterests_ShouldNotTouchIndexOrLoadPosts() {
+        indexPost(30L, 2L, PostPrivacy.PUBLIC, 1, 100L);
+        givenProfile(List.of(), List.of(), List.of(), List.of());
+
+        assertTrue(recommendationService.getPersonalizedContent(VIEWER_ID, 10).isEmpty());
+        verify(postDao, never()).findAllWithAuthorByIdIn(anyCollection());
+        verifyNoInteractions(postHydrationService);
+    }
+
+    @Test
+    void trendingCrawledContent_ShouldUseDecayedTrendingTopicsAndRankByEngagement() {
+        when(trendingTopicService.getTrendingTopics(10)).thenReturn(List.of(
+                new TrendingTopicResponse(7L, "java", 5.0, 2),
+                new TrendingTopicResponse(3L, "spring", 2.0, 1)));
+        Post quiet = indexPost(10L, 99L, PostPrivacy.PUBLIC, 5, 7L);
+        Post busy = indexPost(11L, 99L, PostPrivacy.PUBLIC, 50, 3L);
+        busy.setLikeCount(4L);
+        quiet.getUser().setUsername("admin");
+        busy.getUser().setUsername("admin");
+        when(postDao.findDistinctByTopicsIdInAndUserUsername(List.of(7L, 3L), "admin")).thenReturn(List.of(quiet, busy));
+
+        List<PostResponse> result = recommendationService.getTrendingCrawledContent(VIEWER_ID, 10);
+
+        assertEquals(List.of(11L, 10L), result.stream().map(PostResponse::getId).collect(Collectors.toList()));
+        assertTrue(result.get(0).getIsCrawledContent());
+    }
+
+    @Test
+    void trendingCrawledContent_WithoutTrendingTopics_ShouldNotQuery() {
+        when(trendingTopicService.getTrendingTopics(10)).thenReturn(List.of());
+
+        assertTrue(recommendationService.getTrendingCrawledContent(VIEWER_ID, 10).isEmpty());
+        verifyNoInteractions(postDao);
+    }
+
+    @Test
+    void topicPostIndex_ShouldKeepNewestPostsPerTopicAndDropRemovedPosts() {
+        for (long id = 1; id <= 5; id++) {
+            indexPost(id, 2L, PostPrivacy.PUBLIC, (int) (10 - id), 100L);
+        }
+        Post multiTopic = indexPost(6L, 2L, PostPrivacy.PUBLIC, 20, 100L, 200L); // cũ nhất nhưng còn ở topic 200
+
+        List<Long> topic100 = topicPostIndex.findCandidates(List.of(100L), 10, 10).stream()
+                .map(TopicPostIndexService.IndexedPost::getPostId).collect(Collectors.toList());
+        assertEquals(List.of(5L, 4L, 3L), topic100);
+        assertEquals(4, topicPostIndex.getStats().get("posts")); // 3 bài của topic 100 + bài 6
+
+        multiTopic.setStatus(PostStatus.REJECTED);
+        topicPostIndex.onPostSaved(multiTopic);
+        topicPostIndex.onPostDeleted(5L);
+
+        assertTrue(topicPostIndex.findCandidates(List.of(200L), 10, 10).isEmpty());
+        assertEquals(List.of(4L, 3L), topicPostIndex.findCandidates(List.of(100L), 10, 10).stream()
+                .map(TopicPostIndexService.IndexedPost::getPostId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void topicPostIndex_MaintainShouldDropPostsOutsideWindow() {
+        indexPost(1L, 2L, PostPrivacy.PUBLIC, 1, 100L);
+        indexPost(2L, 2L, PostPrivacy.PUBLIC, 2, 100L);
+        topicPostIndex.clock = () -> System.currentTimeMillis() + Duration.ofDays(30).toMillis();
+
+        topicPostIndex.maintain();
+
+        assertEquals(0, topicPostIndex.getStats().get("posts"));
+        assertEquals(0, topicPostIndex.getStats().get("topics"));
+    }
+}
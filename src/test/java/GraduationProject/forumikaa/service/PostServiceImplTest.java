@@ -0,0 +1,146 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dto.FeedPageResponse;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.util.FeedCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostServiceImplTest {
+
+    private static final Long VIEWER_ID = 1L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_000_000);
+
+    @Mock
+    private PostDao postDao;
+
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private PostHydrationService postHydrationService;
+
+    @InjectMocks
+    private PostServiceImpl postService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(postService, "feedPageSize", 2);
+        ReflectionTestUtils.setField(postService, "feedMaxPageSize", 50);
+        lenient().when(timelineService.readPage(eq(VIEWER_ID), any(), anyInt())).thenReturn(Optional.empty());
+        lenient().when(postHydrationService.hydrate(anyList(), eq(VIEWER_ID))).thenAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+            List<PostResponse> responses = new ArrayList<>();
+            for (Post post : posts) {
+                PostResponse response = new PostResponse();
+                response.setId(post.getId());
+                responses.add(response);
+            }
+            return responses;
+        });
+    }
+
+    private Post post(Long id, LocalDateTime createdAt) {
+        Post post = new Post();
+        post.setId(id);
+        post.setCreatedAt(createdAt);
+        return post;
+    }
+
+    private List<Long> ids(FeedPageResponse page) {
+        return page.getPosts().stream().map(PostResponse::getId).collect(Collectors.toList());
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void feedCursor_ShouldRoundTripCreatedAtAndId() {
+        FeedCursor cursor = new FeedCursor(BASE, 42L);
+
+        String token = cursor.encode();
+
+        assertFalse(token.contains("=") || token.contains("+") || token.contains("/"), "Token phải url-safe");
+        assertEquals(cursor, FeedCursor.decode(token));
+    }
+
+    @Test
+    void feedCursor_BlankToken_ShouldMeanFirstPage() {
+        assertNull(FeedCursor.decode(null));
+        assertNull(FeedCursor.decode(""));
+        assertNull(FeedCursor.decode("   "));
+    }
+
+    @Test
+    void feedCursor_MalformedOrTamperedToken_ShouldBeRejected() {
+        List<String> tokens = List.of(
+                "!!not-base64!!",
+                token("2024-05-01T12:00"),
+                token("|42"),
+                token("yesterday|42"),
+                token("2024-05-01T12:00|abc"),
+                token("2024-05-01T12:00|null"),
+                token("2024-13-01T12:00|42"));
+
+        for (String token : tokens) {
+            assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(token), token);
+        }
+    }
+
+    @Test
+    void getUserFeed_ShouldReturnNextCursorOfLastPostOnPage() {
+        when(postDao.findUserFeedFirstPage(eq(VIEWER_ID), any(Pageable.class)))
+                .thenReturn(List.of(post(9L, BASE), post(8L, BASE), post(7L, BASE.minusMinutes(1))));
+
+        FeedPageResponse page = postService.getUserFeed(VIEWER_ID, null, null);
+
+        assertEquals(List.of(9L, 8L), ids(page));
+        assertTrue(page.isHasMore());
+        assertEquals(new FeedCursor(BASE, 8L), FeedCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getUserFeed_ShouldSeekPastPostsSharingCreatedAtOfCursor() {
+        // 9 và 8 cùng createdAt: trang sau phải bắt đầu ngay sau (BASE, 8), không lặp lại 8 và không bỏ sót 6
+        when(postDao.findUserFeedAfter(eq(VIEWER_ID), eq(BASE), eq(8L), any(Pageable.class)))
+                .thenReturn(List.of(post(6L, BASE), post(5L, BASE.minusMinutes(1))));
+
+        FeedPageResponse page = postService.getUserFeed(VIEWER_ID, new FeedCursor(BASE, 8L).encode(), null);
+
+        assertEquals(List.of(6L, 5L), ids(page));
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(timelineService).readPage(VIEWER_ID, new FeedCursor(BASE, 8L), 3);
+        verify(postDao, never()).findUserFeedFirstPage(any(), any());
+    }
+
+    @Test
+    void getUserFeed_WithTamperedCursor_ShouldFailBeforeQuerying() {
+        String tampered = token("2024-05-01T12:00|; DROP TABLE posts");
+
+        assertThrows(IllegalArgumentException.class, () -> postService.getUserFeed(VIEWER_ID, tampered, null));
+        verifyNoInteractions(postDao, timelineService, postHydrationService);
+    }
+}
@@ -0,0 +1,96 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.service.RecommendationCacheService.Tab;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationCacheServiceImplTest {
+
+    @Mock
+    private RecommendationScoringService recommendationScoringService;
+
+    @InjectMocks
+    private RecommendationCacheServiceImpl recommendationCacheService;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(recommendationCacheService, "enabled", true);
+        ReflectionTestUtils.setField(recommendationCacheService, "maxSize", 100);
+        ReflectionTestUtils.setField(recommendationCacheService, "ttl", Duration.ofMinutes(1));
+        recommendationCacheService.init();
+    }
+
+    private Supplier<List<String>> loader(String value) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(value);
+        };
+    }
+
+    @Test
+    void get_RepeatViewShouldBeServedFromCachePerTabAndPage() {
+        assertEquals(List.of("a"), recommendationCacheService.get(1L, Tab.USERS, "null:20", loader("a")));
+        assertEquals(List.of("a"), recommendationCacheService.get(1L, Tab.USERS, "null:20", loader("b")));
+        assertEquals(List.of("c"), recommendationCacheService.get(1L, Tab.USERS, "null:10", loader("c")));
+        assertEquals(List.of("d"), recommendationCacheService.get(1L, Tab.GROUPS, "20", loader("d")));
+
+        assertEquals(3, loads.get());
+        assertEquals(1L, recommendationCacheService.getStats().get("hits"));
+    }
+
+    @Test
+    void invalidate_ShouldOnlyDropEntriesOfThatUserAndTab() {
+        recommendationCacheService.get(1L, Tab.USERS, "20", loader("users-1"));
+        recommendationCacheService.get(1L, Tab.GROUPS, "20", loader("groups-1"));
+        recommendationCacheService.get(2L, Tab.GROUPS, "20", loader("groups-2"));
+
+        recommendationCacheService.invalidateTab(1L, Tab.GROUPS);
+        assertEquals(List.of("users-1"), recommendationCacheService.get(1L, Tab.USERS, "20", loader("x")));
+        assertEquals(List.of("groups-1b"), recommendationCacheService.get(1L, Tab.GROUPS, "20", loader("groups-1b")));
+
+        recommendationCacheService.invalidateUser(1L);
+        assertEquals(List.of("users-1b"), recommendationCacheService.get(1L, Tab.USERS, "20", loader("users-1b")));
+        assertEquals(List.of("groups-2"), recommendationCacheService.get(2L, Tab.GROUPS, "20", loader("x")));
+    }
+
+    @Test
+    void invalidate_DuringLoadShouldKeepStaleResultOutOfCache() {
+        // Lời mời kết bạn được commit trong lúc đang tính gợi ý của user 1
+        assertEquals(List.of("stale"), recommendationCacheService.get(1L, Tab.USERS, "20", () -> {
+            recommendationCacheService.invalidateTab(1L, Tab.USERS);
+            return List.of("stale");
+        }));
+        recommendationCacheService.get(2L, Tab.USERS, "20", loader("users-2"));
+
+        assertEquals(List.of("fresh"), recommendationCacheService.get(1L, Tab.USERS, "20", loader("fresh")));
+        assertEquals(List.of("users-2"), recommendationCacheService.get(2L, Tab.USERS, "20", loader("x")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_PartialResultShouldNotBeCached() {
+        // Lần gọi đầu xóa cờ cũ, lần thứ 2 báo kết quả vừa tính bị cắt bởi deadline
+        when(recommendationScoringService.consumePartialFlag()).thenReturn(false, true, false, false);
+
+        assertEquals(List.of("partial"), recommendationCacheService.get(1L, Tab.PERSONALIZED, "20", loader("partial")));
+        assertEquals(List.of("full"), recommendationCacheService.get(1L, Tab.PERSONALIZED, "20", loader("full")));
+        assertEquals(List.of("full"), recommendationCacheService.get(1L, Tab.PERSONALIZED, "20", loader("x")));
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,128 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.service.RecommendationScoringService.ScoringResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationScoringServiceImplTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private RecommendationScoringServiceImpl scoringService;
+
+    @BeforeEach
+    void setUp() {
+        scoringService = new RecommendationScoringServiceImpl();
+        ReflectionTestUtils.setField(scoringService, "scoringExecutor", executor);
+        ReflectionTestUtils.setField(scoringService, "deadline", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(scoringService, "partitionSize", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void topK_ShouldMergePartitionsIntoSameResultAsSequentialScoring() {
+        List<Long> candidates = LongStream.rangeClosed(1, 95).boxed().collect(Collectors.toList());
+
+        // Loại số chẵn, điểm = id % 17
+        ScoringResult<Long> result = scoringService.topK("test", candidates,
+                id -> id % 2 == 0 ? null : id, Comparator.comparingLong((Long id) -> id % 17).reversed().thenComparing(id -> id), 5);
+
+        List<Long> expected = candidates.stream()
+                .filter(id -> id % 2 != 0)
+                .sorted(Comparator.comparingLong((Long id) -> id % 17).reversed().thenComparing(id -> id))
+                .limit(5)
+                .collect(Collectors.toList());
+        assertEquals(expected, result.getResults());
+        assertFalse(result.isPartial());
+        Map<String, Object> stats = stats("test");
+        assertEquals(1L, stats.get("requests"));
+        assertEquals(95L, stats.get("scoredCandidates"));
+        assertEquals(0L, stats.get("timeouts"));
+    }
+
+    @Test
+    void topK_DeadlineHit_ShouldReturnBestResultsOfFinishedPartitions() {
+        List<Long> candidates = LongStream.rangeClosed(1, 20).boxed().collect(Collectors.toList());
+
+        // Phân vùng thứ 2 (id 11..20) bị kẹt ở ứng viên đầu tiên quá deadline
+        ScoringResult<Long> result = scoringService.topK("test", candidates, id -> {
+            if (id == 11L) {
+                sleep(2_000);
+            }
+            return id;
+        }, Comparator.<Long>reverseOrder(), 3);
+
+        assertEquals(List.of(10L, 9L, 8L), result.getResults());
+        assertTrue(result.isPartial());
+        Map<String, Object> stats = stats("test");
+        assertEquals(1L, stats.get("timeouts"));
+        assertEquals(1L, stats.get("partialResults"));
+    }
+
+    @Test
+    void gather_ShouldKeepSourceOrderAndDropSourcesPastDeadline() {
+        List<Callable<String>> sources = new ArrayList<>();
+        sources.add(() -> "interests");
+        sources.add(() -> {
+            sleep(2_000);
+            return "mutual";
+        });
+        sources.add(() -> "interactions");
+
+        ScoringResult<String> result = scoringService.gather("users", sources);
+
+        assertEquals(List.of("interests", "interactions"), result.getResults());
+        assertTrue(result.isPartial());
+        assertEquals(1L, stats("users").get("partialResults"));
+    }
+
+    @Test
+    void withoutDeadline_ShouldWaitForSlowSourcesAndRestoreDeadlineAfterwards() {
+        List<Callable<String>> sources = new ArrayList<>();
+        sources.add(() -> "interests");
+        sources.add(() -> {
+            sleep(300);
+            return "mutual";
+        });
+
+        ScoringResult<String> unbounded = scoringService.withoutDeadline(() -> scoringService.gather("batch", sources));
+        ScoringResult<String> bounded = scoringService.gather("users", sources);
+
+        assertEquals(List.of("interests", "mutual"), unbounded.getResults());
+        assertFalse(unbounded.isPartial());
+        assertTrue(bounded.isPartial());
+        assertTrue(scoringService.consumePartialFlag());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(String scorer) {
+        return (Map<String, Object>) scoringService.getStats().get(scorer);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
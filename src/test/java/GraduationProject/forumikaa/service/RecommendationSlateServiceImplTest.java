@@ -0,0 +1,205 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.FriendshipDao;
+import GraduationProject.forumikaa.dao.GroupMemberDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dao.RecommendationJobPartitionDao;
+import GraduationProject.forumikaa.dao.RecommendationSlateDao;
+import GraduationProject.forumikaa.dao.UserDao;
+import GraduationProject.forumikaa.dto.PostResponse;
+import GraduationProject.forumikaa.dto.UserRecommendationResponse;
+import GraduationProject.forumikaa.entity.RecommendationJobPartition;
+import GraduationProject.forumikaa.entity.RecommendationSlate;
+import GraduationProject.forumikaa.service.PostRecommendationService.RankedPost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationSlateServiceImplTest {
+
+    private static final long NOW = Instant.parse("2025-06-01T03:00:00Z").toEpochMilli();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @Mock private UserDao userDao;
+    @Mock private FriendshipDao friendshipDao;
+    @Mock private GroupMemberDao groupMemberDao;
+    @Mock private PostDao postDao;
+    @Mock private RecommendationSlateDao slateDao;
+    @Mock private RecommendationJobPartitionDao partitionDao;
+    @Mock private PostRecommendationService postRecommendationService;
+    @Mock private RecommendationService recommendationService;
+    @Mock private RecommendationScoringService recommendationScoringService;
+    @Mock private LikeService likeService;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private RecommendationSlateServiceImpl slateService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(slateService, "partitions", 4);
+        ReflectionTestUtils.setField(slateService, "chunkSize", 2);
+        ReflectionTestUtils.setField(slateService, "slateSize", 10);
+        ReflectionTestUtils.setField(slateService, "activeDays", 14);
+        ReflectionTestUtils.setField(slateService, "lease", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(slateService, "maxAge", Duration.ofHours(36));
+        ReflectionTestUtils.setField(slateService, "freshnessHalfLife", Duration.ofHours(48));
+        slateService.clock = () -> NOW;
+
+        lenient().doAnswer(inv -> {
+            ((Consumer<TransactionStatus>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        lenient().when(recommendationScoringService.withoutDeadline(any()))
+                .thenAnswer(inv -> ((Supplier<Object>) inv.getArgument(0)).get());
+    }
+
+    @Test
+    void getPostSlate_dropsLikedPostsAndBoostsFresherPosts() {
+        // Bài 1 điểm cao nhưng cũ 4 ngày (x0.25), bài 2 đăng 1 giờ trước, bài 3 đã được like sau khi tính slate
+        givenSlate(RecommendationSlate.Kind.POST, NOW - HOUR, """
+            [{"id":1,"score":10.0,"createdAt":%d},{"id":2,"score":6.0,"createdAt":%d},{"id":3,"score":20.0,"createdAt":%d}]
+            """.formatted(NOW - 96 * HOUR, NOW - HOUR, NOW - HOUR));
+        when(likeService.getLikedPostIds(eq(7L), anyCollection())).thenReturn(Set.of(3L));
+        when(postRecommendationService.toRecommendedPosts(anyList(), eq(7L))).thenAnswer(inv -> {
+            List<RankedPost> ranked = inv.getArgument(0);
+            return ranked.stream().map(post -> {
+                PostResponse response = new PostResponse();
+                response.setId(post.getPostId());
+                return response;
+            }).collect(Collectors.toList());
+        });
+
+        Optional<List<PostResponse>> slate = slateService.getPostSlate(7L, 10);
+
+        assertTrue(slate.isPresent());
+        assertEquals(List.of(2L, 1L), slate.get().stream().map(PostResponse::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void getPostSlate_staleSlateFallsBackToLiveComputation() {
+        givenSlate(RecommendationSlate.Kind.POST, NOW - 48 * HOUR, "[{\"id\":1,\"score\":1.0,\"createdAt\":0}]");
+
+        assertTrue(slateService.getPostSlate(7L, 10).isEmpty());
+        verifyNoInteractions(likeService, postRecommendationService);
+    }
+
+    @Test
+    void getPostSlate_userPostedSinceSlateWasComputedFallsBackToLiveComputation() {
+        givenSlate(RecommendationSlate.Kind.POST, NOW - HOUR, "[{\"id\":1,\"score\":1.0,\"createdAt\":0}]");
+        when(postDao.existsByUserIdAndCreatedAtAfter(eq(7L), any(LocalDateTime.class))).thenReturn(true);
+
+        assertTrue(slateService.getPostSlate(7L, 10).isEmpty());
+        verifyNoInteractions(likeService, postRecommendationService);
+    }
+
+    @Test
+    void getUserSlate_filtersUsersWhoBecameFriendsOrHavePendingRequests() {
+        givenSlate(RecommendationSlate.Kind.USER, NOW - HOUR,
+                "[{\"userId\":11,\"username\":\"a\"},{\"userId\":12,\"username\":\"b\"},{\"userId\":13,\"username\":\"c\"}]");
+        // 12 đã là bạn bè, 13 vừa được gửi lời mời kết bạn
+        when(friendshipDao.findRelatedUserIdsOf(7L)).thenReturn(List.of(12L, 13L));
+
+        List<UserRecommendationResponse> users = slateService.getUserSlate(7L, 10).orElseThrow();
+
+        assertEquals(List.of(11L), users.stream().map(UserRecommendationResponse::getUserId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processPartition_resumesFromCheckpointAndCompletes() {
+        RecommendationJobPartition partition = new RecommendationJobPartition();
+        partition.setId(5L);
+        partition.setRunKey("2025-06-01");
+        partition.setPartitionNo(1);
+        partition.setLastUserId(9L);
+
+        when(userDao.findActiveUserIdsInPartition(eq(9L), eq(4), eq(1), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(13L, 17L));
+        when(userDao.findActiveUserIdsInPartition(eq(17L), eq(4), eq(1), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of());
+        when(postRecommendationService.rankPersonalizedPosts(anyLong(), eq(10)))
+                .thenReturn(List.of(new RankedPost(100L, 3.5, NOW - HOUR)));
+        when(recommendationService.recommendUsers(anyLong(), eq(10))).thenReturn(List.of());
+        when(recommendationService.recommendGroups(anyLong(), eq(10))).thenReturn(List.of());
+
+        long processed = slateService.processPartition(partition, NOW + HOUR);
+
+        assertEquals(2, processed);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(RecommendationSlateServiceImpl.UPSERT_SLATE_SQL), rows.capture());
+        assertEquals(6, rows.getValue().size());
+        assertEquals(13L, rows.getValue().get(0)[0]);
+        assertEquals("POST", rows.getValue().get(0)[1]);
+        assertTrue(((String) rows.getValue().get(0)[2]).contains("\"id\":100"));
+
+        // Checkpoint tới user cuối của lô, chỉ khi tiến độ đang lưu nhỏ hơn
+        verify(jdbcTemplate).update(eq(RecommendationSlateServiceImpl.CHECKPOINT_SQL),
+                eq(17L), eq(2), any(), any(), eq(5L), eq(17L));
+        verify(jdbcTemplate).update(eq(RecommendationSlateServiceImpl.COMPLETE_PARTITION_SQL), any(), eq(5L));
+        verify(userDao, never()).findActiveUserIdsInPartition(eq(0L), anyInt(), anyInt(), any(), anyInt());
+    }
+
+    @Test
+    void processPartition_skipsSlatesCutShortByScoringDeadline() {
+        RecommendationJobPartition partition = new RecommendationJobPartition();
+        partition.setId(5L);
+        partition.setPartitionNo(1);
+        partition.setLastUserId(9L);
+
+        when(userDao.findActiveUserIdsInPartition(eq(9L), eq(4), eq(1), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(13L));
+        when(userDao.findActiveUserIdsInPartition(eq(13L), eq(4), eq(1), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of());
+        when(postRecommendationService.rankPersonalizedPosts(13L, 10)).thenReturn(List.of());
+        when(recommendationService.recommendUsers(13L, 10)).thenReturn(List.of());
+        when(recommendationService.recommendGroups(13L, 10)).thenReturn(List.of());
+        // Cờ cũ được xóa trước khi tính, lần kiểm tra sau khi tính báo kết quả một phần
+        when(recommendationScoringService.consumePartialFlag()).thenReturn(false, true);
+
+        assertEquals(1, slateService.processPartition(partition, NOW + HOUR));
+
+        verify(recommendationScoringService, times(2)).withoutDeadline(any());
+        verify(jdbcTemplate, never()).batchUpdate(eq(RecommendationSlateServiceImpl.UPSERT_SLATE_SQL), anyList());
+        verify(jdbcTemplate).update(eq(RecommendationSlateServiceImpl.CHECKPOINT_SQL),
+                eq(13L), eq(1), any(), any(), eq(5L), eq(13L));
+    }
+
+    private void givenSlate(RecommendationSlate.Kind kind, long computedAt, String items) {
+        RecommendationSlate slate = new RecommendationSlate();
+        slate.setUserId(7L);
+        slate.setKind(kind);
+        slate.setItems(items);
+        slate.setComputedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(computedAt), ZoneId.systemDefault()));
+        when(slateDao.findByUserIdAndKind(7L, kind)).thenReturn(Optional.of(slate));
+    }
+}
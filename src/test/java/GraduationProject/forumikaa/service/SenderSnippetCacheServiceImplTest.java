@@ -0,0 +1,70 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.UserDao;
+import GraduationProject.forumikaa.service.SenderSnippetCacheService.SenderSnippet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SenderSnippetCacheServiceImplTest {
+
+    @Mock
+    private UserDao userDao;
+
+    @InjectMocks
+    private SenderSnippetCacheServiceImpl senderSnippetCacheService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(senderSnippetCacheService, "maxSize", 100);
+        ReflectionTestUtils.setField(senderSnippetCacheService, "ttl", Duration.ofMinutes(10));
+        senderSnippetCacheService.init();
+    }
+
+    @Test
+    void getAll_ShouldLoadOnlyMissingSendersInOneQuery() {
+        when(userDao.findSenderSnippets(List.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, "alice", "a.png"}));
+        assertEquals("alice", senderSnippetCacheService.get(1L).getUsername());
+
+        when(userDao.findSenderSnippets(List.of(2L, 3L)))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, "bob", null}));
+        Map<Long, SenderSnippet> senders = senderSnippetCacheService.getAll(Arrays.asList(1L, 2L, null, 3L, 2L));
+
+        assertEquals("a.png", senders.get(1L).getAvatar());
+        assertEquals("bob", senders.get(2L).getUsername());
+        // User không tồn tại không có trong kết quả
+        assertFalse(senders.containsKey(3L));
+        verify(userDao, times(2)).findSenderSnippets(anyCollection());
+    }
+
+    @Test
+    void invalidate_ShouldReloadChangedSender() {
+        when(userDao.findSenderSnippets(List.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, "alice", null}))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, "alice2", "new.png"}));
+
+        assertEquals("alice", senderSnippetCacheService.get(1L).getUsername());
+        assertEquals("alice", senderSnippetCacheService.get(1L).getUsername());
+        senderSnippetCacheService.invalidate(1L);
+
+        SenderSnippet reloaded = senderSnippetCacheService.get(1L);
+        assertEquals("alice2", reloaded.getUsername());
+        assertEquals("new.png", reloaded.getAvatar());
+        verify(userDao, times(2)).findSenderSnippets(anyCollection());
+    }
+}
@@ -0,0 +1,239 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.DocumentDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dao.StorageCleanupTaskDao;
+import GraduationProject.forumikaa.dao.UserDao;
+import GraduationProject.forumikaa.entity.Document;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.StorageCleanupTask;
+import GraduationProject.forumikaa.patterns.strategy.FileStorageStrategyFactory;
+import GraduationProject.forumikaa.patterns.strategy.impl.CloudinaryStorageStrategy;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Worker chạy với CloudinaryStorageStrategy thật, trỏ tới 1 HTTP server stub local thay cho api.cloudinary.com
+ */
+@ExtendWith(MockitoExtension.class)
+class StorageCleanupServiceImplTest {
+
+    private static final String API_SECRET = "test-secret";
+
+    @Mock
+    private StorageCleanupTaskDao storageCleanupTaskDao;
+
+    @Mock
+    private FileStorageStrategyFactory strategyFactory;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private StorageCleanupServiceImpl storageCleanupService;
+
+    private HttpServer cloudinaryStub;
+    private CloudinaryStorageStrategy cloudinary;
+
+    // Request nhận được: "resourceType public_id", và kết quả trả về theo resource type
+    private final List<String> destroyCalls = Collections.synchronizedList(new ArrayList<>());
+    private final List<Map<String, String>> destroyForms = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, String> resultByType = new HashMap<>();
+    private volatile int statusCode = 200;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException {
+        cloudinaryStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        cloudinaryStub.createContext("/v1_1/demo/", exchange -> {
+            String resourceType = exchange.getRequestURI().getPath().split("/")[3];
+            Map<String, String> form = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            destroyCalls.add(resourceType + " " + form.get("public_id"));
+            destroyForms.add(form);
+
+            byte[] body = ("{\"result\":\"" + resultByType.getOrDefault(resourceType, "ok") + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(statusCode, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        cloudinaryStub.start();
+
+        cloudinary = new CloudinaryStorageStrategy(mock(DocumentDao.class), mock(PostDao.class), mock(UserDao.class));
+        ReflectionTestUtils.setField(cloudinary, "cloudName", "demo");
+        ReflectionTestUtils.setField(cloudinary, "apiKey", "key");
+        ReflectionTestUtils.setField(cloudinary, "apiSecret", API_SECRET);
+        ReflectionTestUtils.setField(cloudinary, "apiUrl", "http://127.0.0.1:" + cloudinaryStub.getAddress().getPort());
+
+        ReflectionTestUtils.setField(storageCleanupService, "batchSize", 10);
+        ReflectionTestUtils.setField(storageCleanupService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(storageCleanupService, "initialBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(storageCleanupService, "maxBackoff", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(storageCleanupService, "lease", Duration.ofMinutes(5));
+
+        lenient().when(strategyFactory.getStorageStrategy("cloudinary")).thenReturn(cloudinary);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cloudinaryStub.stop(0);
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            String[] kv = pair.split("=", 2);
+            form.put(kv[0], URLDecoder.decode(kv[1], StandardCharsets.UTF_8));
+        }
+        return form;
+    }
+
+    private StorageCleanupTask task(Long id, String publicId, String mimeType, int attempts) {
+        StorageCleanupTask task = new StorageCleanupTask();
+        task.setId(id);
+        task.setStorageType("cloudinary");
+        task.setStorageKey(publicId);
+        task.setMimeType(mimeType);
+        task.setAttempts(attempts);
+        return task;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StorageCleanupTask> captureRetried() {
+        ArgumentCaptor<List<StorageCleanupTask>> captor = ArgumentCaptor.forClass(List.class);
+        verify(storageCleanupTaskDao).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void processDueTasks_ShouldDestroyEachFileAndDeleteTasksInOneBatch() throws Exception {
+        when(storageCleanupTaskDao.claimDue(any(), any(), eq(10))).thenReturn(List.of(
+                task(1L, "forumikaa/documents/photo", "image/png", 0),
+                task(2L, "forumikaa/documents/report", "application/pdf", 0)));
+
+        assertEquals(2, storageCleanupService.processDueTasks());
+
+        assertEquals(List.of("image forumikaa/documents/photo", "raw forumikaa/documents/report"), destroyCalls);
+        verify(storageCleanupTaskDao).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(storageCleanupTaskDao, never()).saveAll(anyList());
+
+        // Chữ ký SHA-1 theo chuẩn Cloudinary, không gửi api secret
+        Map<String, String> form = destroyForms.get(0);
+        assertFalse(form.containsKey("api_secret"));
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(
+                ("public_id=forumikaa/documents/photo&timestamp=" + form.get("timestamp") + API_SECRET)
+                        .getBytes(StandardCharsets.UTF_8)));
+        assertEquals(expected, form.get("signature"));
+    }
+
+    @Test
+    void processDueTasks_WhenResourceTypeGuessIsWrong_ShouldTryNextType() {
+        resultByType.put("image", "not found");
+        when(storageCleanupTaskDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(
+                task(1L, "forumikaa/documents/scan", "image/jpeg", 0)));
+
+        storageCleanupService.processDueTasks();
+
+        assertEquals(List.of("image forumikaa/documents/scan", "raw forumikaa/documents/scan"), destroyCalls);
+        verify(storageCleanupTaskDao).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void processDueTasks_WhenCloudinaryFails_ShouldKeepTaskWithBackoff() {
+        statusCode = 500;
+        when(storageCleanupTaskDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(
+                task(1L, "forumikaa/documents/a", "image/png", 1)));
+        LocalDateTime before = LocalDateTime.now();
+
+        storageCleanupService.processDueTasks();
+
+        verify(storageCleanupTaskDao, never()).deleteAllByIdInBatch(anyList());
+        StorageCleanupTask retried = captureRetried().get(0);
+        assertEquals(2, retried.getAttempts());
+        assertTrue(retried.getLastError().contains("500"));
+        // Lần thử thứ 2: 30s * 2
+        assertFalse(retried.getNextAttemptAt().isBefore(before.plusSeconds(60)));
+        assertTrue(retried.getNextAttemptAt().isBefore(before.plusSeconds(90)));
+    }
+
+    @Test
+    void processDueTasks_AfterMaxAttempts_ShouldStopRetrying() {
+        statusCode = 503;
+        when(storageCleanupTaskDao.claimDue(any(), any(), anyInt())).thenReturn(List.of(
+                task(1L, "forumikaa/documents/a", "image/png", 2)));
+
+        storageCleanupService.processDueTasks();
+
+        StorageCleanupTask abandoned = captureRetried().get(0);
+        assertEquals(3, abandoned.getAttempts());
+        assertNull(abandoned.getNextAttemptAt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueue_ShouldStoreStorageKeysWithoutCallingStorage() {
+        when(strategyFactory.getCurrentStrategyType()).thenReturn("cloudinary");
+        Post post = new Post();
+        post.setId(9L);
+        Document document = new Document();
+        document.setFileName("forumikaa/documents/a");
+        document.setFilePath("https://res.cloudinary.com/demo/image/upload/a.png");
+        document.setMimeType("image/png");
+        document.setPost(post);
+
+        storageCleanupService.enqueue(List.of(document));
+
+        ArgumentCaptor<List<StorageCleanupTask>> captor = ArgumentCaptor.forClass(List.class);
+        verify(storageCleanupTaskDao).saveAll(captor.capture());
+        StorageCleanupTask task = captor.getValue().get(0);
+        assertEquals("cloudinary", task.getStorageType());
+        assertEquals("forumikaa/documents/a", task.getStorageKey());
+        assertEquals(9L, task.getPostId());
+        assertNotNull(task.getNextAttemptAt());
+        assertTrue(destroyCalls.isEmpty());
+    }
+
+    @Test
+    void backoff_ShouldDoubleUpToMaximum() {
+        assertEquals(Duration.ofSeconds(30), storageCleanupService.backoff(1));
+        assertEquals(Duration.ofSeconds(120), storageCleanupService.backoff(3));
+        assertEquals(Duration.ofMinutes(10), storageCleanupService.backoff(20));
+    }
+}
@@ -0,0 +1,206 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.FriendshipDao;
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.entity.PostStatus;
+import GraduationProject.forumikaa.entity.User;
+import GraduationProject.forumikaa.patterns.strategy.TimelineStoreStrategyFactory;
+import GraduationProject.forumikaa.patterns.strategy.impl.InMemoryTimelineStoreStrategy;
+import GraduationProject.forumikaa.util.FeedCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineServiceImplTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private TimelineStoreStrategyFactory storeFactory;
+
+    @Mock
+    private PostDao postDao;
+
+    @Mock
+    private FriendshipDao friendshipDao;
+
+    @InjectMocks
+    private TimelineServiceImpl timelineService;
+
+    private InMemoryTimelineStoreStrategy store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryTimelineStoreStrategy();
+        lenient().when(storeFactory.getStore()).thenReturn(store);
+        ReflectionTestUtils.setField(timelineService, "enabled", true);
+        ReflectionTestUtils.setField(timelineService, "maxSize", 100);
+        ReflectionTestUtils.setField(timelineService, "ttl", Duration.ofDays(7));
+    }
+
+    private Post newPost(Long id, Long authorId, PostPrivacy privacy, LocalDateTime createdAt) {
+        User author = new User();
+        author.setId(authorId);
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(author);
+        post.setPrivacy(privacy);
+        post.setStatus(PostStatus.APPROVED);
+        post.setCreatedAt(createdAt);
+        return post;
+    }
+
+    private List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    @Test
+    void readPage_WhenCold_ShouldRebuildAndMergePublicWithPersonal() {
+        when(postDao.findPublicTimelineEntries(any())).thenReturn(rows(
+                new Object[]{5L, BASE.plusMinutes(5)},
+                new Object[]{2L, BASE.plusMinutes(2)}));
+        when(postDao.findPersonalTimelineEntries(eq(1L), any())).thenReturn(rows(
+                new Object[]{4L, BASE.plusMinutes(4)},
+                new Object[]{1L, BASE.plusMinutes(1)}));
+
+        Optional<List<Long>> page = timelineService.readPage(1L, null, 10);
+
+        assertEquals(Optional.of(List.of(5L, 4L, 2L, 1L)), page);
+
+        // Lần đọc thứ 2 dùng timeline đã lưu, không query lại database
+        timelineService.readPage(1L, null, 10);
+        verify(postDao, times(1)).findPublicTimelineEntries(any());
+        verify(postDao, times(1)).findPersonalTimelineEntries(eq(1L), any());
+    }
+
+    @Test
+    void readPage_ShouldPageByCursorIncludingTiesOnCreatedAt() {
+        when(postDao.findPublicTimelineEntries(any())).thenReturn(rows(
+                new Object[]{9L, BASE},
+                new Object[]{8L, BASE},
+                new Object[]{7L, BASE},
+                new Object[]{3L, BASE.minusMinutes(1)}));
+        when(postDao.findPersonalTimelineEntries(eq(1L), any())).thenReturn(rows());
+
+        List<Long> first = timelineService.readPage(1L, null, 2).orElseThrow();
+        List<Long> second = timelineService.readPage(1L, new FeedCursor(BASE, 8L), 2).orElseThrow();
+
+        assertEquals(List.of(9L, 8L), first);
+        assertEquals(List.of(7L, 3L), second);
+    }
+
+    @Test
+    void onPostCreated_FriendsPost_ShouldFanOutToWarmTimelinesOfAuthorAndFriends() {
+        when(postDao.findPublicTimelineEntries(any())).thenReturn(rows());
+        when(postDao.findPersonalTimelineEntries(anyLong(), any())).thenReturn(rows());
+        timelineService.readPage(1L, null, 10);
+        timelineService.readPage(2L, null, 10);
+        when(friendshipDao.findFriendIdsOf(1L)).thenReturn(List.of(2L, 3L));
+
+        timelineService.onPostCreated(newPost(10L, 1L, PostPrivacy.FRIENDS, BASE));
+
+        assertEquals(List.of(10L), timelineService.readPage(1L, null, 10).orElseThrow());
+        assertEquals(List.of(10L), timelineService.readPage(2L, null, 10).orElseThrow());
+        // Timeline nguội (user 3) không được tạo khi ghi - sẽ rebuild từ database khi đọc
+        assertFalse(store.exists(TimelineServiceImpl.personalKey(3L)));
+        assertFalse(store.exists(TimelineServiceImpl.personalKey(4L)));
+    }
+
+    @Test
+    void onPostDeleted_ShouldRemoveFromTimeline() {
+        when(postDao.findPublicTimelineEntries(any())).thenReturn(rows(
+                new Object[]{5L, BASE.plusMinutes(5)},
+                new Object[]{2L, BASE.plusMinutes(2)}));
+        when(postDao.findPersonalTimelineEntries(eq(1L), any())).thenReturn(rows());
+        timelineService.readPage(1L, null, 10);
+
+        timelineService.onPostDeleted(newPost(5L, 7L, PostPrivacy.PUBLIC, BASE.plusMinutes(5)));
+
+        assertEquals(List.of(2L), timelineService.readPage(1L, null, 10).orElseThrow());
+    }
+
+    @Test
+    void readPage_WhenTruncatedTimelineIsExhausted_ShouldFallBackToDatabase() {
+        ReflectionTestUtils.setField(timelineService, "maxSize", 2);
+        when(postDao.findPublicTimelineEntries(any())).thenReturn(rows(
+                new Object[]{5L, BASE.plusMinutes(5)},
+                new Object[]{4L, BASE.plusMinutes(4)}));
+        when(postDao.findPersonalTimelineEntries(eq(1L), any())).thenReturn(rows());
+
+        assertTrue(timelineService.readPage(1L, new FeedCursor(BASE.plusMinutes(4), 4L), 10).isEmpty());
+    }
+
+    @Test
+    void onFriendshipChanged_ShouldDropPersonalTimelinesOfBothUsers() {
+        when(postDao.findPublicTimelineEntries(any())).thenReturn(rows());
+        when(postDao.findPersonalTimelineEntries(anyLong(), any())).thenReturn(rows());
+        timelineService.readPage(1L, null, 10);
+        timelineService.readPage(2L, null, 10);
+
+        timelineService.onFriendshipChanged(1L, 2L);
+
+        assertFalse(store.exists(TimelineServiceImpl.personalKey(1L)));
+        assertFalse(store.exists(TimelineServiceImpl.personalKey(2L)));
+        assertTrue(store.exists(TimelineServiceImpl.PUBLIC_KEY));
+    }
+
+    @Test
+    void readPage_PostCommittedDuringRebuild_ShouldSurviveTheRebuild() {
+        // Bài 6 commit sau khi rebuild đã đọc database nhưng trước khi kết quả được ghi vào timeline
+        when(postDao.findPublicTimelineEntries(any())).thenAnswer(inv -> {
+            timelineService.onPostCreated(newPost(6L, 7L, PostPrivacy.PUBLIC, BASE.plusMinutes(6)));
+            return rows(new Object[]{5L, BASE.plusMinutes(5)});
+        });
+        when(postDao.findPersonalTimelineEntries(eq(1L), any())).thenReturn(rows());
+
+        assertEquals(List.of(6L, 5L), timelineService.readPage(1L, null, 10).orElseThrow());
+        assertEquals(List.of(6L, 5L), timelineService.readPage(1L, null, 10).orElseThrow());
+        verify(postDao, times(1)).findPublicTimelineEntries(any());
+    }
+
+    @Test
+    void readPage_WhileAnotherRequestRebuilds_ShouldFallBackToDatabase() {
+        List<Optional<List<Long>>> concurrentReads = new ArrayList<>();
+        when(postDao.findPublicTimelineEntries(any())).thenAnswer(inv -> {
+            concurrentReads.add(timelineService.readPage(2L, null, 10));
+            return rows(new Object[]{5L, BASE.plusMinutes(5)});
+        });
+        when(postDao.findPersonalTimelineEntries(anyLong(), any())).thenReturn(rows());
+
+        assertEquals(List.of(5L), timelineService.readPage(1L, null, 10).orElseThrow());
+
+        assertEquals(List.of(Optional.<List<Long>>empty()), concurrentReads);
+        assertEquals(List.of(5L), timelineService.readPage(2L, null, 10).orElseThrow());
+        verify(postDao, times(1)).findPublicTimelineEntries(any());
+    }
+
+    @Test
+    void readPage_WhenRebuildFails_ShouldDropTheHalfBuiltTimeline() {
+        when(postDao.findPublicTimelineEntries(any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(rows(new Object[]{5L, BASE.plusMinutes(5)}));
+        when(postDao.findPersonalTimelineEntries(eq(1L), any())).thenReturn(rows());
+
+        assertTrue(timelineService.readPage(1L, null, 10).isEmpty());
+        assertFalse(store.exists(TimelineServiceImpl.PUBLIC_KEY));
+        assertEquals(List.of(5L), timelineService.readPage(1L, null, 10).orElseThrow());
+    }
+}
@@ -0,0 +1,211 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.PostPrivacy;
+import GraduationProject.forumikaa.entity.PostStatus;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.entity.User;
+import GraduationProject.forumikaa.service.TopicPostIndexService.IndexedPost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TopicPostIndexServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    private PostDao postDao;
+
+    @InjectMocks
+    private TopicPostIndexServiceImpl topicPostIndexService;
+
+    private final AtomicLong now = new AtomicLong(NOW.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(topicPostIndexService, "perTopicLimit", 3);
+        ReflectionTestUtils.setField(topicPostIndexService, "window", Duration.ofDays(30));
+        topicPostIndexService.clock = now::get;
+    }
+
+    private Post post(Long id, int minutesAgo, Long... topicIds) {
+        User author = new User();
+        author.setId(2L);
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(author);
+        post.setPrivacy(PostPrivacy.PUBLIC);
+        post.setStatus(PostStatus.APPROVED);
+        post.setCreatedAt(NOW.minusMinutes(minutesAgo));
+        post.setTopics(new HashSet<>());
+        for (Long topicId : topicIds) {
+            Topic topic = new Topic();
+            topic.setId(topicId);
+            post.getTopics().add(topic);
+        }
+        return post;
+    }
+
+    private List<Long> candidates(Long... topicIds) {
+        return topicPostIndexService.findCandidates(List.of(topicIds), 10, 10).stream()
+                .map(IndexedPost::getPostId).collect(Collectors.toList());
+    }
+
+    @Test
+    void onPostSaved_ShouldOrderNewestFirstWithTiesByHigherId() {
+        topicPostIndexService.onPostSaved(post(1L, 30, 100L));
+        topicPostIndexService.onPostSaved(post(2L, 10, 100L));
+        topicPostIndexService.onPostSaved(post(3L, 10, 100L));
+
+        assertEquals(List.of(3L, 2L, 1L), candidates(100L));
+        IndexedPost newest = topicPostIndexService.findCandidates(List.of(100L), 1, 1).get(0);
+        assertEquals(2L, newest.getAuthorId());
+        assertEquals(PostPrivacy.PUBLIC, newest.getPrivacy());
+    }
+
+    @Test
+    void onPostSaved_ShouldSkipUnapprovedSharedAndUntaggedPosts() {
+        Post pending = post(1L, 1, 100L);
+        pending.setStatus(PostStatus.PENDING);
+        Post share = post(2L, 1, 100L);
+        share.setOriginalPostId(9L);
+        Post untagged = post(3L, 1);
+
+        topicPostIndexService.onPostSaved(pending);
+        topicPostIndexService.onPostSaved(share);
+        topicPostIndexService.onPostSaved(untagged);
+
+        assertTrue(candidates(100L).isEmpty());
+        assertEquals(0, topicPostIndexService.getStats().get("posts"));
+    }
+
+    @Test
+    void onPostSaved_WithChangedTopics_ShouldMovePostBetweenTopics() {
+        Post post = post(1L, 5, 100L, 200L);
+        topicPostIndexService.onPostSaved(post);
+
+        Topic topic = new Topic();
+        topic.setId(300L);
+        post.setTopics(new HashSet<>(List.of(topic)));
+        topicPostIndexService.onPostSaved(post);
+
+        assertTrue(candidates(100L).isEmpty());
+        assertTrue(candidates(200L).isEmpty());
+        assertEquals(List.of(1L), candidates(300L));
+        assertEquals(1, topicPostIndexService.getStats().get("posts"));
+        assertEquals(1, topicPostIndexService.getStats().get("topics"));
+    }
+
+    @Test
+    void onPostSaved_WhenPostIsRejected_ShouldRemoveItFromEveryTopic() {
+        Post post = post(1L, 5, 100L, 200L);
+        topicPostIndexService.onPostSaved(post);
+
+        post.setStatus(PostStatus.REJECTED);
+        topicPostIndexService.onPostSaved(post);
+
+        assertTrue(candidates(100L, 200L).isEmpty());
+        assertEquals(0, topicPostIndexService.getStats().get("topics"));
+    }
+
+    @Test
+    void onPostDeleted_ShouldRemovePostAndKeepOthers() {
+        topicPostIndexService.onPostSaved(post(1L, 5, 100L));
+        topicPostIndexService.onPostSaved(post(2L, 3, 100L, 200L));
+
+        topicPostIndexService.onPostDeleted(2L);
+        topicPostIndexService.onPostDeleted(99L);
+
+        assertEquals(List.of(1L), candidates(100L));
+        assertTrue(candidates(200L).isEmpty());
+        assertEquals(1, topicPostIndexService.getStats().get("posts"));
+    }
+
+    @Test
+    void perTopicLimit_ShouldEvictOldestButKeepPostStillLinkedToOtherTopic() {
+        topicPostIndexService.onPostSaved(post(1L, 50, 100L));
+        topicPostIndexService.onPostSaved(post(2L, 40, 100L, 200L));
+        for (long id = 3; id <= 5; id++) {
+            topicPostIndexService.onPostSaved(post(id, (int) (10 - id), 100L));
+        }
+
+        assertEquals(List.of(5L, 4L, 3L), candidates(100L));
+        assertEquals(List.of(2L), candidates(200L));
+        assertEquals(4, topicPostIndexService.getStats().get("posts")); // bài 1 bị loại hẳn, bài 2 còn ở topic 200
+    }
+
+    @Test
+    void findCandidates_ShouldCapPerTopicAndTotalWithoutDuplicates() {
+        topicPostIndexService.onPostSaved(post(1L, 1, 100L, 200L));
+        topicPostIndexService.onPostSaved(post(2L, 2, 100L));
+        topicPostIndexService.onPostSaved(post(3L, 3, 200L));
+        topicPostIndexService.onPostSaved(post(4L, 4, 200L));
+
+        List<Long> perTopic = topicPostIndexService.findCandidates(List.of(100L, 200L), 2, 10).stream()
+                .map(IndexedPost::getPostId).collect(Collectors.toList());
+        List<Long> capped = topicPostIndexService.findCandidates(List.of(100L, 200L, 999L), 10, 3).stream()
+                .map(IndexedPost::getPostId).collect(Collectors.toList());
+
+        assertEquals(List.of(1L, 2L, 3L), perTopic);
+        assertEquals(List.of(1L, 2L, 3L), capped);
+    }
+
+    @Test
+    void warmUp_ShouldGroupTopicRowsPerPostAndSkipPostsOutsideWindow() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 2L, PostPrivacy.PUBLIC, NOW.minusDays(1), 100L});
+        rows.add(new Object[]{1L, 2L, PostPrivacy.PUBLIC, NOW.minusDays(1), 200L});
+        rows.add(new Object[]{2L, 3L, PostPrivacy.FRIENDS, NOW.minusHours(1), 100L});
+        rows.add(new Object[]{3L, 3L, PostPrivacy.PUBLIC, NOW.minusDays(31), 100L});
+        when(postDao.findTopicIndexRowsSince(any())).thenReturn(rows);
+
+        topicPostIndexService.warmUp();
+
+        assertEquals(List.of(2L, 1L), candidates(100L));
+        assertEquals(List.of(1L), candidates(200L));
+        assertEquals(List.of(100L, 200L), topicPostIndexService.findCandidates(List.of(200L), 1, 1).get(0).getTopicIds());
+        assertEquals(2, topicPostIndexService.getStats().get("posts"));
+    }
+
+    @Test
+    void warmUp_WhenQueryFails_ShouldStartEmpty() {
+        when(postDao.findTopicIndexRowsSince(any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        topicPostIndexService.warmUp();
+
+        assertEquals(0, topicPostIndexService.getStats().get("posts"));
+    }
+
+    @Test
+    void maintain_ShouldDropOnlyPostsOutsideWindow() {
+        topicPostIndexService.onPostSaved(post(1L, (int) Duration.ofDays(20).toMinutes(), 100L));
+        topicPostIndexService.onPostSaved(post(2L, 5, 100L));
+        now.addAndGet(Duration.ofDays(15).toMillis());
+
+        topicPostIndexService.maintain();
+
+        assertEquals(List.of(2L), candidates(100L));
+        assertEquals(1, topicPostIndexService.getStats().get("posts"));
+    }
+}
@@ -9,10 +9,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -24,14 +37,57 @@ class TopicServiceImplTest {
     @Mock
     private TopicDao topicDao;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private TopicServiceImpl topicService;
 
     private User testUser;
     private Topic testTopic;
 
+    // Bảng topics giả lập: tên -> entity
+    private final Map<String, Topic> topicTable = new HashMap<>();
+
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
+        ReflectionTestUtils.setField(topicService, "registryMaxSize", 100);
+        ReflectionTestUtils.setField(topicService, "registryTtl", Duration.ofHours(1));
+        topicService.init();
+
+        lenient().when(topicDao.findByNameIn(anyCollection())).thenAnswer(invocation ->
+                ((Collection<String>) invocation.getArgument(0)).stream()
+                        .map(topicTable::get).filter(Objects::nonNull).toList());
+        lenient().when(topicDao.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Set<Long> ids = new HashSet<>();
+            ((Iterable<Long>) invocation.getArgument(0)).forEach(ids::add);
+            return topicTable.values().stream().filter(topic -> ids.contains(topic.getId())).toList();
+        });
+        lenient().when(topicDao.insertAllIfAbsent(anyCollection(), any())).thenAnswer(invocation -> {
+            int inserted = 0;
+            for (String name : (Collection<String>) invocation.getArgument(0)) {
+                if (topicTable.containsKey(name)) {
+                    continue;
+                }
+                User creator = new User();
+                creator.setId(invocation.getArgument(1));
+                Topic topic = new Topic(name);
+                topic.setId(100L + topicTable.size());
+                topic.setCreatedBy(creator);
+                topicTable.put(name, topic);
+                inserted++;
+            }
+            return inserted;
+        });
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
@@ -47,7 +103,7 @@ class TopicServiceImplTest {
     void findOrCreateTopic_WhenTopicExists_ShouldReturnExistingTopic() {
         // Given
         String topicName = "test_topic";
-        when(topicDao.findByName(topicName)).thenReturn(Optional.of(testTopic));
+        topicTable.put(topicName, testTopic);
 
         // When
         Topic result = topicService.findOrCreateTopic(topicName, testUser);
@@ -56,7 +112,8 @@ class TopicServiceImplTest {
         assertNotNull(result);
         assertEquals(testTopic.getId(), result.getId());
         assertEquals(topicName, result.getName());
-        verify(topicDao).findByName(topicName);
+        verify(topicDao).findByNameIn(Set.of(topicName));
+        verify(topicDao, never()).insertAllIfAbsent(anyCollection(), any());
         verify(topicDao, never()).save(any(Topic.class));
     }
 
@@ -64,12 +121,6 @@ class TopicServiceImplTest {
     void findOrCreateTopic_WhenTopicNotExists_ShouldCreateNewTopic() {
         // Given
         String topicName = "new_topic";
-        when(topicDao.findByName(topicName)).thenReturn(Optional.empty());
-        when(topicDao.save(any(Topic.class))).thenAnswer(invocation -> {
-            Topic topic = invocation.getArgument(0);
-            topic.setId(2L);
-            return topic;
-        });
 
         // When
         Topic result = topicService.findOrCreateTopic(topicName, testUser);
@@ -77,10 +128,10 @@ class TopicServiceImplTest {
         // Then
         assertNotNull(result);
         assertEquals(topicName, result.getName());
-        assertEquals(testUser, result.getCreatedBy());
+        assertEquals(testUser.getId(), result.getCreatedBy().getId());
         assertEquals(0, result.getUsageCount());
-        verify(topicDao).findByName(topicName);
-        verify(topicDao).save(any(Topic.class));
+        verify(topicDao).insertAllIfAbsent(List.of(topicName), testUser.getId());
+        verify(topicDao, never()).save(any(Topic.class));
     }
 
     @Test
@@ -88,12 +139,6 @@ class TopicServiceImplTest {
         // Given
         String topicName = "#hashtag_topic";
         String expectedCleanName = "hashtag_topic";
-        when(topicDao.findByName(expectedCleanName)).thenReturn(Optional.empty());
-        when(topicDao.save(any(Topic.class))).thenAnswer(invocation -> {
-            Topic topic = invocation.getArgument(0);
-            topic.setId(3L);
-            return topic;
-        });
 
         // When
         Topic result = topicService.findOrCreateTopic(topicName, testUser);
@@ -101,7 +146,7 @@ class TopicServiceImplTest {
         // Then
         assertNotNull(result);
         assertEquals(expectedCleanName, result.getName());
-        verify(topicDao).findByName(expectedCleanName);
+        verify(topicDao).insertAllIfAbsent(List.of(expectedCleanName), testUser.getId());
     }
 
     @Test
@@ -109,12 +154,6 @@ class TopicServiceImplTest {
         // Given
         String topicName = "Topic with Spaces & Special!@#";
         String expectedCleanName = "topic_with_spaces__special";
-        when(topicDao.findByName(expectedCleanName)).thenReturn(Optional.empty());
-        when(topicDao.save(any(Topic.class))).thenAnswer(invocation -> {
-            Topic topic = invocation.getArgument(0);
-            topic.setId(4L);
-            return topic;
-        });
 
         // When
         Topic result = topicService.findOrCreateTopic(topicName, testUser);
@@ -122,28 +161,42 @@ class TopicServiceImplTest {
         // Then
         assertNotNull(result);
         assertEquals(expectedCleanName, result.getName());
-        verify(topicDao).findByName(expectedCleanName);
+        verify(topicDao).insertAllIfAbsent(List.of(expectedCleanName), testUser.getId());
+    }
+
+    @Test
+    void findOrCreateTopic_WhenNameInRegistry_ShouldLoadByIdOnly() {
+        // Given
+        topicTable.put("java", testTopic);
+        testTopic.setName("java");
+        topicService.findOrCreateTopic("#Java", testUser);
+
+        // When
+        Topic result = topicService.findOrCreateTopic("java", testUser);
+
+        // Then
+        assertEquals(testTopic.getId(), result.getId());
+        verify(topicDao, times(1)).findByNameIn(anyCollection());
+        verify(topicDao, times(1)).findAllById(anyIterable());
+        assertEquals(1L, topicService.getRegistryStats().get("hits"));
     }
 
     @Test
     void processTopicsFromInput_WithValidTopics_ShouldReturnProcessedTopics() {
         // Given
-        List<String> topicNames = Arrays.asList("topic1", "topic2", "topic3");
-        when(topicDao.findByName(anyString())).thenReturn(Optional.empty());
-        when(topicDao.save(any(Topic.class))).thenAnswer(invocation -> {
-            Topic topic = invocation.getArgument(0);
-            topic.setId(System.currentTimeMillis());
-            return topic;
-        });
+        List<String> topicNames = Arrays.asList("topic1", "topic2", "topic3", "#topic1");
+        topicTable.put("topic2", testTopic);
+        testTopic.setName("topic2");
 
         // When
         List<Topic> result = topicService.processTopicsFromInput(topicNames, testUser);
 
-        // Then
+        // Then: 1 query cho cả lô, 1 insert cho tất cả hashtag mới, 1 query lấy hashtag vừa tạo
         assertNotNull(result);
-        assertEquals(3, result.size());
-        verify(topicDao, times(3)).findByName(anyString());
-        verify(topicDao, times(3)).save(any(Topic.class));
+        assertEquals(List.of("topic1", "topic2", "topic3"), result.stream().map(Topic::getName).toList());
+        verify(topicDao, times(2)).findByNameIn(anyCollection());
+        verify(topicDao, times(1)).insertAllIfAbsent(List.of("topic1", "topic3"), testUser.getId());
+        verify(topicDao, never()).save(any(Topic.class));
     }
 
     @Test
@@ -154,8 +207,8 @@ class TopicServiceImplTest {
         // Then
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(topicDao, never()).findByName(anyString());
-        verify(topicDao, never()).save(any(Topic.class));
+        verify(topicDao, never()).findByNameIn(anyCollection());
+        verify(topicDao, never()).insertAllIfAbsent(anyCollection(), any());
     }
 
     @Test
@@ -166,20 +219,14 @@ class TopicServiceImplTest {
         // Then
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(topicDao, never()).findByName(anyString());
-        verify(topicDao, never()).save(any(Topic.class));
+        verify(topicDao, never()).findByNameIn(anyCollection());
+        verify(topicDao, never()).insertAllIfAbsent(anyCollection(), any());
     }
 
     @Test
     void processTopicsFromInput_WithNullAndEmptyNames_ShouldFilterThem() {
         // Given
         List<String> topicNames = Arrays.asList("valid_topic", null, "", "  ", "another_valid");
-        when(topicDao.findByName(anyString())).thenReturn(Optional.empty());
-        when(topicDao.save(any(Topic.class))).thenAnswer(invocation -> {
-            Topic topic = invocation.getArgument(0);
-            topic.setId(System.currentTimeMillis());
-            return topic;
-        });
 
         // When
         List<Topic> result = topicService.processTopicsFromInput(topicNames, testUser);
@@ -187,8 +234,7 @@ class TopicServiceImplTest {
         // Then
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(topicDao, times(2)).findByName(anyString());
-        verify(topicDao, times(2)).save(any(Topic.class));
+        verify(topicDao, times(1)).insertAllIfAbsent(List.of("valid_topic", "another_valid"), testUser.getId());
     }
 
     @Test
@@ -222,99 +268,72 @@ class TopicServiceImplTest {
     }
 
     @Test
-    void incrementUsageCount_WhenUsageCountIsNull_ShouldSetToOne() {
+    void incrementUsageCount_ShouldNotSaveEntityAndFlushOneBatch() {
         // Given
-        Topic topic = new Topic();
-        topic.setId(1L);
-        topic.setName("test_topic");
-        topic.setUsageCount(null);
-        when(topicDao.save(any(Topic.class))).thenReturn(topic);
+        Topic other = new Topic("other");
+        other.setId(2L);
 
         // When
-        topicService.incrementUsageCount(topic);
+        topicService.incrementUsageCount(testTopic);
+        topicService.incrementUsageCount(testTopic);
+        topicService.incrementUsageCount(other);
+        int flushed = topicService.flushUsageCounts();
 
         // Then
-        assertEquals(1, topic.getUsageCount());
-        verify(topicDao).save(topic);
-    }
-
-    @Test
-    void incrementUsageCount_WhenUsageCountExists_ShouldIncrementByOne() {
-        // Given
-        Topic topic = new Topic();
-        topic.setId(1L);
-        topic.setName("test_topic");
-        topic.setUsageCount(5);
-        when(topicDao.save(any(Topic.class))).thenReturn(topic);
-
-        // When
-        topicService.incrementUsageCount(topic);
-
-        // Then
-        assertEquals(6, topic.getUsageCount());
-        verify(topicDao).save(topic);
+        assertEquals(2, flushed);
+        verify(topicDao, never()).save(any(Topic.class));
+        verify(jdbcTemplate).batchUpdate(eq(TopicServiceImpl.FLUSH_USAGE_SQL), argThat((List<Object[]> args) ->
+                args.size() == 2
+                        && Arrays.equals(args.get(0), new Object[]{2L, 1L})
+                        && Arrays.equals(args.get(1), new Object[]{1L, 2L})));
     }
 
     @Test
-    void decrementUsageCount_WhenUsageCountIsNull_ShouldNotChange() {
-        // Given
-        Topic topic = new Topic();
-        topic.setId(1L);
-        topic.setName("test_topic");
-        topic.setUsageCount(null);
-
+    void decrementUsageCount_WhenCancelledByIncrement_ShouldNotTouchDatabase() {
         // When
-        topicService.decrementUsageCount(topic);
+        topicService.incrementUsageCount(testTopic);
+        topicService.decrementUsageCount(testTopic);
 
         // Then
-        assertNull(topic.getUsageCount());
-        verify(topicDao, never()).save(any(Topic.class));
+        assertEquals(0, topicService.flushUsageCounts());
+        verifyNoInteractions(jdbcTemplate);
     }
 
     @Test
-    void decrementUsageCount_WhenUsageCountIsZero_ShouldNotChange() {
+    void updateUsageCounts_ShouldOnlyChangeAddedAndRemovedTopics() {
         // Given
-        Topic topic = new Topic();
-        topic.setId(1L);
-        topic.setName("test_topic");
-        topic.setUsageCount(0);
+        Topic kept = new Topic("kept");
+        kept.setId(2L);
+        Topic added = new Topic("added");
+        added.setId(3L);
 
         // When
-        topicService.decrementUsageCount(topic);
+        topicService.updateUsageCounts(Set.of(testTopic, kept), Set.of(kept, added));
+        topicService.flushUsageCounts();
 
         // Then
-        assertEquals(0, topic.getUsageCount());
-        verify(topicDao, never()).save(any(Topic.class));
+        verify(jdbcTemplate).batchUpdate(eq(TopicServiceImpl.FLUSH_USAGE_SQL), argThat((List<Object[]> args) ->
+                args.size() == 2
+                        && Arrays.equals(args.get(0), new Object[]{-1L, 1L})
+                        && Arrays.equals(args.get(1), new Object[]{1L, 3L})));
     }
 
     @Test
-    void decrementUsageCount_WhenUsageCountIsPositive_ShouldDecrementByOne() {
+    void flushUsageCounts_WhenDatabaseFails_ShouldKeepDeltas() {
         // Given
-        Topic topic = new Topic();
-        topic.setId(1L);
-        topic.setName("test_topic");
-        topic.setUsageCount(5);
-        when(topicDao.save(any(Topic.class))).thenReturn(topic);
-
-        // When
-        topicService.decrementUsageCount(topic);
-
-        // Then
-        assertEquals(4, topic.getUsageCount());
-        verify(topicDao).save(topic);
+        when(jdbcTemplate.batchUpdate(eq(TopicServiceImpl.FLUSH_USAGE_SQL), anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[]{1});
+        topicService.incrementUsageCount(testTopic);
+
+        // When / Then
+        assertEquals(0, topicService.flushUsageCounts());
+        assertEquals(1, topicService.flushUsageCounts());
     }
 
     @Test
     void cleanHashtagName_WithNullInput_ShouldReturnEmptyString() {
         // This tests the private method indirectly through findOrCreateTopic
-        // Given
-        when(topicDao.findByName("")).thenReturn(Optional.empty());
-        when(topicDao.save(any(Topic.class))).thenAnswer(invocation -> {
-            Topic topic = invocation.getArgument(0);
-            topic.setId(1L);
-            return topic;
-        });
-
         // When
         Topic result = topicService.findOrCreateTopic(null, testUser);
 
@@ -325,14 +344,6 @@ class TopicServiceImplTest {
 
     @Test
     void cleanHashtagName_WithEmptyInput_ShouldReturnEmptyString() {
-        // Given
-        when(topicDao.findByName("")).thenReturn(Optional.empty());
-        when(topicDao.save(any(Topic.class))).thenAnswer(invocation -> {
-            Topic topic = invocation.getArgument(0);
-            topic.setId(1L);
-            return topic;
-        });
-
         // When
         Topic result = topicService.findOrCreateTopic("   ", testUser);
 
@@ -345,12 +356,6 @@ class TopicServiceImplTest {
     void cleanHashtagName_WithVietnameseCharacters_ShouldPreserveThem() {
         // Given
         String topicName = "chủ_đề_tiếng_việt";
-        when(topicDao.findByName(topicName)).thenReturn(Optional.empty());
-        when(topicDao.save(any(Topic.class))).thenAnswer(invocation -> {
-            Topic topic = invocation.getArgument(0);
-            topic.setId(1L);
-            return topic;
-        });
 
         // When
         Topic result = topicService.findOrCreateTopic(topicName, testUser);
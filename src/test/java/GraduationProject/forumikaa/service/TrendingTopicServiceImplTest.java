@@ -0,0 +1,207 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.dto.TrendingTopicResponse;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.service.TrendingTopicService.Signal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingTopicServiceImplTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @Mock
+    private PostDao postDao;
+
+    @InjectMocks
+    private TrendingTopicServiceImpl trendingTopicService;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trendingTopicService, "halfLife", Duration.ofHours(6));
+        ReflectionTestUtils.setField(trendingTopicService, "window", Duration.ofDays(7));
+        ReflectionTestUtils.setField(trendingTopicService, "topK", 3);
+        ReflectionTestUtils.setField(trendingTopicService, "maxTracked", 100);
+        ReflectionTestUtils.setField(trendingTopicService, "postWeight", 3.0);
+        ReflectionTestUtils.setField(trendingTopicService, "shareWeight", 2.0);
+        ReflectionTestUtils.setField(trendingTopicService, "commentWeight", 1.0);
+        ReflectionTestUtils.setField(trendingTopicService, "likeWeight", 0.5);
+        trendingTopicService.clock = now::get;
+        trendingTopicService.init();
+    }
+
+    private Post post(Long id, Topic... topics) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTopics(new HashSet<>(Set.of(topics)));
+        return post;
+    }
+
+    private Topic topic(Long id, String name) {
+        Topic topic = new Topic();
+        topic.setId(id);
+        topic.setName(name);
+        return topic;
+    }
+
+    private List<String> names(List<TrendingTopicResponse> topics) {
+        List<String> names = new ArrayList<>();
+        topics.forEach(topic -> names.add(topic.getName()));
+        return names;
+    }
+
+    @Test
+    void recentActivity_ShouldOutrankOlderActivityWithMoreEvents() {
+        Topic old = topic(1L, "cu");
+        Topic fresh = topic(2L, "moi");
+        for (long i = 0; i < 3; i++) {
+            trendingTopicService.record(post(i, old), Signal.POST);
+        }
+        now.addAndGet(24 * HOUR); // 4 half-life: 3 bài cũ chỉ còn tương đương ~0.19 bài
+        trendingTopicService.record(post(10L, fresh), Signal.POST);
+
+        List<TrendingTopicResponse> trending = trendingTopicService.getTrendingTopics(10);
+
+        assertEquals(List.of("moi", "cu"), names(trending));
+        assertEquals(3.0, trending.get(0).getScore(), 1e-9);
+        assertEquals(3 * 3.0 / 16, trending.get(1).getScore(), 1e-9);
+        assertEquals(1, trending.get(0).getRecentPosts());
+    }
+
+    @Test
+    void topK_ShouldStayBoundedAndAdmitRisingTopic() {
+        for (long id = 1; id <= 5; id++) {
+            Topic topic = topic(id, "t" + id);
+            for (long i = 0; i < id; i++) {
+                trendingTopicService.record(post(id * 100 + i, topic), Signal.POST);
+            }
+        }
+        assertEquals(List.of("t5", "t4", "t3"), names(trendingTopicService.getTrendingTopics(10)));
+
+        // t1 có nhiều comment -> vượt lên đầu, t3 rơi khỏi top-K
+        Topic t1 = topic(1L, "t1");
+        trendingTopicService.record(post(100L, t1), Signal.POST);
+        for (int i = 0; i < 20; i++) {
+            trendingTopicService.record(post(100L, t1), Signal.COMMENT);
+        }
+        assertEquals(List.of("t1", "t5", "t4"), names(trendingTopicService.getTrendingTopics(10)));
+        assertEquals(List.of("t1", "t5"), names(trendingTopicService.getTrendingTopics(2)));
+    }
+
+    @Test
+    void recordByPostId_ShouldLookUpTopicsOnceThenUseCache() {
+        List<Object[]> refs = new ArrayList<>();
+        refs.add(new Object[]{7L, "java"});
+        when(postDao.findTopicRefsByPostId(42L)).thenReturn(refs);
+
+        trendingTopicService.record(42L, Signal.LIKE);
+        trendingTopicService.record(42L, Signal.LIKE);
+        trendingTopicService.record(42L, Signal.COMMENT);
+
+        verify(postDao, times(1)).findTopicRefsByPostId(42L);
+        TrendingTopicResponse java = trendingTopicService.getTrendingTopics(1).get(0);
+        assertEquals("java", java.getName());
+        assertEquals(2.0, java.getScore(), 1e-9);
+        assertEquals(0, java.getRecentPosts());
+    }
+
+    @Test
+    void invalidatePost_ShouldReloadEditedHashtags() {
+        List<Object[]> before = new ArrayList<>();
+        before.add(new Object[]{7L, "java"});
+        List<Object[]> after = new ArrayList<>();
+        after.add(new Object[]{8L, "spring"});
+        when(postDao.findTopicRefsByPostId(42L)).thenReturn(before, after);
+
+        trendingTopicService.record(42L, Signal.COMMENT);
+        trendingTopicService.invalidatePost(42L);
+        trendingTopicService.record(42L, Signal.COMMENT);
+        trendingTopicService.record(42L, Signal.COMMENT);
+
+        verify(postDao, times(2)).findTopicRefsByPostId(42L);
+        assertEquals(List.of("spring", "java"), names(trendingTopicService.getTrendingTopics(10)));
+    }
+
+    @Test
+    void invalidatePost_DuringLookup_ShouldNotCacheStaleHashtags() {
+        List<Object[]> stale = new ArrayList<>();
+        stale.add(new Object[]{7L, "java"});
+        List<Object[]> fresh = new ArrayList<>();
+        fresh.add(new Object[]{8L, "spring"});
+        // Bài viết được sửa hashtag trong lúc query hashtag cũ đang chạy
+        when(postDao.findTopicRefsByPostId(42L)).thenAnswer(invocation -> {
+            trendingTopicService.invalidatePost(42L);
+            return stale;
+        }).thenReturn(fresh);
+
+        trendingTopicService.record(42L, Signal.COMMENT);
+        trendingTopicService.record(42L, Signal.COMMENT);
+        trendingTopicService.record(42L, Signal.COMMENT);
+
+        verify(postDao, times(2)).findTopicRefsByPostId(42L);
+        assertEquals(List.of("spring", "java"), names(trendingTopicService.getTrendingTopics(10)));
+    }
+
+    @Test
+    void maintain_ShouldDropTopicsOutsideWindowAndRescaleScores() {
+        trendingTopicService.record(post(1L, topic(1L, "cu")), Signal.POST);
+        now.addAndGet(9 * 24 * HOUR);
+        trendingTopicService.record(post(2L, topic(2L, "moi")), Signal.POST);
+
+        // Ngoài window: không trả về ngay cả trước khi maintain chạy
+        assertEquals(List.of("moi"), names(trendingTopicService.getTrendingTopics(10)));
+
+        trendingTopicService.maintain();
+
+        assertEquals(1, trendingTopicService.getStats().get("trackedTopics"));
+        // 36 half-life đã trôi qua -> landmark được dời, điểm hiện tại không đổi
+        assertEquals(3.0, trendingTopicService.getTrendingTopics(10).get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void warmUp_ShouldSeedFromRecentPostsAndIgnoreDatabaseErrors() {
+        LocalDateTime twelveHoursAgo = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(now.get() - 12 * HOUR), ZoneId.systemDefault());
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "java", twelveHoursAgo});
+        rows.add(new Object[]{1L, "java", twelveHoursAgo});
+        rows.add(new Object[]{2L, "spring", twelveHoursAgo});
+        when(postDao.findTopicActivitySince(any())).thenReturn(rows);
+
+        trendingTopicService.warmUp();
+
+        List<TrendingTopicResponse> trending = trendingTopicService.getTrendingTopics(10);
+        assertEquals(List.of("java", "spring"), names(trending));
+        assertEquals(2 * 3.0 / 4, trending.get(0).getScore(), 1e-9);
+
+        reset(postDao);
+        when(postDao.findTopicActivitySince(any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        assertDoesNotThrow(() -> trendingTopicService.warmUp());
+    }
+}
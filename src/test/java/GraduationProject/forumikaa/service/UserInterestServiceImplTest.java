@@ -0,0 +1,169 @@
+package GraduationProject.forumikaa.service;
+
+import GraduationProject.forumikaa.dao.PostDao;
+import GraduationProject.forumikaa.entity.Post;
+import GraduationProject.forumikaa.entity.Topic;
+import GraduationProject.forumikaa.entity.User;
+import GraduationProject.forumikaa.service.UserInterestService.Signal;
+import GraduationProject.forumikaa.util.TopicInterestIndex.SimilarUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserInterestServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private PostDao postDao;
+
+    @Mock
+    private FriendGraphService friendGraphService;
+
+    @InjectMocks
+    private UserInterestServiceImpl userInterestService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(userInterestService, "authoredWeight", 3.0);
+        ReflectionTestUtils.setField(userInterestService, "commentedWeight", 2.0);
+        ReflectionTestUtils.setField(userInterestService, "likedWeight", 1.0);
+        ReflectionTestUtils.setField(userInterestService, "maxScanned", 20_000);
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void findSimilarUsers_ShouldRankByCosineAndSkipFriendsAndUnrelatedUsers() {
+        userInterestService.record(post(100L, 1L, 1L, 2L), Signal.AUTHORED, 1);
+        userInterestService.record(post(200L, 2L, 1L, 2L), Signal.AUTHORED, 1);
+        userInterestService.record(post(300L, 3L, 1L), Signal.AUTHORED, 1);
+        when(postDao.findTopicRefsByPostId(900L)).thenReturn(List.<Object[]>of(new Object[]{3L, "java"}));
+        userInterestService.record(3L, 900L, Signal.LIKED, 1);
+        userInterestService.record(post(400L, 4L, 1L, 2L), Signal.AUTHORED, 1);
+        userInterestService.record(post(500L, 5L, 9L), Signal.AUTHORED, 1);
+        when(friendGraphService.getFriendIds(1L)).thenReturn(new long[]{4L});
+
+        List<SimilarUser> similar = userInterestService.findSimilarUsers(1L, 10);
+
+        assertEquals(List.of(2L, 3L), similar.stream().map(SimilarUser::getUserId).collect(Collectors.toList()));
+        assertEquals(1.0, similar.get(0).getScore(), 1e-9);
+        assertEquals(9.0 / (Math.sqrt(18) * Math.sqrt(10)), similar.get(1).getScore(), 1e-9);
+        assertEquals(Set.of(1L, 2L), new HashSet<>(similar.get(0).getCommonTopicIds()));
+        assertEquals(List.of(1L), similar.get(1).getCommonTopicIds());
+        assertEquals(1, userInterestService.findSimilarUsers(1L, 1).size());
+    }
+
+    @Test
+    void flush_ShouldUpsertSummedDeltasPerUserTopicInOrder() {
+        when(postDao.findTopicRefsByPostId(10L)).thenReturn(List.<Object[]>of(new Object[]{7L, "spring"}, new Object[]{5L, "java"}));
+        userInterestService.record(1L, 10L, Signal.LIKED, 1);
+        userInterestService.record(1L, 10L, Signal.COMMENTED, 1);
+        userInterestService.record(1L, 10L, Signal.LIKED, -1);
+        userInterestService.record(1L, 10L, Signal.COMMENTED, 1);
+
+        assertEquals(2, userInterestService.flush());
+
+        List<Object[]> batch = captureBatch();
+        assertEquals(2, batch.size());
+        assertEquals(List.of(1L, 5L, 0L, 0L, 2L), List.of(batch.get(0)).subList(0, 5));
+        assertEquals(List.of(1L, 7L, 0L, 0L, 2L), List.of(batch.get(1)).subList(0, 5));
+        assertEquals(4.0, userInterestService.getTopicWeights(1L).get(5L), 1e-9);
+        // Topic id của bài viết được cache sau lần tra đầu tiên
+        verify(postDao, times(1)).findTopicRefsByPostId(10L);
+
+        assertEquals(0, userInterestService.flush());
+    }
+
+    @Test
+    void onTopicsChanged_ShouldMoveAuthoredWeightAndRefreshPostTopics() {
+        Post original = post(10L, 1L, 5L, 6L);
+        userInterestService.record(original, Signal.AUTHORED, 1);
+        Post edited = post(10L, 1L, 6L, 7L);
+
+        userInterestService.onTopicsChanged(edited, original.getTopics());
+        userInterestService.record(2L, 10L, Signal.LIKED, 1);
+
+        assertEquals(0.0, userInterestService.getTopicWeights(1L).getOrDefault(5L, 0.0), 1e-9);
+        assertEquals(3.0, userInterestService.getTopicWeights(1L).get(6L), 1e-9);
+        assertEquals(3.0, userInterestService.getTopicWeights(1L).get(7L), 1e-9);
+        // Like sau khi sửa bài dùng hashtag mới từ cache, không tra lại database
+        assertEquals(Set.of(6L, 7L), userInterestService.getTopicWeights(2L).keySet());
+        verify(postDao, never()).findTopicRefsByPostId(anyLong());
+    }
+
+    @Test
+    void rebuild_ShouldFlushPendingAndReplayChangesMadeWhileLoading() throws Exception {
+        userInterestService.record(post(1L, 1L, 5L), Signal.AUTHORED, 1);
+        doAnswer(invocation -> {
+            // Bài viết được đăng khi query nạp bảng đang chạy (chưa có trong kết quả)
+            userInterestService.record(post(2L, 1L, 6L), Signal.AUTHORED, 1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(1L);
+            when(rs.getLong(2)).thenReturn(5L);
+            when(rs.getLong(3)).thenReturn(1L);
+            when(rs.getLong(4)).thenReturn(2L);
+            when(rs.getLong(5)).thenReturn(0L);
+            ((RowCallbackHandler) invocation.getArgument(1)).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(eq(UserInterestServiceImpl.LOAD_SQL), any(RowCallbackHandler.class));
+
+        userInterestService.rebuild();
+
+        assertEquals(1, captureBatch().size());
+        assertEquals(5.0, userInterestService.getTopicWeights(1L).get(5L), 1e-9);
+        assertEquals(3.0, userInterestService.getTopicWeights(1L).get(6L), 1e-9);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> captureBatch() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(UserInterestServiceImpl.UPSERT_SQL), captor.capture());
+        return captor.getValue();
+    }
+
+    private static Post post(Long id, Long authorId, Long... topicIds) {
+        User author = new User();
+        author.setId(authorId);
+        Set<Topic> topics = new HashSet<>();
+        for (Long topicId : topicIds) {
+            Topic topic = new Topic();
+            topic.setId(topicId);
+            topic.setName("topic-" + topicId);
+            topics.add(topic);
+        }
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(author);
+        post.setTopics(topics);
+        return post;
+    }
+}
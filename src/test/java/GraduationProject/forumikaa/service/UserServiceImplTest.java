@@ -35,6 +35,9 @@ class UserServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private SenderSnippetCacheService senderSnippetCacheService;
+
     @InjectMocks
     private UserServiceImpl userService;
 